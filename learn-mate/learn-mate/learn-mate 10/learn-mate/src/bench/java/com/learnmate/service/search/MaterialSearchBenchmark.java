@@ -0,0 +1,100 @@
+package com.learnmate.service.search;
+
+import com.learnmate.model.Material;
+import com.learnmate.model.Subject;
+import com.learnmate.service.strategy.SearchMaterialBySubjectStrategy;
+import com.learnmate.service.strategy.SearchMaterialByTitleStrategy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fuzzy trigram lookup and typeahead against the linear title and subject strategies over a
+ * synthetic catalogue.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MaterialSearchBenchmark {
+
+    private static final String[] SUBJECTS = {"Mathematics", "Chemistry", "Physics", "Biology", "History",
+            "Geography", "English Literature", "Computer Science", "Economics", "Accounting"};
+    private static final String[] TOPICS = {"algebra", "calculus", "organic", "kinetics", "genetics", "ecology",
+            "revolution", "climate", "poetry", "algorithms", "markets", "ledgers", "vectors", "optics", "cells"};
+    private static final String[] KINDS = {"notes", "worksheet", "past paper", "revision guide", "lab sheet", "slides"};
+
+    @Param({"10000", "100000"})
+    public int catalogueSize;
+
+    @Param({"mathmatics", "chemestry kinetics", "revison"})
+    public String query;
+
+    private List<Material> materials;
+    private TrigramIndex trigramIndex;
+    private SuggestionTrie suggestionTrie;
+    private final SearchMaterialByTitleStrategy titleStrategy = new SearchMaterialByTitleStrategy();
+    private final SearchMaterialBySubjectStrategy subjectStrategy = new SearchMaterialBySubjectStrategy();
+
+    @Setup
+    public void buildCatalogue() {
+        Random random = new Random(42);
+        List<Subject> subjects = new ArrayList<>();
+        for (int i = 0; i < SUBJECTS.length; i++) {
+            Subject subject = new Subject();
+            subject.setId((long) i);
+            subject.setName(SUBJECTS[i]);
+            subjects.add(subject);
+        }
+
+        materials = new ArrayList<>(catalogueSize);
+        trigramIndex = new TrigramIndex();
+        suggestionTrie = new SuggestionTrie();
+        for (long id = 0; id < catalogueSize; id++) {
+            Subject subject = subjects.get(random.nextInt(subjects.size()));
+            Material material = new Material();
+            material.setId(id);
+            material.setSubject(subject);
+            material.setTitle(subject.getName() + " " + TOPICS[random.nextInt(TOPICS.length)] + " "
+                    + KINDS[random.nextInt(KINDS.length)] + " " + (1 + random.nextInt(12)));
+            materials.add(material);
+            trigramIndex.add(id, material.getTitle() + " " + subject.getName());
+            suggestionTrie.add(id, List.of(material.getTitle().toLowerCase(), subject.getName().toLowerCase()), id);
+        }
+    }
+
+    @Benchmark
+    public List<Long> trigramFuzzy() {
+        return trigramIndex.search(query, 50);
+    }
+
+    @Benchmark
+    public List<Long> trieSuggest() {
+        return suggestionTrie.search(query.substring(0, 4), 8, id -> true);
+    }
+
+    @Benchmark
+    public List<Material> linearTitle() {
+        return titleStrategy.search(materials, query);
+    }
+
+    @Benchmark
+    public List<Material> linearSubject() {
+        return subjectStrategy.search(materials, query);
+    }
+}
@@ -0,0 +1,80 @@
+package com.learnmate.service.timetable;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to a clash-free week for 100 classes over 40 periods (5 days of 8), with 8 subjects
+ * per class, 120 teachers qualified for two subjects each and 130 rooms of mixed size.
+ * {@code lessonsPerSubject=5} fills every period of every class.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+@Fork(1)
+public class TimetableSolverBenchmark {
+
+    private static final int CLASSES = 100;
+    private static final int SUBJECTS = 8;
+    private static final int TEACHERS = 120;
+    private static final int ROOMS = 130;
+
+    @Param({"4", "5"})
+    public int lessonsPerSubject;
+
+    @Param({"1", "4"})
+    public int threads;
+
+    private TimetableProblem problem;
+    private long seed;
+
+    @Setup
+    public void buildProblem() {
+        Random random = new Random(42);
+        int[] classSizes = new int[CLASSES];
+        for (int c = 0; c < CLASSES; c++) {
+            classSizes[c] = 20 + random.nextInt(21);
+        }
+        int[] roomCapacities = new int[ROOMS];
+        for (int r = 0; r < ROOMS; r++) {
+            roomCapacities[r] = 25 + random.nextInt(21);
+        }
+        List<TimetableProblem.Course> courses = new ArrayList<>();
+        for (int c = 0; c < CLASSES; c++) {
+            for (int s = 0; s < SUBJECTS; s++) {
+                List<Integer> qualified = new ArrayList<>();
+                for (int t = 0; t < TEACHERS; t++) {
+                    if (t % SUBJECTS == s || (t + 3) % SUBJECTS == s) {
+                        qualified.add(t);
+                    }
+                }
+                courses.add(new TimetableProblem.Course(c, s, lessonsPerSubject,
+                        qualified.stream().mapToInt(Integer::intValue).toArray()));
+            }
+        }
+        problem = new TimetableProblem(5, 8, classSizes, roomCapacities, TEACHERS, courses);
+    }
+
+    @Benchmark
+    public TimetableSolution solve() {
+        return new TimetableSolver(threads, Duration.ofMinutes(1), seed++).solve(problem, progress -> {
+        });
+    }
+}
@@ -0,0 +1,68 @@
+package com.learnmate.config;
+
+import com.learnmate.service.storage.BlobStore;
+import com.learnmate.service.storage.FilesystemBlobStore;
+import com.learnmate.service.storage.S3BlobStore;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3ClientBuilder;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.net.URI;
+import java.nio.file.Paths;
+
+/**
+ * Selects where uploaded files live, via {@code storage.backend}: {@code filesystem}
+ * (default, single node or shared mount) or {@code s3} (any S3-compatible store).
+ */
+@Configuration
+public class BlobStoreConfig {
+
+    @Bean
+    @ConditionalOnProperty(name = "storage.backend", havingValue = "filesystem", matchIfMissing = true)
+    public BlobStore filesystemBlobStore(@Value("${storage.filesystem.root:./uploads}") String root) {
+        return new FilesystemBlobStore(Paths.get(root));
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "storage.backend", havingValue = "s3")
+    public BlobStore s3BlobStore(@Value("${storage.s3.endpoint:}") String endpoint,
+                                 @Value("${storage.s3.region:us-east-1}") String region,
+                                 @Value("${storage.s3.bucket}") String bucket,
+                                 @Value("${storage.s3.access-key:}") String accessKey,
+                                 @Value("${storage.s3.secret-key:}") String secretKey,
+                                 @Value("${storage.s3.path-style-access:true}") boolean pathStyleAccess) {
+        AwsCredentialsProvider credentials = StringUtils.hasText(accessKey)
+                ? StaticCredentialsProvider.create(AwsBasicCredentials.create(accessKey, secretKey))
+                : DefaultCredentialsProvider.create();
+        // MinIO and most self-hosted stores only understand http://host/bucket/key addressing
+        S3Configuration s3Configuration = S3Configuration.builder()
+                .pathStyleAccessEnabled(pathStyleAccess)
+                .build();
+
+        S3ClientBuilder clientBuilder = S3Client.builder()
+                .region(Region.of(region))
+                .credentialsProvider(credentials)
+                .serviceConfiguration(s3Configuration);
+        S3Presigner.Builder presignerBuilder = S3Presigner.builder()
+                .region(Region.of(region))
+                .credentialsProvider(credentials)
+                .serviceConfiguration(s3Configuration);
+        if (StringUtils.hasText(endpoint)) {
+            clientBuilder.endpointOverride(URI.create(endpoint));
+            presignerBuilder.endpointOverride(URI.create(endpoint));
+        }
+
+        return new S3BlobStore(clientBuilder.build(), presignerBuilder.build(), bucket);
+    }
+}
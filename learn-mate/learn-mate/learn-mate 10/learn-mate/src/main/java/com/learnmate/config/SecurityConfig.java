@@ -33,7 +33,9 @@ public class SecurityConfig {
                 .csrf(csrf -> csrf.disable())
                 .authorizeHttpRequests(auth -> auth
                         // Public access
-                        .requestMatchers("/", "/users/register", "/login", "/css/**", "/js/**", "/images/**", "/static/**", "/uploads/**").permitAll()
+                        .requestMatchers("/", "/users/register", "/login", "/css/**", "/js/**", "/images/**", "/static/**").permitAll()
+                        // Calendar feeds are authorized by the signed token in their URL
+                        .requestMatchers("/calendar/**").permitAll()
                         
                         // Dashboard access - role-specific
                         .requestMatchers("/dashboard/admin").hasRole("ADMIN")
@@ -45,6 +47,7 @@ public class SecurityConfig {
                         // Admin-only access
                         .requestMatchers("/users/create", "/users/edit/**", "/users/delete/**", "/users/list", "/users/search").hasRole("ADMIN")
                         .requestMatchers("/reports/**").hasRole("ADMIN")
+                        .requestMatchers("/actuator/**").hasRole("ADMIN")
                         .requestMatchers("/parent/reports/**").hasRole("PARENT")
                         
                         // Classes access - view for teachers, management for admin
@@ -0,0 +1,48 @@
+package com.learnmate.controller;
+
+import com.learnmate.service.calendar.CalendarFeedCache;
+import com.learnmate.service.calendar.CalendarFeedService;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+
+/**
+ * Subscribable calendar feeds. The token in the path stands in for a login, which calendar
+ * clients cannot do; a wrong token looks the same as a missing feed.
+ */
+@Controller
+@RequestMapping("/calendar")
+public class CalendarController {
+    private static final MediaType TEXT_CALENDAR = MediaType.parseMediaType("text/calendar;charset=UTF-8");
+
+    private final CalendarFeedService calendarFeedService;
+
+    public CalendarController(CalendarFeedService calendarFeedService) {
+        this.calendarFeedService = calendarFeedService;
+    }
+
+    @GetMapping("/{kind}/{id}/{token}.ics")
+    public ResponseEntity<byte[]> feed(@PathVariable String kind, @PathVariable Long id, @PathVariable String token) {
+        CalendarFeedCache.Kind feedKind = switch (kind) {
+            case "user" -> CalendarFeedCache.Kind.USER;
+            case "class" -> CalendarFeedCache.Kind.CLASS;
+            default -> null;
+        };
+        if (feedKind == null) {
+            return ResponseEntity.notFound().build();
+        }
+        // Spring answers 304 from the ETag and Last-Modified before the body is written
+        return calendarFeedService.getFeed(feedKind, id, token)
+                .map(feed -> ResponseEntity.ok()
+                        .contentType(TEXT_CALENDAR)
+                        .eTag(feed.etag())
+                        .lastModified(feed.lastModified())
+                        .cacheControl(CacheControl.noCache().cachePrivate())
+                        .body(feed.body()))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+}
@@ -1,8 +1,14 @@
 package com.learnmate.controller;
 
+import com.learnmate.dto.AdminMetrics;
+import com.learnmate.dto.ParentDashboard;
+import com.learnmate.dto.TeacherAgenda;
+import com.learnmate.model.Role;
 import com.learnmate.model.User;
+import com.learnmate.service.AdminMetricsService;
 import com.learnmate.service.DashboardService;
 import com.learnmate.service.NotificationService;
+import com.learnmate.service.TeacherAgendaService;
 import com.learnmate.service.UserService;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
@@ -27,11 +33,16 @@ public class DashboardController extends BaseController {
     private final DashboardService dashboardService;
     private final UserService userService;
     private final NotificationService notificationService;
+    private final TeacherAgendaService teacherAgendaService;
+    private final AdminMetricsService adminMetricsService;
 
-    public DashboardController(DashboardService dashboardService, UserService userService, NotificationService notificationService) {
+    public DashboardController(DashboardService dashboardService, UserService userService, NotificationService notificationService,
+                               TeacherAgendaService teacherAgendaService, AdminMetricsService adminMetricsService) {
         this.dashboardService = dashboardService;
         this.userService = userService;
         this.notificationService = notificationService;
+        this.teacherAgendaService = teacherAgendaService;
+        this.adminMetricsService = adminMetricsService;
     }
 
     /**
@@ -71,12 +82,13 @@ public class DashboardController extends BaseController {
     public String adminDashboard(Model model, Authentication authentication) {
         User currentUser = resolveCurrentUser(authentication);
         
-        // Add admin-specific data to model
-        model.addAttribute("totalUsers", 150); // Mock data - replace with service calls
-        model.addAttribute("activeStudents", 120);
-        model.addAttribute("totalTeachers", 25);
-        model.addAttribute("totalClasses", 15);
-        model.addAttribute("pendingFees", 8);
+        AdminMetrics metrics = adminMetricsService.getMetrics();
+        model.addAttribute("totalUsers", metrics.totalUsers());
+        model.addAttribute("activeStudents", metrics.users(Role.STUDENT, true));
+        model.addAttribute("totalTeachers", metrics.users(Role.TEACHER));
+        model.addAttribute("totalClasses", metrics.classes());
+        model.addAttribute("pendingFees", metrics.pendingFees());
+        model.addAttribute("metricsComputedAt", metrics.computedAt());
         
         // Add notification statistics
         model.addAttribute("totalNotifications", notificationService.getTotalNotificationCount());
@@ -92,12 +104,15 @@ public class DashboardController extends BaseController {
     @GetMapping("/teacher")
     @PreAuthorize("hasRole('TEACHER')")
     public String teacherDashboard(Model model, Authentication authentication) {
+        TeacherAgenda agenda = teacherAgendaService.getAgenda(resolveCurrentUser(authentication));
+
         // Add teacher-specific data to model
         model.addAttribute("totalStudents", 45); // Mock data - replace with service calls
-        model.addAttribute("todayClasses", 6);
-        model.addAttribute("pendingAttendance", 3);
+        model.addAttribute("agenda", agenda);
+        model.addAttribute("todayClasses", agenda.slots() != null ? agenda.slots().size() : null);
+        model.addAttribute("pendingAttendance", agenda.pendingAttendance());
         model.addAttribute("upcomingExams", 2);
-        model.addAttribute("ungraded", 12);
+        model.addAttribute("ungraded", agenda.ungraded());
         model.addAttribute("notifications", 4);
         
         return "dashboard/teacher_dashboard_new";
@@ -117,10 +132,11 @@ public class DashboardController extends BaseController {
         // Add student-specific data to model
         model.addAttribute("todayClasses", 4); // Mock data - replace with service calls
         model.addAttribute("upcomingExams", dashboardData.get("upcomingExams"));
+        model.addAttribute("nextExamDate", dashboardData.get("nextExamDate"));
         model.addAttribute("attendanceRate", dashboardData.get("attendanceRate"));
         model.addAttribute("lastNotification", dashboardData.get("lastNotification"));
         model.addAttribute("pendingAssignments", 3);
-        model.addAttribute("notifications", 2);
+        model.addAttribute("notifications", dashboardData.get("unreadNotifications"));
         
         return "dashboard/student_dashboard_new";
     }
@@ -136,13 +152,15 @@ public class DashboardController extends BaseController {
         // Get real data from DashboardService
         Map<String, Object> dashboardData = dashboardService.getParentDashboard(currentUser);
         
-        // Add parent-specific data to model
-        model.addAttribute("overallGrade", "A"); // Mock data - replace with service calls
+        ParentDashboard children = (ParentDashboard) dashboardData.get("children");
+        Double averageScore = children.averageScore();
+        model.addAttribute("children", children.children());
+        model.addAttribute("recentMarks", children.recentMarks());
+        model.addAttribute("overallGrade", averageScore != null ? String.format("%.0f%%", averageScore) : "-");
         model.addAttribute("attendanceRate", dashboardData.get("attendanceRate"));
-        model.addAttribute("feeStatus", "Paid");
+        model.addAttribute("feeStatus", children.pendingFees() == 0 ? "Paid"
+                : String.format("%d pending (%.2f)", children.pendingFees(), children.pendingAmount()));
         model.addAttribute("upcomingExams", dashboardData.get("upcomingExams"));
-        model.addAttribute("classRank", "5th");
-        model.addAttribute("classTeacher", "Ms. Johnson");
         model.addAttribute("lastNotification", dashboardData.get("lastNotification"));
         
         return "dashboard/parent_dashboard";
@@ -1,5 +1,6 @@
 package com.learnmate.controller;
 
+import com.learnmate.dto.GradeEntry;
 import com.learnmate.model.AnswerSheet;
 import com.learnmate.model.Exam;
 import com.learnmate.model.Mark;
@@ -9,16 +10,20 @@ import com.learnmate.model.User;
 import com.learnmate.model.SchoolClass;
 import com.learnmate.service.AnswerSheetService;
 import com.learnmate.service.ExamService;
+import com.learnmate.service.ExamStatisticsService;
 import com.learnmate.service.FileStorageService;
 import com.learnmate.service.MarkService;
 import com.learnmate.service.NotificationService;
+import com.learnmate.service.PreviewService;
 import com.learnmate.service.SchoolClassService;
 import com.learnmate.service.SubjectService;
 import com.learnmate.service.UserService;
+import com.learnmate.service.grading.BulkGradingService;
 
 import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -31,10 +36,11 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
-import java.nio.file.Path;
+import java.net.URI;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 @Controller
 @RequestMapping("/exams")
@@ -47,11 +53,15 @@ public class ExamController extends BaseController {
     private final AnswerSheetService answerSheetService;
     private final MarkService markService;
     private final NotificationService notificationService;
+    private final PreviewService previewService;
+    private final ExamStatisticsService examStatisticsService;
+    private final BulkGradingService bulkGradingService;
 
     public ExamController(ExamService examService, SubjectService subjectService, UserService userService,
                          FileStorageService fileStorageService, SchoolClassService schoolClassService,
                          AnswerSheetService answerSheetService, MarkService markService,
-                         NotificationService notificationService) {
+                         NotificationService notificationService, PreviewService previewService,
+                         ExamStatisticsService examStatisticsService, BulkGradingService bulkGradingService) {
         this.examService = examService;
         this.subjectService = subjectService;
         this.userService = userService;
@@ -60,6 +70,9 @@ public class ExamController extends BaseController {
         this.answerSheetService = answerSheetService;
         this.markService = markService;
         this.notificationService = notificationService;
+        this.previewService = previewService;
+        this.examStatisticsService = examStatisticsService;
+        this.bulkGradingService = bulkGradingService;
     }
 
     @GetMapping("/list")
@@ -389,24 +402,38 @@ public class ExamController extends BaseController {
                 return ResponseEntity.notFound().build();
             }
             
-            Path filePath = fileStorageService.getFileStorageLocationPublic(FileStorageService.FileType.EXAM)
-                    .resolve(exam.getFilePath()).normalize();
-            Resource resource = new UrlResource(filePath.toUri());
-            
-            if (resource.exists() && resource.isReadable()) {
-                return ResponseEntity.ok()
-                        .contentType(MediaType.APPLICATION_PDF)
-                        .header(HttpHeaders.CONTENT_DISPOSITION, 
-                                "attachment; filename=\"exam_" + exam.getId() + "_" + exam.getSubject().getName() + ".pdf\"")
-                        .body(resource);
-            } else {
-                return ResponseEntity.notFound().build();
+            String downloadName = "exam_" + exam.getId() + "_" + exam.getSubject().getName() + ".pdf";
+            Optional<URI> presignedUrl = fileStorageService.presignedDownloadUrl(exam.getFilePath(),
+                    FileStorageService.FileType.EXAM, downloadName, MediaType.APPLICATION_PDF_VALUE);
+            if (presignedUrl.isPresent()) {
+                return ResponseEntity.status(HttpStatus.FOUND).location(presignedUrl.get()).build();
             }
+
+            return fileStorageService.loadAsResource(exam.getFilePath(), FileStorageService.FileType.EXAM)
+                    .map(resource -> ResponseEntity.ok()
+                            .contentType(resource.getContentType() != null
+                                    ? MediaType.parseMediaType(resource.getContentType()) : MediaType.APPLICATION_PDF)
+                            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + downloadName + "\"")
+                            .body((Resource) resource))
+                    .orElseGet(() -> ResponseEntity.notFound().build());
         } catch (Exception e) {
             return ResponseEntity.internalServerError().build();
         }
     }
 
+    @GetMapping("/thumbnail/{id}")
+    @PreAuthorize("hasAnyRole('TEACHER', 'STUDENT', 'PARENT', 'ADMIN')")
+    public ResponseEntity<Resource> examThumbnail(@PathVariable Long id) {
+        return examService.getExamById(id)
+                .flatMap(exam -> previewService.getThumbnail(exam.getFilePath(), FileStorageService.FileType.EXAM))
+                .map(thumbnail -> ResponseEntity.ok()
+                        .contentType(MediaType.IMAGE_PNG)
+                        // Thumbnail URLs carry the stored file name, so a replaced paper gets a new URL
+                        .cacheControl(CacheControl.maxAge(365, TimeUnit.DAYS).cachePrivate().immutable())
+                        .body(thumbnail))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
     @GetMapping("/download-answer/{id}")
     @PreAuthorize("hasAnyRole('TEACHER', 'STUDENT', 'PARENT', 'ADMIN')")
     public ResponseEntity<Resource> downloadAnswerSheet(@PathVariable Long id) {
@@ -417,19 +444,20 @@ public class ExamController extends BaseController {
                 return ResponseEntity.notFound().build();
             }
             
-            Path filePath = fileStorageService.getFileStorageLocationPublic(FileStorageService.FileType.ANSWER_SHEET)
-                    .resolve(answerSheet.getFilePath()).normalize();
-            Resource resource = new UrlResource(filePath.toUri());
-            
-            if (resource.exists() && resource.isReadable()) {
-                return ResponseEntity.ok()
-                        .contentType(MediaType.APPLICATION_PDF)
-                        .header(HttpHeaders.CONTENT_DISPOSITION, 
-                                "attachment; filename=\"answer_" + answerSheet.getId() + "_" + answerSheet.getStudent().getName() + ".pdf\"")
-                        .body(resource);
-            } else {
-                return ResponseEntity.notFound().build();
+            String downloadName = "answer_" + answerSheet.getId() + "_" + answerSheet.getStudent().getName() + ".pdf";
+            Optional<URI> presignedUrl = fileStorageService.presignedDownloadUrl(answerSheet.getFilePath(),
+                    FileStorageService.FileType.ANSWER_SHEET, downloadName, MediaType.APPLICATION_PDF_VALUE);
+            if (presignedUrl.isPresent()) {
+                return ResponseEntity.status(HttpStatus.FOUND).location(presignedUrl.get()).build();
             }
+
+            return fileStorageService.loadAsResource(answerSheet.getFilePath(), FileStorageService.FileType.ANSWER_SHEET)
+                    .map(resource -> ResponseEntity.ok()
+                            .contentType(resource.getContentType() != null
+                                    ? MediaType.parseMediaType(resource.getContentType()) : MediaType.APPLICATION_PDF)
+                            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + downloadName + "\"")
+                            .body((Resource) resource))
+                    .orElseGet(() -> ResponseEntity.notFound().build());
         } catch (Exception e) {
             return ResponseEntity.internalServerError().build();
         }
@@ -556,6 +584,7 @@ public class ExamController extends BaseController {
             model.addAttribute("students", students);
             model.addAttribute("answerSheets", answerSheets);
             model.addAttribute("existingMarks", existingMarks);
+            model.addAttribute("examStatistics", examStatisticsService.getStatistics(exam));
             return "exams/review-answers";
         } catch (Exception e) {
             System.out.println("Error in reviewAnswers: " + e.getMessage());
@@ -634,9 +663,9 @@ public class ExamController extends BaseController {
                 .filter(student -> student.getSubjects().contains(exam.getSubject()))
                 .collect(java.util.stream.Collectors.toList());
             
-            int gradedCount = 0;
+            List<GradeEntry> grades = new java.util.ArrayList<>();
             
-            // Process grades for each student
+            // Collect the grades for each student
             for (User student : students) {
                 String scoreKey = "score_" + student.getId();
                 String commentsKey = "comments_" + student.getId();
@@ -647,35 +676,7 @@ public class ExamController extends BaseController {
                     try {
                         int score = Integer.parseInt(scoreValue);
                         if (score >= 0 && score <= exam.getMaxMarks()) {
-                            // Get or create answer sheet
-                            AnswerSheet answerSheet = answerSheetService.getAnswerSheetByExamAndStudent(exam, student)
-                                .orElse(null);
-                            
-                            if (answerSheet != null) {
-                                // Update answer sheet
-                                answerSheet.setStatus("GRADED");
-                                answerSheet.setComments(commentsValue);
-                                answerSheetService.updateAnswerSheet(answerSheet);
-                            }
-                            
-                            // Create or update mark record
-                            Mark existingMark = markService.getMarkByExamAndStudent(exam, student).orElse(null);
-                            if (existingMark != null) {
-                                // Update existing mark
-                                existingMark.setScore(score);
-                                existingMark.setPublished(true);
-                                markService.updateMark(existingMark);
-                            } else {
-                                // Create new mark
-                                Mark mark = new Mark();
-                                mark.setExam(exam);
-                                mark.setStudent(student);
-                                mark.setScore(score);
-                                mark.setPublished(true);
-                                markService.createMark(mark);
-                            }
-                            
-                            gradedCount++;
+                            grades.add(new GradeEntry(student.getId(), score, commentsValue));
                         }
                     } catch (NumberFormatException e) {
                         // Skip invalid scores
@@ -683,6 +684,8 @@ public class ExamController extends BaseController {
                 }
             }
             
+            int gradedCount = bulkGradingService.grade(exam, grades).graded();
+            
             // Send notification to students about marks being published
             // if (gradedCount > 0 && exam.getSchoolClass() != null && exam.getSubject() != null) {
             //     notificationService.notifyMarksSubmitted(
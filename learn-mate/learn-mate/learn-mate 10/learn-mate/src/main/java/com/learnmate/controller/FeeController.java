@@ -6,11 +6,18 @@ import com.learnmate.model.SchoolClass;
 import com.learnmate.model.Subject;
 import com.learnmate.model.User;
 import com.learnmate.service.FeeService;
+import com.learnmate.service.FileStorageService;
 import com.learnmate.service.SchoolClassService;
 import com.learnmate.service.SubjectService;
 import com.learnmate.service.UserService;
 import jakarta.validation.Valid;
 
+import org.springframework.core.io.Resource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -18,7 +25,9 @@ import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import java.net.URI;
 import java.util.List;
+import java.util.Optional;
 
 @Controller
 @RequestMapping("/fees")
@@ -27,12 +36,15 @@ public class FeeController {
     private final UserService userService;
     private final SubjectService subjectService;
     private final SchoolClassService schoolClassService;
+    private final FileStorageService fileStorageService;
 
-    public FeeController(FeeService feeService, UserService userService, SubjectService subjectService, SchoolClassService schoolClassService) {
+    public FeeController(FeeService feeService, UserService userService, SubjectService subjectService, SchoolClassService schoolClassService,
+                         FileStorageService fileStorageService) {
         this.feeService = feeService;
         this.userService = userService;
         this.subjectService = subjectService;
         this.schoolClassService = schoolClassService;
+        this.fileStorageService = fileStorageService;
     }
 
     @GetMapping("/list")
@@ -56,6 +68,40 @@ public class FeeController {
         return "fees/list";
     }
 
+    @GetMapping("/slip/{id}")
+    @PreAuthorize("hasAnyRole('ADMIN', 'PARENT', 'STUDENT')")
+    public ResponseEntity<Resource> viewPaymentSlip(@PathVariable Long id,
+                                                    @org.springframework.security.core.annotation.AuthenticationPrincipal org.springframework.security.core.userdetails.UserDetails userDetails) {
+        Fee fee = feeService.getFeeById(id).orElse(null);
+        if (fee == null || fee.getPaymentSlipPath() == null) {
+            return ResponseEntity.notFound().build();
+        }
+
+        User current = userService.getUserByUsername(userDetails.getUsername()).orElseThrow();
+        boolean allowed = current.getRole() == Role.ADMIN
+                || (current.getRole() == Role.PARENT && current.getChildren() != null && current.getChildren().contains(fee.getStudent()))
+                || (current.getRole() == Role.STUDENT && fee.getStudent() != null && current.getId().equals(fee.getStudent().getId()));
+        if (!allowed) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).build();
+        }
+
+        String slip = fee.getPaymentSlipPath();
+        MediaType contentType = MediaTypeFactory.getMediaType(slip).orElse(MediaType.APPLICATION_OCTET_STREAM);
+        Optional<URI> presignedUrl = fileStorageService.presignedDownloadUrl(slip, FileStorageService.FileType.PAYMENT_SLIP,
+                null, contentType.toString());
+        if (presignedUrl.isPresent()) {
+            return ResponseEntity.status(HttpStatus.FOUND).location(presignedUrl.get()).build();
+        }
+
+        return fileStorageService.loadAsResource(slip, FileStorageService.FileType.PAYMENT_SLIP)
+                .map(resource -> ResponseEntity.ok()
+                        .contentType(resource.getContentType() != null
+                                ? MediaType.parseMediaType(resource.getContentType()) : contentType)
+                        .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + slip + "\"")
+                        .body((Resource) resource))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
     @GetMapping("/create")
     @PreAuthorize("hasRole('ADMIN')")
     public String createFeeForm(Model model) {
@@ -1,5 +1,6 @@
 package com.learnmate.controller;
 
+import com.learnmate.dto.GradeEntry;
 import com.learnmate.model.AnswerSheet;
 import com.learnmate.model.Exam;
 import com.learnmate.model.Mark;
@@ -7,9 +8,11 @@ import com.learnmate.model.Role;
 import com.learnmate.model.User;
 import com.learnmate.service.AnswerSheetService;
 import com.learnmate.service.ExamService;
+import com.learnmate.service.ExamStatisticsService;
 import com.learnmate.service.MarkService;
 import com.learnmate.service.SubjectService;
 import com.learnmate.service.UserService;
+import com.learnmate.service.grading.BulkGradingService;
 import jakarta.validation.Valid;
 
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -21,6 +24,7 @@ import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -33,14 +37,19 @@ public class MarkController extends BaseController {
     private final UserService userService;
     private final SubjectService subjectService;
     private final AnswerSheetService answerSheetService;
+    private final ExamStatisticsService examStatisticsService;
+    private final BulkGradingService bulkGradingService;
 
     public MarkController(MarkService markService, ExamService examService, UserService userService, 
-                         SubjectService subjectService, AnswerSheetService answerSheetService) {
+                         SubjectService subjectService, AnswerSheetService answerSheetService,
+                         ExamStatisticsService examStatisticsService, BulkGradingService bulkGradingService) {
         this.markService = markService;
         this.examService = examService;
         this.userService = userService;
         this.subjectService = subjectService;
         this.answerSheetService = answerSheetService;
+        this.examStatisticsService = examStatisticsService;
+        this.bulkGradingService = bulkGradingService;
     }
 
     @GetMapping
@@ -278,6 +287,7 @@ public class MarkController extends BaseController {
                 model.addAttribute("students", students);
                 model.addAttribute("answerSheetMap", answerSheetMap);
                 model.addAttribute("markMap", markMap);
+                model.addAttribute("examStatistics", examStatisticsService.getStatistics(selectedExam));
             }
             
             return "marks/teacher_marks";
@@ -305,12 +315,10 @@ public class MarkController extends BaseController {
             List<User> students = userService.getUsersByRoleAndSchoolClassAndSubject(
                 Role.STUDENT, exam.getSchoolClass(), exam.getSubject());
 
-            int gradedCount = 0;
-
+            List<GradeEntry> grades = new ArrayList<>();
             for (User student : students) {
                 String scoreValue = allParams.get("score_" + student.getId());
                 String commentsValue = allParams.get("comments_" + student.getId());
-                String markIdValue = allParams.get("markId_" + student.getId());
 
                 if (scoreValue == null || scoreValue.trim().isEmpty()) {
                     continue;
@@ -321,52 +329,14 @@ public class MarkController extends BaseController {
                     if (score < 0 || (exam.getMaxMarks() != null && score > exam.getMaxMarks())) {
                         continue;
                     }
-
-                    AnswerSheet answerSheet = answerSheetService
-                        .getAnswerSheetByExamAndStudent(exam, student)
-                        .orElse(null);
-
-                    if (answerSheet != null) {
-                        answerSheet.setStatus("GRADED");
-                        answerSheet.setScore(score);
-                        answerSheet.setComments(commentsValue);
-                        answerSheetService.updateAnswerSheet(answerSheet);
-                    }
-
-                    Mark existingMark = null;
-                    if (markIdValue != null && !markIdValue.isBlank()) {
-                        try {
-                            Long markId = Long.parseLong(markIdValue);
-                            existingMark = markService.getMarkById(markId).orElse(null);
-                        } catch (NumberFormatException ignored) {
-                            existingMark = null;
-                        }
-                    }
-                    if (existingMark == null) {
-                        existingMark = markService.getMarkByExamAndStudent(exam, student).orElse(null);
-                    }
-
-                    if (existingMark != null) {
-                        existingMark.setScore(score);
-                        existingMark.setComments(commentsValue);
-                        existingMark.setPublished(true);
-                        markService.updateMark(existingMark);
-                    } else {
-                        Mark newMark = new Mark();
-                        newMark.setExam(exam);
-                        newMark.setStudent(student);
-                        newMark.setScore(score);
-                        newMark.setComments(commentsValue);
-                        newMark.setPublished(true);
-                        markService.createMark(newMark);
-                    }
-
-                    gradedCount++;
+                    grades.add(new GradeEntry(student.getId(), score, commentsValue));
                 } catch (NumberFormatException ignored) {
                     // Skip invalid numeric values while keeping other students' marks safe
                 }
             }
 
+            int gradedCount = bulkGradingService.grade(exam, grades).graded();
+
             redirectAttributes.addFlashAttribute("success",
                 "Successfully graded " + gradedCount + " student" + (gradedCount == 1 ? "" : "s"));
             return "redirect:/marks/teacher?examId=" + id;
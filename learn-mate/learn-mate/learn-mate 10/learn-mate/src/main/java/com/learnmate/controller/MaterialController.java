@@ -1,18 +1,28 @@
 package com.learnmate.controller;
 
+import com.learnmate.dto.MaterialFacetedSearchResult;
+import com.learnmate.dto.MaterialListItem;
+import com.learnmate.dto.MaterialSuggestion;
 import com.learnmate.model.Material;
-import com.learnmate.model.SchoolClass;
-import com.learnmate.model.Subject;
+import com.learnmate.model.Role;
 import com.learnmate.model.User;
+import com.learnmate.service.MaterialPopularityService;
 import com.learnmate.service.MaterialService;
+import com.learnmate.service.FileStorageService;
 import com.learnmate.service.NotificationService;
+import com.learnmate.service.PreviewService;
 import com.learnmate.service.SchoolClassService;
 import com.learnmate.service.SubjectService;
 import com.learnmate.service.UserService;
+import com.learnmate.service.search.MaterialFacetIndex;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
+import org.springframework.data.domain.Page;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -25,84 +35,47 @@ import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 
 import java.io.IOException;
-import java.nio.file.Path;
-import java.nio.file.Paths;
+import java.net.URI;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 @Controller
 @RequestMapping("/materials")
 public class MaterialController extends BaseController {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MaterialController.class);
+
     private final MaterialService materialService;
     private final SubjectService subjectService;
     private final SchoolClassService schoolClassService;
     private final UserService userService;
     private final NotificationService notificationService;
+    private final PreviewService previewService;
+    private final FileStorageService fileStorageService;
+    private final MaterialPopularityService materialPopularityService;
 
     public MaterialController(MaterialService materialService, SubjectService subjectService,
                              SchoolClassService schoolClassService, UserService userService,
-                             NotificationService notificationService) {
+                             NotificationService notificationService, PreviewService previewService,
+                             FileStorageService fileStorageService, MaterialPopularityService materialPopularityService) {
         this.materialService = materialService;
         this.subjectService = subjectService;
         this.schoolClassService = schoolClassService;
         this.userService = userService;
         this.notificationService = notificationService;
+        this.previewService = previewService;
+        this.fileStorageService = fileStorageService;
+        this.materialPopularityService = materialPopularityService;
     }
 
     @GetMapping("/list")
     @PreAuthorize("hasAnyRole('TEACHER', 'STUDENT', 'ADMIN')")
-    public String listMaterials(Model model, @AuthenticationPrincipal UserDetails userDetails) {
-        try {
-            System.out.println("=== Materials Controller Called ===");
-            User user = userService.getUserByUsername(userDetails.getUsername()).orElseThrow();
-            System.out.println("User: " + user.getUsername() + ", Role: " + user.getRole());
-            
-            List<Material> materials;
-            if (user.getRole().name().equals("STUDENT")) {
-                // Students see materials for their class AND subjects they're enrolled in
-                if (user.getSchoolClass() != null && user.getSubjects() != null && !user.getSubjects().isEmpty()) {
-                    System.out.println("Student class: " + user.getSchoolClass().getName());
-                    System.out.println("Student subjects: " + user.getSubjects().stream().map(Subject::getName).toList());
-                    try {
-                        materials = materialService.getMaterialsByClassAndSubjects(user.getSchoolClass(), user.getSubjects());
-                    } catch (Exception e) {
-                        System.out.println("Error filtering by subjects, falling back to class only: " + e.getMessage());
-                        materials = materialService.getMaterialsByClass(user.getSchoolClass());
-                    }
-                } else {
-                    // If student has no class or subjects assigned, show empty list with message
-                    System.out.println("Student has no class or subjects assigned");
-                    materials = java.util.Collections.emptyList();
-                    if (user.getSchoolClass() == null) {
-                        model.addAttribute("error", "No class assigned. Please contact your administrator.");
-                    } else {
-                        model.addAttribute("error", "No subjects enrolled. Please contact your administrator.");
-                    }
-                }
-            } else {
-                // Teachers and admins see all materials
-                System.out.println("Loading all materials for teacher/admin");
-                materials = materialService.getAllMaterials();
-            }
-            
-            System.out.println("Materials found: " + (materials != null ? materials.size() : "null"));
-            System.out.println("Subjects count: " + subjectService.getAllSubjects().size());
-            System.out.println("Classes count: " + schoolClassService.getAllSchoolClasses().size());
-            
-            model.addAttribute("materials", materials);
-            model.addAttribute("subjects", subjectService.getAllSubjects());
-            model.addAttribute("schoolClasses", schoolClassService.getAllSchoolClasses());
-            model.addAttribute("user", user); // Add user to model for template access
-            return "materials/list";
-        } catch (Exception e) {
-            System.out.println("Error in materials controller: " + e.getMessage());
-            e.printStackTrace();
-            model.addAttribute("error", "Error loading materials: " + e.getMessage());
-            model.addAttribute("materials", java.util.Collections.emptyList());
-            model.addAttribute("subjects", subjectService.getAllSubjects());
-            model.addAttribute("schoolClasses", schoolClassService.getAllSchoolClasses());
-            model.addAttribute("user", userService.getUserByUsername(userDetails.getUsername()).orElse(new User()));
-            return "materials/list";
-        }
+    public String listMaterials(@RequestParam(defaultValue = "0") int page,
+                                @RequestParam(defaultValue = "20") int size,
+                                Model model, @AuthenticationPrincipal UserDetails userDetails) {
+        return renderList(null, "keyword", null, null, page, size, userDetails, model);
     }
 
     @GetMapping("/create")
@@ -110,7 +83,7 @@ public class MaterialController extends BaseController {
     public String createMaterialForm(Model model) {
         model.addAttribute("material", new Material());
         model.addAttribute("subjects", subjectService.getAllSubjects());
-        model.addAttribute("schoolClasses", schoolClassService.getAllSchoolClasses());
+        model.addAttribute("schoolClasses", schoolClassService.getSchoolClassOptions());
         return "materials/create";
     }
 
@@ -138,7 +111,7 @@ public class MaterialController extends BaseController {
         
         if (result.hasErrors()) {
             model.addAttribute("subjects", subjectService.getAllSubjects());
-            model.addAttribute("schoolClasses", schoolClassService.getAllSchoolClasses());
+            model.addAttribute("schoolClasses", schoolClassService.getSchoolClassOptions());
             return "materials/create";
         }
 
@@ -153,7 +126,7 @@ public class MaterialController extends BaseController {
         } catch (IOException e) {
             model.addAttribute("error", "Failed to upload file: " + e.getMessage());
             model.addAttribute("subjects", subjectService.getAllSubjects());
-            model.addAttribute("schoolClasses", schoolClassService.getAllSchoolClasses());
+            model.addAttribute("schoolClasses", schoolClassService.getSchoolClassOptions());
             return "materials/create";
         }
     }
@@ -164,7 +137,7 @@ public class MaterialController extends BaseController {
         Material material = materialService.getMaterialById(id).orElseThrow();
         model.addAttribute("material", material);
         model.addAttribute("subjects", subjectService.getAllSubjects());
-        model.addAttribute("schoolClasses", schoolClassService.getAllSchoolClasses());
+        model.addAttribute("schoolClasses", schoolClassService.getSchoolClassOptions());
         return "materials/edit";
     }
 
@@ -189,7 +162,7 @@ public class MaterialController extends BaseController {
         
         if (result.hasErrors()) {
             model.addAttribute("subjects", subjectService.getAllSubjects());
-            model.addAttribute("schoolClasses", schoolClassService.getAllSchoolClasses());
+            model.addAttribute("schoolClasses", schoolClassService.getSchoolClassOptions());
             return "materials/edit";
         }
 
@@ -211,7 +184,7 @@ public class MaterialController extends BaseController {
         } catch (IOException e) {
             model.addAttribute("error", "Failed to update file: " + e.getMessage());
             model.addAttribute("subjects", subjectService.getAllSubjects());
-            model.addAttribute("schoolClasses", schoolClassService.getAllSchoolClasses());
+            model.addAttribute("schoolClasses", schoolClassService.getSchoolClassOptions());
             return "materials/edit";
         }
     }
@@ -229,123 +202,125 @@ public class MaterialController extends BaseController {
     public ResponseEntity<Resource> downloadMaterial(@PathVariable Long id) {
         try {
             Material material = materialService.getMaterialById(id).orElseThrow();
-            Path filePath = Paths.get(material.getFilePath());
-            Resource resource = new UrlResource(filePath.toUri());
 
-            if (resource.exists()) {
-                return ResponseEntity.ok()
-                        .contentType(MediaType.parseMediaType(material.getFileType()))
-                        .header(HttpHeaders.CONTENT_DISPOSITION, 
-                                "attachment; filename=\"" + material.getOriginalFileName() + "\"")
-                        .body(resource);
-            } else {
-                return ResponseEntity.notFound().build();
+            Optional<URI> presignedUrl = fileStorageService.presignedDownloadUrl(material.getFileName(),
+                    FileStorageService.FileType.MATERIAL, material.getOriginalFileName(), material.getFileType());
+            if (presignedUrl.isPresent()) {
+                materialPopularityService.recordDownload(material);
+                return ResponseEntity.status(HttpStatus.FOUND).location(presignedUrl.get()).build();
             }
+
+            return fileStorageService.loadAsResource(material.getFileName(), FileStorageService.FileType.MATERIAL)
+                    .map(resource -> {
+                        materialPopularityService.recordDownload(material);
+                        return resource;
+                    })
+                    .map(resource -> ResponseEntity.ok()
+                            // Prefer the sniffed type over whatever the uploader's browser claimed
+                            .contentType(MediaType.parseMediaType(resource.getContentType() != null
+                                    ? resource.getContentType() : material.getFileType()))
+                            .header(HttpHeaders.CONTENT_DISPOSITION,
+                                    "attachment; filename=\"" + material.getOriginalFileName() + "\"")
+                            .body((Resource) resource))
+                    .orElseGet(() -> ResponseEntity.notFound().build());
         } catch (Exception e) {
             return ResponseEntity.internalServerError().build();
         }
     }
 
+    @GetMapping("/thumbnail/{id}")
+    @PreAuthorize("hasAnyRole('TEACHER', 'STUDENT', 'ADMIN')")
+    public ResponseEntity<Resource> materialThumbnail(@PathVariable Long id) {
+        return materialService.getMaterialById(id)
+                .flatMap(material -> previewService.getThumbnail(material.getFileName(), FileStorageService.FileType.MATERIAL))
+                .map(thumbnail -> ResponseEntity.ok()
+                        .contentType(MediaType.IMAGE_PNG)
+                        // Thumbnail URLs carry the stored file name, so a replaced file gets a new URL
+                        .cacheControl(CacheControl.maxAge(365, TimeUnit.DAYS).cachePrivate().immutable())
+                        .body(thumbnail))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    @GetMapping("/facets")
+    @PreAuthorize("hasAnyRole('TEACHER', 'STUDENT', 'ADMIN')")
+    @ResponseBody
+    public MaterialFacetedSearchResult facetedSearch(@RequestParam(required = false) String q,
+                                                     @RequestParam(required = false) Long subjectId,
+                                                     @RequestParam(required = false) Long classId,
+                                                     @RequestParam(required = false) Long teacherId,
+                                                     @RequestParam(required = false) String fileType,
+                                                     @RequestParam(required = false) String month,
+                                                     @RequestParam(defaultValue = "0") int page,
+                                                     @RequestParam(defaultValue = "20") int size,
+                                                     @AuthenticationPrincipal UserDetails userDetails) {
+        User user = userService.getUserByUsername(userDetails.getUsername()).orElseThrow();
+        Map<MaterialFacetIndex.Facet, String> selected = new EnumMap<>(MaterialFacetIndex.Facet.class);
+        selected.put(MaterialFacetIndex.Facet.SUBJECT, subjectId != null ? subjectId.toString() : null);
+        selected.put(MaterialFacetIndex.Facet.CLASS, classId != null ? classId.toString() : null);
+        selected.put(MaterialFacetIndex.Facet.TEACHER, teacherId != null ? teacherId.toString() : null);
+        selected.put(MaterialFacetIndex.Facet.FILE_TYPE, fileType);
+        selected.put(MaterialFacetIndex.Facet.MONTH, month);
+        return materialService.facetedSearch(user, q, selected, Math.max(page, 0), Math.min(Math.max(size, 1), 100));
+    }
+
+    @GetMapping("/suggest")
+    @PreAuthorize("hasAnyRole('TEACHER', 'STUDENT', 'ADMIN')")
+    @ResponseBody
+    public List<MaterialSuggestion> suggest(@RequestParam(required = false) String q,
+                                            @RequestParam(defaultValue = "8") int limit,
+                                            @AuthenticationPrincipal UserDetails userDetails) {
+        if (q == null || q.isBlank()) {
+            return List.of();
+        }
+        User user = userService.getUserWithEnrollment(userDetails.getUsername()).orElseThrow();
+        return materialService.suggest(user, q, Math.min(Math.max(limit, 1), 20));
+    }
+
     // === Strategy Pattern Snippet 5: Controller entry point ===
     @GetMapping("/search")
     @PreAuthorize("hasAnyRole('TEACHER', 'STUDENT', 'ADMIN')")
     public String searchMaterials(@RequestParam(required = false) String title,
+                                 @RequestParam(required = false, defaultValue = "keyword") String searchType,
                                  @RequestParam(required = false) Long subjectId,
                                  @RequestParam(required = false) Long classId,
+                                 @RequestParam(defaultValue = "0") int page,
+                                 @RequestParam(defaultValue = "20") int size,
                                  @AuthenticationPrincipal UserDetails userDetails,
                                  Model model) {
-        try {
-            System.out.println("=== Search Materials Called ===");
-            User user = userService.getUserByUsername(userDetails.getUsername()).orElseThrow();
-            System.out.println("User: " + user.getUsername() + ", Role: " + user.getRole());
-            
-            Subject subject = subjectId != null ? subjectService.getSubjectById(subjectId).orElse(null) : null;
-            SchoolClass schoolClass = classId != null ? schoolClassService.getSchoolClassById(classId).orElse(null) : null;
-            
-            List<Material> materials;
-            if (user.getRole().name().equals("STUDENT")) {
-                // Students see materials for their class AND subjects they're enrolled in
-                if (user.getSchoolClass() != null && user.getSubjects() != null && !user.getSubjects().isEmpty()) {
-                    System.out.println("Student class: " + user.getSchoolClass().getName());
-                    System.out.println("Student subjects: " + user.getSubjects().stream().map(Subject::getName).toList());
-                    try {
-                        materials = materialService.getMaterialsByClassAndSubjects(user.getSchoolClass(), user.getSubjects());
-                    } catch (Exception e) {
-                        System.out.println("Error filtering by subjects, falling back to class only: " + e.getMessage());
-                        materials = materialService.getMaterialsByClass(user.getSchoolClass());
-                    }
-                } else {
-                    // If student has no class or subjects assigned, show empty list with message
-                    System.out.println("Student has no class or subjects assigned");
-                    materials = java.util.Collections.emptyList();
-                    if (user.getSchoolClass() == null) {
-                        model.addAttribute("error", "No class assigned. Please contact your administrator.");
-                    } else {
-                        model.addAttribute("error", "No subjects enrolled. Please contact your administrator.");
-                    }
-                }
-                
-                // Apply search filters to student materials using strategy-based service logic
-                if (title != null && !title.trim().isEmpty()) {
-                    materials = materialService.filterMaterials(materials, title, "title");
-                }
-                if (subject != null) {
-                    String subjectKeyword = subject.getId() != null
-                            ? subject.getId().toString()
-                            : subject.getName();
-                    materials = materialService.filterMaterials(materials, subjectKeyword, "subject");
-                }
-
-                if (schoolClass != null) {
-                    materials = materials.stream()
-                            .filter(m -> m.getSchoolClass() != null && m.getSchoolClass().equals(schoolClass))
-                            .toList();
-                }
-            } else {
-                // Teachers and admins see all materials with search filters
-                System.out.println("Loading all materials for teacher/admin with search filters");
-                materials = materialService.getAllMaterials();
+        return renderList(title, searchType, subjectId, classId, page, size, userDetails, model);
+    }
 
-                if (title != null && !title.trim().isEmpty()) {
-                    materials = materialService.filterMaterials(materials, title, "title");
-                }
+    private String renderList(String title, String searchType, Long subjectId, Long classId, int page, int size,
+                              UserDetails userDetails, Model model) {
+        User user = userService.getUserWithEnrollment(userDetails.getUsername()).orElseThrow();
+        model.addAttribute("user", user);
+        model.addAttribute("subjects", subjectService.getAllSubjects());
+        model.addAttribute("schoolClasses", schoolClassService.getSchoolClassOptions());
+        model.addAttribute("searchTitle", title);
+        model.addAttribute("searchType", searchType);
+        model.addAttribute("searchSubjectId", subjectId);
+        model.addAttribute("searchClassId", classId);
 
-                if (subject != null) {
-                    String subjectKeyword = subject.getId() != null
-                            ? subject.getId().toString()
-                            : subject.getName();
-                    materials = materialService.filterMaterials(materials, subjectKeyword, "subject");
-                }
+        if (user.getRole() == Role.STUDENT && user.getSchoolClass() == null) {
+            model.addAttribute("error", "No class assigned. Please contact your administrator.");
+        } else if (user.getRole() == Role.STUDENT && (user.getSubjects() == null || user.getSubjects().isEmpty())) {
+            model.addAttribute("error", "No subjects enrolled. Please contact your administrator.");
+        }
 
-                if (schoolClass != null) {
-                    materials = materials.stream()
-                            .filter(m -> m.getSchoolClass() != null && m.getSchoolClass().equals(schoolClass))
-                            .toList();
-                }
+        try {
+            Page<MaterialListItem> materials = materialService.listMaterials(user, title, searchType, subjectId, classId,
+                    Math.max(page, 0), Math.min(Math.max(size, 1), 100));
+            model.addAttribute("materials", materials.getContent());
+            model.addAttribute("materialPage", materials);
+            if ("content".equalsIgnoreCase(searchType) && title != null && !title.trim().isEmpty()) {
+                model.addAttribute("snippets", materialService.getContentSnippets(title,
+                        materials.getContent().stream().map(MaterialListItem::id).toList()));
             }
-            
-            System.out.println("Materials found: " + (materials != null ? materials.size() : "null"));
-            
-            model.addAttribute("materials", materials);
-            model.addAttribute("subjects", subjectService.getAllSubjects());
-            model.addAttribute("schoolClasses", schoolClassService.getAllSchoolClasses());
-            model.addAttribute("searchTitle", title);
-            model.addAttribute("searchSubjectId", subjectId);
-            model.addAttribute("searchClassId", classId);
-            model.addAttribute("user", user); // Add user to model for template access
-            
-            return "materials/list";
         } catch (Exception e) {
-            System.out.println("Error in search materials controller: " + e.getMessage());
-            e.printStackTrace();
-            model.addAttribute("error", "Error searching materials: " + e.getMessage());
-            model.addAttribute("materials", java.util.Collections.emptyList());
-            model.addAttribute("subjects", subjectService.getAllSubjects());
-            model.addAttribute("schoolClasses", schoolClassService.getAllSchoolClasses());
-            model.addAttribute("user", userService.getUserByUsername(userDetails.getUsername()).orElse(new User()));
-            return "materials/list";
+            LOGGER.error("Failed to load materials for {}", user.getUsername(), e);
+            model.addAttribute("error", "Error loading materials: " + e.getMessage());
+            model.addAttribute("materials", List.of());
         }
+        return "materials/list";
     }
 }
-
-
@@ -8,6 +8,7 @@ import com.learnmate.service.SchoolClassService;
 import com.learnmate.service.SubjectService;
 import com.learnmate.service.UserService;
 import com.learnmate.service.FileStorageService;
+import com.learnmate.service.storage.BlobResource;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -21,8 +22,8 @@ import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
 import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 
@@ -33,7 +34,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
-import java.nio.file.Path;
+import java.net.URI;
 
 @Controller
 @RequestMapping("/notifications")
@@ -230,26 +231,29 @@ public class NotificationController {
                 return ResponseEntity.notFound().build();
             }
             
-            // Get file path
-            Path filePath = fileStorageService.getFileStorageLocationPublic(FileStorageService.FileType.NOTIFICATION)
-                    .resolve(notification.getFileName()).normalize();
-            
-            Resource resource = new UrlResource(filePath.toUri());
-            
-            if (!resource.exists()) {
-                return ResponseEntity.notFound().build();
-            }
-            
             // Determine content type
             String contentType = notification.getFileType();
             if (contentType == null) {
                 contentType = "application/octet-stream";
             }
+
+            Optional<URI> presignedUrl = fileStorageService.presignedDownloadUrl(notification.getFileName(),
+                    FileStorageService.FileType.NOTIFICATION, notification.getOriginalFileName(), contentType);
+            if (presignedUrl.isPresent()) {
+                return ResponseEntity.status(HttpStatus.FOUND).location(presignedUrl.get()).build();
+            }
+
+            Optional<BlobResource> resource = fileStorageService.loadAsResource(notification.getFileName(),
+                    FileStorageService.FileType.NOTIFICATION);
+            if (resource.isEmpty()) {
+                return ResponseEntity.notFound().build();
+            }
             
             return ResponseEntity.ok()
-                    .contentType(MediaType.parseMediaType(contentType))
+                    .contentType(MediaType.parseMediaType(resource.get().getContentType() != null
+                            ? resource.get().getContentType() : contentType))
                     .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + notification.getOriginalFileName() + "\"")
-                    .body(resource);
+                    .body(resource.get());
                     
         } catch (Exception e) {
             return ResponseEntity.internalServerError().build();
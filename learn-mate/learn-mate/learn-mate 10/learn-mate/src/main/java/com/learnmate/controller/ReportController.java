@@ -1,6 +1,9 @@
 package com.learnmate.controller;
 
+import com.learnmate.dto.CompressionStats;
 import com.learnmate.service.ReportService;
+import com.learnmate.service.StorageScrubberService;
+import com.learnmate.service.StorageTieringService;
 
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
@@ -8,15 +11,24 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import java.util.List;
 
 @Controller
 @RequestMapping("/reports")
 public class ReportController {
     private final ReportService reportService;
+    private final StorageScrubberService storageScrubberService;
+    private final StorageTieringService storageTieringService;
 
-    public ReportController(ReportService reportService) {
+    public ReportController(ReportService reportService, StorageScrubberService storageScrubberService,
+                            StorageTieringService storageTieringService) {
         this.reportService = reportService;
+        this.storageScrubberService = storageScrubberService;
+        this.storageTieringService = storageTieringService;
     }
 
     @GetMapping
@@ -84,6 +96,35 @@ public class ReportController {
                 .contentType(MediaType.TEXT_PLAIN)
                 .body(csv);
     }
-}
 
+    @GetMapping("/storage")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StorageScrubberService.ScrubReport> storageReport() {
+        return storageScrubberService.getLastReport()
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.noContent().build());
+    }
+
+    @PostMapping("/storage/scrub")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StorageScrubberService.ScrubReport> runStorageScrub() {
+        return storageScrubberService.scrub()
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(409).build());
+    }
 
+    @GetMapping("/storage/compression")
+    @PreAuthorize("hasRole('ADMIN')")
+    @ResponseBody
+    public List<CompressionStats> storageCompressionReport() {
+        return storageTieringService.getCompressionReport();
+    }
+
+    @PostMapping("/storage/tier")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StorageTieringService.TieringResult> runStorageTiering() {
+        return storageTieringService.tierColdFiles()
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(409).build());
+    }
+}
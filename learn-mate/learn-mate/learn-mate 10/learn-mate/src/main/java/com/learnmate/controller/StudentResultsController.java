@@ -4,6 +4,7 @@ import com.learnmate.model.Mark;
 import com.learnmate.model.User;
 import com.learnmate.service.MarkService;
 import com.learnmate.service.UserService;
+import com.learnmate.service.ranking.RankingService;
 
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -22,10 +23,13 @@ import java.util.stream.Collectors;
 public class StudentResultsController extends BaseController {
     private final MarkService markService;
     private final UserService userService;
+    private final RankingService rankingService;
 
-    public StudentResultsController(MarkService markService, UserService userService) {
+    public StudentResultsController(MarkService markService, UserService userService,
+                                    RankingService rankingService) {
         this.markService = markService;
         this.userService = userService;
+        this.rankingService = rankingService;
     }
 
     @GetMapping
@@ -67,6 +71,8 @@ public class StudentResultsController extends BaseController {
             model.addAttribute("totalExams", totalExams);
             model.addAttribute("passedExams", passedExams);
             model.addAttribute("selectedSubjectId", subjectId);
+            model.addAttribute("examRanks", rankingService.getExamRanks(student));
+            model.addAttribute("termRank", rankingService.getTermRank(student).orElse(null));
             
             return "student/results";
             
@@ -1,5 +1,8 @@
 package com.learnmate.controller;
 
+import com.learnmate.dto.TimetableConflict;
+import com.learnmate.dto.TimetableGrid;
+import com.learnmate.dto.TimetableImportResult;
 import com.learnmate.model.Role;
 import com.learnmate.model.SchoolClass;
 import com.learnmate.model.Subject;
@@ -9,23 +12,43 @@ import com.learnmate.service.FileStorageService;
 import com.learnmate.service.NotificationService;
 import com.learnmate.service.SchoolClassService;
 import com.learnmate.service.SubjectService;
+import com.learnmate.service.TimetableCsvService;
 import com.learnmate.service.TimetableService;
 import com.learnmate.service.UserService;
+import com.learnmate.service.calendar.CalendarFeedCache;
+import com.learnmate.service.calendar.CalendarFeedService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
+import org.springframework.util.DigestUtils;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import org.springframework.web.servlet.mvc.support.RedirectAttributes;
+import org.springframework.web.servlet.support.RequestContextUtils;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalTime;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 
 @Controller
 @RequestMapping("/timetables")
@@ -36,25 +59,31 @@ public class TimetableController extends BaseController {
     private final SchoolClassService schoolClassService;
     private final SubjectService subjectService;
     private final NotificationService notificationService;
+    private final CalendarFeedService calendarFeedService;
+    private final TimetableCsvService timetableCsvService;
 
     public TimetableController(TimetableService timetableService, UserService userService,
                               FileStorageService fileStorageService, SchoolClassService schoolClassService,
-                              SubjectService subjectService, NotificationService notificationService) {
+                              SubjectService subjectService, NotificationService notificationService,
+                              CalendarFeedService calendarFeedService, TimetableCsvService timetableCsvService) {
         this.timetableService = timetableService;
         this.userService = userService;
         this.fileStorageService = fileStorageService;
         this.schoolClassService = schoolClassService;
         this.subjectService = subjectService;
         this.notificationService = notificationService;
+        this.calendarFeedService = calendarFeedService;
+        this.timetableCsvService = timetableCsvService;
     }
 
     @GetMapping("/weekly")
     @PreAuthorize("hasAnyRole('TEACHER', 'STUDENT', 'ADMIN')")
     public String weeklyTimetableView(@RequestParam(value = "classId", required = false) Long classId, 
-                                      Model model, @AuthenticationPrincipal UserDetails userDetails) {
+                                      Model model, @AuthenticationPrincipal UserDetails userDetails,
+                                      WebRequest webRequest, HttpServletRequest request, HttpServletResponse response) {
         try {
-            User currentUser = userService.getUserByUsername(userDetails.getUsername()).orElseThrow();
-            List<Timetable> timetables;
+            User currentUser = userService.getUserWithEnrollment(userDetails.getUsername()).orElseThrow();
+            TimetableGrid grid = null;
             boolean isStudentView = false;
             boolean isTeacherView = false;
             boolean isAdminView = false;
@@ -63,22 +92,23 @@ public class TimetableController extends BaseController {
             model.addAttribute("selectedClassId", classId);
             model.addAttribute("selectedClass", null);
             model.addAttribute("info", null);
-            model.addAttribute("timeSlots", new String[0]);
-            model.addAttribute("grid", new java.util.HashMap<String, java.util.List<Timetable>>());
-            
+            model.addAttribute("calendarFeedUrl", null);
+            model.addAttribute("classCalendarFeedUrl", null);
+
             // Add school classes to model for teacher selection
-            model.addAttribute("schoolClasses", schoolClassService.getAllSchoolClasses());
+            List<SchoolClass> schoolClasses = schoolClassService.getSchoolClassOptions();
+            model.addAttribute("schoolClasses", schoolClasses);
             
             if (hasRole("STUDENT")) {
                 isStudentView = true;
                 // Students see timetables for their class and subjects
                 if (currentUser.getSchoolClass() != null && currentUser.getSubjects() != null && !currentUser.getSubjects().isEmpty()) {
-                    timetables = safeTimetableList(
-                        timetableService.getTimetablesByClassAndSubjects(currentUser.getSchoolClass(), currentUser.getSubjects()));
+                    grid = timetableService.getStudentGrid(currentUser.getSchoolClass(), currentUser.getSubjects());
+                    model.addAttribute("calendarFeedUrl", feedUrl(request, CalendarFeedCache.Kind.USER, currentUser.getId()));
                     model.addAttribute("studentClass", currentUser.getSchoolClass().getName());
-                    model.addAttribute("studentSubjects", currentUser.getSubjects());
+                    model.addAttribute("studentSubjects", currentUser.getSubjects().stream()
+                            .sorted(java.util.Comparator.comparing(Subject::getName)).toList());
                 } else {
-                    timetables = Collections.emptyList();
                     if (currentUser.getSchoolClass() == null) {
                         model.addAttribute("error", "No class assigned. Please contact your administrator.");
                     } else {
@@ -87,46 +117,58 @@ public class TimetableController extends BaseController {
                 }
             } else if (hasRole("TEACHER")) {
                 isTeacherView = true;
-                // Teachers need to select a class first
+                model.addAttribute("calendarFeedUrl", feedUrl(request, CalendarFeedCache.Kind.USER, currentUser.getId()));
+                // Teachers see their own sessions until they pick a class
                 if (classId != null) {
-                    SchoolClass selectedClass = schoolClassService.getSchoolClassById(classId).orElse(null);
+                    SchoolClass selectedClass = schoolClasses.stream()
+                            .filter(schoolClass -> schoolClass.getId().equals(classId))
+                            .findFirst()
+                            .orElse(null);
                     if (selectedClass != null) {
-                        // Get timetables for the selected class
-                        timetables = safeTimetableList(timetableService.getTimetablesBySchoolClass(selectedClass));
+                        grid = timetableService.getClassGrid(selectedClass);
                         model.addAttribute("selectedClass", selectedClass);
-                        model.addAttribute("selectedClassId", classId);
+                        model.addAttribute("classCalendarFeedUrl", feedUrl(request, CalendarFeedCache.Kind.CLASS, selectedClass.getId()));
                     } else {
-                        timetables = Collections.emptyList();
                         model.addAttribute("error", "Selected class not found.");
                     }
                 } else {
-                    timetables = Collections.emptyList();
-                    model.addAttribute("info", "Please select a class to view its timetable.");
+                    grid = timetableService.getTeacherGrid(currentUser);
+                    model.addAttribute("info", "Showing your own sessions. Select a class to view its full timetable.");
                 }
             } else if (hasRole("ADMIN")) {
                 isAdminView = true;
                 // Admins see all timetables
-                timetables = safeTimetableList(timetableService.getAllTimetables());
-            } else {
-                timetables = Collections.emptyList();
+                grid = timetableService.getSchoolGrid();
+            }
+
+            // Everything on the page follows from the grid, the viewer and the class list, so
+            // an unchanged tag means the browser's copy is still right. Flash messages are one-off.
+            Map<String, ?> flash = RequestContextUtils.getInputFlashMap(request);
+            if (flash == null || flash.isEmpty()) {
+                String etag = weeklyEtag(grid, currentUser, request.getSession().getId(), classId, schoolClasses);
+                response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().cachePrivate().getHeaderValue());
+                if (webRequest.checkNotModified(etag)) {
+                    return null;
+                }
             }
             
             // Set view flags
             model.addAttribute("isStudentView", isStudentView);
             model.addAttribute("isTeacherView", isTeacherView);
             model.addAttribute("isAdminView", isAdminView);
-            model.addAttribute("timetables", timetables);
+            model.addAttribute("timetables", grid != null ? grid.entries() : Collections.emptyList());
             
             // Add days array to model
             model.addAttribute("days", java.util.Arrays.asList("MONDAY", "TUESDAY", "WEDNESDAY", "THURSDAY", "FRIDAY"));
-            
-            // Build weekly grid data
-            buildWeeklyGrid(model, timetables);
+            model.addAttribute("timeSlots", grid != null ? grid.timeSlots() : List.of());
+            model.addAttribute("grid", grid != null ? grid.cells() : Map.of());
             
             return "timetables/weekly_view";
         } catch (Exception e) {
             model.addAttribute("error", "Error loading timetable: " + e.getMessage());
             model.addAttribute("timetables", Collections.emptyList());
+            model.addAttribute("timeSlots", List.of());
+            model.addAttribute("grid", Map.of());
             model.addAttribute("isStudentView", false);
             model.addAttribute("isTeacherView", false);
             model.addAttribute("isAdminView", false);
@@ -489,6 +531,59 @@ public class TimetableController extends BaseController {
         }
     }
 
+    @GetMapping("/conflicts")
+    @PreAuthorize("hasRole('ADMIN')")
+    @ResponseBody
+    public List<TimetableConflict> listConflicts() {
+        return timetableService.findAllConflicts();
+    }
+
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportTimetables() {
+        StreamingResponseBody body = output -> {
+            Writer writer = new OutputStreamWriter(output, StandardCharsets.UTF_8);
+            timetableCsvService.exportCsv(writer);
+            writer.flush();
+        };
+        return ResponseEntity.ok()
+                .contentType(new MediaType("text", "csv", StandardCharsets.UTF_8))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=timetables.csv")
+                .body(body);
+    }
+
+    @PostMapping("/import")
+    @PreAuthorize("hasRole('ADMIN')")
+    public String importTimetables(@RequestParam("file") MultipartFile file,
+                                   @RequestParam(value = "replace", defaultValue = "false") boolean replace,
+                                   @RequestParam(value = "dryRun", defaultValue = "false") boolean dryRun,
+                                   RedirectAttributes redirectAttributes) {
+        if (file.isEmpty()) {
+            redirectAttributes.addFlashAttribute("error", "Please choose a CSV file to import.");
+            return "redirect:/timetables/list";
+        }
+        TimetableImportResult result;
+        try (Reader reader = new InputStreamReader(file.getInputStream(), StandardCharsets.UTF_8)) {
+            result = timetableCsvService.importCsv(reader, replace, dryRun);
+        } catch (Exception e) {
+            redirectAttributes.addFlashAttribute("error", "Error importing timetables: " + e.getMessage());
+            return "redirect:/timetables/list";
+        }
+
+        if (!result.isValid()) {
+            redirectAttributes.addFlashAttribute("error", "Nothing was imported: " + result.problems().size()
+                    + " of " + result.lessons() + " rows have problems.");
+            redirectAttributes.addFlashAttribute("importProblems", result.problems().stream().limit(100).toList());
+        } else if (dryRun) {
+            redirectAttributes.addFlashAttribute("success", "Dry run: all " + result.lessons()
+                    + " lessons can be imported" + (replace ? ", replacing " + result.removed() + " existing ones." : "."));
+        } else {
+            redirectAttributes.addFlashAttribute("success", "Imported " + result.created() + " lessons"
+                    + (replace ? ", replacing " + result.removed() + " existing ones." : "."));
+        }
+        return "redirect:/timetables/list";
+    }
+
     @GetMapping("/search")
     @PreAuthorize("hasAnyRole('ADMIN', 'TEACHER', 'STUDENT')")
     public String searchTimetables(@RequestParam String day, Model model) {
@@ -602,55 +697,26 @@ public class TimetableController extends BaseController {
         return start1.isBefore(end2) && start2.isBefore(end1);
     }
     
-    private void buildWeeklyGrid(Model model, List<Timetable> timetables) {
-        List<Timetable> safeTimetables = timetables == null ? Collections.emptyList() : timetables;
-        // Define days
-        String[] days = {"MONDAY", "TUESDAY", "WEDNESDAY", "THURSDAY", "FRIDAY"};
-        
-        // Extract unique time slots from actual timetables
-        java.util.Set<String> timeSlotSet = new java.util.TreeSet<>();
-        for (Timetable t : safeTimetables) {
-            if (t.getStartTime() != null && t.getEndTime() != null) {
-                String timeSlot = t.getStartTime().toString() + "-" + t.getEndTime().toString();
-                timeSlotSet.add(timeSlot);
-            }
-        }
-        
-        // Convert to array and sort
-        String[] slots = timeSlotSet.toArray(new String[0]);
-        
-        // If no timetables, use default slots
-        if (slots.length == 0) {
-            slots = new String[]{
-                "08:00-09:00", "09:00-10:00", "10:00-11:00", 
-                "11:00-12:00", "12:00-13:00", "13:00-14:00", "14:00-15:00"
-            };
+    private static String weeklyEtag(TimetableGrid grid, User viewer, String sessionId, Long classId,
+                                     List<SchoolClass> schoolClasses) {
+        StringBuilder tag = new StringBuilder()
+                .append(grid != null ? grid.etag() : "-")
+                .append('|').append(viewer.getId()).append('|').append(viewer.getName())
+                .append('|').append(viewer.getSchoolClass() != null ? viewer.getSchoolClass().getId() : null)
+                .append('|').append(sessionId)
+                .append('|').append(classId);
+        if (viewer.getSubjects() != null) {
+            viewer.getSubjects().stream().map(Subject::getName).sorted()
+                    .forEach(subject -> tag.append("|s:").append(subject));
         }
-        
-        // Build grid map: key = DAY|TIME_RANGE, value = list of timetables for that cell
-        java.util.Map<String, java.util.List<Timetable>> grid = new java.util.HashMap<>();
-        
-        for (Timetable t : safeTimetables) {
-            if (t.getDay() != null && java.util.Arrays.asList(days).contains(t.getDay().name()) && t.getStartTime() != null && t.getEndTime() != null) {
-                String startTime = t.getStartTime().toString();
-                String endTime = t.getEndTime().toString();
-                String key = t.getDay().name() + "|" + startTime + "-" + endTime;
-                grid.computeIfAbsent(key, k -> {
-                    if (k == null) {
-                        return new java.util.ArrayList<>();
-                    }
-                    return new java.util.ArrayList<>();
-                }).add(t);
-            }
-        }
-        
-        model.addAttribute("timeSlots", slots);
-        model.addAttribute("grid", grid);
+        schoolClasses.forEach(schoolClass -> tag.append("|c:").append(schoolClass.getId()).append(':').append(schoolClass.getName()));
+        return "\"" + DigestUtils.md5DigestAsHex(tag.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
     }
 
-    private List<Timetable> safeTimetableList(List<Timetable> source) {
-        return source == null ? Collections.emptyList() : source;
+    // Calendar apps need an absolute URL to subscribe to
+    private String feedUrl(HttpServletRequest request, CalendarFeedCache.Kind kind, Long id) {
+        return ServletUriComponentsBuilder.fromContextPath(request)
+                .path(calendarFeedService.feedPath(kind, id))
+                .toUriString();
     }
 }
-
-
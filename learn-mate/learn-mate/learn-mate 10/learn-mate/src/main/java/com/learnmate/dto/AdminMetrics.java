@@ -0,0 +1,43 @@
+package com.learnmate.dto;
+
+import com.learnmate.model.Role;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * School-wide counts for the admin dashboard, as of {@code computedAt}.
+ */
+public record AdminMetrics(List<UserCount> users, long classes, List<FeeStatusCount> fees, Instant computedAt) {
+
+    public record UserCount(Role role, boolean active, long count) {
+    }
+
+    public record FeeStatusCount(String status, long count, double amount) {
+    }
+
+    public long totalUsers() {
+        return users.stream().mapToLong(UserCount::count).sum();
+    }
+
+    public long users(Role role, boolean active) {
+        return users.stream()
+                .filter(count -> count.role() == role && count.active() == active)
+                .mapToLong(UserCount::count)
+                .sum();
+    }
+
+    public long users(Role role) {
+        return users(role, true) + users(role, false);
+    }
+
+    /**
+     * Fees not yet paid in full, including slips waiting to be verified.
+     */
+    public long pendingFees() {
+        return fees.stream()
+                .filter(fee -> !"PAID".equals(fee.status()))
+                .mapToLong(FeeStatusCount::count)
+                .sum();
+    }
+}
@@ -0,0 +1,8 @@
+package com.learnmate.dto;
+
+/**
+ * A class and subject that attendance has been marked for; the subject is null for
+ * attendance taken for the class as a whole.
+ */
+public record AttendanceTaken(Long schoolClassId, Long subjectId) {
+}
@@ -0,0 +1,22 @@
+package com.learnmate.dto;
+
+import com.learnmate.service.FileStorageService;
+
+/**
+ * Cold-tier totals for one file type; the ratio is original size over compressed size.
+ */
+public record CompressionStats(FileStorageService.FileType fileType,
+                               long files,
+                               long originalBytes,
+                               long storedBytes,
+                               double compressionRatio) {
+
+    public CompressionStats(FileStorageService.FileType fileType, Long files, Long originalBytes, Long storedBytes) {
+        this(fileType, files, nullToZero(originalBytes), nullToZero(storedBytes),
+                nullToZero(storedBytes) == 0 ? 0.0 : (double) nullToZero(originalBytes) / storedBytes);
+    }
+
+    private static long nullToZero(Long value) {
+        return value != null ? value : 0L;
+    }
+}
@@ -0,0 +1,7 @@
+package com.learnmate.dto;
+
+/**
+ * One student's row of a grading form.
+ */
+public record GradeEntry(Long studentId, int score, String comments) {
+}
@@ -0,0 +1,17 @@
+package com.learnmate.dto;
+
+/**
+ * What a grading form submission changed.
+ *
+ * @param graded students with a valid score on the form, changed or not
+ */
+public record GradingResult(int graded, int marksCreated, int marksUpdated, int sheetsUpdated) {
+
+    // The stored marks and answer sheets of the exam, as the form is compared against them
+
+    public record MarkRow(Long id, Long studentId, int score, String comments, boolean published) {
+    }
+
+    public record SheetRow(Long id, Long studentId, String status, Integer score, String comments) {
+    }
+}
@@ -0,0 +1,31 @@
+package com.learnmate.dto;
+
+import com.learnmate.model.Material;
+import com.learnmate.service.search.MaterialFacetIndex;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One page of material search hits plus, per facet, how many of all the matches fall
+ * under each value.
+ */
+public record MaterialFacetedSearchResult(long total,
+                                          int page,
+                                          int size,
+                                          List<Hit> hits,
+                                          Map<String, List<MaterialFacetIndex.FacetCount>> facets) {
+
+    public record Hit(Long id, String title, String description, String subject, String schoolClass,
+                      String teacher, String fileType, LocalDateTime uploadedAt) {
+
+        public static Hit of(Material material) {
+            return new Hit(material.getId(), material.getTitle(), material.getDescription(),
+                    material.getSubject() != null ? material.getSubject().getName() : null,
+                    material.getSchoolClass() != null ? material.getSchoolClass().getName() : null,
+                    material.getTeacher() != null ? material.getTeacher().getName() : null,
+                    material.getFileType(), material.getUploadedAt());
+        }
+    }
+}
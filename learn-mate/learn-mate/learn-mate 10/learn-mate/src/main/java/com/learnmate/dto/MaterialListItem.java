@@ -0,0 +1,21 @@
+package com.learnmate.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * The columns the material list page shows, read straight from the query without loading
+ * the material, subject, class and teacher entities.
+ */
+public record MaterialListItem(Long id,
+                               String title,
+                               String description,
+                               String fileName,
+                               String originalFileName,
+                               String fileType,
+                               Long fileSize,
+                               LocalDateTime uploadedAt,
+                               long downloadCount,
+                               String subjectName,
+                               String className,
+                               String teacherName) {
+}
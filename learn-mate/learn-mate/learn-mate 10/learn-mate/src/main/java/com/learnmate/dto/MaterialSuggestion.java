@@ -0,0 +1,7 @@
+package com.learnmate.dto;
+
+/**
+ * A typeahead entry for the material search box.
+ */
+public record MaterialSuggestion(Long id, String title, String subject) {
+}
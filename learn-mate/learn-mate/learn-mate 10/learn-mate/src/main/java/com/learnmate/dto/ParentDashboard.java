@@ -0,0 +1,84 @@
+package com.learnmate.dto;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.OptionalDouble;
+
+/**
+ * Everything the parent dashboard shows about a parent's children, as of {@code date}.
+ */
+public record ParentDashboard(Long parentId, List<Child> children, LocalDate date) {
+
+    /**
+     * @param attendanceRate percentage of attendance records marked present, null before any are recorded
+     * @param averageScore   mean of the child's published marks, null before any are published
+     * @param classRank      the child's rank in their class this term, null before it is ranked
+     */
+    public record Child(Long id, String name, Long classId, String className,
+                        long attendanceDays, long presentDays, Double attendanceRate,
+                        long upcomingExams, LocalDate nextExam,
+                        long pendingFees, double pendingAmount,
+                        Double averageScore, Integer classRank, int classSize,
+                        List<RecentMark> recentMarks) {
+    }
+
+    public record RecentMark(Long studentId, String examTitle, String subjectName, int score, LocalDate date) {
+    }
+
+    // Rows of the grouped queries the dashboard is assembled from, keyed by student or class id
+
+    public record AttendanceCount(Long studentId, long days, long present) {
+    }
+
+    public record ExamCount(Long classId, long upcoming, LocalDate next) {
+    }
+
+    public record FeeCount(Long studentId, long count, double amount) {
+    }
+
+    public record ScoreAverage(Long studentId, double average) {
+    }
+
+    public Double attendanceRate() {
+        long days = children.stream().mapToLong(Child::attendanceDays).sum();
+        long present = children.stream().mapToLong(Child::presentDays).sum();
+        return days == 0 ? null : present * 100.0 / days;
+    }
+
+    public long upcomingExams() {
+        return children.stream().mapToLong(Child::upcomingExams).sum();
+    }
+
+    public long pendingFees() {
+        return children.stream().mapToLong(Child::pendingFees).sum();
+    }
+
+    public double pendingAmount() {
+        return children.stream().mapToDouble(Child::pendingAmount).sum();
+    }
+
+    public Double averageScore() {
+        OptionalDouble average = children.stream()
+                .map(Child::averageScore)
+                .filter(Objects::nonNull)
+                .mapToDouble(Double::doubleValue)
+                .average();
+        return average.isPresent() ? average.getAsDouble() : null;
+    }
+
+    /**
+     * Newest first, across all children.
+     */
+    public List<RecentMark> recentMarks() {
+        return children.stream()
+                .flatMap(child -> child.recentMarks().stream())
+                .sorted(Comparator.comparing(RecentMark::date, Comparator.nullsLast(Comparator.reverseOrder())))
+                .toList();
+    }
+
+    public boolean coversClass(Long classId) {
+        return children.stream().anyMatch(child -> Objects.equals(child.classId(), classId));
+    }
+}
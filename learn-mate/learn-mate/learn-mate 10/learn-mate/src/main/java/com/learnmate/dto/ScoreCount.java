@@ -0,0 +1,7 @@
+package com.learnmate.dto;
+
+/**
+ * How many marks of an exam have a given score.
+ */
+public record ScoreCount(int score, long count) {
+}
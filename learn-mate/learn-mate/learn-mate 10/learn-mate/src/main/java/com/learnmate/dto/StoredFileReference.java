@@ -0,0 +1,7 @@
+package com.learnmate.dto;
+
+/**
+ * A row that points at a stored upload: the owning entity id and the stored file name.
+ */
+public record StoredFileReference(Long id, String fileName) {
+}
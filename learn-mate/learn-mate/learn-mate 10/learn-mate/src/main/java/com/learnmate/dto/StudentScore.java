@@ -0,0 +1,7 @@
+package com.learnmate.dto;
+
+/**
+ * One student's score to rank: a single exam mark, or an average over the term.
+ */
+public record StudentScore(Long studentId, double score) {
+}
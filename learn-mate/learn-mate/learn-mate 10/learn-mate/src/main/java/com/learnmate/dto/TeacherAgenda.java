@@ -0,0 +1,20 @@
+package com.learnmate.dto;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+/**
+ * A teacher's day at a glance. Parts that did not load within the dashboard's latency budget
+ * are null, and {@code complete} is false.
+ */
+public record TeacherAgenda(LocalDate date, List<Slot> slots, Integer pendingAttendance, Long ungraded,
+                            boolean complete) {
+
+    /**
+     * @param attendanceTaken null when attendance could not be checked in time
+     */
+    public record Slot(Long id, String title, String subjectName, String className, String room,
+                       LocalTime startTime, LocalTime endTime, Boolean attendanceTaken) {
+    }
+}
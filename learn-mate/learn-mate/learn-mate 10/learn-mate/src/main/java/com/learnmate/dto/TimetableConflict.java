@@ -0,0 +1,20 @@
+package com.learnmate.dto;
+
+import com.learnmate.service.timetable.TimetableConflictIndex;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+
+/**
+ * Two lessons that overlap on the same day for the same class, teacher or room.
+ */
+public record TimetableConflict(TimetableConflictIndex.Dimension dimension,
+                                String resource,
+                                DayOfWeek day,
+                                Slot slot,
+                                Slot conflictingSlot) {
+
+    public record Slot(Long id, String title, LocalTime startTime, LocalTime endTime,
+                       String schoolClass, String teacher, String room) {
+    }
+}
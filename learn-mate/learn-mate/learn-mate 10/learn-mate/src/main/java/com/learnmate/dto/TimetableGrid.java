@@ -0,0 +1,15 @@
+package com.learnmate.dto;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A built weekly timetable: the time slots down the side and the lessons in each
+ * {@code DAY|HH:MM-HH:MM} cell. The ETag is a hash of the content, so two grids with the same
+ * lessons share it.
+ */
+public record TimetableGrid(List<String> timeSlots, Map<String, List<Entry>> cells, List<Entry> entries, String etag) {
+
+    public record Entry(Long id, String title, String subjectName, String room, String teacherName, String className) {
+    }
+}
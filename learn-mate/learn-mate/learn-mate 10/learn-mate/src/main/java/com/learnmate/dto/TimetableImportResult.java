@@ -0,0 +1,17 @@
+package com.learnmate.dto;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk timetable import. Nothing is saved unless {@code problems} is empty and
+ * it was not a dry run.
+ */
+public record TimetableImportResult(int lessons, int created, int removed, boolean dryRun, List<Problem> problems) {
+
+    public record Problem(int line, String message) {
+    }
+
+    public boolean isValid() {
+        return problems.isEmpty();
+    }
+}
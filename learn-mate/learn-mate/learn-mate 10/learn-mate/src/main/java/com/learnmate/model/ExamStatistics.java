@@ -0,0 +1,186 @@
+package com.learnmate.model;
+
+import jakarta.persistence.*;
+
+import java.util.Objects;
+
+/**
+ * Running totals over the marks of one exam, updated as each mark is added, changed or
+ * removed so the statistics never need the marks themselves. Mean and standard deviation
+ * come from the count, sum and sum of squares; the median and quartiles from a histogram
+ * with one bucket per score from 0 to 100.
+ */
+@Entity
+@Table(name = "exam_statistics")
+public class ExamStatistics {
+    public static final int BUCKETS = 101;
+
+    @Id
+    private Long examId;
+
+    private long markCount;
+
+    private long scoreSum;
+
+    private long scoreSquareSum;
+
+    // Marks at or above passMark, the exam's pass mark when they were last counted
+    private long passCount;
+
+    private Integer passMark;
+
+    @Convert(converter = ScoreHistogramConverter.class)
+    @Column(length = 1024)
+    private int[] histogram = new int[BUCKETS];
+
+    protected ExamStatistics() {
+    }
+
+    public ExamStatistics(Long examId, Integer passMark) {
+        this.examId = examId;
+        this.passMark = passMark;
+    }
+
+    public void add(int score) {
+        add(score, 1);
+    }
+
+    public void add(int score, long marks) {
+        score = bucket(score);
+        histogram[score] += (int) marks;
+        markCount += marks;
+        scoreSum += score * marks;
+        scoreSquareSum += (long) score * score * marks;
+        if (passes(score)) {
+            passCount += marks;
+        }
+    }
+
+    public void remove(int score) {
+        score = bucket(score);
+        if (histogram[score] == 0) {
+            return;
+        }
+        histogram[score]--;
+        markCount--;
+        scoreSum -= score;
+        scoreSquareSum -= (long) score * score;
+        if (passes(score)) {
+            passCount--;
+        }
+    }
+
+    /**
+     * Recounts passes from the histogram when the exam's pass mark has changed.
+     */
+    public void applyPassMark(Integer passMark) {
+        if (Objects.equals(this.passMark, passMark)) {
+            return;
+        }
+        this.passMark = passMark;
+        passCount = 0;
+        for (int score = 0; score < BUCKETS; score++) {
+            if (passes(score)) {
+                passCount += histogram[score];
+            }
+        }
+    }
+
+    private boolean passes(int score) {
+        return passMark != null && score >= passMark;
+    }
+
+    private static int bucket(int score) {
+        return Math.max(0, Math.min(BUCKETS - 1, score));
+    }
+
+    // Getters and Setters
+    public Long getExamId() { return examId; }
+
+    public long getMarkCount() { return markCount; }
+
+    public long getScoreSum() { return scoreSum; }
+
+    public long getScoreSquareSum() { return scoreSquareSum; }
+
+    public long getPassCount() { return passCount; }
+
+    public Integer getPassMark() { return passMark; }
+
+    public int[] getHistogram() { return histogram.clone(); }
+
+    public Double getMean() {
+        return markCount == 0 ? null : (double) scoreSum / markCount;
+    }
+
+    /**
+     * Population standard deviation.
+     */
+    public Double getStandardDeviation() {
+        if (markCount == 0) {
+            return null;
+        }
+        double mean = (double) scoreSum / markCount;
+        return Math.sqrt(Math.max(0, (double) scoreSquareSum / markCount - mean * mean));
+    }
+
+    public Double getMedian() {
+        if (markCount == 0) {
+            return null;
+        }
+        return markCount % 2 == 1 ? scoreAt((markCount + 1) / 2)
+                : (scoreAt(markCount / 2) + scoreAt(markCount / 2 + 1)) / 2.0;
+    }
+
+    /**
+     * The lowest score at or above which a share {@code q} of the marks lies (nearest rank).
+     */
+    public Integer getQuantile(double q) {
+        if (markCount == 0) {
+            return null;
+        }
+        return scoreAt(Math.max(1, (long) Math.ceil(q * markCount)));
+    }
+
+    public Integer getLowerQuartile() {
+        return getQuantile(0.25);
+    }
+
+    public Integer getUpperQuartile() {
+        return getQuantile(0.75);
+    }
+
+    public Integer getLowest() {
+        return getQuantile(0);
+    }
+
+    public Integer getHighest() {
+        return getQuantile(1);
+    }
+
+    public Double getPassRate() {
+        return markCount == 0 ? null : passCount * 100.0 / markCount;
+    }
+
+    /**
+     * Mark counts in ten bands, 0-9 up to 90-100.
+     */
+    public int[] getBands() {
+        int[] bands = new int[10];
+        for (int score = 0; score < BUCKETS; score++) {
+            bands[Math.min(9, score / 10)] += histogram[score];
+        }
+        return bands;
+    }
+
+    private int scoreAt(long rank) {
+        long seen = 0;
+        for (int score = 0; score < BUCKETS; score++) {
+            seen += histogram[score];
+            if (seen >= rank) {
+                return score;
+            }
+        }
+        return BUCKETS - 1;
+    }
+}
@@ -25,6 +25,22 @@ public class Mark {
 
     private String comments;
 
+    // Exam and score as last read from or written to the database, so a change can be undone
+    // from the exam's statistics
+    @Transient
+    private Long storedExamId;
+
+    @Transient
+    private Integer storedScore;
+
+    @PostLoad
+    @PostPersist
+    @PostUpdate
+    void rememberStoredState() {
+        storedExamId = exam != null ? exam.getId() : null;
+        storedScore = score;
+    }
+
     // Getters and Setters
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
@@ -43,4 +59,8 @@ public class Mark {
 
     public String getComments() { return comments; }
     public void setComments(String comments) { this.comments = comments; }
+
+    public Long getStoredExamId() { return storedExamId; }
+
+    public Integer getStoredScore() { return storedScore; }
 }
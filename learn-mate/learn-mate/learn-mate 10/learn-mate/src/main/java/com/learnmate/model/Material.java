@@ -48,6 +48,10 @@ public class Material {
 
     private boolean active = true;
 
+    // Maintained by MaterialPopularityService with relative updates; never written from the entity
+    @Column(nullable = false, updatable = false)
+    private long downloadCount;
+
     @Transient
     private MultipartFile file;
 
@@ -91,6 +95,9 @@ public class Material {
     public boolean isActive() { return active; }
     public void setActive(boolean active) { this.active = active; }
 
+    public long getDownloadCount() { return downloadCount; }
+    public void setDownloadCount(long downloadCount) { this.downloadCount = downloadCount; }
+
     public MultipartFile getFile() { return file; }
     public void setFile(MultipartFile file) { this.file = file; }
 }
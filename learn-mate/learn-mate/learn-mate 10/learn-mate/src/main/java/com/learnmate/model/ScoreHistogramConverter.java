@@ -0,0 +1,33 @@
+package com.learnmate.model;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * Stores a score histogram as its counts separated by commas, lowest score first.
+ */
+@Converter
+public class ScoreHistogramConverter implements AttributeConverter<int[], String> {
+
+    @Override
+    public String convertToDatabaseColumn(int[] histogram) {
+        return histogram == null ? null
+                : Arrays.stream(histogram).mapToObj(Integer::toString).collect(Collectors.joining(","));
+    }
+
+    @Override
+    public int[] convertToEntityAttribute(String column) {
+        int[] histogram = new int[ExamStatistics.BUCKETS];
+        if (column == null || column.isBlank()) {
+            return histogram;
+        }
+        String[] counts = column.split(",");
+        for (int i = 0; i < Math.min(counts.length, histogram.length); i++) {
+            histogram[i] = Integer.parseInt(counts[i]);
+        }
+        return histogram;
+    }
+}
@@ -0,0 +1,6 @@
+package com.learnmate.model;
+
+public enum StorageTier {
+    HOT,
+    COLD
+}
@@ -0,0 +1,112 @@
+package com.learnmate.model;
+
+import com.learnmate.service.FileStorageService;
+import jakarta.persistence.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Storage-side bookkeeping for an uploaded file: whether it passed upload validation, which
+ * tier it lives in, how it is encoded there, and when it was last read. Rows are keyed by
+ * file type and stored file name.
+ */
+@Entity
+@Table(name = "stored_files",
+       uniqueConstraints = @UniqueConstraint(columnNames = {"file_type", "file_name"}))
+public class StoredFile {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private FileStorageService.FileType fileType;
+
+    @Column(nullable = false)
+    private String fileName;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private StorageTier tier = StorageTier.HOT;
+
+    // Null while the file is stored as uploaded
+    private String codec;
+
+    private Long originalSize;
+
+    private Long storedSize;
+
+    // False once compression was tried and did not save enough to be worth it
+    private boolean compressible = true;
+
+    private LocalDateTime lastAccessedAt;
+
+    private LocalDateTime tieredAt;
+
+    // Null for files uploaded before validation existed; those stay downloadable
+    @Enumerated(EnumType.STRING)
+    @Column(length = 10)
+    private ValidationStatus validationStatus;
+
+    // Type sniffed from the file's leading bytes, served instead of the client-declared one
+    private String detectedContentType;
+
+    private String rejectionReason;
+
+    private LocalDateTime validatedAt;
+
+    public StoredFile() {
+    }
+
+    public StoredFile(FileStorageService.FileType fileType, String fileName) {
+        this.fileType = fileType;
+        this.fileName = fileName;
+    }
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public FileStorageService.FileType getFileType() { return fileType; }
+    public void setFileType(FileStorageService.FileType fileType) { this.fileType = fileType; }
+
+    public String getFileName() { return fileName; }
+    public void setFileName(String fileName) { this.fileName = fileName; }
+
+    public StorageTier getTier() { return tier; }
+    public void setTier(StorageTier tier) { this.tier = tier; }
+
+    public String getCodec() { return codec; }
+    public void setCodec(String codec) { this.codec = codec; }
+
+    public Long getOriginalSize() { return originalSize; }
+    public void setOriginalSize(Long originalSize) { this.originalSize = originalSize; }
+
+    public Long getStoredSize() { return storedSize; }
+    public void setStoredSize(Long storedSize) { this.storedSize = storedSize; }
+
+    public boolean isCompressible() { return compressible; }
+    public void setCompressible(boolean compressible) { this.compressible = compressible; }
+
+    public LocalDateTime getLastAccessedAt() { return lastAccessedAt; }
+    public void setLastAccessedAt(LocalDateTime lastAccessedAt) { this.lastAccessedAt = lastAccessedAt; }
+
+    public LocalDateTime getTieredAt() { return tieredAt; }
+    public void setTieredAt(LocalDateTime tieredAt) { this.tieredAt = tieredAt; }
+
+    public ValidationStatus getValidationStatus() { return validationStatus; }
+    public void setValidationStatus(ValidationStatus validationStatus) { this.validationStatus = validationStatus; }
+
+    public String getDetectedContentType() { return detectedContentType; }
+    public void setDetectedContentType(String detectedContentType) { this.detectedContentType = detectedContentType; }
+
+    public String getRejectionReason() { return rejectionReason; }
+    public void setRejectionReason(String rejectionReason) { this.rejectionReason = rejectionReason; }
+
+    public LocalDateTime getValidatedAt() { return validatedAt; }
+    public void setValidatedAt(LocalDateTime validatedAt) { this.validatedAt = validatedAt; }
+
+    public boolean isDownloadable() {
+        return validationStatus == null || validationStatus == ValidationStatus.CLEAN;
+    }
+}
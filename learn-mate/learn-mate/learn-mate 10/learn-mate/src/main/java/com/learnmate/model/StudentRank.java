@@ -0,0 +1,69 @@
+package com.learnmate.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDate;
+
+/**
+ * A student's place in their class, either for one exam ({@code examId} set) or for the term
+ * starting {@code termStart} ({@code examId} null), where the score is the average of the
+ * student's published marks in the term. Rows are written by the ranking service whenever a
+ * mark of the exam changes.
+ */
+@Entity
+@Table(name = "student_ranks", indexes = {
+        @Index(name = "idx_student_ranks_exam", columnList = "exam_id"),
+        @Index(name = "idx_student_ranks_student", columnList = "student_id"),
+        @Index(name = "idx_student_ranks_class_term", columnList = "school_class_id, term_start")
+})
+public class StudentRank {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private Long examId;
+
+    private Long schoolClassId;
+
+    private Long studentId;
+
+    private LocalDate termStart;
+
+    private double score;
+
+    // 1 for the top score; tied students share a rank and the next one is skipped (1, 2, 2, 4)
+    private int classRank;
+
+    // Share of the class scoring below, counting ties as half
+    private double percentile;
+
+    private int classSize;
+
+    // Getters and Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public Long getExamId() { return examId; }
+    public void setExamId(Long examId) { this.examId = examId; }
+
+    public Long getSchoolClassId() { return schoolClassId; }
+    public void setSchoolClassId(Long schoolClassId) { this.schoolClassId = schoolClassId; }
+
+    public Long getStudentId() { return studentId; }
+    public void setStudentId(Long studentId) { this.studentId = studentId; }
+
+    public LocalDate getTermStart() { return termStart; }
+    public void setTermStart(LocalDate termStart) { this.termStart = termStart; }
+
+    public double getScore() { return score; }
+    public void setScore(double score) { this.score = score; }
+
+    public int getClassRank() { return classRank; }
+    public void setClassRank(int classRank) { this.classRank = classRank; }
+
+    public double getPercentile() { return percentile; }
+    public void setPercentile(double percentile) { this.percentile = percentile; }
+
+    public int getClassSize() { return classSize; }
+    public void setClassSize(int classSize) { this.classSize = classSize; }
+}
@@ -0,0 +1,66 @@
+package com.learnmate.model;
+
+import jakarta.persistence.*;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * What the student dashboard shows, kept up to date by the attendance, exam and notification
+ * write paths so the dashboard is a single primary key lookup. Upcoming exams are counted as of
+ * {@code examsAsOf}; a nightly refresh recounts them and corrects any drift.
+ */
+@Entity
+@Table(name = "student_summaries")
+public class StudentSummary {
+    @Id
+    private Long studentId;
+
+    private long attendanceDays;
+
+    private long presentDays;
+
+    private long upcomingExams;
+
+    private LocalDate nextExamDate;
+
+    private LocalDate examsAsOf;
+
+    private String latestNotificationTitle;
+
+    private LocalDateTime latestNotificationAt;
+
+    private long unreadNotifications;
+
+    // Getters and Setters
+    public Long getStudentId() { return studentId; }
+    public void setStudentId(Long studentId) { this.studentId = studentId; }
+
+    public long getAttendanceDays() { return attendanceDays; }
+    public void setAttendanceDays(long attendanceDays) { this.attendanceDays = attendanceDays; }
+
+    public long getPresentDays() { return presentDays; }
+    public void setPresentDays(long presentDays) { this.presentDays = presentDays; }
+
+    public long getUpcomingExams() { return upcomingExams; }
+    public void setUpcomingExams(long upcomingExams) { this.upcomingExams = upcomingExams; }
+
+    public LocalDate getNextExamDate() { return nextExamDate; }
+    public void setNextExamDate(LocalDate nextExamDate) { this.nextExamDate = nextExamDate; }
+
+    public LocalDate getExamsAsOf() { return examsAsOf; }
+    public void setExamsAsOf(LocalDate examsAsOf) { this.examsAsOf = examsAsOf; }
+
+    public String getLatestNotificationTitle() { return latestNotificationTitle; }
+    public void setLatestNotificationTitle(String latestNotificationTitle) { this.latestNotificationTitle = latestNotificationTitle; }
+
+    public LocalDateTime getLatestNotificationAt() { return latestNotificationAt; }
+    public void setLatestNotificationAt(LocalDateTime latestNotificationAt) { this.latestNotificationAt = latestNotificationAt; }
+
+    public long getUnreadNotifications() { return unreadNotifications; }
+    public void setUnreadNotifications(long unreadNotifications) { this.unreadNotifications = unreadNotifications; }
+
+    public Double getAttendanceRate() {
+        return attendanceDays == 0 ? null : presentDays * 100.0 / attendanceDays;
+    }
+}
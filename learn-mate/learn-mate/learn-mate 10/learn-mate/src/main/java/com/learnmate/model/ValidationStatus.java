@@ -0,0 +1,7 @@
+package com.learnmate.model;
+
+public enum ValidationStatus {
+    PENDING,
+    CLEAN,
+    REJECTED
+}
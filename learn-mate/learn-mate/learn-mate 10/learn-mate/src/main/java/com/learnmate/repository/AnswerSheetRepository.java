@@ -1,11 +1,17 @@
 package com.learnmate.repository;
 
+import com.learnmate.dto.GradingResult;
+import com.learnmate.dto.StoredFileReference;
 import com.learnmate.model.AnswerSheet;
 import com.learnmate.model.Exam;
 import com.learnmate.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,4 +21,19 @@ public interface AnswerSheetRepository extends JpaRepository<AnswerSheet, Long>
     List<AnswerSheet> findByStudent(User student);
     Optional<AnswerSheet> findByExamAndStudent(Exam exam, User student);
     List<AnswerSheet> findByExamAndStatus(Exam exam, String status);
+
+    @Query("SELECT COUNT(a) FROM AnswerSheet a WHERE a.exam.teacher = :teacher " +
+           "AND (a.status IS NULL OR a.status <> 'GRADED')")
+    long countUngradedByTeacher(@Param("teacher") User teacher);
+
+    @Query("SELECT new com.learnmate.dto.GradingResult$SheetRow(a.id, a.student.id, a.status, a.score, a.comments) " +
+           "FROM AnswerSheet a WHERE a.exam.id = :examId ORDER BY a.id")
+    List<GradingResult.SheetRow> findGradingRowsByExam(@Param("examId") Long examId);
+
+    @Query("SELECT DISTINCT a.filePath FROM AnswerSheet a WHERE a.filePath IN :fileNames")
+    List<String> findReferencedFileNames(@Param("fileNames") Collection<String> fileNames);
+
+    @Query("SELECT new com.learnmate.dto.StoredFileReference(a.id, a.filePath) FROM AnswerSheet a " +
+           "WHERE a.filePath IS NOT NULL AND a.id > :afterId ORDER BY a.id")
+    List<StoredFileReference> findFileReferencesAfter(@Param("afterId") Long afterId, Pageable pageable);
 }
@@ -1,5 +1,7 @@
 package com.learnmate.repository;
 
+import com.learnmate.dto.AttendanceTaken;
+import com.learnmate.dto.ParentDashboard;
 import com.learnmate.model.Attendance;
 import com.learnmate.model.SchoolClass;
 import com.learnmate.model.Subject;
@@ -55,6 +57,15 @@ public interface AttendanceRepository extends JpaRepository<Attendance, Long> {
 
     List<Attendance> findBySchoolClassIn(Collection<SchoolClass> schoolClasses);
 
+    @Query("SELECT new com.learnmate.dto.ParentDashboard$AttendanceCount(a.student.id, COUNT(a), " +
+           "SUM(CASE WHEN a.present = true THEN 1 ELSE 0 END)) FROM Attendance a " +
+           "WHERE a.student.id IN :studentIds GROUP BY a.student.id")
+    List<ParentDashboard.AttendanceCount> countByStudentIds(@Param("studentIds") Collection<Long> studentIds);
+
+    @Query("SELECT new com.learnmate.dto.AttendanceTaken(c.id, s.id) FROM Attendance a " +
+           "JOIN a.schoolClass c LEFT JOIN a.subject s WHERE a.date = :date GROUP BY c.id, s.id")
+    List<AttendanceTaken> findTakenOn(@Param("date") LocalDate date);
+
         @Query("""
             SELECT a
             FROM Attendance a
@@ -1,13 +1,21 @@
 package com.learnmate.repository;
 
+import com.learnmate.dto.ParentDashboard;
+import com.learnmate.dto.StoredFileReference;
 import com.learnmate.model.Exam;
 import com.learnmate.model.SchoolClass;
 import com.learnmate.model.Subject;
 import com.learnmate.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
 public interface ExamRepository extends JpaRepository<Exam, Long> {
@@ -16,4 +24,23 @@ public interface ExamRepository extends JpaRepository<Exam, Long> {
     List<Exam> findByGrade(String grade);
     List<Exam> findByGradeAndSubject(String grade, Subject subject);
     List<Exam> findBySchoolClass(SchoolClass schoolClass);
+    List<Exam> findBySchoolClassAndDateBetweenOrderByDateAsc(SchoolClass schoolClass, LocalDate from, LocalDate to);
+    List<Exam> findBySchoolClassAndSubjectInAndDateBetweenOrderByDateAsc(SchoolClass schoolClass, Collection<Subject> subjects,
+                                                                       LocalDate from, LocalDate to);
+    List<Exam> findByTeacherAndDateBetweenOrderByDateAsc(User teacher, LocalDate from, LocalDate to);
+
+    @Query("SELECT new com.learnmate.dto.ParentDashboard$ExamCount(e.schoolClass.id, COUNT(e), MIN(e.date)) " +
+           "FROM Exam e WHERE e.schoolClass.id IN :classIds AND e.date > :today GROUP BY e.schoolClass.id")
+    List<ParentDashboard.ExamCount> countUpcomingByClassIds(@Param("classIds") Collection<Long> classIds,
+                                                            @Param("today") LocalDate today);
+
+    @Query("SELECT e.schoolClass.id FROM Exam e WHERE e.id = :id")
+    Optional<Long> findSchoolClassIdById(@Param("id") Long id);
+
+    @Query("SELECT DISTINCT e.filePath FROM Exam e WHERE e.filePath IN :fileNames")
+    List<String> findReferencedFileNames(@Param("fileNames") Collection<String> fileNames);
+
+    @Query("SELECT new com.learnmate.dto.StoredFileReference(e.id, e.filePath) FROM Exam e " +
+           "WHERE e.filePath IS NOT NULL AND e.id > :afterId ORDER BY e.id")
+    List<StoredFileReference> findFileReferencesAfter(@Param("afterId") Long afterId, Pageable pageable);
 }
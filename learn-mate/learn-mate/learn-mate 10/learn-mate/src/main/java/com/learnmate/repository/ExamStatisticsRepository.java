@@ -0,0 +1,18 @@
+package com.learnmate.repository;
+
+import com.learnmate.model.ExamStatistics;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface ExamStatisticsRepository extends JpaRepository<ExamStatistics, Long> {
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM ExamStatistics s WHERE s.examId = :examId")
+    Optional<ExamStatistics> findForUpdate(@Param("examId") Long examId);
+}
@@ -1,11 +1,18 @@
 package com.learnmate.repository;
 
+import com.learnmate.dto.AdminMetrics;
+import com.learnmate.dto.ParentDashboard;
+import com.learnmate.dto.StoredFileReference;
 import com.learnmate.model.Fee;
 import com.learnmate.model.Subject;
 import com.learnmate.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -21,4 +28,20 @@ public interface FeeRepository extends JpaRepository<Fee, Long> {
     List<Fee> findByStudentAndSchoolClass(User student, com.learnmate.model.SchoolClass schoolClass);
     List<Fee> findByStudentAndSubjectAndSchoolClass(User student, Subject subject, com.learnmate.model.SchoolClass schoolClass);
     Optional<Fee> findByStudentAndSubjectAndSchoolClassAndStatus(User student, Subject subject, com.learnmate.model.SchoolClass schoolClass, String status);
+
+    @Query("SELECT new com.learnmate.dto.AdminMetrics$FeeStatusCount(f.status, COUNT(f), COALESCE(SUM(f.amount), 0)) " +
+           "FROM Fee f GROUP BY f.status")
+    List<AdminMetrics.FeeStatusCount> countByStatus();
+
+    @Query("SELECT new com.learnmate.dto.ParentDashboard$FeeCount(f.student.id, COUNT(f), COALESCE(SUM(f.amount), 0)) " +
+           "FROM Fee f WHERE f.student.id IN :studentIds AND (f.status IS NULL OR f.status <> 'PAID') " +
+           "GROUP BY f.student.id")
+    List<ParentDashboard.FeeCount> countUnpaidByStudentIds(@Param("studentIds") Collection<Long> studentIds);
+
+    @Query("SELECT DISTINCT f.paymentSlipPath FROM Fee f WHERE f.paymentSlipPath IN :fileNames")
+    List<String> findReferencedFileNames(@Param("fileNames") Collection<String> fileNames);
+
+    @Query("SELECT new com.learnmate.dto.StoredFileReference(f.id, f.paymentSlipPath) FROM Fee f " +
+           "WHERE f.paymentSlipPath IS NOT NULL AND f.id > :afterId ORDER BY f.id")
+    List<StoredFileReference> findFileReferencesAfter(@Param("afterId") Long afterId, Pageable pageable);
 }
@@ -1,5 +1,9 @@
 package com.learnmate.repository;
 
+import com.learnmate.dto.GradingResult;
+import com.learnmate.dto.ParentDashboard;
+import com.learnmate.dto.ScoreCount;
+import com.learnmate.dto.StudentScore;
 import com.learnmate.model.Exam;
 import com.learnmate.model.Mark;
 import com.learnmate.model.SchoolClass;
@@ -10,6 +14,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
@@ -36,6 +41,38 @@ public interface MarkRepository extends JpaRepository<Mark, Long> {
         "WHERE s IN :students")
     List<Mark> findAllWithDetailsByStudents(@Param("students") Collection<User> students);
     
+    @Query("SELECT new com.learnmate.dto.ParentDashboard$ScoreAverage(m.student.id, AVG(m.score)) FROM Mark m " +
+           "WHERE m.student.id IN :studentIds AND m.published = true GROUP BY m.student.id")
+    List<ParentDashboard.ScoreAverage> averagePublishedByStudentIds(@Param("studentIds") Collection<Long> studentIds);
+
+    @Query("SELECT new com.learnmate.dto.ParentDashboard$RecentMark(m.student.id, e.title, s.name, m.score, e.date) " +
+           "FROM Mark m JOIN m.exam e LEFT JOIN e.subject s " +
+           "WHERE m.student.id IN :studentIds AND m.published = true AND e.date >= :since " +
+           "ORDER BY e.date DESC, m.id DESC")
+    List<ParentDashboard.RecentMark> findRecentPublishedByStudentIds(@Param("studentIds") Collection<Long> studentIds,
+                                                                     @Param("since") LocalDate since);
+
+    // Students with more than one mark for an exam are ranked on their average; marks that
+    // have not been released yet do not count
+    @Query("SELECT new com.learnmate.dto.StudentScore(m.student.id, AVG(m.score)) FROM Mark m " +
+           "WHERE m.exam.id = :examId AND m.published = true GROUP BY m.student.id")
+    List<StudentScore> scoresByExam(@Param("examId") Long examId);
+
+    @Query("SELECT new com.learnmate.dto.StudentScore(s.id, AVG(m.score)) FROM Mark m JOIN m.student s JOIN m.exam e " +
+           "WHERE e.schoolClass.id = :classId AND s.schoolClass.id = :classId AND m.published = true " +
+           "AND e.date BETWEEN :start AND :end GROUP BY s.id")
+    List<StudentScore> publishedAveragesByClass(@Param("classId") Long classId,
+                                                @Param("start") LocalDate start,
+                                                @Param("end") LocalDate end);
+
+    @Query("SELECT new com.learnmate.dto.ScoreCount(m.score, COUNT(m)) FROM Mark m " +
+           "WHERE m.exam.id = :examId GROUP BY m.score")
+    List<ScoreCount> countScoresByExam(@Param("examId") Long examId);
+
+    @Query("SELECT new com.learnmate.dto.GradingResult$MarkRow(m.id, m.student.id, m.score, m.comments, m.published) " +
+           "FROM Mark m WHERE m.exam.id = :examId ORDER BY m.id")
+    List<GradingResult.MarkRow> findGradingRowsByExam(@Param("examId") Long examId);
+
     // Custom queries for SchoolClass-based marks
     @Query("SELECT m FROM Mark m WHERE m.exam = :exam AND m.student.schoolClass = :schoolClass")
     List<Mark> findByExamAndStudentSchoolClass(@Param("exam") Exam exam, @Param("schoolClass") SchoolClass schoolClass);
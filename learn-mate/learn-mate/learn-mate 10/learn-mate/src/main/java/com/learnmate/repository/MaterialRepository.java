@@ -1,21 +1,75 @@
 package com.learnmate.repository;
 
+import com.learnmate.dto.MaterialListItem;
+import com.learnmate.dto.StoredFileReference;
 import com.learnmate.model.Material;
 import com.learnmate.model.SchoolClass;
 import com.learnmate.model.Subject;
 import com.learnmate.model.User;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 
 @Repository
 public interface MaterialRepository extends JpaRepository<Material, Long> {
+    // Shared by the role-scoped listings, which are ordered through the Pageable. matchAll
+    // switches the id restriction off, since an optional collection parameter cannot be
+    // null-checked portably.
+    String LISTING_SELECT = "SELECT new com.learnmate.dto.MaterialListItem(m.id, m.title, m.description, " +
+            "m.fileName, m.originalFileName, m.fileType, m.fileSize, m.uploadedAt, m.downloadCount, " +
+            "s.name, c.name, t.name) ";
+    String LISTING_FROM = "FROM Material m LEFT JOIN m.subject s LEFT JOIN m.schoolClass c LEFT JOIN m.teacher t " +
+            "WHERE m.active = true AND (:subjectId IS NULL OR s.id = :subjectId) " +
+            "AND (:classId IS NULL OR c.id = :classId) AND (:matchAll = true OR m.id IN :ids) ";
+
     List<Material> findBySubjectAndSchoolClassAndActiveTrue(Subject subject, SchoolClass schoolClass);
     List<Material> findByTeacherAndActiveTrue(User teacher);
     List<Material> findBySubjectAndActiveTrue(Subject subject);
     List<Material> findBySchoolClassAndActiveTrue(SchoolClass schoolClass);
     List<Material> findBySchoolClassAndSubjectInAndActiveTrue(SchoolClass schoolClass, Set<Subject> subjects);
     List<Material> findByActiveTrueOrderByUploadedAtDesc();
+
+    @Query("SELECT DISTINCT m.fileName FROM Material m WHERE m.active = true AND m.fileName IN :fileNames")
+    List<String> findReferencedFileNames(@Param("fileNames") Collection<String> fileNames);
+
+    @Query("SELECT new com.learnmate.dto.StoredFileReference(m.id, m.fileName) FROM Material m " +
+           "WHERE m.active = true AND m.fileName IS NOT NULL AND m.id > :afterId ORDER BY m.id")
+    List<StoredFileReference> findFileReferencesAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("SELECT new com.learnmate.dto.StoredFileReference(m.id, m.fileName) FROM Material m WHERE m.active = true")
+    List<StoredFileReference> findActiveFileReferences();
+
+    @Query(value = LISTING_SELECT + LISTING_FROM + "AND c.id = :studentClassId AND s.id IN :studentSubjectIds",
+           countQuery = "SELECT COUNT(m) " + LISTING_FROM + "AND c.id = :studentClassId AND s.id IN :studentSubjectIds")
+    Page<MaterialListItem> findStudentListing(@Param("studentClassId") Long studentClassId,
+                                              @Param("studentSubjectIds") Collection<Long> studentSubjectIds,
+                                              @Param("subjectId") Long subjectId,
+                                              @Param("classId") Long classId,
+                                              @Param("matchAll") boolean matchAll,
+                                              @Param("ids") Collection<Long> ids,
+                                              Pageable pageable);
+
+    @Query(value = LISTING_SELECT + LISTING_FROM + "AND t.id = :teacherId",
+           countQuery = "SELECT COUNT(m) " + LISTING_FROM + "AND t.id = :teacherId")
+    Page<MaterialListItem> findTeacherListing(@Param("teacherId") Long teacherId,
+                                              @Param("subjectId") Long subjectId,
+                                              @Param("classId") Long classId,
+                                              @Param("matchAll") boolean matchAll,
+                                              @Param("ids") Collection<Long> ids,
+                                              Pageable pageable);
+
+    @Query(value = LISTING_SELECT + LISTING_FROM,
+           countQuery = "SELECT COUNT(m) " + LISTING_FROM)
+    Page<MaterialListItem> findListing(@Param("subjectId") Long subjectId,
+                                       @Param("classId") Long classId,
+                                       @Param("matchAll") boolean matchAll,
+                                       @Param("ids") Collection<Long> ids,
+                                       Pageable pageable);
 }
@@ -1,11 +1,16 @@
 package com.learnmate.repository;
 
+import com.learnmate.dto.StoredFileReference;
 import com.learnmate.model.Notification;
 import com.learnmate.model.SchoolClass;
 import com.learnmate.model.User;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 public interface NotificationRepository extends JpaRepository<Notification, Long> {
@@ -19,4 +24,11 @@ public interface NotificationRepository extends JpaRepository<Notification, Long
     long countByTargetUserAndReadFalse(User user);
     long countByCreatedAtBetween(LocalDateTime start, LocalDateTime end);
     void deleteByBroadcastKey(String broadcastKey);
+
+    @Query("SELECT DISTINCT n.fileName FROM Notification n WHERE n.fileName IN :fileNames")
+    List<String> findReferencedFileNames(@Param("fileNames") Collection<String> fileNames);
+
+    @Query("SELECT new com.learnmate.dto.StoredFileReference(n.id, n.fileName) FROM Notification n " +
+           "WHERE n.fileName IS NOT NULL AND n.id > :afterId ORDER BY n.id")
+    List<StoredFileReference> findFileReferencesAfter(@Param("afterId") Long afterId, Pageable pageable);
 }
@@ -0,0 +1,39 @@
+package com.learnmate.repository;
+
+import com.learnmate.dto.CompressionStats;
+import com.learnmate.model.StorageTier;
+import com.learnmate.model.StoredFile;
+import com.learnmate.model.ValidationStatus;
+import com.learnmate.service.FileStorageService;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface StoredFileRepository extends JpaRepository<StoredFile, Long> {
+    Optional<StoredFile> findByFileTypeAndFileName(FileStorageService.FileType fileType, String fileName);
+    List<StoredFile> findByFileTypeAndFileNameIn(FileStorageService.FileType fileType, Collection<String> fileNames);
+    List<StoredFile> findByValidationStatusOrderByIdAsc(ValidationStatus validationStatus, Pageable pageable);
+
+    @Query("SELECT s.fileName FROM StoredFile s WHERE s.fileType = :fileType AND s.tier = :tier")
+    List<String> findFileNamesByTier(@Param("fileType") FileStorageService.FileType fileType,
+                                     @Param("tier") StorageTier tier);
+
+    @Query("SELECT new com.learnmate.dto.CompressionStats(s.fileType, COUNT(s), SUM(s.originalSize), SUM(s.storedSize)) " +
+           "FROM StoredFile s WHERE s.tier = :tier GROUP BY s.fileType ORDER BY s.fileType")
+    List<CompressionStats> summarizeByFileType(@Param("tier") StorageTier tier);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM StoredFile s WHERE s.fileType = :fileType AND s.fileName IN :fileNames")
+    int deleteByFileTypeAndFileNameIn(@Param("fileType") FileStorageService.FileType fileType,
+                                      @Param("fileNames") Collection<String> fileNames);
+}
@@ -0,0 +1,19 @@
+package com.learnmate.repository;
+
+import com.learnmate.model.StudentRank;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface StudentRankRepository extends JpaRepository<StudentRank, Long> {
+    List<StudentRank> findByStudentIdAndExamIdIsNotNull(Long studentId);
+
+    Optional<StudentRank> findByStudentIdAndExamIdIsNullAndTermStart(Long studentId, LocalDate termStart);
+
+    List<StudentRank> findByStudentIdInAndExamIdIsNullAndTermStart(Collection<Long> studentIds, LocalDate termStart);
+}
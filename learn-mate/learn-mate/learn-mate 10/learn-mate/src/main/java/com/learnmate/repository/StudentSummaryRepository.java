@@ -0,0 +1,111 @@
+package com.learnmate.repository;
+
+import com.learnmate.model.StudentSummary;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+/**
+ * Bulk statements only: increments for the common writes, and recounts from the source tables
+ * for a set of students, a class or everyone. Each runs in the caller's transaction, or its own.
+ */
+@Repository
+@Transactional
+public interface StudentSummaryRepository extends JpaRepository<StudentSummary, Long> {
+
+    String ATTENDANCE = "UPDATE StudentSummary s SET " +
+            "s.attendanceDays = (SELECT COUNT(a) FROM Attendance a WHERE a.student.id = s.studentId), " +
+            "s.presentDays = (SELECT COUNT(a) FROM Attendance a WHERE a.student.id = s.studentId AND a.present = true)";
+
+    String EXAMS = "UPDATE StudentSummary s SET " +
+            "s.upcomingExams = (SELECT COUNT(e) FROM Exam e, User u " +
+            "WHERE u.id = s.studentId AND e.schoolClass = u.schoolClass AND e.date > :today), " +
+            "s.nextExamDate = (SELECT MIN(e.date) FROM Exam e, User u " +
+            "WHERE u.id = s.studentId AND e.schoolClass = u.schoolClass AND e.date > :today), " +
+            "s.examsAsOf = :today";
+
+    // Notification ids grow with creation time, so the highest is the latest
+    String NOTIFICATIONS = "UPDATE StudentSummary s SET " +
+            "s.unreadNotifications = (SELECT COUNT(n) FROM Notification n WHERE n.targetUser.id = s.studentId AND n.read = false), " +
+            "s.latestNotificationTitle = (SELECT n.title FROM Notification n WHERE n.id = " +
+            "(SELECT MAX(l.id) FROM Notification l WHERE l.targetUser.id = s.studentId)), " +
+            "s.latestNotificationAt = (SELECT n.createdAt FROM Notification n WHERE n.id = " +
+            "(SELECT MAX(l.id) FROM Notification l WHERE l.targetUser.id = s.studentId))";
+
+    String IN_CLASS = " WHERE s.studentId IN (SELECT u.id FROM User u WHERE u.schoolClass.id = :classId)";
+
+    @Modifying
+    @Query("INSERT INTO StudentSummary (studentId, attendanceDays, presentDays, upcomingExams, unreadNotifications) " +
+           "SELECT u.id, 0L, 0L, 0L, 0L FROM User u WHERE u.role = com.learnmate.model.Role.STUDENT " +
+           "AND NOT EXISTS (SELECT 1 FROM StudentSummary s WHERE s.studentId = u.id)")
+    int insertMissing();
+
+    @Modifying
+    @Query("INSERT INTO StudentSummary (studentId, attendanceDays, presentDays, upcomingExams, unreadNotifications) " +
+           "SELECT u.id, 0L, 0L, 0L, 0L FROM User u WHERE u.id = :studentId " +
+           "AND NOT EXISTS (SELECT 1 FROM StudentSummary s WHERE s.studentId = u.id)")
+    int insertMissing(@Param("studentId") Long studentId);
+
+    @Modifying
+    @Query("UPDATE StudentSummary s SET s.attendanceDays = s.attendanceDays + 1, " +
+           "s.presentDays = s.presentDays + :present WHERE s.studentId = :studentId")
+    int recordAttendance(@Param("studentId") Long studentId, @Param("present") long present);
+
+    @Modifying
+    @Query("UPDATE StudentSummary s SET s.presentDays = s.presentDays + :delta WHERE s.studentId = :studentId")
+    int adjustPresent(@Param("studentId") Long studentId, @Param("delta") long delta);
+
+    @Modifying(flushAutomatically = true)
+    @Query(ATTENDANCE + " WHERE s.studentId IN :studentIds")
+    int refreshAttendance(@Param("studentIds") Collection<Long> studentIds);
+
+    @Modifying(flushAutomatically = true)
+    @Query(ATTENDANCE + IN_CLASS)
+    int refreshAttendanceForClass(@Param("classId") Long classId);
+
+    @Modifying
+    @Query(ATTENDANCE)
+    int refreshAttendance();
+
+    @Modifying(flushAutomatically = true)
+    @Query(EXAMS + " WHERE s.studentId IN :studentIds")
+    int refreshExams(@Param("studentIds") Collection<Long> studentIds, @Param("today") LocalDate today);
+
+    @Modifying(flushAutomatically = true)
+    @Query(EXAMS + IN_CLASS)
+    int refreshExamsForClass(@Param("classId") Long classId, @Param("today") LocalDate today);
+
+    @Modifying(flushAutomatically = true)
+    @Query(EXAMS)
+    int refreshExams(@Param("today") LocalDate today);
+
+    @Modifying
+    @Query("UPDATE StudentSummary s SET s.latestNotificationTitle = :title, s.latestNotificationAt = :createdAt, " +
+           "s.unreadNotifications = s.unreadNotifications + 1 WHERE s.studentId = :studentId")
+    int recordNotification(@Param("studentId") Long studentId, @Param("title") String title,
+                           @Param("createdAt") LocalDateTime createdAt);
+
+    @Modifying
+    @Query("UPDATE StudentSummary s SET s.unreadNotifications = s.unreadNotifications - 1 " +
+           "WHERE s.studentId = :studentId AND s.unreadNotifications > 0")
+    int notificationRead(@Param("studentId") Long studentId);
+
+    @Modifying
+    @Query("UPDATE StudentSummary s SET s.unreadNotifications = 0 WHERE s.studentId = :studentId")
+    int allNotificationsRead(@Param("studentId") Long studentId);
+
+    @Modifying(flushAutomatically = true)
+    @Query(NOTIFICATIONS + " WHERE s.studentId IN :studentIds")
+    int refreshNotifications(@Param("studentIds") Collection<Long> studentIds);
+
+    @Modifying
+    @Query(NOTIFICATIONS)
+    int refreshNotifications();
+}
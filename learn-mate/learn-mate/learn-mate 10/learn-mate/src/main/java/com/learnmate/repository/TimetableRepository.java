@@ -1,13 +1,19 @@
 package com.learnmate.repository;
 
+import com.learnmate.dto.StoredFileReference;
 import com.learnmate.model.SchoolClass;
+import com.learnmate.model.Subject;
 import com.learnmate.model.Timetable;
 import com.learnmate.model.User;
-import com.learnmate.model.Subject;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 
@@ -16,7 +22,27 @@ public interface TimetableRepository extends JpaRepository<Timetable, Long> {
     List<Timetable> findBySchoolClass(SchoolClass schoolClass);
     List<Timetable> findByDay(DayOfWeek day);
     List<Timetable> findByTeacher(User teacher);
+    List<Timetable> findByTeacherAndDayOrderByStartTimeAsc(User teacher, DayOfWeek day);
     List<Timetable> findBySchoolClassAndDay(SchoolClass schoolClass, DayOfWeek day);
     List<Timetable> findBySchoolClassAndDayAndSubject(SchoolClass schoolClass, DayOfWeek day, Subject subject);
     List<Timetable> findBySchoolClassAndSubjectIn(SchoolClass schoolClass, Set<Subject> subjects);
+
+    // Lessons sharing the class, teacher or (case-insensitive) room that overlap the given slot
+    @Query("SELECT t FROM Timetable t WHERE t.day = :day AND t.startTime < :endTime AND t.endTime > :startTime " +
+           "AND (:excludeId IS NULL OR t.id <> :excludeId) " +
+           "AND (t.schoolClass.id = :classId OR t.teacher.id = :teacherId OR LOWER(TRIM(t.room)) = :room)")
+    List<Timetable> findOverlapping(@Param("day") DayOfWeek day,
+                                    @Param("startTime") LocalTime startTime,
+                                    @Param("endTime") LocalTime endTime,
+                                    @Param("classId") Long classId,
+                                    @Param("teacherId") Long teacherId,
+                                    @Param("room") String room,
+                                    @Param("excludeId") Long excludeId);
+
+    @Query("SELECT DISTINCT t.filePath FROM Timetable t WHERE t.filePath IN :fileNames")
+    List<String> findReferencedFileNames(@Param("fileNames") Collection<String> fileNames);
+
+    @Query("SELECT new com.learnmate.dto.StoredFileReference(t.id, t.filePath) FROM Timetable t " +
+           "WHERE t.filePath IS NOT NULL AND t.id > :afterId ORDER BY t.id")
+    List<StoredFileReference> findFileReferencesAfter(@Param("afterId") Long afterId, Pageable pageable);
 }
@@ -1,8 +1,10 @@
 package com.learnmate.repository;
 
+import com.learnmate.dto.AdminMetrics;
 import com.learnmate.model.Role;
 import com.learnmate.model.SchoolClass;
 import com.learnmate.model.User;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -14,6 +16,17 @@ import java.util.Optional;
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
     Optional<User> findByUsername(String username);
+
+    @EntityGraph(attributePaths = {"schoolClass", "subjects"})
+    Optional<User> findWithEnrollmentByUsername(String username);
+
+    @EntityGraph(attributePaths = {"schoolClass", "subjects"})
+    Optional<User> findWithEnrollmentById(Long id);
+
+    @Query("SELECT new com.learnmate.dto.AdminMetrics$UserCount(u.role, u.active, COUNT(u)) FROM User u " +
+           "GROUP BY u.role, u.active")
+    List<AdminMetrics.UserCount> countByRoleAndActive();
+
     Optional<User> findByEmail(String email);
     List<User> findByRole(Role role);
     List<User> findByNameContainingIgnoreCase(String name);
@@ -38,6 +51,6 @@ public interface UserRepository extends JpaRepository<User, Long> {
     @Query("SELECT DISTINCT s FROM User s WHERE s.role = :role AND s.id NOT IN (SELECT DISTINCT c.id FROM User p JOIN p.children c WHERE p.role = 'PARENT')")
     List<User> findStudentsNotLinkedToAnyParent(Role role);
 
-    @Query("SELECT p FROM User p LEFT JOIN FETCH p.children WHERE p.username = :username")
+    @Query("SELECT p FROM User p LEFT JOIN FETCH p.children c LEFT JOIN FETCH c.schoolClass WHERE p.username = :username")
     Optional<User> findParentWithChildrenByUsername(@Param("username") String username);
 }
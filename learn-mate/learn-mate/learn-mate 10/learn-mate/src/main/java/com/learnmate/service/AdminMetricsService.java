@@ -0,0 +1,75 @@
+package com.learnmate.service;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.github.benmanes.caffeine.cache.Ticker;
+import com.learnmate.dto.AdminMetrics;
+import com.learnmate.repository.FeeRepository;
+import com.learnmate.repository.SchoolClassRepository;
+import com.learnmate.repository.UserRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * School-wide counts for the admin dashboard, from three aggregate queries. The result is
+ * kept for a short while and refreshed ahead: once it is older than refresh-after, the next
+ * request still gets it straight away while a background reload replaces it, so a dashboard
+ * view never waits on the queries unless nobody has looked for expire-after.
+ */
+@Service
+public class AdminMetricsService {
+    private static final String KEY = "school";
+
+    private final UserRepository userRepository;
+    private final SchoolClassRepository schoolClassRepository;
+    private final FeeRepository feeRepository;
+    private final MeterRegistry meterRegistry;
+
+    @Value("${dashboard.admin-metrics.refresh-after:PT30S}")
+    private Duration refreshAfter;
+
+    @Value("${dashboard.admin-metrics.expire-after:PT10M}")
+    private Duration expireAfter;
+
+    Ticker ticker = Ticker.systemTicker();
+    Executor executor = ForkJoinPool.commonPool();
+
+    private LoadingCache<String, AdminMetrics> cache;
+
+    public AdminMetricsService(UserRepository userRepository, SchoolClassRepository schoolClassRepository,
+                               FeeRepository feeRepository, MeterRegistry meterRegistry) {
+        this.userRepository = userRepository;
+        this.schoolClassRepository = schoolClassRepository;
+        this.feeRepository = feeRepository;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    void build() {
+        cache = Caffeine.newBuilder()
+                .refreshAfterWrite(refreshAfter)
+                .expireAfterWrite(expireAfter)
+                .ticker(ticker)
+                .executor(executor)
+                .recordStats()
+                .build(ignored -> load());
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "adminMetrics");
+    }
+
+    public AdminMetrics getMetrics() {
+        return cache.get(KEY);
+    }
+
+    private AdminMetrics load() {
+        return new AdminMetrics(userRepository.countByRoleAndActive(), schoolClassRepository.count(),
+                feeRepository.countByStatus(), Instant.now());
+    }
+}
@@ -6,6 +6,7 @@ import com.learnmate.model.Subject;
 import com.learnmate.model.Timetable;
 import com.learnmate.model.User;
 import com.learnmate.repository.AttendanceRepository;
+import com.learnmate.service.dashboard.ParentDashboardCache;
 
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -22,10 +23,15 @@ import java.util.Set;
 @Service
 public class AttendanceService {
     private final AttendanceRepository attendanceRepository;
+    private final ParentDashboardCache parentDashboardCache;
+    private final StudentSummaryService studentSummaryService;
     // private final NotificationService notificationService;
 
-    public AttendanceService(AttendanceRepository attendanceRepository) {
+    public AttendanceService(AttendanceRepository attendanceRepository, ParentDashboardCache parentDashboardCache,
+                             StudentSummaryService studentSummaryService) {
         this.attendanceRepository = attendanceRepository;
+        this.parentDashboardCache = parentDashboardCache;
+        this.studentSummaryService = studentSummaryService;
     }
 
     public List<Attendance> getAllAttendances() {
@@ -38,12 +44,19 @@ public class AttendanceService {
 
     public Attendance createAttendance(Attendance attendance) {
         Attendance saved = attendanceRepository.save(attendance);
+        studentChanged(saved);
+        studentSummaryService.attendanceRecorded(saved.getStudent(), saved.isPresent());
         checkLowAttendance(attendance.getStudent());
         return saved;
     }
 
     public Attendance updateAttendance(Attendance attendance) {
-        return attendanceRepository.save(attendance);
+        Attendance saved = attendanceRepository.save(attendance);
+        studentChanged(saved);
+        if (saved.getStudent() != null) {
+            studentSummaryService.attendanceChanged(List.of(saved.getStudent().getId()));
+        }
+        return saved;
     }
 
     public boolean deleteAttendance(Long id) {
@@ -51,11 +64,16 @@ public class AttendanceService {
             return false;
         }
 
-        if (!attendanceRepository.existsById(id)) {
+        Optional<Attendance> attendance = attendanceRepository.findById(id);
+        if (attendance.isEmpty()) {
             return false;
         }
 
-        attendanceRepository.deleteById(id);
+        attendanceRepository.delete(attendance.get());
+        parentDashboardCache.invalidate();
+        if (attendance.get().getStudent() != null) {
+            studentSummaryService.attendanceChanged(List.of(attendance.get().getStudent().getId()));
+        }
         return true;
     }
 
@@ -74,6 +92,8 @@ public class AttendanceService {
     @Transactional
     public void deleteAttendancesBySchoolClassAndDate(SchoolClass schoolClass, LocalDate date) {
         attendanceRepository.deleteBySchoolClassAndDate(schoolClass, date);
+        parentDashboardCache.invalidateClass(schoolClass.getId());
+        studentSummaryService.classAttendanceChanged(schoolClass.getId());
     }
 
     public List<Attendance> getAttendancesByDate(LocalDate date) {
@@ -128,9 +148,12 @@ public class AttendanceService {
         }
 
         return attendanceRepository.findById(id).map(attendance -> {
+            boolean wasPresent = attendance.isPresent();
             attendance.setPresent(present);
             attendance.setNotes(notes != null && !notes.isBlank() ? notes.trim() : null);
             attendanceRepository.save(attendance);
+            studentChanged(attendance);
+            studentSummaryService.attendanceChanged(attendance.getStudent(), wasPresent, present);
             return true;
         }).orElse(false);
     }
@@ -138,6 +161,14 @@ public class AttendanceService {
     @Transactional
     public void deleteAttendancesBySchoolClassSubjectAndDate(SchoolClass schoolClass, Subject subject, LocalDate date) {
         attendanceRepository.deleteBySchoolClassAndSubjectAndDate(schoolClass, subject, date);
+        parentDashboardCache.invalidateClass(schoolClass.getId());
+        studentSummaryService.classAttendanceChanged(schoolClass.getId());
+    }
+
+    private void studentChanged(Attendance attendance) {
+        if (attendance.getStudent() != null) {
+            parentDashboardCache.invalidateStudent(attendance.getStudent().getId());
+        }
     }
 
     private void checkLowAttendance(User student) {
@@ -1,43 +1,45 @@
 package com.learnmate.service;
 
+import com.learnmate.dto.AdminMetrics;
+import com.learnmate.dto.ParentDashboard;
 import com.learnmate.model.*;
-import com.learnmate.repository.AttendanceRepository;
-import com.learnmate.repository.ExamRepository;
 import com.learnmate.repository.NotificationRepository;
 
 import org.springframework.stereotype.Service;
 
-import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.stream.Collectors;
 
 @Service
 public class DashboardService {
     private final UserService userService;
-    private final AttendanceRepository attendanceRepository;
-    private final ExamRepository examRepository;
     private final NotificationRepository notificationRepository;
+    private final AdminMetricsService adminMetricsService;
+    private final ParentDashboardService parentDashboardService;
+    private final StudentSummaryService studentSummaryService;
 
     public DashboardService(UserService userService, 
-                          AttendanceRepository attendanceRepository,
-                          ExamRepository examRepository,
-                          NotificationRepository notificationRepository) {
+                          NotificationRepository notificationRepository,
+                          AdminMetricsService adminMetricsService,
+                          ParentDashboardService parentDashboardService,
+                          StudentSummaryService studentSummaryService) {
         this.userService = userService;
-        this.attendanceRepository = attendanceRepository;
-        this.examRepository = examRepository;
         this.notificationRepository = notificationRepository;
+        this.adminMetricsService = adminMetricsService;
+        this.parentDashboardService = parentDashboardService;
+        this.studentSummaryService = studentSummaryService;
     }
 
     public Map<String, Object> getAdminDashboard() {
         Map<String, Object> data = new HashMap<>();
-        try {
-            data.put("totalStudents", userService.getUsersByRole(Role.STUDENT).size());
-        } catch (Exception e) {
-            data.put("totalStudents", 0);
-        }
+        AdminMetrics metrics = adminMetricsService.getMetrics();
+        data.put("totalStudents", metrics.users(Role.STUDENT));
         data.put("attendanceTrends", calculateAttendanceTrends());
-        data.put("feeStatus", calculateFeeStatus());
+        data.put("feeStatus", metrics.fees().stream()
+                .collect(Collectors.toMap(fee -> fee.status() != null ? fee.status() : "UNKNOWN",
+                        AdminMetrics.FeeStatusCount::count, Long::sum)));
         return data;
     }
 
@@ -50,63 +52,28 @@ public class DashboardService {
 
     public Map<String, Object> getStudentDashboard(User student) {
         Map<String, Object> data = new HashMap<>();
-        
-        // Calculate attendance rate
-        double attendanceRate = calculateAttendanceRate(student);
-        data.put("attendanceRate", String.format("%.1f%%", attendanceRate));
-        
-        // Calculate upcoming exams count
-        int upcomingExamsCount = calculateUpcomingExamsCount(student);
-        data.put("upcomingExams", upcomingExamsCount);
-        
-        // Get latest notification
-        String lastNotification = getLastNotification(student);
-        data.put("lastNotification", lastNotification);
-        
+        StudentSummary summary = studentSummaryService.getSummary(student);
+        Double attendanceRate = summary.getAttendanceRate();
+        data.put("attendanceRate", String.format("%.1f%%", attendanceRate != null ? attendanceRate : 0.0));
+        data.put("upcomingExams", summary.getUpcomingExams());
+        data.put("nextExamDate", summary.getNextExamDate());
+        data.put("unreadNotifications", summary.getUnreadNotifications());
+        data.put("lastNotification", summary.getLatestNotificationAt() == null ? "No recent notifications"
+                : summary.getLatestNotificationTitle() != null ? summary.getLatestNotificationTitle() : "New notification");
         return data;
     }
 
     public Map<String, Object> getParentDashboard(User parent) {
         Map<String, Object> data = new HashMap<>();
-        
-        // For parent dashboard, we need to get their child's data
-        // This is a simplified version - in reality, you'd need to get the child user
-        data.put("attendanceRate", "95%"); // Placeholder
-        data.put("upcomingExams", 3); // Placeholder
-        data.put("lastNotification", "No recent notifications"); // Placeholder
-        
+        ParentDashboard dashboard = parentDashboardService.getDashboard(parent);
+        data.put("children", dashboard);
+        Double attendanceRate = dashboard.attendanceRate();
+        data.put("attendanceRate", attendanceRate != null ? String.format("%.1f%%", attendanceRate) : "No records yet");
+        data.put("upcomingExams", dashboard.upcomingExams());
+        data.put("lastNotification", getLastNotification(parent));
         return data;
     }
 
-    private double calculateAttendanceRate(User student) {
-        List<Attendance> attendances = attendanceRepository.findByStudent(student);
-        
-        if (attendances.isEmpty()) {
-            return 0.0;
-        }
-        
-        long presentDays = attendances.stream()
-            .filter(Attendance::isPresent)
-            .count();
-        
-        long totalDays = attendances.size();
-        
-        return totalDays == 0 ? 0.0 : (presentDays * 100.0) / totalDays;
-    }
-
-    private int calculateUpcomingExamsCount(User student) {
-        if (student.getSchoolClass() == null) {
-            return 0;
-        }
-        
-        List<Exam> allExams = examRepository.findBySchoolClass(student.getSchoolClass());
-        LocalDate today = LocalDate.now();
-        
-        return (int) allExams.stream()
-            .filter(exam -> exam.getDate() != null && exam.getDate().isAfter(today))
-            .count();
-    }
-
     private String getLastNotification(User user) {
         List<Notification> notifications = notificationRepository.findByTargetUserOrderByCreatedAtDesc(user);
         
@@ -123,9 +90,5 @@ public class DashboardService {
         return List.of("85% attendance this week", "90% attendance last week", "Trend: Improving");
     }
 
-    private Map<String, Integer> calculateFeeStatus() {
-        // Placeholder data for now
-        return Map.of("Paid", 75, "Pending", 25, "Overdue", 5);
-    }
 }
 
@@ -9,13 +9,18 @@ import com.learnmate.model.User;
 import com.learnmate.repository.AnswerSheetRepository;
 import com.learnmate.repository.ExamRepository;
 import com.learnmate.repository.MarkRepository;
+import com.learnmate.service.calendar.CalendarFeedCache;
+import com.learnmate.service.dashboard.ParentDashboardCache;
+import com.learnmate.service.ranking.RankingService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 @Service
 public class ExamService {
@@ -23,16 +28,34 @@ public class ExamService {
     private final AnswerSheetRepository answerSheetRepository;
     private final MarkRepository markRepository;
     private final FileStorageService fileStorageService;
+    private final PreviewService previewService;
+    private final CalendarFeedCache calendarFeedCache;
+    private final ParentDashboardCache parentDashboardCache;
+    private final StudentSummaryService studentSummaryService;
+    private final RankingService rankingService;
+    private final ExamStatisticsService examStatisticsService;
     private static final Logger LOGGER = LoggerFactory.getLogger(ExamService.class);
 
     public ExamService(ExamRepository examRepository,
                        AnswerSheetRepository answerSheetRepository,
                        MarkRepository markRepository,
-                       FileStorageService fileStorageService) {
+                       FileStorageService fileStorageService,
+                       PreviewService previewService,
+                       CalendarFeedCache calendarFeedCache,
+                       ParentDashboardCache parentDashboardCache,
+                       StudentSummaryService studentSummaryService,
+                       RankingService rankingService,
+                       ExamStatisticsService examStatisticsService) {
         this.examRepository = examRepository;
         this.answerSheetRepository = answerSheetRepository;
         this.markRepository = markRepository;
         this.fileStorageService = fileStorageService;
+        this.previewService = previewService;
+        this.calendarFeedCache = calendarFeedCache;
+        this.parentDashboardCache = parentDashboardCache;
+        this.studentSummaryService = studentSummaryService;
+        this.rankingService = rankingService;
+        this.examStatisticsService = examStatisticsService;
     }
 
     public List<Exam> getAllExams() {
@@ -44,11 +67,44 @@ public class ExamService {
     }
 
     public Exam createExam(Exam exam) {
-        return examRepository.save(exam);
+        Exam saved = examRepository.save(exam);
+        calendarFeedCache.invalidate();
+        examStatisticsService.examCreated(saved);
+        if (saved.getSchoolClass() != null) {
+            parentDashboardCache.invalidateClass(saved.getSchoolClass().getId());
+            studentSummaryService.classExamsChanged(saved.getSchoolClass().getId());
+        }
+        schedulePreview(saved);
+        return saved;
     }
 
     public Exam updateExam(Exam exam) {
-        return examRepository.save(exam);
+        // The exam may move to another class; both classes' counts change then
+        Long previousClassId = exam.getId() != null
+                ? examRepository.findSchoolClassIdById(exam.getId()).orElse(null) : null;
+        Exam saved = examRepository.save(exam);
+        calendarFeedCache.invalidate();
+        Set<Long> classIds = new HashSet<>();
+        if (previousClassId != null) {
+            classIds.add(previousClassId);
+        }
+        if (saved.getSchoolClass() != null) {
+            classIds.add(saved.getSchoolClass().getId());
+        }
+        for (Long classId : classIds) {
+            parentDashboardCache.invalidateClass(classId);
+            studentSummaryService.classExamsChanged(classId);
+        }
+        examStatisticsService.examChanged(saved);
+        rankingService.examChanged(saved);
+        schedulePreview(saved);
+        return saved;
+    }
+
+    private void schedulePreview(Exam exam) {
+        if (exam.getFilePath() != null && !exam.getFilePath().isBlank()) {
+            previewService.schedulePreview(exam.getFilePath(), FileStorageService.FileType.EXAM);
+        }
     }
 
     @Transactional
@@ -89,6 +145,13 @@ public class ExamService {
         }
 
         examRepository.delete(exam);
+        calendarFeedCache.invalidate();
+        parentDashboardCache.invalidate();
+        examStatisticsService.examDeleted(exam);
+        rankingService.examChanged(exam);
+        if (exam.getSchoolClass() != null) {
+            studentSummaryService.classExamsChanged(exam.getSchoolClass().getId());
+        }
     }
 
     public List<Exam> getExamsBySubject(Subject subject) {
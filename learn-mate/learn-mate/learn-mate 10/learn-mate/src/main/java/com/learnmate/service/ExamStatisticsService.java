@@ -0,0 +1,174 @@
+package com.learnmate.service;
+
+import com.learnmate.dto.ScoreCount;
+import com.learnmate.model.Exam;
+import com.learnmate.model.ExamStatistics;
+import com.learnmate.repository.ExamRepository;
+import com.learnmate.repository.ExamStatisticsRepository;
+import com.learnmate.repository.MarkRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Keeps each exam's {@link ExamStatistics} current. Mark write paths report the score they
+ * added, removed or replaced, which is applied to the exam's row under a row lock without
+ * reading any other mark. New exams start with an empty row; an exam created before
+ * statistics were kept is counted from its marks the first time its statistics are read.
+ * Every night each row is recounted from the marks, which corrects drift from concurrent
+ * edits of one mark or an update lost between a mark's commit and its delta.
+ */
+@Service
+public class ExamStatisticsService {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ExamStatisticsService.class);
+
+    private final ExamStatisticsRepository examStatisticsRepository;
+    private final MarkRepository markRepository;
+    private final ExamRepository examRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${exam.statistics.recount-enabled:true}")
+    private boolean recountEnabled;
+
+    public ExamStatisticsService(ExamStatisticsRepository examStatisticsRepository, MarkRepository markRepository,
+                                 ExamRepository examRepository, TransactionTemplate transactionTemplate) {
+        this.examStatisticsRepository = examStatisticsRepository;
+        this.markRepository = markRepository;
+        this.examRepository = examRepository;
+        this.transactionTemplate = transactionTemplate;
+    }
+
+    public ExamStatistics getStatistics(Exam exam) {
+        ExamStatistics statistics = examStatisticsRepository.findById(exam.getId()).orElse(null);
+        if (statistics != null) {
+            return statistics;
+        }
+        try {
+            return examStatisticsRepository.save(count(exam));
+        } catch (DataIntegrityViolationException e) {
+            // Another request counted it first
+            return examStatisticsRepository.findById(exam.getId()).orElseThrow();
+        }
+    }
+
+    public void examCreated(Exam exam) {
+        examStatisticsRepository.save(new ExamStatistics(exam.getId(), exam.getPassMark()));
+    }
+
+    /**
+     * Recounts passes if the exam's pass mark changed.
+     */
+    @Transactional
+    public void examChanged(Exam exam) {
+        examStatisticsRepository.findForUpdate(exam.getId())
+                .ifPresent(statistics -> statistics.applyPassMark(exam.getPassMark()));
+    }
+
+    public void examDeleted(Exam exam) {
+        examStatisticsRepository.deleteById(exam.getId());
+    }
+
+    /**
+     * Recounts the exam from its marks, after marks were removed in bulk.
+     */
+    @Transactional
+    public void marksChanged(Exam exam) {
+        recount(exam);
+    }
+
+    @Transactional
+    public void markAdded(Exam exam, int score) {
+        if (exam != null) {
+            examStatisticsRepository.findForUpdate(exam.getId()).ifPresent(statistics -> {
+                statistics.applyPassMark(exam.getPassMark());
+                statistics.add(score);
+            });
+        }
+    }
+
+    @Transactional
+    public void markRemoved(Long examId, int score) {
+        if (examId != null) {
+            examStatisticsRepository.findForUpdate(examId).ifPresent(statistics -> statistics.remove(score));
+        }
+    }
+
+    @Transactional
+    public void markChanged(Long previousExamId, int previousScore, Exam exam, int score) {
+        if (exam != null && Objects.equals(previousExamId, exam.getId()) && previousScore == score) {
+            return;
+        }
+        markRemoved(previousExamId, previousScore);
+        markAdded(exam, score);
+    }
+
+    /**
+     * Locks the exam's statistics row until the caller's transaction ends, so the deltas of
+     * mark writes made meanwhile wait for it.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void lock(Exam exam) {
+        examStatisticsRepository.findForUpdate(exam.getId());
+    }
+
+    /**
+     * Applies a batch of graded marks under one lock: each removed score is taken out and each
+     * added score counted.
+     */
+    @Transactional
+    public void scoresChanged(Exam exam, int[] removed, int[] added) {
+        examStatisticsRepository.findForUpdate(exam.getId()).ifPresent(statistics -> {
+            statistics.applyPassMark(exam.getPassMark());
+            for (int score : removed) {
+                statistics.remove(score);
+            }
+            for (int score : added) {
+                statistics.add(score);
+            }
+        });
+    }
+
+    @Scheduled(cron = "${exam.statistics.recount-cron:0 45 0 * * *}")
+    public void scheduledRecount() {
+        if (recountEnabled) {
+            recountAll();
+        }
+    }
+
+    /**
+     * Recounts every exam that has statistics from its marks, one exam per transaction so
+     * grading of other exams only waits for its own row.
+     */
+    public void recountAll() {
+        long start = System.nanoTime();
+        List<Exam> exams = examRepository.findAll();
+        for (Exam exam : exams) {
+            transactionTemplate.executeWithoutResult(status -> recount(exam));
+        }
+        LOGGER.info("Recounted statistics of {} exams in {} ms", exams.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private void recount(Exam exam) {
+        if (examStatisticsRepository.findForUpdate(exam.getId()).isPresent()) {
+            examStatisticsRepository.save(count(exam));
+        }
+    }
+
+    private ExamStatistics count(Exam exam) {
+        ExamStatistics statistics = new ExamStatistics(exam.getId(), exam.getPassMark());
+        for (ScoreCount scores : markRepository.countScoresByExam(exam.getId())) {
+            statistics.add(scores.score(), scores.count());
+        }
+        return statistics;
+    }
+}
@@ -4,6 +4,7 @@ import com.learnmate.model.Fee;
 import com.learnmate.model.Subject;
 import com.learnmate.model.User;
 import com.learnmate.repository.FeeRepository;
+import com.learnmate.service.dashboard.ParentDashboardCache;
 
 import org.springframework.stereotype.Service;
 
@@ -15,11 +16,14 @@ import java.util.Optional;
 public class FeeService {
     private final FeeRepository feeRepository;
     private final FileStorageService fileStorageService;
+    private final ParentDashboardCache parentDashboardCache;
     // private final NotificationService notificationService;
 
-    public FeeService(FeeRepository feeRepository, FileStorageService fileStorageService) {
+    public FeeService(FeeRepository feeRepository, FileStorageService fileStorageService,
+                      ParentDashboardCache parentDashboardCache) {
         this.feeRepository = feeRepository;
         this.fileStorageService = fileStorageService;
+        this.parentDashboardCache = parentDashboardCache;
     }
 
     public List<Fee> getAllFees() {
@@ -42,11 +46,12 @@ public class FeeService {
     }
 
     public Fee saveFee(Fee fee) {
-        return feeRepository.save(fee);
+        return save(fee);
     }
 
     public void deleteFee(Long id) {
         feeRepository.deleteById(id);
+        parentDashboardCache.invalidate();
     }
 
     public Fee updateFeeStatus(Long id, String status) {
@@ -55,15 +60,15 @@ public class FeeService {
         if ("PAID".equals(status)) {
             fee.setPaymentDate(LocalDate.now());
         }
-        return feeRepository.save(fee);
+        return save(fee);
     }
 
     public Fee createFee(Fee fee) {
-        return feeRepository.save(fee);
+        return save(fee);
     }
 
     public Fee updateFee(Fee fee) {
-        return feeRepository.save(fee);
+        return save(fee);
     }
 
     public List<Fee> getFeesByStudentAndSubject(User student, Subject subject) {
@@ -82,7 +87,7 @@ public class FeeService {
         fee.setAmount(amount);
         fee.setDueDate(dueDate);
         fee.setStatus("PENDING");
-        return feeRepository.save(fee);
+        return save(fee);
     }
 
     public Fee paySubjectFee(User student, Subject subject) {
@@ -101,7 +106,7 @@ public class FeeService {
 
         feeToPay.setStatus("PAID_PENDING");
         feeToPay.setPaymentDate(LocalDate.now());
-        return feeRepository.save(feeToPay);
+        return save(feeToPay);
     }
 
     public Fee paySubjectFee(User student, Subject subject, Double submittedAmount, LocalDate slipDate,
@@ -125,7 +130,7 @@ public class FeeService {
         }
         fee.setStatus("PAID_PENDING");
         fee.setPaymentDate(LocalDate.now());
-        return feeRepository.save(fee);
+        return save(fee);
     }
 
     public Fee verifyPayment(Long feeId) {
@@ -135,7 +140,14 @@ public class FeeService {
         }
         fee.setStatus("PAID");
         // keep the original paymentDate as submission date
-        return feeRepository.save(fee);
+        return save(fee);
     }
-}
 
+    private Fee save(Fee fee) {
+        Fee saved = feeRepository.save(fee);
+        if (saved.getStudent() != null) {
+            parentDashboardCache.invalidateStudent(saved.getStudent().getId());
+        }
+        return saved;
+    }
+}
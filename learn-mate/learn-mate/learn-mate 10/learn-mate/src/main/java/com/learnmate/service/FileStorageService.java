@@ -1,61 +1,78 @@
 package com.learnmate.service;
 
+import com.learnmate.model.StorageTier;
+import com.learnmate.model.StoredFile;
+import com.learnmate.model.ValidationStatus;
+import com.learnmate.repository.StoredFileRepository;
+import com.learnmate.service.storage.BlobMetadata;
+import com.learnmate.service.storage.BlobResource;
+import com.learnmate.service.storage.BlobStore;
+import com.learnmate.service.storage.FileStoredEvent;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
 import java.util.UUID;
+import java.util.zip.GZIPInputStream;
 
 @Service
 public class FileStorageService {
 
-    @Value("${file.upload-dir.exams}")
-    private String examsUploadDir;
+    private final BlobStore blobStore;
+    private final StoredFileRepository storedFileRepository;
+    private final ApplicationEventPublisher eventPublisher;
 
-    @Value("${file.upload-dir.timetables}")
-    private String timetablesUploadDir;
+    @Value("${storage.presigned-downloads.enabled:true}")
+    private boolean presignedDownloads;
 
-    @Value("${file.upload-dir.materials}")
-    private String materialsUploadDir;
+    @Value("${storage.presigned-downloads.ttl:PT5M}")
+    private Duration presignedDownloadTtl;
 
-    @Value("${file.upload-dir.answer-sheets}")
-    private String answerSheetsUploadDir;
+    // Rendered previews are cached next to the blob they were generated from
+    static final String THUMBNAIL_SUFFIX = ".thumb.png";
 
-    @Value("${file.upload-dir.payment-slips:./uploads/payment-slips}")
-    private String paymentSlipsUploadDir;
+    static final String COLD_PREFIX = "cold/";
+    static final String GZIP_CODEC = "gzip";
 
-    @Value("${file.upload-dir.notifications:./uploads/notifications}")
-    private String notificationsUploadDir;
+    // Last-access times only need day precision; avoids a write on every download
+    private static final Duration ACCESS_RECORD_INTERVAL = Duration.ofDays(1);
 
     public enum FileType {
-        EXAM, TIMETABLE, MATERIAL, ANSWER_SHEET, PAYMENT_SLIP, NOTIFICATION
-    }
-
-    private Path getFileStorageLocation(FileType fileType) {
-        String uploadDir = switch (fileType) {
-            case EXAM -> examsUploadDir;
-            case TIMETABLE -> timetablesUploadDir;
-            case MATERIAL -> materialsUploadDir;
-            case ANSWER_SHEET -> answerSheetsUploadDir;
-            case PAYMENT_SLIP -> paymentSlipsUploadDir;
-            case NOTIFICATION -> notificationsUploadDir;
-        };
-        
-        Path fileStorageLocation = Paths.get(uploadDir).toAbsolutePath().normalize();
-        
-        try {
-            Files.createDirectories(fileStorageLocation);
-        } catch (Exception ex) {
-            throw new RuntimeException("Could not create the directory where the uploaded files will be stored.", ex);
+        EXAM("exams"),
+        TIMETABLE("timetables"),
+        MATERIAL("materials"),
+        ANSWER_SHEET("answer-sheets"),
+        PAYMENT_SLIP("payment-slips"),
+        NOTIFICATION("notifications");
+
+        private final String directory;
+
+        FileType(String directory) {
+            this.directory = directory;
+        }
+
+        // Key prefix under which files of this type are stored
+        public String prefix() {
+            return directory + "/";
         }
-        
-        return fileStorageLocation;
+    }
+
+    public FileStorageService(BlobStore blobStore, StoredFileRepository storedFileRepository,
+                              ApplicationEventPublisher eventPublisher) {
+        this.blobStore = blobStore;
+        this.storedFileRepository = storedFileRepository;
+        this.eventPublisher = eventPublisher;
     }
 
     public String storeFile(MultipartFile file) {
@@ -72,48 +89,166 @@ public class FileStorageService {
         String originalFileName = file.getOriginalFilename();
         String fileName = StringUtils.cleanPath(originalFileName == null ? "unknown" : originalFileName);
 
-        try {
-            // Check if the file's name contains invalid characters
-            if(fileName.contains("..")) {
-                throw new RuntimeException("Sorry! Filename contains invalid path sequence " + fileName);
-            }
+        // Check if the file's name contains invalid characters
+        if (fileName.contains("..")) {
+            throw new RuntimeException("Sorry! Filename contains invalid path sequence " + fileName);
+        }
 
-            // Generate unique filename to avoid conflicts
-            String fileExtension = "";
-            if (fileName.contains(".")) {
-                fileExtension = fileName.substring(fileName.lastIndexOf("."));
-            }
-            String uniqueFileName = UUID.randomUUID().toString() + fileExtension;
+        // Generate unique filename to avoid conflicts
+        String fileExtension = "";
+        if (fileName.contains(".")) {
+            fileExtension = fileName.substring(fileName.lastIndexOf("."));
+        }
+        String uniqueFileName = UUID.randomUUID().toString() + fileExtension;
+
+        try (InputStream content = file.getInputStream()) {
+            blobStore.put(key(uniqueFileName, fileType), content, file.getSize(), file.getContentType());
 
-            // Get the appropriate storage location for this file type
-            Path fileStorageLocation = getFileStorageLocation(fileType);
-            
-            // Copy file to the target location (Replacing existing file with the same name)
-            Path targetLocation = fileStorageLocation.resolve(uniqueFileName);
-            Files.copy(file.getInputStream(), targetLocation, StandardCopyOption.REPLACE_EXISTING);
+            StoredFile storedFile = new StoredFile(fileType, uniqueFileName);
+            storedFile.setOriginalSize(file.getSize());
+            storedFile.setStoredSize(file.getSize());
+            storedFile.setLastAccessedAt(LocalDateTime.now());
+            // Not downloadable until the validation pipeline has looked at the content
+            storedFile.setValidationStatus(ValidationStatus.PENDING);
+            storedFileRepository.save(storedFile);
 
+            eventPublisher.publishEvent(new FileStoredEvent(fileType, uniqueFileName));
             return uniqueFileName;
-        } catch (IOException ex) {
+        } catch (IOException | RuntimeException ex) {
             throw new RuntimeException("Could not store file " + fileName + ". Please try again!", ex);
         }
     }
 
-    public Path getFileStorageLocationPublic(FileType fileType) {
-        return getFileStorageLocation(fileType);
+    public void storeThumbnail(String fileName, FileType fileType, byte[] png) {
+        blobStore.put(key(fileName + THUMBNAIL_SUFFIX, fileType), new ByteArrayInputStream(png), png.length, "image/png");
+    }
+
+    public String key(String fileName, FileType fileType) {
+        if (!StringUtils.hasText(fileName) || fileName.contains("..") || fileName.contains("/") || fileName.contains("\\")) {
+            throw new IllegalArgumentException("Invalid stored file name " + fileName);
+        }
+        return fileType.prefix() + fileName;
+    }
+
+    // Where a file lives once the tiering job has compressed it
+    public String coldKey(String fileName, FileType fileType) {
+        return COLD_PREFIX + key(fileName, fileType) + ".gz";
+    }
+
+    public Optional<BlobMetadata> stat(String fileName, FileType fileType) {
+        return blobStore.stat(key(fileName, fileType));
+    }
+
+    /**
+     * Opens a stored file for reading, decompressing it on the fly if it has been moved
+     * to the cold tier. Used by background jobs, so it does not count as an access.
+     */
+    public InputStream openFile(String fileName, FileType fileType) {
+        Optional<StoredFile> storedFile = storedFileRepository.findByFileTypeAndFileName(fileType, fileName);
+        if (storedFile.isPresent() && storedFile.get().getTier() == StorageTier.COLD) {
+            InputStream compressed = blobStore.get(coldKey(fileName, fileType));
+            try {
+                return new GZIPInputStream(compressed, 64 * 1024);
+            } catch (IOException ex) {
+                try {
+                    compressed.close();
+                } catch (IOException ignored) {
+                    // already failing
+                }
+                throw new UncheckedIOException("Could not decompress file " + fileName, ex);
+            }
+        }
+        return blobStore.get(key(fileName, fileType));
+    }
+
+    /**
+     * Loads a file for download. Empty if it does not exist or has not passed upload
+     * validation. The resource carries the sniffed content type when one is known.
+     */
+    public Optional<BlobResource> loadAsResource(String fileName, FileType fileType) {
+        if (!StringUtils.hasText(fileName)) {
+            return Optional.empty();
+        }
+        Optional<StoredFile> storedFile = storedFileRepository.findByFileTypeAndFileName(fileType, fileName);
+        if (storedFile.isPresent() && !storedFile.get().isDownloadable()) {
+            return Optional.empty();
+        }
+
+        String contentType = storedFile.map(StoredFile::getDetectedContentType).orElse(null);
+        Optional<BlobResource> resource;
+        if (storedFile.isPresent() && storedFile.get().getTier() == StorageTier.COLD) {
+            long originalSize = storedFile.get().getOriginalSize();
+            resource = blobStore.stat(coldKey(fileName, fileType))
+                    .map(metadata -> BlobResource.gzipped(blobStore, metadata, originalSize, contentType));
+        } else {
+            resource = stat(fileName, fileType).map(metadata -> new BlobResource(blobStore, metadata,
+                    contentType != null ? contentType : metadata.contentType()));
+        }
+        if (resource.isPresent()) {
+            storedFile.filter(this::isAccessDue).ifPresent(this::recordAccess);
+        }
+        return resource;
+    }
+
+    public boolean isDownloadable(String fileName, FileType fileType) {
+        return storedFileRepository.findByFileTypeAndFileName(fileType, fileName)
+                .map(StoredFile::isDownloadable)
+                .orElse(true);
     }
 
-    public boolean deleteFile(String fileName, FileType fileType) {
+    public Optional<Resource> loadThumbnail(String fileName, FileType fileType) {
+        return stat(fileName + THUMBNAIL_SUFFIX, fileType).map(metadata -> new BlobResource(blobStore, metadata));
+    }
+
+    /**
+     * Returns a short-lived URL the browser can download the file from directly, when the
+     * backend supports it. The app then only redirects instead of streaming the bytes.
+     */
+    public Optional<URI> presignedDownloadUrl(String fileName, FileType fileType, String downloadFileName, String contentType) {
+        if (!presignedDownloads || !StringUtils.hasText(fileName)) {
+            return Optional.empty();
+        }
+        // Cold files are stored compressed, so they have to be streamed through the app
+        Optional<StoredFile> storedFile = storedFileRepository.findByFileTypeAndFileName(fileType, fileName);
+        if (storedFile.isPresent() && (storedFile.get().getTier() == StorageTier.COLD || !storedFile.get().isDownloadable())) {
+            return Optional.empty();
+        }
+        storedFile.filter(this::isAccessDue)
+                .filter(file -> stat(fileName, fileType).isPresent())
+                .ifPresent(this::recordAccess);
+
+        String detectedContentType = storedFile.map(StoredFile::getDetectedContentType).orElse(contentType);
+        return blobStore.presignedGetUrl(key(fileName, fileType), presignedDownloadTtl, downloadFileName, detectedContentType);
+    }
+
+    public void deleteFile(String fileName, FileType fileType) {
         try {
-            Path fileStorageLocation = getFileStorageLocation(fileType);
-            Path filePath = fileStorageLocation.resolve(fileName).normalize();
-            return Files.deleteIfExists(filePath);
-        } catch (IOException ex) {
+            blobStore.delete(key(fileName + THUMBNAIL_SUFFIX, fileType));
+            blobStore.delete(key(fileName, fileType));
+            storedFileRepository.findByFileTypeAndFileName(fileType, fileName).ifPresent(storedFile -> {
+                if (storedFile.getTier() == StorageTier.COLD) {
+                    blobStore.delete(coldKey(fileName, fileType));
+                }
+                storedFileRepository.delete(storedFile);
+            });
+        } catch (RuntimeException ex) {
             throw new RuntimeException("Could not delete file " + fileName, ex);
         }
     }
 
+    private boolean isAccessDue(StoredFile storedFile) {
+        return storedFile.getLastAccessedAt() == null
+                || storedFile.getLastAccessedAt().isBefore(LocalDateTime.now().minus(ACCESS_RECORD_INTERVAL));
+    }
+
+    // Only rows for files that were really stored are touched; unknown names never create one
+    private void recordAccess(StoredFile storedFile) {
+        storedFile.setLastAccessedAt(LocalDateTime.now());
+        storedFileRepository.save(storedFile);
+    }
+
     // Backward compatibility method
-    public boolean deleteFile(String fileName) {
-        return deleteFile(fileName, FileType.EXAM);
+    public void deleteFile(String fileName) {
+        deleteFile(fileName, FileType.EXAM);
     }
 }
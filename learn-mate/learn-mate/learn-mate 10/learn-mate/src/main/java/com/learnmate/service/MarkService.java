@@ -5,6 +5,8 @@ import com.learnmate.model.Mark;
 import com.learnmate.model.SchoolClass;
 import com.learnmate.model.User;
 import com.learnmate.repository.MarkRepository;
+import com.learnmate.service.dashboard.ParentDashboardCache;
+import com.learnmate.service.ranking.RankingService;
 
 import org.springframework.stereotype.Service;
 
@@ -15,10 +17,17 @@ import java.util.Optional;
 @Service
 public class MarkService {
     private final MarkRepository markRepository;
+    private final ParentDashboardCache parentDashboardCache;
+    private final RankingService rankingService;
+    private final ExamStatisticsService examStatisticsService;
     // private final NotificationService notificationService;
 
-    public MarkService(MarkRepository markRepository) {
+    public MarkService(MarkRepository markRepository, ParentDashboardCache parentDashboardCache,
+                       RankingService rankingService, ExamStatisticsService examStatisticsService) {
         this.markRepository = markRepository;
+        this.parentDashboardCache = parentDashboardCache;
+        this.rankingService = rankingService;
+        this.examStatisticsService = examStatisticsService;
     }
 
     public List<Mark> getAllMarks() {
@@ -30,11 +39,28 @@ public class MarkService {
     }
 
     public Mark createMark(Mark mark) {
-        return markRepository.save(mark);
+        Mark saved = markRepository.save(mark);
+        studentChanged(saved);
+        examStatisticsService.markAdded(saved.getExam(), saved.getScore());
+        rankingService.examChanged(saved.getExam());
+        return saved;
     }
 
     public Mark updateMark(Mark mark) {
+        boolean created = mark.getId() == null;
+        Long previousExamId = mark.getStoredExamId();
+        Integer previousScore = mark.getStoredScore();
         Mark saved = markRepository.save(mark);
+        studentChanged(saved);
+        if (created) {
+            examStatisticsService.markAdded(saved.getExam(), saved.getScore());
+        } else if (previousScore != null) {
+            examStatisticsService.markChanged(previousExamId, previousScore, saved.getExam(), saved.getScore());
+        } else if (saved.getExam() != null) {
+            // Not loaded from the database, so what it replaced is unknown
+            examStatisticsService.marksChanged(saved.getExam());
+        }
+        rankingService.examChanged(saved.getExam());
         if (saved.isPublished()) {
             // notificationService.createAlert("Results published for exam " + saved.getExam().getId(), "STUDENT");
         }
@@ -43,7 +69,14 @@ public class MarkService {
     }
 
     public void deleteMark(Long id) {
+        Mark mark = markRepository.findById(id).orElse(null);
         markRepository.deleteById(id);
+        parentDashboardCache.invalidate();
+        if (mark != null) {
+            examStatisticsService.markRemoved(mark.getStoredExamId(),
+                    mark.getStoredScore() != null ? mark.getStoredScore() : mark.getScore());
+            rankingService.examChanged(mark.getExam());
+        }
     }
 
     public List<Mark> getMarksByStudent(User student) {
@@ -75,6 +108,15 @@ public class MarkService {
 
     public void deleteMarksByExamAndSchoolClass(Exam exam, SchoolClass schoolClass) {
         markRepository.deleteByExamAndStudentSchoolClass(exam, schoolClass);
+        parentDashboardCache.invalidateClass(schoolClass.getId());
+        examStatisticsService.marksChanged(exam);
+        rankingService.examChanged(exam);
+    }
+
+    private void studentChanged(Mark mark) {
+        if (mark.getStudent() != null) {
+            parentDashboardCache.invalidateStudent(mark.getStudent().getId());
+        }
     }
 
     private void checkPoorGrades(User student) {
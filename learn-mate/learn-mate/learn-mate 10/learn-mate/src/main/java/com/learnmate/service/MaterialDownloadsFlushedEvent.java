@@ -0,0 +1,9 @@
+package com.learnmate.service;
+
+import java.util.Set;
+
+/**
+ * Published after new download counts have been written to the database.
+ */
+public record MaterialDownloadsFlushedEvent(Set<Long> materialIds) {
+}
@@ -0,0 +1,165 @@
+package com.learnmate.service;
+
+import com.learnmate.model.Material;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Download counts per material. A download only bumps an in-memory {@link LongAdder}; the
+ * accumulated deltas are written to the database in one batch every few seconds. Readers get
+ * the stored count plus whatever is still pending, without taking any lock. Stored counts are
+ * re-read after each flush and refreshed periodically, so downloads counted by other nodes
+ * show up here too.
+ */
+@Service
+public class MaterialPopularityService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MaterialPopularityService.class);
+
+    private static final String INCREMENT_SQL = "UPDATE materials SET download_count = download_count + ? WHERE id = ?";
+    private static final String LOAD_SQL = "SELECT id, file_name, download_count FROM materials WHERE download_count > 0";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final Map<Long, Counter> counters = new ConcurrentHashMap<>();
+    private final Map<String, Counter> countersByFile = new ConcurrentHashMap<>();
+
+    public MaterialPopularityService(JdbcTemplate jdbcTemplate, ApplicationEventPublisher eventPublisher) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void loadCounts() {
+        refreshCounts();
+        LOGGER.info("Loaded download counts for {} materials", counters.size());
+    }
+
+    // Picks up downloads of materials this node has not flushed itself
+    @Scheduled(initialDelayString = "${popularity.refresh-interval:PT5M}", fixedDelayString = "${popularity.refresh-interval:PT5M}")
+    public synchronized void refreshCounts() {
+        Set<Long> changed = new HashSet<>();
+        jdbcTemplate.query(LOAD_SQL, row -> {
+            Counter counter = counter(row.getLong("id"), row.getString("file_name"));
+            long stored = row.getLong("download_count");
+            if (counter.stored != stored) {
+                counter.stored = stored;
+                changed.add(counter.materialId);
+            }
+        });
+        if (!changed.isEmpty()) {
+            eventPublisher.publishEvent(new MaterialDownloadsFlushedEvent(changed));
+        }
+    }
+
+    public void recordDownload(Material material) {
+        counter(material.getId(), material.getFileName()).pending.increment();
+    }
+
+    public long getDownloads(Long materialId) {
+        Counter counter = counters.get(materialId);
+        return counter == null ? 0 : counter.stored + counter.pending.sum();
+    }
+
+    public long getDownloadsOfFile(String fileName) {
+        Counter counter = countersByFile.get(fileName);
+        return counter == null ? 0 : counter.stored + counter.pending.sum();
+    }
+
+    @Scheduled(initialDelayString = "${popularity.flush-interval:PT5S}", fixedDelayString = "${popularity.flush-interval:PT5S}")
+    public synchronized void flush() {
+        List<Object[]> increments = new ArrayList<>();
+        List<Counter> flushed = new ArrayList<>();
+        for (Counter counter : counters.values()) {
+            long delta = counter.pending.sumThenReset();
+            if (delta > 0) {
+                increments.add(new Object[]{delta, counter.materialId});
+                flushed.add(counter);
+            }
+        }
+        if (increments.isEmpty()) {
+            return;
+        }
+
+        try {
+            jdbcTemplate.batchUpdate(INCREMENT_SQL, increments);
+        } catch (RuntimeException ex) {
+            // Put the deltas back so the next run retries them
+            for (int i = 0; i < flushed.size(); i++) {
+                flushed.get(i).pending.add((Long) increments.get(i)[0]);
+            }
+            LOGGER.warn("Failed to write download counts for {} materials", flushed.size(), ex);
+            return;
+        }
+
+        Set<Long> materialIds = new HashSet<>();
+        flushed.forEach(counter -> materialIds.add(counter.materialId));
+        try {
+            // Read back the totals, which include what other nodes have written since
+            String placeholders = String.join(",", Collections.nCopies(materialIds.size(), "?"));
+            List<Map.Entry<Long, Long>> storedCounts = jdbcTemplate.query(
+                    "SELECT id, download_count FROM materials WHERE id IN (" + placeholders + ")",
+                    (row, rowNum) -> Map.entry(row.getLong("id"), row.getLong("download_count")),
+                    materialIds.toArray());
+            for (Map.Entry<Long, Long> stored : storedCounts) {
+                Counter counter = counters.get(stored.getKey());
+                if (counter != null) {
+                    counter.stored = stored.getValue();
+                }
+            }
+        } catch (RuntimeException ex) {
+            // The deltas are written; count them locally until the next refresh
+            for (int i = 0; i < flushed.size(); i++) {
+                flushed.get(i).stored += (Long) increments.get(i)[0];
+            }
+            LOGGER.warn("Failed to re-read download counts for {} materials", materialIds.size(), ex);
+        }
+        eventPublisher.publishEvent(new MaterialDownloadsFlushedEvent(materialIds));
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flush();
+    }
+
+    private Counter counter(Long materialId, String fileName) {
+        Counter counter = counters.computeIfAbsent(materialId, Counter::new);
+        if (fileName != null && !fileName.equals(counter.fileName)) {
+            // Tiering looks files up by name, so follow the material to its current file
+            if (counter.fileName != null) {
+                countersByFile.remove(counter.fileName, counter);
+            }
+            counter.fileName = fileName;
+            countersByFile.put(fileName, counter);
+        }
+        return counter;
+    }
+
+    private static final class Counter {
+        private final long materialId;
+        private final LongAdder pending = new LongAdder();
+        // Only written by the flusher and the refresh; read from request threads
+        private volatile long stored;
+        private volatile String fileName;
+
+        private Counter(long materialId) {
+            this.materialId = materialId;
+        }
+    }
+}
@@ -1,31 +1,69 @@
 package com.learnmate.service;
 
+import com.learnmate.dto.MaterialFacetedSearchResult;
+import com.learnmate.dto.MaterialListItem;
+import com.learnmate.dto.MaterialSuggestion;
 import com.learnmate.model.Material;
+import com.learnmate.model.Role;
 import com.learnmate.model.SchoolClass;
 import com.learnmate.model.Subject;
 import com.learnmate.model.User;
 import com.learnmate.repository.MaterialRepository;
+import com.learnmate.service.search.MaterialContentIndex;
+import com.learnmate.service.search.MaterialFacetIndex;
+import com.learnmate.service.search.MaterialSearchCache;
+import com.learnmate.service.search.MaterialSearchIndex;
+import com.learnmate.service.strategy.ContentMaterialSearchStrategy;
+import com.learnmate.service.strategy.FuzzyMaterialSearchStrategy;
+import com.learnmate.service.strategy.IndexedMaterialSearchStrategy;
 import com.learnmate.service.strategy.MaterialSearchContext;
 import com.learnmate.service.strategy.MaterialSearchStrategy;
 import com.learnmate.service.strategy.SearchMaterialBySubjectStrategy;
 import com.learnmate.service.strategy.SearchMaterialByTitleStrategy;
 
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.stream.Collectors;
 
 @Service
 public class MaterialService {
+    private static final int FUZZY_RESULTS = 50;
+    private static final Sort NEWEST_FIRST = Sort.by(Sort.Order.desc("uploadedAt"), Sort.Order.desc("id"));
+
     private final MaterialRepository materialRepository;
     private final FileStorageService fileStorageService;
+    private final PreviewService previewService;
+    private final MaterialSearchIndex materialSearchIndex;
+    private final MaterialContentIndex materialContentIndex;
+    private final MaterialSearchCache materialSearchCache;
 
-    public MaterialService(MaterialRepository materialRepository, FileStorageService fileStorageService) {
+    public MaterialService(MaterialRepository materialRepository, FileStorageService fileStorageService,
+                           PreviewService previewService, MaterialSearchIndex materialSearchIndex,
+                           MaterialContentIndex materialContentIndex, MaterialSearchCache materialSearchCache) {
         this.materialRepository = materialRepository;
         this.fileStorageService = fileStorageService;
+        this.previewService = previewService;
+        this.materialSearchIndex = materialSearchIndex;
+        this.materialContentIndex = materialContentIndex;
+        this.materialSearchCache = materialSearchCache;
     }
 
     public List<Material> getAllMaterials() {
@@ -65,7 +103,14 @@ public class MaterialService {
             material.setFileSize(file.getSize());
             material.setFilePath("uploads/materials/" + fileName);
         }
-        return materialRepository.save(material);
+        Material saved = materialRepository.save(material);
+        materialSearchIndex.index(saved);
+        materialSearchCache.invalidate();
+        materialContentIndex.scheduleIndexing(saved.getId());
+        if (saved.getFileName() != null) {
+            previewService.schedulePreview(saved.getFileName(), FileStorageService.FileType.MATERIAL);
+        }
+        return saved;
     }
 
     public void deleteMaterial(Long id) {
@@ -73,20 +118,187 @@ public class MaterialService {
         if (material.isPresent()) {
             material.get().setActive(false);
             materialRepository.save(material.get());
+            materialSearchIndex.remove(id);
+            materialSearchCache.invalidate();
+            materialContentIndex.scheduleRemoval(id);
         }
     }
 
     
     public List<Material> searchMaterials(String keyword, String searchType) {
+        if (isKeywordSearch(searchType) && keyword != null && !keyword.trim().isEmpty()) {
+            // Only the matching rows are loaded; the index holds active materials only
+            return materialRepository.findAllById(materialSearchIndex.search(keyword)).stream()
+                    .sorted(Comparator.comparing(Material::getUploadedAt,
+                            Comparator.nullsLast(Comparator.reverseOrder())))
+                    .toList();
+        }
+        if ("content".equalsIgnoreCase(searchType) && keyword != null && !keyword.trim().isEmpty()) {
+            return findRanked(materialContentIndex.search(keyword, null, null, null));
+        }
+        if ("fuzzy".equalsIgnoreCase(searchType) && keyword != null && !keyword.trim().isEmpty()) {
+            return findRanked(materialSearchIndex.fuzzySearch(keyword, FUZZY_RESULTS));
+        }
         List<Material> allMaterials = materialRepository.findByActiveTrueOrderByUploadedAtDesc();
         return applyStrategy(allMaterials, keyword, searchType);
     }
 
     
+    /**
+     * One page of the materials a user may see, optionally narrowed by a search and by subject
+     * and class, read as list rows in a single query. Students see their class and enrolled
+     * subjects, teachers their own uploads and admins everything. Browsing is newest first,
+     * keyword results most downloaded first; fuzzy and content results keep the search
+     * ranking. Pages are cached per audience until a material changes.
+     */
+    public Page<MaterialListItem> listMaterials(User user, String keyword, String searchType,
+                                                Long subjectId, Long classId, int page, int size) {
+        MaterialSearchCache.Key key;
+        if (user.getRole() == Role.STUDENT) {
+            key = materialSearchCache.key(keyword, searchType,
+                    user.getSchoolClass() != null ? user.getSchoolClass().getId() : null,
+                    user.getSubjects() == null ? List.of() : user.getSubjects().stream().map(Subject::getId).toList(),
+                    null, subjectId, classId, page, size);
+        } else {
+            key = materialSearchCache.key(keyword, searchType, null, null,
+                    user.getRole() == Role.TEACHER ? user.getId() : null, subjectId, classId, page, size);
+        }
+        return materialSearchCache.get(key, () -> loadListing(user, keyword, searchType, subjectId, classId, page, size));
+    }
+
+    private Page<MaterialListItem> loadListing(User user, String keyword, String searchType,
+                                               Long subjectId, Long classId, int page, int size) {
+        boolean matchAll = keyword == null || keyword.trim().isEmpty();
+        PageRequest pageRequest = matchAll ? PageRequest.of(page, size, NEWEST_FIRST) : PageRequest.of(page, size);
+        if (user.getRole() == Role.STUDENT
+                && (user.getSchoolClass() == null || user.getSubjects() == null || user.getSubjects().isEmpty())) {
+            return Page.empty(pageRequest);
+        }
+        if (matchAll) {
+            return findListing(user, subjectId, classId, true, List.of(-1L), pageRequest);
+        }
+
+        // Searches are scoped and ordered by the indexes, so only the ids of the page shown are queried
+        List<Long> ids = matchingIds(keyword, searchType, listingScope(user, subjectId, classId));
+        int from = (int) Math.min(pageRequest.getOffset(), ids.size());
+        List<Long> pageIds = ids.subList(from, Math.min(from + size, ids.size()));
+        if (pageIds.isEmpty()) {
+            return new PageImpl<>(List.of(), pageRequest, ids.size());
+        }
+        Map<Long, MaterialListItem> byId = new HashMap<>();
+        findListing(user, subjectId, classId, false, pageIds, Pageable.unpaged())
+                .forEach(item -> byId.put(item.id(), item));
+        List<MaterialListItem> items = pageIds.stream().map(byId::get).filter(Objects::nonNull).toList();
+        return new PageImpl<>(items, pageRequest, ids.size());
+    }
+
+    private Page<MaterialListItem> findListing(User user, Long subjectId, Long classId, boolean matchAll,
+                                               Collection<Long> ids, Pageable pageable) {
+        if (user.getRole() == Role.STUDENT) {
+            List<Long> subjectIds = user.getSubjects().stream().map(Subject::getId).toList();
+            return materialRepository.findStudentListing(user.getSchoolClass().getId(), subjectIds,
+                    subjectId, classId, matchAll, ids, pageable);
+        }
+        if (user.getRole() == Role.TEACHER) {
+            return materialRepository.findTeacherListing(user.getId(), subjectId, classId, matchAll, ids, pageable);
+        }
+        return materialRepository.findListing(subjectId, classId, matchAll, ids, pageable);
+    }
+
     public List<Material> filterMaterials(List<Material> materials, String keyword, String searchType) {
         return applyStrategy(materials, keyword, searchType);
     }
 
+    /**
+     * Keyword search with facet counts, scoped like the material list: students only ever see
+     * materials for their own class and enrolled subjects, teachers their own uploads, and
+     * their facet counts are limited to those too.
+     */
+    public MaterialFacetedSearchResult facetedSearch(User user, String keyword,
+                                                     Map<MaterialFacetIndex.Facet, String> selected,
+                                                     int page, int size) {
+        Map<MaterialFacetIndex.Facet, Set<String>> scope = roleScope(user);
+        Map<MaterialFacetIndex.Facet, Set<String>> filters = new EnumMap<>(MaterialFacetIndex.Facet.class);
+        selected.forEach((facet, value) -> {
+            if (value != null && !value.isBlank()) {
+                filters.put(facet, Set.of(value));
+            }
+        });
+
+        MaterialSearchIndex.FacetedPage result = materialSearchIndex.facetedSearch(keyword, scope, filters, page, size);
+        List<MaterialFacetedSearchResult.Hit> hits = findRanked(result.ids()).stream()
+                .map(MaterialFacetedSearchResult.Hit::of)
+                .toList();
+        Map<String, List<MaterialFacetIndex.FacetCount>> facets = new LinkedHashMap<>();
+        result.facets().forEach((facet, counts) -> facets.put(facet.name().toLowerCase(Locale.ROOT), counts));
+        return new MaterialFacetedSearchResult(result.total(), page, size, hits, facets);
+    }
+
+    /**
+     * Typeahead titles for the search box, limited to what the user's material list shows.
+     */
+    public List<MaterialSuggestion> suggest(User user, String query, int limit) {
+        return materialSearchIndex.suggest(query, limit, roleScope(user));
+    }
+
+    /**
+     * Highlighted passages from inside the given materials' files that match a content search.
+     */
+    public Map<Long, String> getContentSnippets(String keyword, Collection<Long> materialIds) {
+        return materialContentIndex.snippets(keyword, materialIds);
+    }
+
+    // Ids matching a search within the scope, in listing order. The legacy title and subject
+    // types go through the keyword index, which covers both fields; keyword matches are
+    // unranked, so the materials people actually use come first.
+    private List<Long> matchingIds(String keyword, String searchType, Map<MaterialFacetIndex.Facet, Set<String>> scope) {
+        if ("content".equalsIgnoreCase(searchType)) {
+            return materialContentIndex.search(keyword, scope);
+        }
+        if ("fuzzy".equalsIgnoreCase(searchType)) {
+            return materialSearchIndex.fuzzySearch(keyword, FUZZY_RESULTS, scope);
+        }
+        return materialSearchIndex.searchByPopularity(keyword, scope);
+    }
+
+    // What a role may see, in index terms: students their class and enrolled subjects,
+    // teachers their own uploads
+    private Map<MaterialFacetIndex.Facet, Set<String>> roleScope(User user) {
+        Map<MaterialFacetIndex.Facet, Set<String>> scope = new EnumMap<>(MaterialFacetIndex.Facet.class);
+        if (user.getRole() == Role.STUDENT) {
+            scope.put(MaterialFacetIndex.Facet.CLASS, user.getSchoolClass() != null && user.getSchoolClass().getId() != null
+                    ? Set.of(user.getSchoolClass().getId().toString()) : Set.of());
+            scope.put(MaterialFacetIndex.Facet.SUBJECT, user.getSubjects() == null ? Set.of()
+                    : user.getSubjects().stream().map(subject -> String.valueOf(subject.getId())).collect(Collectors.toSet()));
+        } else if (user.getRole() == Role.TEACHER) {
+            scope.put(MaterialFacetIndex.Facet.TEACHER, user.getId() != null ? Set.of(user.getId().toString()) : Set.of());
+        }
+        return scope;
+    }
+
+    private Map<MaterialFacetIndex.Facet, Set<String>> listingScope(User user, Long subjectId, Long classId) {
+        Map<MaterialFacetIndex.Facet, Set<String>> scope = roleScope(user);
+        narrow(scope, MaterialFacetIndex.Facet.SUBJECT, subjectId);
+        narrow(scope, MaterialFacetIndex.Facet.CLASS, classId);
+        return scope;
+    }
+
+    private static void narrow(Map<MaterialFacetIndex.Facet, Set<String>> scope, MaterialFacetIndex.Facet facet, Long selected) {
+        if (selected == null) {
+            return;
+        }
+        Set<String> allowed = scope.get(facet);
+        String value = selected.toString();
+        scope.put(facet, allowed == null || allowed.contains(value) ? Set.of(value) : Set.of());
+    }
+
+    // Loads the given materials keeping the index's ranking
+    private List<Material> findRanked(List<Long> rankedIds) {
+        Map<Long, Material> byId = new HashMap<>();
+        materialRepository.findAllById(rankedIds).forEach(material -> byId.put(material.getId(), material));
+        return rankedIds.stream().map(byId::get).filter(material -> material != null && material.isActive()).toList();
+    }
+
     private List<Material> applyStrategy(List<Material> materials, String keyword, String searchType) {
         MaterialSearchStrategy strategy = resolveStrategy(searchType);
         MaterialSearchContext context = new MaterialSearchContext();
@@ -98,8 +310,21 @@ public class MaterialService {
         if ("subject".equalsIgnoreCase(searchType)) {
             return new SearchMaterialBySubjectStrategy();
         }
+        if ("content".equalsIgnoreCase(searchType)) {
+            return new ContentMaterialSearchStrategy(materialContentIndex);
+        }
+        if ("fuzzy".equalsIgnoreCase(searchType)) {
+            return new FuzzyMaterialSearchStrategy(materialSearchIndex);
+        }
+        if (isKeywordSearch(searchType)) {
+            return new IndexedMaterialSearchStrategy(materialSearchIndex);
+        }
         return new SearchMaterialByTitleStrategy();
     }
+
+    private boolean isKeywordSearch(String searchType) {
+        return searchType == null || "keyword".equalsIgnoreCase(searchType);
+    }
 }
 
 
@@ -30,12 +30,15 @@ public class NotificationService {
     private final NotificationRepository notificationRepository;
     private final UserRepository userRepository;
     private final NotificationFactory notificationFactory;
+    private final StudentSummaryService studentSummaryService;
     public NotificationService(NotificationRepository notificationRepository,
                                UserRepository userRepository,
-                               NotificationFactory notificationFactory) {
+                               NotificationFactory notificationFactory,
+                               StudentSummaryService studentSummaryService) {
         this.notificationRepository = notificationRepository;
         this.userRepository = userRepository;
         this.notificationFactory = notificationFactory;
+        this.studentSummaryService = studentSummaryService;
     }
 
     @Transactional
@@ -329,10 +332,12 @@ public class NotificationService {
                     broadcastNotification.setMessage(message);
                 }
                 notificationRepository.saveAll(broadcastNotifications);
+                studentSummaryService.notificationsChanged(targetUserIds(broadcastNotifications));
             } else {
                 notification.setTitle(title);
                 notification.setMessage(message);
                 notificationRepository.save(notification);
+                studentSummaryService.notificationsChanged(targetUserIds(List.of(notification)));
             }
         });
     }
@@ -342,9 +347,12 @@ public class NotificationService {
         notificationRepository.findById(id).ifPresent(notification -> {
             String broadcastKey = notification.getBroadcastKey();
             if (broadcastKey != null && !broadcastKey.isBlank()) {
+                Set<Long> recipients = targetUserIds(notificationRepository.findByBroadcastKey(broadcastKey));
                 notificationRepository.deleteByBroadcastKey(broadcastKey);
+                studentSummaryService.notificationsChanged(recipients);
             } else {
                 notificationRepository.delete(notification);
+                studentSummaryService.notificationsChanged(targetUserIds(List.of(notification)));
             }
         });
     }
@@ -369,6 +377,7 @@ public class NotificationService {
                 notification.setRead(true);
                 notification.setReadAt(LocalDateTime.now());
                 notificationRepository.save(notification);
+                studentSummaryService.notificationRead(targetUser);
             }
         });
     }
@@ -400,6 +409,7 @@ public class NotificationService {
 
         if (updated) {
             notificationRepository.saveAll(notifications);
+            studentSummaryService.allNotificationsRead(user);
         }
     }
 
@@ -437,6 +447,9 @@ public class NotificationService {
         notification.setBroadcastKey(broadcastKey);
         setFileInfo(notification, fileName, originalFileName, filePath, fileType, fileSize);
         notificationRepository.save(notification);
+        if (recipient.getRole() == Role.STUDENT) {
+            studentSummaryService.notificationCreated(recipient, title, notification.getCreatedAt());
+        }
     }
 
     @Transactional
@@ -487,6 +500,16 @@ public class NotificationService {
         }
     }
 
+    private static Set<Long> targetUserIds(List<Notification> notifications) {
+        Set<Long> ids = new HashSet<>();
+        for (Notification notification : notifications) {
+            if (notification.getTargetUser() != null) {
+                ids.add(notification.getTargetUser().getId());
+            }
+        }
+        return ids;
+    }
+
     private void setFileInfo(Notification notification, String fileName, String originalFileName, String filePath, String fileType, Long fileSize) {
         if (fileName != null) {
             notification.setFileName(fileName);
@@ -0,0 +1,129 @@
+package com.learnmate.service;
+
+import com.learnmate.dto.ParentDashboard;
+import com.learnmate.model.SchoolClass;
+import com.learnmate.model.StudentRank;
+import com.learnmate.model.User;
+import com.learnmate.repository.AttendanceRepository;
+import com.learnmate.repository.ExamRepository;
+import com.learnmate.repository.FeeRepository;
+import com.learnmate.repository.MarkRepository;
+import com.learnmate.repository.UserRepository;
+import com.learnmate.service.dashboard.ParentDashboardCache;
+import com.learnmate.service.ranking.RankingService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * The parent dashboard for all of a parent's children at once: attendance, upcoming exams,
+ * unpaid fees, published marks and term ranks each come from one grouped query over every
+ * child's id, so a parent of four costs the same seven queries as a parent of one. The result
+ * is cached per parent until something about one of the children changes.
+ */
+@Service
+public class ParentDashboardService {
+
+    private final UserRepository userRepository;
+    private final AttendanceRepository attendanceRepository;
+    private final ExamRepository examRepository;
+    private final FeeRepository feeRepository;
+    private final MarkRepository markRepository;
+    private final RankingService rankingService;
+    private final ParentDashboardCache cache;
+
+    @Value("${dashboard.parent.recent-marks:3}")
+    private int recentMarks;
+
+    @Value("${dashboard.parent.recent-marks-window:P60D}")
+    private Period recentMarksWindow;
+
+    public ParentDashboardService(UserRepository userRepository, AttendanceRepository attendanceRepository,
+                                  ExamRepository examRepository, FeeRepository feeRepository,
+                                  MarkRepository markRepository, RankingService rankingService,
+                                  ParentDashboardCache cache) {
+        this.userRepository = userRepository;
+        this.attendanceRepository = attendanceRepository;
+        this.examRepository = examRepository;
+        this.feeRepository = feeRepository;
+        this.markRepository = markRepository;
+        this.rankingService = rankingService;
+        this.cache = cache;
+    }
+
+    public ParentDashboard getDashboard(User parent) {
+        return cache.get(parent.getId(), () -> build(parent.getUsername(), LocalDate.now()));
+    }
+
+    ParentDashboard build(String username, LocalDate today) {
+        User parent = userRepository.findParentWithChildrenByUsername(username)
+                .orElseThrow(() -> new IllegalArgumentException("Parent not found: " + username));
+        List<User> children = parent.getChildren().stream()
+                .sorted(Comparator.comparing(User::getName, Comparator.nullsLast(Comparator.naturalOrder())))
+                .toList();
+        if (children.isEmpty()) {
+            return new ParentDashboard(parent.getId(), List.of(), today);
+        }
+
+        Set<Long> childIds = children.stream().map(User::getId).collect(Collectors.toSet());
+        Set<Long> classIds = children.stream()
+                .map(User::getSchoolClass)
+                .filter(Objects::nonNull)
+                .map(SchoolClass::getId)
+                .collect(Collectors.toSet());
+
+        Map<Long, ParentDashboard.AttendanceCount> attendance = byId(
+                attendanceRepository.countByStudentIds(childIds), ParentDashboard.AttendanceCount::studentId);
+        Map<Long, ParentDashboard.ExamCount> exams = classIds.isEmpty() ? Map.of() : byId(
+                examRepository.countUpcomingByClassIds(classIds, today), ParentDashboard.ExamCount::classId);
+        Map<Long, ParentDashboard.FeeCount> fees = byId(
+                feeRepository.countUnpaidByStudentIds(childIds), ParentDashboard.FeeCount::studentId);
+        Map<Long, ParentDashboard.ScoreAverage> averages = byId(
+                markRepository.averagePublishedByStudentIds(childIds), ParentDashboard.ScoreAverage::studentId);
+        Map<Long, StudentRank> ranks = rankingService.getTermRanks(children);
+        // Already newest first, so each child keeps its first few
+        Map<Long, List<ParentDashboard.RecentMark>> marks = markRepository
+                .findRecentPublishedByStudentIds(childIds, today.minus(recentMarksWindow)).stream()
+                .collect(Collectors.groupingBy(ParentDashboard.RecentMark::studentId, HashMap::new,
+                        Collectors.collectingAndThen(Collectors.toList(),
+                                list -> List.copyOf(list.subList(0, Math.min(recentMarks, list.size()))))));
+
+        List<ParentDashboard.Child> rows = children.stream().map(child -> {
+            SchoolClass schoolClass = child.getSchoolClass();
+            ParentDashboard.AttendanceCount days = attendance.get(child.getId());
+            ParentDashboard.ExamCount upcoming = schoolClass != null ? exams.get(schoolClass.getId()) : null;
+            ParentDashboard.FeeCount unpaid = fees.get(child.getId());
+            ParentDashboard.ScoreAverage average = averages.get(child.getId());
+            StudentRank rank = ranks.get(child.getId());
+            return new ParentDashboard.Child(child.getId(), child.getName(),
+                    schoolClass != null ? schoolClass.getId() : null,
+                    schoolClass != null ? schoolClass.getName() : null,
+                    days != null ? days.days() : 0,
+                    days != null ? days.present() : 0,
+                    days != null && days.days() > 0 ? days.present() * 100.0 / days.days() : null,
+                    upcoming != null ? upcoming.upcoming() : 0,
+                    upcoming != null ? upcoming.next() : null,
+                    unpaid != null ? unpaid.count() : 0,
+                    unpaid != null ? unpaid.amount() : 0,
+                    average != null ? average.average() : null,
+                    rank != null ? rank.getClassRank() : null,
+                    rank != null ? rank.getClassSize() : 0,
+                    marks.getOrDefault(child.getId(), List.of()));
+        }).toList();
+        return new ParentDashboard(parent.getId(), rows, today);
+    }
+
+    private static <T> Map<Long, T> byId(List<T> rows, Function<T, Long> id) {
+        return rows.stream().collect(Collectors.toMap(id, row -> row));
+    }
+}
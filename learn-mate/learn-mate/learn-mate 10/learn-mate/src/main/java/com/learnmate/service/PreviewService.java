@@ -0,0 +1,177 @@
+package com.learnmate.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.RandomAccessReadBufferedFile;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Renders first-page PNG thumbnails for uploaded PDFs on a small background pool,
+ * so list pages can show a preview without anyone downloading the full document.
+ */
+@Service
+public class PreviewService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(PreviewService.class);
+
+    private final FileStorageService fileStorageService;
+
+    // Files currently queued or rendering, so repeated uploads/page views don't pile up duplicate work
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    @Value("${preview.workers:2}")
+    private int workers;
+
+    @Value("${preview.queue-capacity:100}")
+    private int queueCapacity;
+
+    @Value("${preview.thumbnail-width:240}")
+    private int thumbnailWidth;
+
+    private ThreadPoolExecutor previewExecutor;
+
+    public PreviewService(FileStorageService fileStorageService) {
+        this.fileStorageService = fileStorageService;
+    }
+
+    @PostConstruct
+    void startWorkers() {
+        AtomicInteger threadCount = new AtomicInteger();
+        previewExecutor = new ThreadPoolExecutor(workers, workers, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "preview-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    thread.setPriority(Thread.MIN_PRIORITY);
+                    return thread;
+                });
+        previewExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    void stopWorkers() {
+        previewExecutor.shutdownNow();
+    }
+
+    /**
+     * Queues thumbnail generation for a stored PDF. Non-PDF files and files that already
+     * have a thumbnail are ignored. Never blocks the caller; if the queue is full the
+     * thumbnail is simply generated on the next request for it.
+     */
+    public void schedulePreview(String fileName, FileStorageService.FileType fileType) {
+        if (!isPdf(fileName)) {
+            return;
+        }
+
+        String source = fileStorageService.key(fileName, fileType);
+        if (!inFlight.add(source)) {
+            return;
+        }
+
+        try {
+            previewExecutor.execute(() -> {
+                try {
+                    renderThumbnail(fileName, fileType);
+                } finally {
+                    inFlight.remove(source);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            inFlight.remove(source);
+            LOGGER.debug("Preview queue full, deferring thumbnail for {}", fileName);
+        }
+    }
+
+    /**
+     * Returns the cached thumbnail for a stored file if it has been rendered. When it is
+     * missing, generation is scheduled and an empty result is returned.
+     */
+    public Optional<Resource> getThumbnail(String fileName, FileStorageService.FileType fileType) {
+        if (fileName == null || fileName.isBlank()) {
+            return Optional.empty();
+        }
+        Optional<Resource> thumbnail = fileStorageService.loadThumbnail(fileName, fileType);
+        if (thumbnail.isEmpty()) {
+            schedulePreview(fileName, fileType);
+        }
+        return thumbnail;
+    }
+
+    private void renderThumbnail(String fileName, FileStorageService.FileType fileType) {
+        // Unvalidated uploads are not parsed here; validation schedules the preview once they pass
+        if (fileStorageService.loadThumbnail(fileName, fileType).isPresent()
+                || fileStorageService.stat(fileName, fileType).isEmpty()
+                || !fileStorageService.isDownloadable(fileName, fileType)) {
+            return;
+        }
+
+        // Stage on local disk so large uploads are parsed from the file rather than the heap
+        Path tempFile = null;
+        try {
+            tempFile = Files.createTempFile("preview-", ".pdf");
+            try (InputStream content = fileStorageService.openFile(fileName, fileType)) {
+                Files.copy(content, tempFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+            byte[] png = render(tempFile);
+            if (png != null) {
+                fileStorageService.storeThumbnail(fileName, fileType, png);
+            }
+        } catch (IOException | RuntimeException ex) {
+            LOGGER.warn("Failed to render thumbnail for {}", fileName, ex);
+        } finally {
+            if (tempFile != null) {
+                try {
+                    Files.deleteIfExists(tempFile);
+                } catch (IOException ignored) {
+                    // best effort cleanup of the staging file
+                }
+            }
+        }
+    }
+
+    private byte[] render(Path file) throws IOException {
+        try (PDDocument document = Loader.loadPDF(new RandomAccessReadBufferedFile(file.toFile()))) {
+            if (document.getNumberOfPages() == 0) {
+                return null;
+            }
+
+            PDRectangle pageBox = document.getPage(0).getCropBox();
+            float scale = pageBox.getWidth() > 0 ? thumbnailWidth / pageBox.getWidth() : 1f;
+            BufferedImage image = new PDFRenderer(document).renderImage(0, scale, ImageType.RGB);
+
+            ByteArrayOutputStream png = new ByteArrayOutputStream();
+            ImageIO.write(image, "png", png);
+            return png.toByteArray();
+        }
+    }
+
+    private boolean isPdf(String fileName) {
+        return fileName != null && fileName.toLowerCase(Locale.ROOT).endsWith(".pdf");
+    }
+}
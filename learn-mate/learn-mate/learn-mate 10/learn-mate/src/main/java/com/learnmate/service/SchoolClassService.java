@@ -2,7 +2,13 @@ package com.learnmate.service;
 
 import com.learnmate.model.SchoolClass;
 import com.learnmate.repository.SchoolClassRepository;
+import com.learnmate.service.search.MaterialSearchCache;
+import com.learnmate.service.calendar.CalendarFeedCache;
+import com.learnmate.service.timetable.TimetableGridCache;
+import com.learnmate.service.search.MaterialSearchIndex;
 
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -11,27 +17,55 @@ import java.util.Optional;
 @Service
 public class SchoolClassService {
     private final SchoolClassRepository schoolClassRepository;
+    private final MaterialSearchIndex materialSearchIndex;
+    private final MaterialSearchCache materialSearchCache;
+    private final TimetableGridCache timetableGridCache;
+    private final CalendarFeedCache calendarFeedCache;
 
-    public SchoolClassService(SchoolClassRepository schoolClassRepository) {
+    public SchoolClassService(SchoolClassRepository schoolClassRepository,
+                              MaterialSearchIndex materialSearchIndex, MaterialSearchCache materialSearchCache,
+                              TimetableGridCache timetableGridCache, CalendarFeedCache calendarFeedCache) {
         this.schoolClassRepository = schoolClassRepository;
+        this.materialSearchIndex = materialSearchIndex;
+        this.materialSearchCache = materialSearchCache;
+        this.timetableGridCache = timetableGridCache;
+        this.calendarFeedCache = calendarFeedCache;
     }
 
     public List<SchoolClass> getAllSchoolClasses() {
         return schoolClassRepository.findAllByOrderByNameAsc();
     }
 
+    /**
+     * All classes by name for drop-downs. Cached, so the students collection is not loaded
+     * and must not be read from the returned classes.
+     */
+    @Cacheable("schoolClassOptions")
+    public List<SchoolClass> getSchoolClassOptions() {
+        return List.copyOf(schoolClassRepository.findAllByOrderByNameAsc());
+    }
+
     public Optional<SchoolClass> getSchoolClassById(Long id) {
         return schoolClassRepository.findById(id);
     }
 
+    @CacheEvict(value = "schoolClassOptions", allEntries = true)
     public SchoolClass createSchoolClass(SchoolClass schoolClass) {
         return schoolClassRepository.save(schoolClass);
     }
 
+    @CacheEvict(value = "schoolClassOptions", allEntries = true)
     public SchoolClass updateSchoolClass(SchoolClass schoolClass) {
-        return schoolClassRepository.save(schoolClass);
+        SchoolClass saved = schoolClassRepository.save(schoolClass);
+        // Material search matches on class names, so a rename has to reach the index
+        materialSearchIndex.rebuild();
+        materialSearchCache.invalidate();
+        timetableGridCache.invalidate();
+        calendarFeedCache.invalidate();
+        return saved;
     }
 
+    @CacheEvict(value = "schoolClassOptions", allEntries = true)
     public void deleteSchoolClass(Long id) {
         schoolClassRepository.deleteById(id);
     }
@@ -40,6 +74,7 @@ public class SchoolClassService {
         return schoolClassRepository.findByNameContainingIgnoreCase(name);
     }
     
+    @CacheEvict(value = "schoolClassOptions", allEntries = true)
     public void removeDuplicateClasses() {
         try {
             List<SchoolClass> allClasses = schoolClassRepository.findAll();
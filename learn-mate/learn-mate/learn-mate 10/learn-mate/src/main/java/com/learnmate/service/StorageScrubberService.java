@@ -0,0 +1,301 @@
+package com.learnmate.service;
+
+import com.learnmate.dto.StoredFileReference;
+import com.learnmate.model.StorageTier;
+import com.learnmate.repository.AnswerSheetRepository;
+import com.learnmate.repository.ExamRepository;
+import com.learnmate.repository.FeeRepository;
+import com.learnmate.repository.MaterialRepository;
+import com.learnmate.repository.NotificationRepository;
+import com.learnmate.repository.StoredFileRepository;
+import com.learnmate.repository.TimetableRepository;
+import com.learnmate.service.storage.BlobMetadata;
+import com.learnmate.service.storage.BlobStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Periodically reconciles the blob store with the tables that reference its files.
+ * Files nobody points at are moved under a quarantine prefix (and purged after a retention
+ * period) and their stored file rows are dropped; rows pointing at files that no longer
+ * exist are reported.
+ */
+@Service
+public class StorageScrubberService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(StorageScrubberService.class);
+
+    private static final int BATCH_SIZE = 500;
+
+    private final BlobStore blobStore;
+    private final StoredFileRepository storedFileRepository;
+    private final Map<FileStorageService.FileType, ReferenceLookup> referenceLookups =
+            new EnumMap<>(FileStorageService.FileType.class);
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final AtomicReference<ScrubReport> lastReport = new AtomicReference<>();
+
+    @Value("${storage.scrubber.enabled:true}")
+    private boolean enabled;
+
+    @Value("${storage.scrubber.dry-run:false}")
+    private boolean dryRun;
+
+    // Fresh uploads may belong to a transaction that has not committed yet
+    @Value("${storage.scrubber.grace-period:PT6H}")
+    private Duration gracePeriod;
+
+    @Value("${storage.scrubber.quarantine-prefix:.quarantine/}")
+    private String quarantinePrefix;
+
+    @Value("${storage.scrubber.quarantine-retention:P30D}")
+    private Duration quarantineRetention;
+
+    public StorageScrubberService(BlobStore blobStore,
+                                  MaterialRepository materialRepository,
+                                  ExamRepository examRepository,
+                                  TimetableRepository timetableRepository,
+                                  AnswerSheetRepository answerSheetRepository,
+                                  FeeRepository feeRepository,
+                                  NotificationRepository notificationRepository,
+                                  StoredFileRepository storedFileRepository) {
+        this.blobStore = blobStore;
+        this.storedFileRepository = storedFileRepository;
+        referenceLookups.put(FileStorageService.FileType.MATERIAL, new ReferenceLookup(
+                materialRepository::findReferencedFileNames, materialRepository::findFileReferencesAfter));
+        referenceLookups.put(FileStorageService.FileType.EXAM, new ReferenceLookup(
+                examRepository::findReferencedFileNames, examRepository::findFileReferencesAfter));
+        referenceLookups.put(FileStorageService.FileType.TIMETABLE, new ReferenceLookup(
+                timetableRepository::findReferencedFileNames, timetableRepository::findFileReferencesAfter));
+        referenceLookups.put(FileStorageService.FileType.ANSWER_SHEET, new ReferenceLookup(
+                answerSheetRepository::findReferencedFileNames, answerSheetRepository::findFileReferencesAfter));
+        referenceLookups.put(FileStorageService.FileType.PAYMENT_SLIP, new ReferenceLookup(
+                feeRepository::findReferencedFileNames, feeRepository::findFileReferencesAfter));
+        referenceLookups.put(FileStorageService.FileType.NOTIFICATION, new ReferenceLookup(
+                notificationRepository::findReferencedFileNames, notificationRepository::findFileReferencesAfter));
+    }
+
+    @Scheduled(cron = "${storage.scrubber.cron:0 30 2 * * *}")
+    public void scheduledScrub() {
+        if (enabled) {
+            scrub();
+        }
+    }
+
+    /**
+     * Runs one scrub pass. Each file type directory is handled as an independent partition
+     * in parallel. Returns empty if another pass is already running.
+     */
+    public Optional<ScrubReport> scrub() {
+        if (!running.compareAndSet(false, true)) {
+            LOGGER.info("Storage scrub already in progress, skipping");
+            return Optional.empty();
+        }
+
+        try {
+            LocalDateTime startedAt = LocalDateTime.now();
+            long start = System.nanoTime();
+
+            Map<FileStorageService.FileType, TypeReport> byType = Arrays.stream(FileStorageService.FileType.values())
+                    .parallel()
+                    .map(this::scrubType)
+                    .collect(Collectors.toMap(TypeReport::fileType, Function.identity(),
+                            (first, second) -> first, () -> new EnumMap<>(FileStorageService.FileType.class)));
+            long bytesPurged = purgeExpiredQuarantine();
+
+            ScrubReport report = new ScrubReport(startedAt, Duration.ofNanos(System.nanoTime() - start),
+                    dryRun, byType, bytesPurged);
+            lastReport.set(report);
+
+            LOGGER.info("Storage scrub finished in {} ms: {} orphans ({} bytes) quarantined, {} missing files, {} bytes purged",
+                    report.duration().toMillis(), report.orphanCount(), report.bytesQuarantined(),
+                    report.missingCount(), bytesPurged);
+            return Optional.of(report);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    public Optional<ScrubReport> getLastReport() {
+        return Optional.ofNullable(lastReport.get());
+    }
+
+    private TypeReport scrubType(FileStorageService.FileType fileType) {
+        String prefix = fileType.prefix();
+        ReferenceLookup lookup = referenceLookups.get(fileType);
+        Instant cutoff = Instant.now().minus(gracePeriod);
+
+        long filesScanned = 0;
+        long bytesScanned = 0;
+        List<String> orphans = new ArrayList<>();
+        long bytesQuarantined = 0;
+        Set<String> storedNames = new HashSet<>();
+
+        try {
+            List<BlobMetadata> candidates = new ArrayList<>();
+            List<BlobMetadata> thumbnails = new ArrayList<>();
+            try (Stream<BlobMetadata> blobs = blobStore.list(prefix)) {
+                blobs.forEach(blob -> {
+                    storedNames.add(blob.fileName());
+                    (blob.fileName().endsWith(FileStorageService.THUMBNAIL_SUFFIX) ? thumbnails : candidates).add(blob);
+                });
+            }
+            // Compressed copies live under the cold prefix but still count as stored
+            storedNames.addAll(storedFileRepository.findFileNamesByTier(fileType, StorageTier.COLD));
+
+            for (BlobMetadata thumbnail : thumbnails) {
+                String fileName = thumbnail.fileName();
+                if (!storedNames.contains(fileName.substring(0, fileName.length() - FileStorageService.THUMBNAIL_SUFFIX.length()))) {
+                    // Preview left behind by a file that is already gone
+                    quarantine(thumbnail.key(), fileType);
+                }
+            }
+
+            for (int from = 0; from < candidates.size(); from += BATCH_SIZE) {
+                List<BlobMetadata> batch = candidates.subList(from, Math.min(from + BATCH_SIZE, candidates.size()));
+                Set<String> referenced = new HashSet<>(lookup.referencedIn().apply(
+                        batch.stream().map(BlobMetadata::fileName).toList()));
+                List<String> quarantined = new ArrayList<>();
+
+                for (BlobMetadata blob : batch) {
+                    filesScanned++;
+                    bytesScanned += blob.size();
+
+                    String fileName = blob.fileName();
+                    if (referenced.contains(fileName) || blob.lastModified().isAfter(cutoff)) {
+                        continue;
+                    }
+
+                    orphans.add(fileName);
+                    bytesQuarantined += blob.size();
+                    if (quarantine(blob.key(), fileType)) {
+                        quarantined.add(fileName);
+                    }
+                    if (storedNames.contains(fileName + FileStorageService.THUMBNAIL_SUFFIX)) {
+                        quarantine(blob.key() + FileStorageService.THUMBNAIL_SUFFIX, fileType);
+                    }
+                }
+
+                // Otherwise tiering, validation and the compression report keep counting the file
+                if (!quarantined.isEmpty()) {
+                    storedFileRepository.deleteByFileTypeAndFileNameIn(fileType, quarantined);
+                }
+            }
+        } catch (RuntimeException ex) {
+            LOGGER.warn("Failed to scan {} uploads under {}", fileType, prefix, ex);
+        }
+
+        List<StoredFileReference> missing = findMissingFiles(prefix, storedNames, lookup);
+        return new TypeReport(fileType, filesScanned, bytesScanned, orphans, bytesQuarantined, missing);
+    }
+
+    private List<StoredFileReference> findMissingFiles(String prefix, Set<String> storedNames, ReferenceLookup lookup) {
+        List<StoredFileReference> missing = new ArrayList<>();
+        Pageable firstBatch = PageRequest.of(0, BATCH_SIZE);
+        long afterId = 0L;
+
+        List<StoredFileReference> references;
+        do {
+            references = lookup.referencesAfter().apply(afterId, firstBatch);
+            for (StoredFileReference reference : references) {
+                String fileName = reference.fileName();
+                // Files uploaded after the listing are confirmed with a direct lookup
+                if (fileName.isBlank() || fileName.contains("/")
+                        || (!storedNames.contains(fileName) && blobStore.stat(prefix + fileName).isEmpty())) {
+                    missing.add(reference);
+                }
+                afterId = reference.id();
+            }
+        } while (references.size() == BATCH_SIZE);
+
+        return missing;
+    }
+
+    private boolean quarantine(String key, FileStorageService.FileType fileType) {
+        if (dryRun) {
+            return false;
+        }
+        try {
+            // Moving resets the last-modified time, which starts the retention clock
+            blobStore.move(key, quarantinePrefix + key);
+            return true;
+        } catch (RuntimeException ex) {
+            LOGGER.warn("Failed to quarantine orphaned {} upload {}", fileType, key, ex);
+            return false;
+        }
+    }
+
+    private long purgeExpiredQuarantine() {
+        if (dryRun) {
+            return 0;
+        }
+
+        Instant expiry = Instant.now().minus(quarantineRetention);
+        long bytesPurged = 0;
+        try (Stream<BlobMetadata> blobs = blobStore.list(quarantinePrefix)) {
+            for (BlobMetadata blob : (Iterable<BlobMetadata>) blobs::iterator) {
+                if (blob.lastModified().isBefore(expiry)) {
+                    blobStore.delete(blob.key());
+                    bytesPurged += blob.size();
+                }
+            }
+        } catch (RuntimeException ex) {
+            LOGGER.warn("Failed to purge quarantined uploads under {}", quarantinePrefix, ex);
+        }
+        return bytesPurged;
+    }
+
+    private record ReferenceLookup(Function<Collection<String>, List<String>> referencedIn,
+                                   BiFunction<Long, Pageable, List<StoredFileReference>> referencesAfter) {
+    }
+
+    public record TypeReport(FileStorageService.FileType fileType,
+                             long filesScanned,
+                             long bytesScanned,
+                             List<String> orphans,
+                             long bytesQuarantined,
+                             List<StoredFileReference> missingFiles) {
+    }
+
+    public record ScrubReport(LocalDateTime startedAt,
+                              Duration duration,
+                              boolean dryRun,
+                              Map<FileStorageService.FileType, TypeReport> byType,
+                              long bytesPurged) {
+
+        public long orphanCount() {
+            return byType.values().stream().mapToLong(type -> type.orphans().size()).sum();
+        }
+
+        public long bytesQuarantined() {
+            return byType.values().stream().mapToLong(TypeReport::bytesQuarantined).sum();
+        }
+
+        public long missingCount() {
+            return byType.values().stream().mapToLong(type -> type.missingFiles().size()).sum();
+        }
+    }
+}
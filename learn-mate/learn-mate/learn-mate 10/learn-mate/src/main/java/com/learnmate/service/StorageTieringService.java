@@ -0,0 +1,210 @@
+package com.learnmate.service;
+
+import com.learnmate.dto.CompressionStats;
+import com.learnmate.model.StorageTier;
+import com.learnmate.model.StoredFile;
+import com.learnmate.repository.StoredFileRepository;
+import com.learnmate.service.storage.BlobMetadata;
+import com.learnmate.service.storage.BlobStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Moves files nobody has read for a while into a compressed cold tier. Reads keep working
+ * through {@link FileStorageService}, which decompresses cold files while streaming them.
+ */
+@Service
+public class StorageTieringService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(StorageTieringService.class);
+
+    private static final int BATCH_SIZE = 200;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final BlobStore blobStore;
+    private final FileStorageService fileStorageService;
+    private final StoredFileRepository storedFileRepository;
+    private final MaterialPopularityService materialPopularityService;
+
+    private final AtomicBoolean running = new AtomicBoolean(false);
+
+    @Value("${storage.tiering.enabled:true}")
+    private boolean enabled;
+
+    @Value("${storage.tiering.cold-after:P90D}")
+    private Duration coldAfter;
+
+    @Value("${storage.tiering.file-types:EXAM,ANSWER_SHEET,NOTIFICATION}")
+    private String[] fileTypes;
+
+    // Already-compressed formats (most PDFs, images) shrink very little; leave those as they are
+    @Value("${storage.tiering.min-savings:0.10}")
+    private double minSavings;
+
+    // Materials downloaded at least this often stay hot even when nobody opened them lately,
+    // e.g. revision notes that come back every exam season
+    @Value("${storage.tiering.keep-hot-downloads:20}")
+    private long keepHotDownloads;
+
+    public StorageTieringService(BlobStore blobStore, FileStorageService fileStorageService,
+                                 StoredFileRepository storedFileRepository,
+                                 MaterialPopularityService materialPopularityService) {
+        this.blobStore = blobStore;
+        this.fileStorageService = fileStorageService;
+        this.storedFileRepository = storedFileRepository;
+        this.materialPopularityService = materialPopularityService;
+    }
+
+    @Scheduled(cron = "${storage.tiering.cron:0 0 3 * * *}")
+    public void scheduledTiering() {
+        if (enabled) {
+            tierColdFiles();
+        }
+    }
+
+    /**
+     * Compresses every eligible file of the configured types into the cold tier.
+     * Returns empty if a run is already in progress.
+     */
+    public Optional<TieringResult> tierColdFiles() {
+        if (!running.compareAndSet(false, true)) {
+            LOGGER.info("Storage tiering already in progress, skipping");
+            return Optional.empty();
+        }
+
+        try {
+            Instant cutoff = Instant.now().minus(coldAfter);
+            TieringResult total = new TieringResult(0, 0, 0, 0);
+            for (String typeName : fileTypes) {
+                total = total.plus(tierType(FileStorageService.FileType.valueOf(typeName.trim()), cutoff));
+            }
+
+            LOGGER.info("Storage tiering moved {} files to the cold tier ({} -> {} bytes), {} not worth compressing",
+                    total.filesTiered(), total.originalBytes(), total.storedBytes(), total.incompressible());
+            return Optional.of(total);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    public List<CompressionStats> getCompressionReport() {
+        return storedFileRepository.summarizeByFileType(StorageTier.COLD);
+    }
+
+    private TieringResult tierType(FileStorageService.FileType fileType, Instant cutoff) {
+        List<BlobMetadata> candidates = new ArrayList<>();
+        try (Stream<BlobMetadata> blobs = blobStore.list(fileType.prefix())) {
+            blobs.filter(blob -> !blob.fileName().endsWith(FileStorageService.THUMBNAIL_SUFFIX))
+                    .forEach(candidates::add);
+        } catch (RuntimeException ex) {
+            LOGGER.warn("Failed to list {} uploads for tiering", fileType, ex);
+            return new TieringResult(0, 0, 0, 0);
+        }
+
+        TieringResult result = new TieringResult(0, 0, 0, 0);
+        for (int from = 0; from < candidates.size(); from += BATCH_SIZE) {
+            List<BlobMetadata> batch = candidates.subList(from, Math.min(from + BATCH_SIZE, candidates.size()));
+            Map<String, StoredFile> storedFiles = storedFileRepository
+                    .findByFileTypeAndFileNameIn(fileType, batch.stream().map(BlobMetadata::fileName).toList())
+                    .stream()
+                    .collect(Collectors.toMap(StoredFile::getFileName, Function.identity()));
+
+            for (BlobMetadata blob : batch) {
+                StoredFile storedFile = storedFiles.get(blob.fileName());
+                if (storedFile != null && (storedFile.getTier() == StorageTier.COLD || !storedFile.isCompressible()
+                        || !storedFile.isDownloadable())) {
+                    continue;
+                }
+                // Files uploaded before access tracking existed fall back to their upload time
+                Instant lastUsed = storedFile != null && storedFile.getLastAccessedAt() != null
+                        ? storedFile.getLastAccessedAt().atZone(ZoneId.systemDefault()).toInstant()
+                        : blob.lastModified();
+                if (lastUsed.isAfter(cutoff)) {
+                    continue;
+                }
+                if (fileType == FileStorageService.FileType.MATERIAL
+                        && materialPopularityService.getDownloadsOfFile(blob.fileName()) >= keepHotDownloads) {
+                    continue;
+                }
+
+                result = result.plus(compress(fileType, blob,
+                        storedFile != null ? storedFile : new StoredFile(fileType, blob.fileName())));
+            }
+        }
+        return result;
+    }
+
+    private TieringResult compress(FileStorageService.FileType fileType, BlobMetadata blob, StoredFile storedFile) {
+        Path tempFile = null;
+        try {
+            // The compressed size must be known before upload, so stage it on local disk
+            tempFile = Files.createTempFile("tier-", ".gz");
+            try (InputStream in = blobStore.get(blob.key());
+                 OutputStream out = new GZIPOutputStream(Files.newOutputStream(tempFile), BUFFER_SIZE)) {
+                in.transferTo(out);
+            }
+            long compressedSize = Files.size(tempFile);
+            storedFile.setOriginalSize(blob.size());
+
+            if (compressedSize > blob.size() * (1 - minSavings)) {
+                storedFile.setCompressible(false);
+                storedFile.setStoredSize(blob.size());
+                storedFileRepository.save(storedFile);
+                return new TieringResult(0, 0, 0, 1);
+            }
+
+            try (InputStream in = Files.newInputStream(tempFile)) {
+                blobStore.put(fileStorageService.coldKey(blob.fileName(), fileType), in, compressedSize, "application/gzip");
+            }
+            storedFile.setTier(StorageTier.COLD);
+            storedFile.setCodec(FileStorageService.GZIP_CODEC);
+            storedFile.setStoredSize(compressedSize);
+            storedFile.setTieredAt(LocalDateTime.now());
+            storedFileRepository.save(storedFile);
+
+            // Only drop the original once readers are pointed at the cold copy
+            blobStore.delete(blob.key());
+            return new TieringResult(1, blob.size(), compressedSize, 0);
+        } catch (IOException | RuntimeException ex) {
+            LOGGER.warn("Failed to move {} to the cold tier", blob.key(), ex);
+            return new TieringResult(0, 0, 0, 0);
+        } finally {
+            if (tempFile != null) {
+                try {
+                    Files.deleteIfExists(tempFile);
+                } catch (IOException ignored) {
+                    // best effort cleanup of the staging file
+                }
+            }
+        }
+    }
+
+    public record TieringResult(long filesTiered, long originalBytes, long storedBytes, long incompressible) {
+
+        TieringResult plus(TieringResult other) {
+            return new TieringResult(filesTiered + other.filesTiered, originalBytes + other.originalBytes,
+                    storedBytes + other.storedBytes, incompressible + other.incompressible);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package com.learnmate.service;
+
+import com.learnmate.model.StudentSummary;
+import com.learnmate.model.User;
+import com.learnmate.repository.StudentSummaryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Keeps each student's {@link StudentSummary} row current. Write paths report what changed:
+ * new attendance and notifications are applied as increments, anything else is recounted
+ * for just the students or class it touched. A summary is created on the student's first
+ * dashboard visit, and recounted for everyone each night.
+ */
+@Service
+public class StudentSummaryService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(StudentSummaryService.class);
+
+    private final StudentSummaryRepository studentSummaryRepository;
+
+    @Value("${dashboard.student-summary.refresh-enabled:true}")
+    private boolean refreshEnabled;
+
+    public StudentSummaryService(StudentSummaryRepository studentSummaryRepository) {
+        this.studentSummaryRepository = studentSummaryRepository;
+    }
+
+    public StudentSummary getSummary(User student) {
+        LocalDate today = LocalDate.now();
+        StudentSummary summary = studentSummaryRepository.findById(student.getId()).orElse(null);
+        if (summary == null) {
+            try {
+                studentSummaryRepository.insertMissing(student.getId());
+            } catch (DataIntegrityViolationException e) {
+                // Another request created it first
+            }
+            List<Long> ids = List.of(student.getId());
+            studentSummaryRepository.refreshAttendance(ids);
+            studentSummaryRepository.refreshExams(ids, today);
+            studentSummaryRepository.refreshNotifications(ids);
+        } else if (today.equals(summary.getExamsAsOf())) {
+            return summary;
+        } else {
+            // Exams have passed since the count was taken and the nightly refresh has not run yet
+            studentSummaryRepository.refreshExams(List.of(student.getId()), today);
+        }
+        return studentSummaryRepository.findById(student.getId()).orElseThrow();
+    }
+
+    public void attendanceRecorded(User student, boolean present) {
+        if (student != null) {
+            studentSummaryRepository.recordAttendance(student.getId(), present ? 1 : 0);
+        }
+    }
+
+    public void attendanceChanged(User student, boolean wasPresent, boolean present) {
+        if (student != null && wasPresent != present) {
+            studentSummaryRepository.adjustPresent(student.getId(), present ? 1 : -1);
+        }
+    }
+
+    public void attendanceChanged(Collection<Long> studentIds) {
+        if (!studentIds.isEmpty()) {
+            studentSummaryRepository.refreshAttendance(studentIds);
+        }
+    }
+
+    public void classAttendanceChanged(Long classId) {
+        studentSummaryRepository.refreshAttendanceForClass(classId);
+    }
+
+    public void classExamsChanged(Long classId) {
+        studentSummaryRepository.refreshExamsForClass(classId, LocalDate.now());
+    }
+
+    public void enrollmentChanged(User student) {
+        studentSummaryRepository.refreshExams(List.of(student.getId()), LocalDate.now());
+    }
+
+    public void notificationCreated(User recipient, String title, LocalDateTime createdAt) {
+        studentSummaryRepository.recordNotification(recipient.getId(), title, createdAt);
+    }
+
+    public void notificationRead(User recipient) {
+        studentSummaryRepository.notificationRead(recipient.getId());
+    }
+
+    public void allNotificationsRead(User recipient) {
+        studentSummaryRepository.allNotificationsRead(recipient.getId());
+    }
+
+    public void notificationsChanged(Collection<Long> recipientIds) {
+        if (!recipientIds.isEmpty()) {
+            studentSummaryRepository.refreshNotifications(recipientIds);
+        }
+    }
+
+    public void studentDeleted(Long studentId) {
+        studentSummaryRepository.deleteById(studentId);
+    }
+
+    @Scheduled(cron = "${dashboard.student-summary.refresh-cron:0 15 0 * * *}")
+    public void scheduledRefresh() {
+        if (refreshEnabled) {
+            refreshAll();
+        }
+    }
+
+    /**
+     * Recounts every summary from the source tables and creates any that are missing.
+     */
+    public void refreshAll() {
+        long start = System.nanoTime();
+        int created = studentSummaryRepository.insertMissing();
+        studentSummaryRepository.refreshAttendance();
+        int refreshed = studentSummaryRepository.refreshExams(LocalDate.now());
+        studentSummaryRepository.refreshNotifications();
+        LOGGER.info("Refreshed {} student summaries ({} new) in {} ms", refreshed, created,
+                (System.nanoTime() - start) / 1_000_000);
+    }
+}
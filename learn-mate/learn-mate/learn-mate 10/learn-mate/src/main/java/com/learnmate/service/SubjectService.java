@@ -2,7 +2,13 @@ package com.learnmate.service;
 
 import com.learnmate.model.Subject;
 import com.learnmate.repository.SubjectRepository;
+import com.learnmate.service.search.MaterialSearchCache;
+import com.learnmate.service.calendar.CalendarFeedCache;
+import com.learnmate.service.timetable.TimetableGridCache;
+import com.learnmate.service.search.MaterialSearchIndex;
 
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
@@ -11,27 +17,48 @@ import java.util.Optional;
 @Service
 public class SubjectService {
     private final SubjectRepository subjectRepository;
+    private final MaterialSearchIndex materialSearchIndex;
+    private final MaterialSearchCache materialSearchCache;
+    private final TimetableGridCache timetableGridCache;
+    private final CalendarFeedCache calendarFeedCache;
 
-    public SubjectService(SubjectRepository subjectRepository) {
+    public SubjectService(SubjectRepository subjectRepository,
+                         MaterialSearchIndex materialSearchIndex, MaterialSearchCache materialSearchCache,
+                         TimetableGridCache timetableGridCache, CalendarFeedCache calendarFeedCache) {
         this.subjectRepository = subjectRepository;
+        this.materialSearchIndex = materialSearchIndex;
+        this.materialSearchCache = materialSearchCache;
+        this.timetableGridCache = timetableGridCache;
+        this.calendarFeedCache = calendarFeedCache;
     }
 
+    // Every form with a subject drop-down asks for this; subjects change rarely
+    @Cacheable("subjects")
     public List<Subject> getAllSubjects() {
-        return subjectRepository.findAll();
+        return List.copyOf(subjectRepository.findAll());
     }
 
     public Optional<Subject> getSubjectById(Long id) {
         return subjectRepository.findById(id);
     }
 
+    @CacheEvict(value = "subjects", allEntries = true)
     public Subject createSubject(Subject subject) {
         return subjectRepository.save(subject);
     }
 
+    @CacheEvict(value = "subjects", allEntries = true)
     public Subject updateSubject(Subject subject) {
-        return subjectRepository.save(subject);
+        Subject saved = subjectRepository.save(subject);
+        // Material search matches on subject names, so a rename has to reach the index
+        materialSearchIndex.rebuild();
+        materialSearchCache.invalidate();
+        timetableGridCache.invalidate();
+        calendarFeedCache.invalidate();
+        return saved;
     }
 
+    @CacheEvict(value = "subjects", allEntries = true)
     public void deleteSubject(Long id) {
         subjectRepository.deleteById(id);
     }
@@ -0,0 +1,177 @@
+package com.learnmate.service;
+
+import com.learnmate.dto.AttendanceTaken;
+import com.learnmate.dto.TeacherAgenda;
+import com.learnmate.model.Timetable;
+import com.learnmate.model.User;
+import com.learnmate.repository.AnswerSheetRepository;
+import com.learnmate.repository.AttendanceRepository;
+import com.learnmate.repository.TimetableRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * The teacher dashboard's view of today: their lessons, which of them attendance has been
+ * marked for, and how many answer sheets wait for grading. The three queries run at once on
+ * virtual threads; whatever has not arrived when the latency budget runs out is left off the
+ * page rather than holding it up, and its query is cancelled. A semaphore sized below the
+ * connection pool caps how many agenda queries run at once, so a slow database sheds
+ * dashboard load instead of piling more onto it.
+ */
+@Service
+public class TeacherAgendaService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TeacherAgendaService.class);
+
+    private final TimetableRepository timetableRepository;
+    private final AttendanceRepository attendanceRepository;
+    private final AnswerSheetRepository answerSheetRepository;
+    private final MeterRegistry meterRegistry;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @Value("${dashboard.teacher-agenda.budget:PT1S}")
+    private Duration budget;
+
+    @Value("${dashboard.teacher-agenda.max-concurrent-queries:6}")
+    private int maxConcurrentQueries;
+
+    private Semaphore queryPermits;
+
+    private Timer completeTimer;
+    private Timer partialTimer;
+
+    public TeacherAgendaService(TimetableRepository timetableRepository, AttendanceRepository attendanceRepository,
+                                AnswerSheetRepository answerSheetRepository, MeterRegistry meterRegistry) {
+        this.timetableRepository = timetableRepository;
+        this.attendanceRepository = attendanceRepository;
+        this.answerSheetRepository = answerSheetRepository;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    void registerMeters() {
+        queryPermits = new Semaphore(maxConcurrentQueries);
+        completeTimer = timer("complete");
+        partialTimer = timer("partial");
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    public TeacherAgenda getAgenda(User teacher) {
+        return getAgenda(teacher, LocalDateTime.now());
+    }
+
+    TeacherAgenda getAgenda(User teacher, LocalDateTime now) {
+        long started = System.nanoTime();
+        long deadline = started + budget.toNanos();
+        LocalDate today = now.toLocalDate();
+
+        Future<List<Timetable>> lessonsFuture = submit(
+                () -> timetableRepository.findByTeacherAndDayOrderByStartTimeAsc(teacher, today.getDayOfWeek()), deadline);
+        Future<List<AttendanceTaken>> takenFuture = submit(() -> attendanceRepository.findTakenOn(today), deadline);
+        Future<Long> ungradedFuture = submit(() -> answerSheetRepository.countUngradedByTeacher(teacher), deadline);
+
+        List<Timetable> lessons = await(lessonsFuture, deadline, "today's lessons");
+        List<AttendanceTaken> taken = await(takenFuture, deadline, "attendance status");
+        Long ungraded = await(ungradedFuture, deadline, "ungraded answer sheets");
+
+        Set<AttendanceTaken> takenSet = taken != null ? new HashSet<>(taken) : null;
+        List<TeacherAgenda.Slot> slots = null;
+        Integer pendingAttendance = null;
+        if (lessons != null) {
+            slots = lessons.stream().map(lesson -> slot(lesson, takenSet)).toList();
+            if (takenSet != null) {
+                // Only lessons that have begun can be waiting for attendance
+                pendingAttendance = (int) slots.stream()
+                        .filter(slot -> !slot.attendanceTaken() && !now.toLocalTime().isBefore(slot.startTime()))
+                        .count();
+            }
+        }
+
+        boolean complete = lessons != null && taken != null && ungraded != null;
+        (complete ? completeTimer : partialTimer).record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+        return new TeacherAgenda(today, slots, pendingAttendance, ungraded, complete);
+    }
+
+    private static TeacherAgenda.Slot slot(Timetable lesson, Set<AttendanceTaken> taken) {
+        Long classId = lesson.getSchoolClass() != null ? lesson.getSchoolClass().getId() : null;
+        Long subjectId = lesson.getSubject() != null ? lesson.getSubject().getId() : null;
+        // Attendance marked for the whole class covers each of its lessons that day
+        Boolean attendanceTaken = taken == null ? null
+                : taken.contains(new AttendanceTaken(classId, subjectId)) || taken.contains(new AttendanceTaken(classId, null));
+        return new TeacherAgenda.Slot(lesson.getId(), lesson.getTitle(),
+                lesson.getSubject() != null ? lesson.getSubject().getName() : null,
+                lesson.getSchoolClass() != null ? lesson.getSchoolClass().getName() : null,
+                lesson.getRoom(), lesson.getStartTime(), lesson.getEndTime(), attendanceTaken);
+    }
+
+    // Queries wait for a permit only as long as the page would wait for their result
+    private <T> Future<T> submit(Callable<T> query, long deadline) {
+        return executor.submit(() -> {
+            if (!queryPermits.tryAcquire(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+                throw new TimeoutException("No free query slot");
+            }
+            // A slot freed by a query cancelled at the deadline must not start another one
+            if (System.nanoTime() - deadline >= 0) {
+                queryPermits.release();
+                throw new TimeoutException("Latency budget spent waiting for a query slot");
+            }
+            try {
+                return query.call();
+            } finally {
+                queryPermits.release();
+            }
+        });
+    }
+
+    private static <T> T await(Future<T> future, long deadline, String what) {
+        try {
+            return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            // Nobody will read the result; stop the query instead of letting it hold a connection
+            future.cancel(true);
+            LOGGER.warn("Teacher agenda: {} did not load within the latency budget", what);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof TimeoutException) {
+                LOGGER.warn("Teacher agenda: {} did not load within the latency budget", what);
+            } else {
+                LOGGER.warn("Teacher agenda: failed to load {}", what, e.getCause());
+            }
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+        }
+        return null;
+    }
+
+    private Timer timer(String outcome) {
+        return Timer.builder("dashboard.teacher.agenda")
+                .description("Time to assemble the teacher dashboard agenda")
+                .tag("outcome", outcome)
+                .serviceLevelObjectives(budget)
+                .register(meterRegistry);
+    }
+}
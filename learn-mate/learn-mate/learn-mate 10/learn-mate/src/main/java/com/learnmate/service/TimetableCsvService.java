@@ -0,0 +1,269 @@
+package com.learnmate.service;
+
+import com.learnmate.dto.TimetableImportResult;
+import com.learnmate.model.Role;
+import com.learnmate.model.SchoolClass;
+import com.learnmate.model.Subject;
+import com.learnmate.model.Timetable;
+import com.learnmate.model.User;
+import com.learnmate.repository.SchoolClassRepository;
+import com.learnmate.repository.UserRepository;
+import com.opencsv.CSVReader;
+import com.opencsv.CSVWriter;
+import com.opencsv.exceptions.CsvValidationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Time;
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Whole-term timetables as CSV, one lesson per row: class, subject, teacher (username), day,
+ * start, end, room, title, description. An export can be edited and imported again.
+ * <p>
+ * An import resolves every name with one query per table and leaves the clash checks to
+ * {@link TimetableService#importTimetables}, so a file costs the same handful of queries
+ * whatever its size.
+ */
+@Service
+public class TimetableCsvService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TimetableCsvService.class);
+
+    static final String[] HEADER = {"Class", "Subject", "Teacher", "Day", "Start", "End", "Room", "Title", "Description"};
+
+    private static final DateTimeFormatter TIME = DateTimeFormatter.ofPattern("H:mm");
+    private static final String EXPORT_SQL = "SELECT c.name AS class_name, s.name AS subject_name, u.username, "
+            + "t.day, t.start_time, t.end_time, t.room, t.title, t.description "
+            + "FROM timetables t "
+            + "JOIN school_classes c ON c.id = t.school_class_id "
+            + "JOIN users u ON u.id = t.teacher_id "
+            + "LEFT JOIN subjects s ON s.id = t.subject_id "
+            + "ORDER BY c.name, t.id";
+
+    private final TimetableService timetableService;
+    private final SchoolClassRepository schoolClassRepository;
+    private final SubjectService subjectService;
+    private final UserRepository userRepository;
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${timetable.import.max-rows:20000}")
+    private int maxRows;
+
+    @Value("${timetable.export.fetch-size:500}")
+    private int exportFetchSize;
+
+    public TimetableCsvService(TimetableService timetableService, SchoolClassRepository schoolClassRepository,
+                               SubjectService subjectService, UserRepository userRepository, JdbcTemplate jdbcTemplate) {
+        this.timetableService = timetableService;
+        this.schoolClassRepository = schoolClassRepository;
+        this.subjectService = subjectService;
+        this.userRepository = userRepository;
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Reads and checks a CSV file and, unless this is a dry run or anything is wrong with it,
+     * saves all of its lessons at once.
+     *
+     * @param replace remove the existing lessons of every class in the file first
+     */
+    public TimetableImportResult importCsv(Reader input, boolean replace, boolean dryRun) {
+        Map<String, SchoolClass> classes = byName(schoolClassRepository.findAll(), SchoolClass::getName);
+        Map<String, Subject> subjects = byName(subjectService.getAllSubjects(), Subject::getName);
+        Map<String, User> teachers = byName(userRepository.findByRole(Role.TEACHER), User::getUsername);
+
+        Map<Integer, Timetable> lessons = new LinkedHashMap<>();
+        Set<Long> classIds = new LinkedHashSet<>();
+        List<TimetableImportResult.Problem> problems = new ArrayList<>();
+        try (CSVReader reader = new CSVReader(input)) {
+            String[] header = reader.readNext();
+            if (header == null) {
+                return problem("The file is empty", dryRun);
+            }
+            Map<String, Integer> columns = new HashMap<>();
+            for (int i = 0; i < header.length; i++) {
+                // Spreadsheets often save a byte order mark in front of the first header
+                columns.putIfAbsent(header[i].replace("\uFEFF", "").trim().toLowerCase(Locale.ROOT), i);
+            }
+            for (String required : List.of("class", "teacher", "day", "start", "end")) {
+                if (!columns.containsKey(required)) {
+                    return problem("Missing column '" + required + "'; expected " + String.join(", ", HEADER), dryRun);
+                }
+            }
+
+            String[] row;
+            while ((row = reader.readNext()) != null) {
+                int line = (int) reader.getLinesRead();
+                if (isBlank(row)) {
+                    continue;
+                }
+                if (lessons.size() + problems.size() >= maxRows) {
+                    return problem("The file has more than " + maxRows + " lessons", dryRun);
+                }
+                try {
+                    Timetable lesson = toLesson(new Row(row, columns), classes, subjects, teachers);
+                    lessons.put(line, lesson);
+                    classIds.add(lesson.getSchoolClass().getId());
+                } catch (IllegalArgumentException e) {
+                    problems.add(new TimetableImportResult.Problem(line, e.getMessage()));
+                }
+            }
+        } catch (IOException | CsvValidationException e) {
+            return problem("Could not read the file: " + e.getMessage(), dryRun);
+        }
+
+        if (!problems.isEmpty()) {
+            return new TimetableImportResult(lessons.size() + problems.size(), 0, 0, dryRun, problems);
+        }
+        TimetableImportResult result = timetableService.importTimetables(lessons, replace ? classIds : Set.of(), dryRun);
+        if (result.isValid() && !dryRun) {
+            LOGGER.info("Imported {} lessons, replacing {}", result.created(), result.removed());
+        }
+        return result;
+    }
+
+    /**
+     * Writes every lesson as CSV while it is read, without holding the whole timetable.
+     */
+    public void exportCsv(Writer output) {
+        CSVWriter writer = new CSVWriter(output);
+        writer.writeNext(HEADER);
+        jdbcTemplate.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(EXPORT_SQL,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(exportFetchSize);
+            return statement;
+        }, resultSet -> {
+            writer.writeNext(new String[]{
+                    resultSet.getString("class_name"),
+                    resultSet.getString("subject_name"),
+                    resultSet.getString("username"),
+                    resultSet.getString("day"),
+                    format(resultSet.getTime("start_time")),
+                    format(resultSet.getTime("end_time")),
+                    resultSet.getString("room"),
+                    resultSet.getString("title"),
+                    resultSet.getString("description")
+            });
+        });
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static Timetable toLesson(Row row, Map<String, SchoolClass> classes, Map<String, Subject> subjects,
+                                      Map<String, User> teachers) {
+        SchoolClass schoolClass = lookup(classes, row.get("class"), "class");
+        User teacher = lookup(teachers, row.get("teacher"), "teacher");
+        if (!teacher.isActive()) {
+            throw new IllegalArgumentException("Teacher '" + teacher.getUsername() + "' is not active");
+        }
+        String subjectName = row.get("subject");
+        Subject subject = subjectName.isEmpty() ? null : lookup(subjects, subjectName, "subject");
+        DayOfWeek day = day(row.get("day"));
+        LocalTime start = time(row.get("start"));
+        LocalTime end = time(row.get("end"));
+        if (!end.isAfter(start)) {
+            throw new IllegalArgumentException("End time " + end + " is not after start time " + start);
+        }
+
+        Timetable lesson = new Timetable();
+        lesson.setSchoolClass(schoolClass);
+        lesson.setTeacher(teacher);
+        lesson.setSubject(subject);
+        lesson.setDay(day);
+        lesson.setStartTime(start);
+        lesson.setEndTime(end);
+        lesson.setRoom(row.get("room").isEmpty() ? null : row.get("room"));
+        String title = row.get("title");
+        lesson.setTitle(!title.isEmpty() ? title
+                : (subject != null ? subject.getName() : "Lesson") + " - " + schoolClass.getName());
+        lesson.setDescription(row.get("description").isEmpty() ? null : row.get("description"));
+        return lesson;
+    }
+
+    private static <T> T lookup(Map<String, T> byName, String name, String what) {
+        if (name.isEmpty()) {
+            throw new IllegalArgumentException("No " + what + " given");
+        }
+        T found = byName.get(name.toLowerCase(Locale.ROOT));
+        if (found == null) {
+            throw new IllegalArgumentException("Unknown " + what + " '" + name + "'");
+        }
+        return found;
+    }
+
+    // Full day names or their first three letters, in any case
+    private static DayOfWeek day(String value) {
+        String day = value.toUpperCase(Locale.ROOT);
+        for (DayOfWeek candidate : DayOfWeek.values()) {
+            if (day.length() >= 3 && candidate.name().startsWith(day)) {
+                return candidate;
+            }
+        }
+        throw new IllegalArgumentException("Unknown day '" + value + "'");
+    }
+
+    private static LocalTime time(String value) {
+        try {
+            return LocalTime.parse(value, TIME);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("Invalid time '" + value + "', expected e.g. 08:30");
+        }
+    }
+
+    private static String format(Time time) {
+        return time != null ? time.toLocalTime().format(TIME) : "";
+    }
+
+    private static <T> Map<String, T> byName(List<T> items, Function<T, String> name) {
+        return items.stream()
+                .filter(item -> name.apply(item) != null)
+                .collect(Collectors.toMap(item -> name.apply(item).trim().toLowerCase(Locale.ROOT), item -> item,
+                        (first, duplicate) -> first));
+    }
+
+    private static boolean isBlank(String[] row) {
+        for (String cell : row) {
+            if (cell != null && !cell.isBlank()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static TimetableImportResult problem(String message, boolean dryRun) {
+        return new TimetableImportResult(0, 0, 0, dryRun, List.of(new TimetableImportResult.Problem(0, message)));
+    }
+
+    private record Row(String[] cells, Map<String, Integer> columns) {
+        String get(String column) {
+            Integer index = columns.get(column);
+            return index != null && index < cells.length && cells[index] != null ? cells[index].trim() : "";
+        }
+    }
+}
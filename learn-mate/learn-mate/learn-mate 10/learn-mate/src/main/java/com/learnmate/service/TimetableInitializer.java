@@ -1,21 +1,66 @@
 package com.learnmate.service;
 
 import com.learnmate.model.*;
+import com.learnmate.service.timetable.TimetableConflictIndex;
+import com.learnmate.service.timetable.TimetableProblem;
+import com.learnmate.service.timetable.TimetableSolution;
+import com.learnmate.service.timetable.TimetableSolver;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
 
 import java.time.DayOfWeek;
+import java.time.Duration;
 import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
+/**
+ * Generates a clash-free weekly timetable for every class on first start. Each class is taught
+ * the subjects its students take, spread evenly over the week and at most once a day, by a
+ * teacher who lists that subject (teachers listing none can take any), in a room that seats
+ * the class.
+ */
 @Component
 public class TimetableInitializer implements CommandLineRunner {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TimetableInitializer.class);
+
     private final TimetableService timetableService;
     private final SchoolClassService schoolClassService;
     private final SubjectService subjectService;
     private final UserService userService;
 
+    @Value("${timetable.generator.days:MONDAY,TUESDAY,WEDNESDAY,THURSDAY,FRIDAY}")
+    private DayOfWeek[] days;
+
+    @Value("${timetable.generator.day-start:08:00}")
+    private String dayStart;
+
+    @Value("${timetable.generator.period-length:PT1H}")
+    private Duration periodLength;
+
+    @Value("${timetable.generator.periods-per-day:8}")
+    private int periodsPerDay;
+
+    @Value("${timetable.generator.lessons-per-day:6}")
+    private int lessonsPerDay;
+
+    @Value("${timetable.generator.rooms:Room 101:40,Room 102:40,Room 103:40,Room 104:40,Room 105:40,Room 201:40,Room 202:40,Room 203:40}")
+    private String[] rooms;
+
+    @Value("${timetable.generator.threads:0}")
+    private int threads;
+
+    @Value("${timetable.generator.time-limit:PT30S}")
+    private Duration timeLimit;
+
     public TimetableInitializer(TimetableService timetableService, SchoolClassService schoolClassService,
                                SubjectService subjectService, UserService userService) {
         this.timetableService = timetableService;
@@ -31,122 +76,137 @@ public class TimetableInitializer implements CommandLineRunner {
 
     private void initializeDefaultTimetables() {
         try {
-            System.out.println("=== Initializing Default Timetables ===");
-            
             List<SchoolClass> classes = schoolClassService.getAllSchoolClasses();
             List<Subject> subjects = subjectService.getAllSubjects();
-            List<User> teachers = userService.getUsersByRole(Role.TEACHER);
-            
-            System.out.println("Classes found: " + classes.size());
-            System.out.println("Subjects found: " + subjects.size());
-            System.out.println("Teachers found: " + teachers.size());
-            
+            List<User> teachers = userService.getUsersByRoleWithRelationships(Role.TEACHER);
+
             if (classes.isEmpty() || subjects.isEmpty() || teachers.isEmpty()) {
-                System.out.println("Skipping timetable initialization - missing data");
+                LOGGER.info("Skipping timetable generation: {} classes, {} subjects, {} teachers",
+                        classes.size(), subjects.size(), teachers.size());
                 return;
             }
-            
-            // Check if timetables already exist
             if (!timetableService.getAllTimetables().isEmpty()) {
-                System.out.println("Timetables already exist, skipping initialization");
+                LOGGER.info("Timetables already exist, skipping generation");
                 return;
             }
-            
-            // Create default timetables for each class
-            for (SchoolClass schoolClass : classes) {
-                System.out.println("Creating timetables for class: " + schoolClass.getName());
-                createDefaultTimetableForClass(schoolClass, subjects, teachers);
-            }
-            
-            System.out.println("=== Default Timetables Initialization Complete ===");
+
+            generate(classes, subjects, teachers);
         } catch (Exception e) {
-            System.out.println("Error initializing timetables: " + e.getMessage());
-            e.printStackTrace();
+            LOGGER.error("Error generating timetables", e);
         }
     }
 
-    private void createDefaultTimetableForClass(SchoolClass schoolClass, List<Subject> subjects, List<User> teachers) {
-        System.out.println("Creating timetables for class: " + schoolClass.getName());
-        
-        // Default time slots
-        LocalTime[] timeSlots = {
-            LocalTime.of(8, 0),   // 8:00 AM
-            LocalTime.of(9, 0),   // 9:00 AM
-            LocalTime.of(10, 0),  // 10:00 AM
-            LocalTime.of(11, 0),  // 11:00 AM
-            LocalTime.of(12, 0),  // 12:00 PM
-            LocalTime.of(13, 0),  // 1:00 PM
-            LocalTime.of(14, 0),  // 2:00 PM
-            LocalTime.of(15, 0)   // 3:00 PM
-        };
-        
-        DayOfWeek[] days = {
-            DayOfWeek.MONDAY,
-            DayOfWeek.TUESDAY,
-            DayOfWeek.WEDNESDAY,
-            DayOfWeek.THURSDAY,
-            DayOfWeek.FRIDAY
-        };
-        
-        String[] rooms = {"Room 101", "Room 102", "Room 103", "Room 104", "Room 105", "Room 201", "Room 202", "Room 203"};
-        
-        int teacherIndex = 0;
-        int roomIndex = 0;
-        
-        // Create timetables for each day
-        for (int dayIndex = 0; dayIndex < days.length; dayIndex++) {
-            DayOfWeek day = days[dayIndex];
-
-            // Calculate how many periods we can have per day (max 6 periods: 8:00 AM to 2:00 PM)
-            int maxPeriodsPerDay = Math.min(6, subjects.size());
-
-            // For each day, assign different subjects starting from a different offset
-            // This ensures better distribution of subjects across the week
-            int startSubjectIndex = (dayIndex * maxPeriodsPerDay) % subjects.size();
-
-            for (int period = 0; period < maxPeriodsPerDay; period++) {
-                // Calculate subject index, ensuring we don't repeat subjects on the same day
-                int subjectIndex = (startSubjectIndex + period) % subjects.size();
-
-                // Skip if we've already used all unique subjects for this day
-                if (period >= subjects.size()) {
-                    break;
+    private void generate(List<SchoolClass> classes, List<Subject> subjects, List<User> teachers) {
+        List<User> students = userService.getUsersByRoleWithRelationships(Role.STUDENT);
+        Map<Long, Integer> classSizes = new HashMap<>();
+        Map<Long, Set<Long>> enrolledSubjects = new HashMap<>();
+        for (User student : students) {
+            if (student.getSchoolClass() != null) {
+                classSizes.merge(student.getSchoolClass().getId(), 1, Integer::sum);
+                Set<Long> enrolled = enrolledSubjects.computeIfAbsent(student.getSchoolClass().getId(), id -> new HashSet<>());
+                student.getSubjects().forEach(subject -> enrolled.add(subject.getId()));
+            }
+        }
+
+        List<String> roomNames = new ArrayList<>();
+        int[] roomCapacities = new int[rooms.length];
+        for (int r = 0; r < rooms.length; r++) {
+            String[] room = rooms[r].split(":");
+            roomNames.add(room[0].trim());
+            roomCapacities[r] = room.length > 1 ? Integer.parseInt(room[1].trim()) : Integer.MAX_VALUE;
+        }
+
+        Map<Long, int[]> qualifiedTeachers = new HashMap<>();
+        for (Subject subject : subjects) {
+            List<Integer> qualified = new ArrayList<>();
+            for (int t = 0; t < teachers.size(); t++) {
+                Set<Subject> taught = teachers.get(t).getSubjects();
+                if (taught.isEmpty() || taught.stream().anyMatch(listed -> listed.getId().equals(subject.getId()))) {
+                    qualified.add(t);
                 }
-                
-                if (teacherIndex >= teachers.size()) {
-                    teacherIndex = 0; // Reset to first teacher
+            }
+            if (qualified.isEmpty()) {
+                LOGGER.warn("No teacher lists subject {}; any teacher may take it", subject.getName());
+                for (int t = 0; t < teachers.size(); t++) {
+                    qualified.add(t);
                 }
-                
-                if (roomIndex >= rooms.length) {
-                    roomIndex = 0; // Reset to first room
+            }
+            qualifiedTeachers.put(subject.getId(), qualified.stream().mapToInt(Integer::intValue).toArray());
+        }
+
+        int[] sizes = new int[classes.size()];
+        List<TimetableProblem.Course> courses = new ArrayList<>();
+        List<Subject> courseSubjects = new ArrayList<>();
+        for (int c = 0; c < classes.size(); c++) {
+            SchoolClass schoolClass = classes.get(c);
+            sizes[c] = classSizes.getOrDefault(schoolClass.getId(), 0);
+            Set<Long> enrolled = enrolledSubjects.get(schoolClass.getId());
+            List<Subject> taught = enrolled == null || enrolled.isEmpty() ? subjects
+                    : subjects.stream().filter(subject -> enrolled.contains(subject.getId())).toList();
+
+            // Same weekly load as before: up to lessonsPerDay lessons a day, each subject once a day at most
+            int weekly = days.length * Math.min(Math.min(lessonsPerDay, periodsPerDay), taught.size());
+            for (int s = 0; s < taught.size(); s++) {
+                int lessons = Math.min(days.length, weekly / taught.size() + (s < weekly % taught.size() ? 1 : 0));
+                if (lessons > 0) {
+                    Subject subject = taught.get(s);
+                    courses.add(new TimetableProblem.Course(c, subjects.indexOf(subject), lessons,
+                            qualifiedTeachers.get(subject.getId())));
+                    courseSubjects.add(subject);
                 }
-                
-                Subject subject = subjects.get(subjectIndex);
-                User teacher = teachers.get(teacherIndex);
-                
-                Timetable timetable = new Timetable();
-                timetable.setSchoolClass(schoolClass);
-                timetable.setTeacher(teacher);
-                timetable.setSubject(subject);
-                timetable.setTitle(subject.getName() + " - " + schoolClass.getName());
-                timetable.setDescription(subject.getName() + " class for " + schoolClass.getName());
-                timetable.setDay(day);
-                timetable.setStartTime(timeSlots[period]);
-                timetable.setEndTime(timeSlots[period + 1]);
-                timetable.setRoom(rooms[roomIndex]);
-                
-                try {
-                    timetableService.createTimetable(timetable);
-                    System.out.println("Created timetable: " + subject.getName() + " on " + day + " at " + timeSlots[period] + " for teacher " + teacher.getName());
-                } catch (Exception e) {
-                    System.out.println("Error creating timetable: " + e.getMessage());
-                    // Skip this timetable if there's a conflict and continue with the next one
+            }
+        }
+
+        TimetableProblem problem = new TimetableProblem(days.length, periodsPerDay, sizes, roomCapacities,
+                teachers.size(), courses);
+        int searchThreads = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        LOGGER.info("Generating timetables: {} classes, {} lessons, {} teachers, {} rooms, {} threads",
+                classes.size(), problem.lessonCount(), teachers.size(), roomNames.size(), searchThreads);
+        TimetableSolution solution = new TimetableSolver(searchThreads, timeLimit, System.nanoTime())
+                .solve(problem, progress -> LOGGER.info("Timetable search thread {}: {} moves, {} conflicts (best {}, overall {}) after {} ms",
+                        progress.worker(), progress.iterations(), progress.conflicts(), progress.bestConflicts(),
+                        progress.bestOverall(), progress.elapsed().toMillis()));
+        if (!solution.isFeasible()) {
+            LOGGER.warn("No clash-free timetable found within {}; {} conflicting lessons will be skipped",
+                    timeLimit, solution.conflicts());
+        }
+
+        // Clashes are only possible when the search ran out of time; those lessons are left out
+        TimetableConflictIndex accepted = solution.isFeasible() ? null : TimetableConflictIndex.of(List.of());
+        long provisionalId = -1;
+        List<Timetable> lessons = new ArrayList<>(solution.lessons().size());
+        for (TimetableSolution.Lesson lesson : solution.lessons()) {
+            TimetableProblem.Course course = courses.get(lesson.course());
+            SchoolClass schoolClass = classes.get(course.schoolClass());
+            Subject subject = courseSubjects.get(lesson.course());
+            LocalTime startTime = LocalTime.parse(dayStart).plus(periodLength.multipliedBy(lesson.period()));
+
+            Timetable timetable = new Timetable();
+            timetable.setSchoolClass(schoolClass);
+            timetable.setTeacher(teachers.get(lesson.teacher()));
+            timetable.setSubject(subject);
+            timetable.setTitle(subject.getName() + " - " + schoolClass.getName());
+            timetable.setDescription(subject.getName() + " class for " + schoolClass.getName());
+            timetable.setDay(days[lesson.day()]);
+            timetable.setStartTime(startTime);
+            timetable.setEndTime(startTime.plus(periodLength));
+            timetable.setRoom(roomNames.get(lesson.room()));
+            if (accepted != null) {
+                if (!accepted.conflictsWith(timetable).isEmpty()) {
+                    LOGGER.warn("Skipped {} on {} at {}: clashes with another generated lesson",
+                            timetable.getTitle(), timetable.getDay(), startTime);
+                    continue;
                 }
-                
-                teacherIndex++;
-                roomIndex++;
+                // A provisional id lets the remaining lessons be checked against this one
+                timetable.setId(provisionalId--);
+                accepted.index(timetable);
+                timetable.setId(null);
             }
+            lessons.add(timetable);
         }
+
+        // One transaction and one conflict index reload instead of a query and an insert per lesson
+        timetableService.replaceLessons(classes.stream().map(SchoolClass::getId).toList(), lessons);
+        LOGGER.info("Created {} of {} generated lessons", lessons.size(), solution.lessons().size());
     }
 }
-
@@ -1,24 +1,47 @@
 package com.learnmate.service;
 
+import com.learnmate.dto.TimetableConflict;
+import com.learnmate.dto.TimetableGrid;
+import com.learnmate.dto.TimetableImportResult;
 import com.learnmate.model.SchoolClass;
 import com.learnmate.model.Subject;
 import com.learnmate.model.Timetable;
 import com.learnmate.model.User;
 import com.learnmate.repository.TimetableRepository;
+import com.learnmate.service.calendar.CalendarFeedCache;
+import com.learnmate.service.timetable.TimetableBatchWriter;
+import com.learnmate.service.timetable.TimetableConflictIndex;
+import com.learnmate.service.timetable.TimetableGridCache;
 
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.stereotype.Service;
 
 import java.time.DayOfWeek;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
 @Service
 public class TimetableService {
     private final TimetableRepository timetableRepository;
+    private final TimetableConflictIndex conflictIndex;
+    private final TimetableGridCache gridCache;
+    private final CalendarFeedCache calendarFeedCache;
+    private final TimetableBatchWriter batchWriter;
 
-    public TimetableService(TimetableRepository timetableRepository) {
+    public TimetableService(TimetableRepository timetableRepository, TimetableConflictIndex conflictIndex,
+                            TimetableGridCache gridCache, CalendarFeedCache calendarFeedCache,
+                            TimetableBatchWriter batchWriter) {
         this.timetableRepository = timetableRepository;
+        this.conflictIndex = conflictIndex;
+        this.gridCache = gridCache;
+        this.calendarFeedCache = calendarFeedCache;
+        this.batchWriter = batchWriter;
     }
 
     public List<Timetable> getAllTimetables() {
@@ -29,26 +52,19 @@ public class TimetableService {
         return timetableRepository.findById(id);
     }
 
-    public Timetable createTimetable(Timetable timetable) {
-        // Check for time conflicts
-        List<Timetable> existing = timetableRepository.findBySchoolClass(timetable.getSchoolClass());
-        for (Timetable t : existing) {
-            // If updating, exclude the current timetable from conflict check
-            if (timetable.getId() != null && t.getId().equals(timetable.getId())) {
-                continue; // Skip self-comparison
-            }
-            
-            if (t.getDay() == timetable.getDay() &&
-                    timetable.getStartTime().isBefore(t.getEndTime()) &&
-                    timetable.getEndTime().isAfter(t.getStartTime())) {
-                System.out.println("=== TIME CONFLICT DETECTED ===");
-                System.out.println("Existing timetable ID: " + t.getId());
-                System.out.println("Current timetable ID: " + timetable.getId());
-                System.out.println("Day: " + t.getDay() + " vs " + timetable.getDay());
-                System.out.println("Time: " + t.getStartTime() + "-" + t.getEndTime() + " vs " + timetable.getStartTime() + "-" + timetable.getEndTime());
-                throw new RuntimeException("Schedule conflict");
+    // Synchronized so two requests cannot both pass the check and book the same slot
+    public synchronized Timetable createTimetable(Timetable timetable) {
+        List<TimetableConflict> conflicts = conflictIndex.conflictsWith(timetable);
+        if (conflicts.isEmpty()) {
+            conflicts = findStoredConflicts(timetable);
+            if (!conflicts.isEmpty()) {
+                // Another node changed the timetable since this index was loaded
+                conflictIndex.rebuild();
             }
         }
+        if (!conflicts.isEmpty()) {
+            throw new RuntimeException("Schedule conflict: " + describe(conflicts.get(0)));
+        }
 
         // Check for subject duplication on the same day
         if (timetable.getSubject() != null) {
@@ -81,15 +97,91 @@ public class TimetableService {
             }
         }
 
-        return timetableRepository.save(timetable);
+        Timetable saved = timetableRepository.save(timetable);
+        conflictIndex.index(saved);
+        gridCache.invalidate();
+        calendarFeedCache.invalidate();
+        return saved;
     }
 
     public Timetable updateTimetable(Timetable timetable) {
         return createTimetable(timetable); // Reuse conflict check
     }
 
-    public void deleteTimetable(Long id) {
+    public synchronized void deleteTimetable(Long id) {
         timetableRepository.deleteById(id);
+        conflictIndex.remove(id);
+        gridCache.invalidate();
+        calendarFeedCache.invalidate();
+    }
+
+    /**
+     * Checks a batch of new lessons against each other and against the lessons that stay, in
+     * memory, and saves them all in one transaction. Lessons of the replaced classes are
+     * removed first. Nothing is saved on a dry run or if any lesson clashes.
+     *
+     * @param lessons new lessons by the line they came from, which problems are reported against
+     */
+    public synchronized TimetableImportResult importTimetables(Map<Integer, Timetable> lessons,
+                                                               Set<Long> replacedClassIds, boolean dryRun) {
+        List<Timetable> existing = timetableRepository.findAll();
+        List<Timetable> kept = existing.stream()
+                .filter(t -> t.getSchoolClass() == null || !replacedClassIds.contains(t.getSchoolClass().getId()))
+                .toList();
+        TimetableConflictIndex batch = TimetableConflictIndex.of(kept);
+        Set<String> subjectDays = new HashSet<>();
+        kept.forEach(t -> subjectDays.add(subjectDay(t)));
+
+        List<TimetableImportResult.Problem> problems = new ArrayList<>();
+        long provisionalId = -1;
+        for (Map.Entry<Integer, Timetable> entry : lessons.entrySet()) {
+            Timetable lesson = entry.getValue();
+            List<TimetableConflict> conflicts = batch.conflictsWith(lesson);
+            if (!conflicts.isEmpty()) {
+                problems.add(new TimetableImportResult.Problem(entry.getKey(), "Schedule conflict: " + describe(conflicts.get(0))));
+            } else if (lesson.getSubject() != null && !subjectDays.add(subjectDay(lesson))) {
+                problems.add(new TimetableImportResult.Problem(entry.getKey(), "Subject '" + lesson.getSubject().getName() +
+                        "' is already scheduled on " + lesson.getDay() + " for class " + lesson.getSchoolClass().getName()));
+            } else {
+                // A provisional id lets the rest of the batch be checked against this lesson
+                lesson.setId(provisionalId--);
+                batch.index(lesson);
+                lesson.setId(null);
+            }
+        }
+
+        int removed = existing.size() - kept.size();
+        if (!problems.isEmpty() || dryRun) {
+            return new TimetableImportResult(lessons.size(), 0, removed, dryRun, problems);
+        }
+        try {
+            removed = replaceLessons(replacedClassIds, List.copyOf(lessons.values()));
+        } catch (DataIntegrityViolationException e) {
+            return new TimetableImportResult(lessons.size(), 0, 0, false, List.of(new TimetableImportResult.Problem(0,
+                    "Lessons of the replaced classes are still referenced, e.g. by attendance records")));
+        }
+        return new TimetableImportResult(lessons.size(), lessons.size(), removed, false, problems);
+    }
+
+    /**
+     * Saves lessons that were already checked for clashes in one transaction, replacing the
+     * lessons of the given classes, and reloads the conflict index once afterwards.
+     *
+     * @return the number of lessons removed
+     */
+    public synchronized int replaceLessons(Collection<Long> classIds, List<Timetable> lessons) {
+        int removed = batchWriter.replace(classIds, lessons);
+        conflictIndex.rebuild();
+        gridCache.invalidate();
+        calendarFeedCache.invalidate();
+        return removed;
+    }
+
+    /**
+     * Every class, teacher and room that is double-booked anywhere in the school timetable.
+     */
+    public List<TimetableConflict> findAllConflicts() {
+        return conflictIndex.findAllConflicts();
     }
 
     public List<Timetable> getTimetablesBySchoolClass(SchoolClass schoolClass) {
@@ -111,5 +203,58 @@ public class TimetableService {
     public List<Timetable> getTimetablesByClassAndDay(SchoolClass schoolClass, DayOfWeek day) {
         return timetableRepository.findBySchoolClassAndDay(schoolClass, day);
     }
+
+    /**
+     * Weekly grid of a student's lessons: their class, in the subjects they take.
+     */
+    public TimetableGrid getStudentGrid(SchoolClass schoolClass, Set<Subject> subjects) {
+        return gridCache.get(gridCache.forClass(schoolClass.getId(), subjects.stream().map(Subject::getId).toList()),
+                () -> getTimetablesByClassAndSubjects(schoolClass, subjects));
+    }
+
+    public TimetableGrid getClassGrid(SchoolClass schoolClass) {
+        return gridCache.get(gridCache.forClass(schoolClass.getId(), null), () -> getTimetablesBySchoolClass(schoolClass));
+    }
+
+    public TimetableGrid getTeacherGrid(User teacher) {
+        return gridCache.get(gridCache.forTeacher(teacher.getId()), () -> getTimetablesByTeacher(teacher));
+    }
+
+    public TimetableGrid getSchoolGrid() {
+        return gridCache.get(gridCache.forSchool(), this::getAllTimetables);
+    }
+
+    /**
+     * Re-checks the slot against the database, which other nodes write to without updating
+     * this node's index.
+     */
+    private List<TimetableConflict> findStoredConflicts(Timetable timetable) {
+        if (timetable.getDay() == null || timetable.getStartTime() == null || timetable.getEndTime() == null) {
+            return List.of();
+        }
+        String room = timetable.getRoom() != null && !timetable.getRoom().isBlank()
+                ? timetable.getRoom().trim().toLowerCase(Locale.ROOT) : null;
+        List<Timetable> overlapping = timetableRepository.findOverlapping(timetable.getDay(),
+                timetable.getStartTime(), timetable.getEndTime(),
+                timetable.getSchoolClass() != null ? timetable.getSchoolClass().getId() : null,
+                timetable.getTeacher() != null ? timetable.getTeacher().getId() : null,
+                room, timetable.getId());
+        return overlapping.isEmpty() ? List.of() : TimetableConflictIndex.of(overlapping).conflictsWith(timetable);
+    }
+
+    private static String subjectDay(Timetable timetable) {
+        return (timetable.getSchoolClass() != null ? timetable.getSchoolClass().getId() : null) + "|" + timetable.getDay()
+                + "|" + (timetable.getSubject() != null ? timetable.getSubject().getId() : null);
+    }
+
+    private static String describe(TimetableConflict conflict) {
+        TimetableConflict.Slot other = conflict.conflictingSlot();
+        String when = conflict.day() + " " + other.startTime() + "-" + other.endTime();
+        return switch (conflict.dimension()) {
+            case CLASS -> "class " + conflict.resource() + " already has '" + other.title() + "' on " + when;
+            case TEACHER -> conflict.resource() + " is already teaching '" + other.title() + "' on " + when;
+            case ROOM -> conflict.resource() + " is already booked for '" + other.title() + "' on " + when;
+        };
+    }
 }
 
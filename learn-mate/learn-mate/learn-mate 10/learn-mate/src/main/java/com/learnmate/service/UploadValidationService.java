@@ -0,0 +1,240 @@
+package com.learnmate.service;
+
+import com.learnmate.model.StoredFile;
+import com.learnmate.model.ValidationStatus;
+import com.learnmate.repository.StoredFileRepository;
+import com.learnmate.service.storage.BlobStore;
+import com.learnmate.service.storage.FileStoredEvent;
+import com.learnmate.service.validation.ContentSniffer;
+import com.learnmate.service.validation.ScanResult;
+import com.learnmate.service.validation.UploadScanner;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.RandomAccessReadBufferedFile;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDDocumentNameDictionary;
+import org.apache.pdfbox.pdmodel.interactive.action.PDActionJavaScript;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Checks uploaded files after their bytes are stored, off the request thread: the real type
+ * is sniffed from the content, PDFs are parsed, and the file is passed to the configured
+ * {@link UploadScanner}. Files stay undownloadable until they come out CLEAN; rejected files
+ * are moved to quarantine.
+ */
+@Service
+public class UploadValidationService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(UploadValidationService.class);
+
+    private final FileStorageService fileStorageService;
+    private final StoredFileRepository storedFileRepository;
+    private final BlobStore blobStore;
+    private final UploadScanner uploadScanner;
+    private final PreviewService previewService;
+
+    // Files currently queued or being validated
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    @Value("${upload.validation.workers:2}")
+    private int workers;
+
+    @Value("${upload.validation.queue-capacity:200}")
+    private int queueCapacity;
+
+    @Value("${upload.validation.allowed-types}")
+    private String[] allowedTypeList;
+
+    private Set<String> allowedTypes;
+
+    @Value("${storage.scrubber.quarantine-prefix:.quarantine/}")
+    private String quarantinePrefix;
+
+    private ThreadPoolExecutor validationExecutor;
+
+    public UploadValidationService(FileStorageService fileStorageService, StoredFileRepository storedFileRepository,
+                                   BlobStore blobStore, UploadScanner uploadScanner, PreviewService previewService) {
+        this.fileStorageService = fileStorageService;
+        this.storedFileRepository = storedFileRepository;
+        this.blobStore = blobStore;
+        this.uploadScanner = uploadScanner;
+        this.previewService = previewService;
+    }
+
+    @PostConstruct
+    void startWorkers() {
+        allowedTypes = Set.of(allowedTypeList);
+        AtomicInteger threadCount = new AtomicInteger();
+        validationExecutor = new ThreadPoolExecutor(workers, workers, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "upload-validation-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        validationExecutor.allowCoreThreadTimeOut(true);
+    }
+
+    @PreDestroy
+    void stopWorkers() {
+        validationExecutor.shutdownNow();
+    }
+
+    // Runs once the upload's transaction (if any) has committed, so the PENDING row is visible
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onFileStored(FileStoredEvent event) {
+        submit(event.fileType(), event.fileName());
+    }
+
+    /**
+     * Picks up files still PENDING because the queue was full, the scanner was down or a
+     * node stopped mid-validation.
+     */
+    @Scheduled(fixedDelayString = "${upload.validation.retry-interval:PT5M}")
+    public void retryPending() {
+        for (StoredFile storedFile : storedFileRepository.findByValidationStatusOrderByIdAsc(
+                ValidationStatus.PENDING, PageRequest.of(0, queueCapacity))) {
+            submit(storedFile.getFileType(), storedFile.getFileName());
+        }
+    }
+
+    private void submit(FileStorageService.FileType fileType, String fileName) {
+        String key = fileStorageService.key(fileName, fileType);
+        if (!inFlight.add(key)) {
+            return;
+        }
+        try {
+            validationExecutor.execute(() -> {
+                try {
+                    validate(fileType, fileName);
+                } finally {
+                    inFlight.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            inFlight.remove(key);
+            LOGGER.debug("Validation queue full, {} stays pending until the next retry", key);
+        }
+    }
+
+    private void validate(FileStorageService.FileType fileType, String fileName) {
+        StoredFile storedFile = storedFileRepository.findByFileTypeAndFileName(fileType, fileName).orElse(null);
+        if (storedFile == null || storedFile.getValidationStatus() != ValidationStatus.PENDING) {
+            return;
+        }
+
+        try {
+            byte[] head;
+            try (InputStream in = fileStorageService.openFile(fileName, fileType)) {
+                head = in.readNBytes(ContentSniffer.SNIFF_LENGTH);
+            }
+            String contentType = ContentSniffer.detect(head, fileName);
+            storedFile.setDetectedContentType(contentType);
+
+            String problem = checkContentType(contentType, fileName);
+            if (problem == null && ContentSniffer.PDF.equals(contentType)) {
+                problem = checkPdf(fileType, fileName);
+            }
+            if (problem == null) {
+                ScanResult scan;
+                try (InputStream in = fileStorageService.openFile(fileName, fileType)) {
+                    scan = uploadScanner.scan(in);
+                }
+                if (!scan.clean()) {
+                    problem = "Malware detected: " + scan.signature();
+                }
+            }
+
+            if (problem != null) {
+                reject(storedFile, problem);
+            } else {
+                storedFile.setValidationStatus(ValidationStatus.CLEAN);
+                storedFile.setValidatedAt(LocalDateTime.now());
+                storedFileRepository.save(storedFile);
+                previewService.schedulePreview(fileName, fileType);
+            }
+        } catch (IOException | RuntimeException ex) {
+            // Storage or scanner trouble says nothing about the file; retry later
+            LOGGER.warn("Could not validate {} {}, will retry", fileType, fileName, ex);
+        }
+    }
+
+    private String checkContentType(String contentType, String fileName) {
+        if (ContentSniffer.isExecutable(contentType)) {
+            return "Executable or script content (" + contentType + ")";
+        }
+        if (!allowedTypes.contains(contentType)) {
+            return "File type not allowed (" + contentType + ")";
+        }
+        if (!ContentSniffer.matchesExtension(contentType, fileName)) {
+            return "File extension does not match its content (" + contentType + ")";
+        }
+        return null;
+    }
+
+    private String checkPdf(FileStorageService.FileType fileType, String fileName) throws IOException {
+        // Stage on local disk so large uploads are parsed from the file rather than the heap
+        Path tempFile = Files.createTempFile("validate-", ".pdf");
+        try {
+            try (InputStream in = fileStorageService.openFile(fileName, fileType)) {
+                Files.copy(in, tempFile, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return checkPdf(tempFile);
+        } finally {
+            try {
+                Files.deleteIfExists(tempFile);
+            } catch (IOException ignored) {
+                // best effort cleanup of the staging file
+            }
+        }
+    }
+
+    private String checkPdf(Path file) {
+        try (PDDocument document = Loader.loadPDF(new RandomAccessReadBufferedFile(file.toFile()))) {
+            if (document.getNumberOfPages() == 0) {
+                return "PDF has no pages";
+            }
+            PDDocumentNameDictionary names = document.getDocumentCatalog().getNames();
+            if ((names != null && names.getJavaScript() != null)
+                    || document.getDocumentCatalog().getOpenAction() instanceof PDActionJavaScript) {
+                return "PDF contains embedded JavaScript";
+            }
+            return null;
+        } catch (IOException ex) {
+            return "Malformed or encrypted PDF: " + ex.getMessage();
+        }
+    }
+
+    private void reject(StoredFile storedFile, String reason) {
+        String key = fileStorageService.key(storedFile.getFileName(), storedFile.getFileType());
+        LOGGER.warn("Rejected upload {}: {}", key, reason);
+
+        storedFile.setValidationStatus(ValidationStatus.REJECTED);
+        storedFile.setRejectionReason(reason.length() > 255 ? reason.substring(0, 255) : reason);
+        storedFile.setValidatedAt(LocalDateTime.now());
+        storedFileRepository.save(storedFile);
+
+        // Keep the bytes out of the normal prefixes; the scrubber purges quarantine later
+        blobStore.move(key, quarantinePrefix + "rejected/" + key);
+    }
+}
@@ -3,6 +3,9 @@ package com.learnmate.service;
 import com.learnmate.model.Role;
 import com.learnmate.model.User;
 import com.learnmate.repository.UserRepository;
+import com.learnmate.service.calendar.CalendarFeedCache;
+import com.learnmate.service.dashboard.ParentDashboardCache;
+import com.learnmate.service.timetable.TimetableGridCache;
 
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -19,13 +22,23 @@ import java.util.regex.Pattern;
 public class UserService {
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
+    private final TimetableGridCache timetableGridCache;
+    private final CalendarFeedCache calendarFeedCache;
+    private final ParentDashboardCache parentDashboardCache;
+    private final StudentSummaryService studentSummaryService;
 
     private static final Pattern PASSWORD_POLICY_PATTERN =
             Pattern.compile("^(?=.*[a-z])(?=.*[A-Z]).{8,}$");
 
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder,
+                       TimetableGridCache timetableGridCache, CalendarFeedCache calendarFeedCache,
+                       ParentDashboardCache parentDashboardCache, StudentSummaryService studentSummaryService) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
+        this.timetableGridCache = timetableGridCache;
+        this.calendarFeedCache = calendarFeedCache;
+        this.parentDashboardCache = parentDashboardCache;
+        this.studentSummaryService = studentSummaryService;
     }
 
     public List<User> getAllUsers() {
@@ -40,6 +53,13 @@ public class UserService {
         return userRepository.findByUsername(username);
     }
 
+    /**
+     * The user with their class and enrolled subjects loaded in the same query.
+     */
+    public Optional<User> getUserWithEnrollment(String username) {
+        return userRepository.findWithEnrollmentByUsername(username);
+    }
+
     public Optional<User> getParentWithChildrenByUsername(String username) {
         return userRepository.findParentWithChildrenByUsername(username);
     }
@@ -74,6 +94,7 @@ public class UserService {
             }
         }
         userRepository.save(user);
+        userChanged(user);
     }
 
     public User createUser(User user) {
@@ -85,11 +106,17 @@ public class UserService {
         if (user.getPassword() != null && !user.getPassword().isEmpty() && !isPasswordEncoded(user.getPassword())) {
             user.setPassword(encodePasswordWithPolicy(user.getPassword()));
         }
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        userChanged(saved);
+        return saved;
     }
 
     public void deleteUser(Long id) {
         userRepository.deleteById(id);
+        timetableGridCache.invalidate();
+        calendarFeedCache.invalidate();
+        parentDashboardCache.invalidate();
+        studentSummaryService.studentDeleted(id);
     }
 
     public List<User> getUsersByRole(Role role) {
@@ -133,6 +160,7 @@ public class UserService {
         // Since we're passing all fields including password/role/active via hidden fields,
         // we can directly save the updated user data which already has the correct ID
         userRepository.save(updatedUserData);
+        userChanged(updatedUserData);
     }
 
     public List<User> getUsersBySchoolClass(com.learnmate.model.SchoolClass schoolClass) {
@@ -185,6 +213,7 @@ public class UserService {
         parent.getChildren().clear();
         parent.getChildren().addAll(students);
         userRepository.save(parent);
+        parentDashboardCache.invalidateParent(parent.getId());
     }
 
     private String encodePasswordWithPolicy(String rawPassword) {
@@ -208,4 +237,19 @@ public class UserService {
         }
         return password.startsWith("$2a$") || password.startsWith("$2b$") || password.startsWith("$2y$");
     }
+
+    // A student's calendar feed follows their enrollment; grids and feeds everywhere show teacher names
+    private void userChanged(User user) {
+        calendarFeedCache.invalidate(new CalendarFeedCache.Key(CalendarFeedCache.Kind.USER, user.getId()));
+        if (user.getRole() == Role.STUDENT) {
+            parentDashboardCache.invalidateStudent(user.getId());
+            studentSummaryService.enrollmentChanged(user);
+        } else if (user.getRole() == Role.PARENT) {
+            parentDashboardCache.invalidateParent(user.getId());
+        }
+        if (user.getRole() == Role.TEACHER) {
+            timetableGridCache.invalidate();
+            calendarFeedCache.invalidate();
+        }
+    }
 }
@@ -0,0 +1,96 @@
+package com.learnmate.service.calendar;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.learnmate.service.AfterCommit;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Serialized calendar feeds, so a client polling an unchanged feed is answered from memory.
+ * Timetable, exam, subject and class changes bump a version that marks every feed stale;
+ * a feed is also rebuilt on the first request of a new day, as exams drop out of it.
+ * Rebuilding an unchanged feed keeps its ETag and Last-Modified.
+ */
+@Component
+public class CalendarFeedCache {
+
+    public enum Kind {
+        USER, CLASS
+    }
+
+    public record Key(Kind kind, Long id) {
+    }
+
+    public record Feed(byte[] body, String etag, Instant lastModified, long version, LocalDate builtOn) {
+    }
+
+    private final MeterRegistry meterRegistry;
+    private final AtomicLong version = new AtomicLong();
+
+    @Value("${calendar.feed.max-entries:10000}")
+    private long maxEntries;
+
+    @Value("${calendar.feed.expire-after-access:P2D}")
+    private Duration expireAfterAccess;
+
+    private Cache<Key, Feed> cache;
+
+    public CalendarFeedCache(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    void build() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterAccess(expireAfterAccess)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "calendarFeed");
+    }
+
+    public Feed get(Key key, Function<Key, byte[]> builder) {
+        long current = version.get();
+        LocalDate today = LocalDate.now();
+        Feed cached = cache.getIfPresent(key);
+        if (isFresh(cached, current, today)) {
+            return cached;
+        }
+        // compute() lets one request rebuild while the others for the same feed wait for it
+        return cache.asMap().compute(key, (ignored, previous) -> {
+            if (isFresh(previous, current, today)) {
+                return previous;
+            }
+            byte[] body = builder.apply(key);
+            String etag = "\"" + DigestUtils.md5DigestAsHex(body) + "\"";
+            Instant lastModified = previous != null && previous.etag().equals(etag)
+                    ? previous.lastModified() : Instant.now().truncatedTo(ChronoUnit.SECONDS);
+            return new Feed(body, etag, lastModified, current, today);
+        });
+    }
+
+    // Inside a transaction these wait for its commit, so a feed is not rebuilt from the old state
+    public void invalidate() {
+        AfterCommit.run(version::incrementAndGet);
+    }
+
+    public void invalidate(Key key) {
+        AfterCommit.run(() -> cache.invalidate(key));
+    }
+
+    private static boolean isFresh(Feed feed, long current, LocalDate today) {
+        return feed != null && feed.version() == current && feed.builtOn().equals(today);
+    }
+}
@@ -0,0 +1,233 @@
+package com.learnmate.service.calendar;
+
+import com.learnmate.model.Exam;
+import com.learnmate.model.Role;
+import com.learnmate.model.SchoolClass;
+import com.learnmate.model.Timetable;
+import com.learnmate.model.User;
+import com.learnmate.repository.ExamRepository;
+import com.learnmate.repository.SchoolClassRepository;
+import com.learnmate.repository.TimetableRepository;
+import com.learnmate.repository.UserRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.Period;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * iCalendar feeds a phone or desktop calendar can subscribe to: weekly lessons as recurring
+ * events plus upcoming exams, for a student (their class and subjects), a teacher (their own
+ * lessons and exams) or a whole class.
+ * <p>
+ * Calendar clients cannot log in, so each feed URL carries an HMAC of what it shows. Lesson
+ * times are floating local times, which every client shows as the same wall-clock time the
+ * school uses.
+ */
+@Service
+public class CalendarFeedService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CalendarFeedService.class);
+
+    private static final DateTimeFormatter DATE = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyyMMdd'T'HHmmss");
+    private static final Comparator<Timetable> BY_SLOT = Comparator
+            .comparing(Timetable::getDay, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(Timetable::getStartTime, Comparator.nullsLast(Comparator.naturalOrder()))
+            .thenComparing(Timetable::getId);
+
+    private final CalendarFeedCache feedCache;
+    private final UserRepository userRepository;
+    private final SchoolClassRepository schoolClassRepository;
+    private final TimetableRepository timetableRepository;
+    private final ExamRepository examRepository;
+
+    @Value("${calendar.feed.secret:}")
+    private String secret;
+
+    @Value("${calendar.feed.term-start:}")
+    private String termStart;
+
+    @Value("${calendar.feed.term-end:}")
+    private String termEnd;
+
+    @Value("${calendar.feed.exam-horizon:P180D}")
+    private Period examHorizon;
+
+    @Value("${calendar.feed.host:learnmate}")
+    private String host;
+
+    private SecretKeySpec key;
+
+    public CalendarFeedService(CalendarFeedCache feedCache, UserRepository userRepository,
+                               SchoolClassRepository schoolClassRepository, TimetableRepository timetableRepository,
+                               ExamRepository examRepository) {
+        this.feedCache = feedCache;
+        this.userRepository = userRepository;
+        this.schoolClassRepository = schoolClassRepository;
+        this.timetableRepository = timetableRepository;
+        this.examRepository = examRepository;
+    }
+
+    @PostConstruct
+    void init() {
+        byte[] keyBytes;
+        if (secret == null || secret.isBlank()) {
+            LOGGER.warn("calendar.feed.secret is not set; calendar feed links will stop working when the application restarts");
+            keyBytes = new byte[32];
+            new SecureRandom().nextBytes(keyBytes);
+        } else {
+            keyBytes = secret.getBytes(StandardCharsets.UTF_8);
+        }
+        key = new SecretKeySpec(keyBytes, "HmacSHA256");
+    }
+
+    /**
+     * Path of a feed, relative to the application, e.g. {@code /calendar/user/12/Xy3....ics}.
+     */
+    public String feedPath(CalendarFeedCache.Kind kind, Long id) {
+        return "/calendar/" + kind.name().toLowerCase() + "/" + id + "/" + token(kind, id) + ".ics";
+    }
+
+    /**
+     * The serialized feed, or empty when the token does not match or the user or class is gone.
+     */
+    public Optional<CalendarFeedCache.Feed> getFeed(CalendarFeedCache.Kind kind, Long id, String token) {
+        byte[] expected = token(kind, id).getBytes(StandardCharsets.US_ASCII);
+        if (token == null || !MessageDigest.isEqual(expected, token.getBytes(StandardCharsets.US_ASCII))) {
+            return Optional.empty();
+        }
+        CalendarFeedCache.Feed feed = feedCache.get(new CalendarFeedCache.Key(kind, id), this::build);
+        return feed.body().length == 0 ? Optional.empty() : Optional.of(feed);
+    }
+
+    private String token(CalendarFeedCache.Kind kind, Long id) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(key);
+            byte[] digest = mac.doFinal((kind.name() + ":" + id).getBytes(StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest, 18));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+
+    // An empty body stands for a feed that no longer exists
+    private byte[] build(CalendarFeedCache.Key feedKey) {
+        LocalDate today = LocalDate.now();
+        LocalDate horizon = today.plus(examHorizon);
+        String name;
+        List<Timetable> lessons;
+        List<Exam> exams;
+
+        if (feedKey.kind() == CalendarFeedCache.Kind.CLASS) {
+            SchoolClass schoolClass = schoolClassRepository.findById(feedKey.id()).orElse(null);
+            if (schoolClass == null) {
+                return new byte[0];
+            }
+            name = schoolClass.getName();
+            lessons = timetableRepository.findBySchoolClass(schoolClass);
+            exams = examRepository.findBySchoolClassAndDateBetweenOrderByDateAsc(schoolClass, today, horizon);
+        } else {
+            User user = userRepository.findWithEnrollmentById(feedKey.id()).filter(User::isActive).orElse(null);
+            if (user == null) {
+                return new byte[0];
+            }
+            name = user.getName();
+            if (user.getRole() == Role.TEACHER) {
+                lessons = timetableRepository.findByTeacher(user);
+                exams = examRepository.findByTeacherAndDateBetweenOrderByDateAsc(user, today, horizon);
+            } else if (user.getRole() == Role.STUDENT && user.getSchoolClass() != null && !user.getSubjects().isEmpty()) {
+                lessons = timetableRepository.findBySchoolClassAndSubjectIn(user.getSchoolClass(), user.getSubjects());
+                exams = examRepository.findBySchoolClassAndSubjectInAndDateBetweenOrderByDateAsc(
+                        user.getSchoolClass(), user.getSubjects(), today, horizon);
+            } else {
+                lessons = List.of();
+                exams = List.of();
+            }
+        }
+        return write(name, lessons.stream().sorted(BY_SLOT).toList(), exams);
+    }
+
+    private byte[] write(String name, List<Timetable> lessons, List<Exam> exams) {
+        LocalDate start = termStart == null || termStart.isBlank()
+                ? LocalDate.now().withDayOfYear(1) : LocalDate.parse(termStart);
+        String until = termEnd == null || termEnd.isBlank() ? null
+                : LocalDateTime.of(LocalDate.parse(termEnd), LocalTime.MAX).format(DATE_TIME);
+        // A fixed stamp, so an unchanged timetable serializes to the same bytes and ETag
+        String stamp = start.atStartOfDay().format(DATE_TIME) + "Z";
+
+        IcsWriter ics = new IcsWriter()
+                .property("BEGIN", "VCALENDAR")
+                .property("VERSION", "2.0")
+                .property("PRODID", "-//LearnMate//Timetable//EN")
+                .property("CALSCALE", "GREGORIAN")
+                .property("METHOD", "PUBLISH")
+                .text("X-WR-CALNAME", "LearnMate - " + name)
+                .property("REFRESH-INTERVAL;VALUE=DURATION", "PT1H")
+                .property("X-PUBLISHED-TTL", "PT1H");
+
+        for (Timetable lesson : lessons) {
+            if (lesson.getDay() == null || lesson.getStartTime() == null || lesson.getEndTime() == null) {
+                continue;
+            }
+            LocalDate first = start.with(TemporalAdjusters.nextOrSame(lesson.getDay()));
+            ics.property("BEGIN", "VEVENT")
+                    .property("UID", "timetable-" + lesson.getId() + "@" + host)
+                    .property("DTSTAMP", stamp)
+                    .property("DTSTART", LocalDateTime.of(first, lesson.getStartTime()).format(DATE_TIME))
+                    .property("DTEND", LocalDateTime.of(first, lesson.getEndTime()).format(DATE_TIME))
+                    .property("RRULE", "FREQ=WEEKLY;BYDAY=" + byDay(lesson.getDay()) + (until != null ? ";UNTIL=" + until : ""))
+                    .text("SUMMARY", lesson.getSubject() != null ? lesson.getSubject().getName() : lesson.getTitle())
+                    .text("LOCATION", lesson.getRoom())
+                    .text("DESCRIPTION", describe(lesson))
+                    .property("END", "VEVENT");
+        }
+        for (Exam exam : exams) {
+            ics.property("BEGIN", "VEVENT")
+                    .property("UID", "exam-" + exam.getId() + "@" + host)
+                    .property("DTSTAMP", stamp)
+                    .property("DTSTART;VALUE=DATE", exam.getDate().format(DATE))
+                    .property("DTEND;VALUE=DATE", exam.getDate().plusDays(1).format(DATE))
+                    .text("SUMMARY", "Exam: " + (exam.getTitle() != null ? exam.getTitle()
+                            : exam.getSubject() != null ? exam.getSubject().getName() : "Exam"))
+                    .text("DESCRIPTION", exam.getDescription())
+                    .property("TRANSP", "TRANSPARENT")
+                    .property("END", "VEVENT");
+        }
+        return ics.property("END", "VCALENDAR").toBytes();
+    }
+
+    private static String describe(Timetable lesson) {
+        StringBuilder description = new StringBuilder();
+        if (lesson.getTeacher() != null) {
+            description.append("Teacher: ").append(lesson.getTeacher().getName());
+        }
+        if (lesson.getSchoolClass() != null) {
+            description.append(description.isEmpty() ? "" : "\n").append("Class: ").append(lesson.getSchoolClass().getName());
+        }
+        return description.toString();
+    }
+
+    private static String byDay(DayOfWeek day) {
+        return day.name().substring(0, 2);
+    }
+}
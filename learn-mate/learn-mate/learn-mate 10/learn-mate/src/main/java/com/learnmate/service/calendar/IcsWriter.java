@@ -0,0 +1,53 @@
+package com.learnmate.service.calendar;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Minimal RFC 5545 writer: CRLF line endings, text escaping, and long lines folded at 75
+ * octets without splitting a UTF-8 character.
+ */
+class IcsWriter {
+    private static final int MAX_LINE_OCTETS = 75;
+
+    private final StringBuilder out = new StringBuilder(4096);
+
+    IcsWriter property(String name, String value) {
+        String line = name + ":" + value;
+        int octets = 0;
+        int offset = 0;
+        while (offset < line.length()) {
+            int codePoint = line.codePointAt(offset);
+            int length = new String(Character.toChars(codePoint)).getBytes(StandardCharsets.UTF_8).length;
+            // Continuation lines start with a space, which counts towards their limit
+            if (octets + length > MAX_LINE_OCTETS) {
+                out.append("\r\n ");
+                octets = 1;
+            }
+            out.appendCodePoint(codePoint);
+            octets += length;
+            offset += Character.charCount(codePoint);
+        }
+        out.append("\r\n");
+        return this;
+    }
+
+    /**
+     * Adds a TEXT property, escaping the characters that are structural in iCalendar.
+     */
+    IcsWriter text(String name, String value) {
+        if (value == null || value.isBlank()) {
+            return this;
+        }
+        String escaped = value.replace("\\", "\\\\")
+                .replace(";", "\\;")
+                .replace(",", "\\,")
+                .replace("\r\n", "\\n")
+                .replace("\n", "\\n")
+                .replace("\r", "\\n");
+        return property(name, escaped);
+    }
+
+    byte[] toBytes() {
+        return out.toString().getBytes(StandardCharsets.UTF_8);
+    }
+}
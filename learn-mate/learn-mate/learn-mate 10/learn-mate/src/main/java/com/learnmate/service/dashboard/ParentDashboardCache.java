@@ -0,0 +1,118 @@
+package com.learnmate.service.dashboard;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.learnmate.dto.ParentDashboard;
+import com.learnmate.service.AfterCommit;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Built parent dashboards, one per parent. An entry is dropped when attendance, a fee or a mark
+ * of one of that parent's children changes, or an exam of one of their classes; it is also
+ * rebuilt on the first visit of a new day, as exams stop being upcoming.
+ */
+@Component
+public class ParentDashboardCache {
+
+    private final MeterRegistry meterRegistry;
+    // Bumped by every invalidation, so a dashboard built while one happened is not kept.
+    // Invalidations inside a transaction wait for its commit.
+    private final AtomicLong version = new AtomicLong();
+
+    @Value("${dashboard.parent-cache.max-entries:5000}")
+    private long maxEntries;
+
+    @Value("${dashboard.parent-cache.expire-after-access:PT1H}")
+    private Duration expireAfterAccess;
+
+    private Cache<Long, ParentDashboard> cache;
+    // Parents whose cached dashboard shows a student, so a change to one student drops only
+    // those entries. Evicted dashboards may leave ids behind; they are cleared the next time
+    // the student changes.
+    private final Map<Long, Set<Long>> parentsByStudent = new ConcurrentHashMap<>();
+
+    public ParentDashboardCache(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    void build() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterAccess(expireAfterAccess)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "parentDashboard");
+    }
+
+    public ParentDashboard get(Long parentId, Supplier<ParentDashboard> builder) {
+        ParentDashboard cached = cache.getIfPresent(parentId);
+        if (cached != null && cached.date().equals(LocalDate.now())) {
+            return cached;
+        }
+        long before = version.get();
+        ParentDashboard built = builder.get();
+        if (version.get() == before) {
+            built.children().forEach(child ->
+                    parentsByStudent.computeIfAbsent(child.id(), id -> ConcurrentHashMap.newKeySet()).add(parentId));
+            cache.put(parentId, built);
+        }
+        return built;
+    }
+
+    public void invalidateStudent(Long studentId) {
+        if (studentId != null) {
+            invalidateStudents(List.of(studentId));
+        }
+    }
+
+    public void invalidateStudents(Collection<Long> studentIds) {
+        AfterCommit.run(() -> {
+            version.incrementAndGet();
+            for (Long studentId : studentIds) {
+                Set<Long> parentIds = parentsByStudent.remove(studentId);
+                if (parentIds != null) {
+                    cache.invalidateAll(parentIds);
+                }
+            }
+        });
+    }
+
+    public void invalidateClass(Long classId) {
+        AfterCommit.run(() -> {
+            version.incrementAndGet();
+            cache.asMap().values().removeIf(dashboard -> dashboard.coversClass(classId));
+        });
+    }
+
+    public void invalidateParent(Long parentId) {
+        AfterCommit.run(() -> {
+            version.incrementAndGet();
+            if (parentId != null) {
+                cache.invalidate(parentId);
+            }
+        });
+    }
+
+    public void invalidate() {
+        AfterCommit.run(() -> {
+            version.incrementAndGet();
+            cache.invalidateAll();
+            parentsByStudent.clear();
+        });
+    }
+}
@@ -0,0 +1,127 @@
+package com.learnmate.service.grading;
+
+import com.learnmate.dto.GradeEntry;
+import com.learnmate.dto.GradingResult;
+import com.learnmate.model.Exam;
+import com.learnmate.repository.AnswerSheetRepository;
+import com.learnmate.repository.MarkRepository;
+import com.learnmate.service.AfterCommit;
+import com.learnmate.service.ExamStatisticsService;
+import com.learnmate.service.dashboard.ParentDashboardCache;
+import com.learnmate.service.ranking.RankingService;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Applies a whole grading form at once. The exam's marks and answer sheets are read in two
+ * queries, compared with the form in memory, and only rows that differ are written, in
+ * batches. Caches, exam statistics and class ranks are then updated once for the form
+ * rather than once per student. The whole form is one transaction, and the exam's statistics
+ * row is locked before anything is read, so single mark edits of the same exam wait for it.
+ */
+@Service
+public class BulkGradingService {
+    private static final String GRADED = "GRADED";
+
+    // The bounds on Mark.score, which the JDBC batch writes do not go through
+    private static final int MIN_SCORE = 0;
+    private static final int MAX_SCORE = 100;
+
+    private final MarkRepository markRepository;
+    private final AnswerSheetRepository answerSheetRepository;
+    private final GradingBatchWriter gradingBatchWriter;
+    private final ExamStatisticsService examStatisticsService;
+    private final RankingService rankingService;
+    private final ParentDashboardCache parentDashboardCache;
+
+    public BulkGradingService(MarkRepository markRepository, AnswerSheetRepository answerSheetRepository,
+                              GradingBatchWriter gradingBatchWriter, ExamStatisticsService examStatisticsService,
+                              RankingService rankingService, ParentDashboardCache parentDashboardCache) {
+        this.markRepository = markRepository;
+        this.answerSheetRepository = answerSheetRepository;
+        this.gradingBatchWriter = gradingBatchWriter;
+        this.examStatisticsService = examStatisticsService;
+        this.rankingService = rankingService;
+        this.parentDashboardCache = parentDashboardCache;
+    }
+
+    /**
+     * Publishes a mark with each entry's score and comments, creating it if needed, and marks
+     * the student's answer sheet, if any, as graded with the same score and comments.
+     * Nothing is written if any score is outside 0-100.
+     */
+    @Transactional
+    public GradingResult grade(Exam exam, List<GradeEntry> grades) {
+        for (GradeEntry grade : grades) {
+            if (grade.score() < MIN_SCORE || grade.score() > MAX_SCORE) {
+                throw new IllegalArgumentException("Score " + grade.score() + " for student " + grade.studentId()
+                        + " must be between " + MIN_SCORE + " and " + MAX_SCORE);
+            }
+        }
+
+        examStatisticsService.lock(exam);
+        Map<Long, GradingResult.MarkRow> marks = byStudent(
+                markRepository.findGradingRowsByExam(exam.getId()), GradingResult.MarkRow::studentId);
+        Map<Long, GradingResult.SheetRow> sheets = byStudent(
+                answerSheetRepository.findGradingRowsByExam(exam.getId()), GradingResult.SheetRow::studentId);
+
+        List<GradingResult.MarkRow> markUpdates = new ArrayList<>();
+        List<GradeEntry> markInserts = new ArrayList<>();
+        List<GradingResult.SheetRow> sheetUpdates = new ArrayList<>();
+        IntStream.Builder removedScores = IntStream.builder();
+        IntStream.Builder addedScores = IntStream.builder();
+        Set<Long> changedStudents = new HashSet<>();
+
+        for (GradeEntry grade : grades) {
+            GradingResult.SheetRow sheet = sheets.get(grade.studentId());
+            if (sheet != null) {
+                GradingResult.SheetRow graded = new GradingResult.SheetRow(sheet.id(), sheet.studentId(),
+                        GRADED, grade.score(), grade.comments());
+                if (!graded.equals(sheet)) {
+                    sheetUpdates.add(graded);
+                }
+            }
+
+            GradingResult.MarkRow mark = marks.get(grade.studentId());
+            if (mark == null) {
+                markInserts.add(grade);
+                addedScores.add(grade.score());
+                changedStudents.add(grade.studentId());
+                continue;
+            }
+            GradingResult.MarkRow graded = new GradingResult.MarkRow(mark.id(), mark.studentId(),
+                    grade.score(), grade.comments(), true);
+            if (!graded.equals(mark)) {
+                markUpdates.add(graded);
+                changedStudents.add(grade.studentId());
+                if (mark.score() != grade.score()) {
+                    removedScores.add(mark.score());
+                    addedScores.add(grade.score());
+                }
+            }
+        }
+
+        gradingBatchWriter.write(exam.getId(), markUpdates, markInserts, sheetUpdates);
+        if (!changedStudents.isEmpty()) {
+            parentDashboardCache.invalidateStudents(changedStudents);
+            examStatisticsService.scoresChanged(exam, removedScores.build().toArray(), addedScores.build().toArray());
+            // Ranks are read back from the marks, so they wait until the form is committed
+            AfterCommit.run(() -> rankingService.examChanged(exam));
+        }
+        return new GradingResult(grades.size(), markInserts.size(), markUpdates.size(), sheetUpdates.size());
+    }
+
+    // A student with more than one mark or sheet for the exam is graded on the oldest
+    private static <T> Map<Long, T> byStudent(List<T> rows, Function<T, Long> studentId) {
+        return rows.stream().collect(Collectors.toMap(studentId, Function.identity(), (first, second) -> first));
+    }
+}
@@ -0,0 +1,56 @@
+package com.learnmate.service.grading;
+
+import com.learnmate.dto.GradeEntry;
+import com.learnmate.dto.GradingResult;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * Writes the changes of one grading form with JDBC batches in one transaction. Mark ids are
+ * database identities, which stop Hibernate from batching inserts.
+ */
+@Component
+public class GradingBatchWriter {
+
+    private static final String INSERT_MARK_SQL = "INSERT INTO marks (exam_id, student_id, score, published, comments) "
+            + "VALUES (?, ?, ?, ?, ?)";
+    private static final String UPDATE_MARK_SQL = "UPDATE marks SET score = ?, published = ?, comments = ? WHERE id = ?";
+    private static final String UPDATE_SHEET_SQL = "UPDATE answer_sheets SET status = ?, score = ?, comments = ? WHERE id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${grading.batch-size:500}")
+    private int batchSize;
+
+    public GradingBatchWriter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Transactional
+    public void write(Long examId, List<GradingResult.MarkRow> markUpdates, List<GradeEntry> markInserts,
+                      List<GradingResult.SheetRow> sheetUpdates) {
+        jdbcTemplate.batchUpdate(UPDATE_MARK_SQL, markUpdates, batchSize, (statement, mark) -> {
+            statement.setInt(1, mark.score());
+            statement.setBoolean(2, mark.published());
+            statement.setString(3, mark.comments());
+            statement.setLong(4, mark.id());
+        });
+        jdbcTemplate.batchUpdate(INSERT_MARK_SQL, markInserts, batchSize, (statement, grade) -> {
+            statement.setLong(1, examId);
+            statement.setLong(2, grade.studentId());
+            statement.setInt(3, grade.score());
+            statement.setBoolean(4, true);
+            statement.setString(5, grade.comments());
+        });
+        jdbcTemplate.batchUpdate(UPDATE_SHEET_SQL, sheetUpdates, batchSize, (statement, sheet) -> {
+            statement.setString(1, sheet.status());
+            statement.setObject(2, sheet.score());
+            statement.setString(3, sheet.comments());
+            statement.setLong(4, sheet.id());
+        });
+    }
+}
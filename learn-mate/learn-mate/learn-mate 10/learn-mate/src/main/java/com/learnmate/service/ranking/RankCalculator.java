@@ -0,0 +1,52 @@
+package com.learnmate.service.ranking;
+
+import java.util.Arrays;
+
+/**
+ * Ranks a class in one sort. Each score is packed with its position into a long, so a plain
+ * primitive sort orders the class best first without boxing or a comparator, and a single
+ * walk over the sorted keys assigns every tie group its rank and percentile.
+ */
+final class RankCalculator {
+
+    private RankCalculator() {
+    }
+
+    /**
+     * @param scores one score per student; higher is better
+     * @return ranks and percentiles, at the same positions as {@code scores}
+     */
+    static Result rank(int[] scores) {
+        int n = scores.length;
+        long[] keys = new long[n];
+        for (int i = 0; i < n; i++) {
+            // Negated so ascending order is best first; the low half keeps the position
+            keys[i] = ((long) -scores[i] << 32) | i;
+        }
+        Arrays.sort(keys);
+
+        int[] ranks = new int[n];
+        double[] percentiles = new double[n];
+        int first = 0;
+        while (first < n) {
+            int score = scores[(int) keys[first]];
+            int last = first;
+            while (last + 1 < n && scores[(int) keys[last + 1]] == score) {
+                last++;
+            }
+            int tied = last - first + 1;
+            int below = n - last - 1;
+            double percentile = (below + tied / 2.0) * 100.0 / n;
+            for (int i = first; i <= last; i++) {
+                int position = (int) keys[i];
+                ranks[position] = first + 1;
+                percentiles[position] = percentile;
+            }
+            first = last + 1;
+        }
+        return new Result(ranks, percentiles);
+    }
+
+    record Result(int[] ranks, double[] percentiles) {
+    }
+}
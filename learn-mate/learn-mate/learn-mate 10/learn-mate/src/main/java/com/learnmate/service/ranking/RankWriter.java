@@ -0,0 +1,88 @@
+package com.learnmate.service.ranking;
+
+import com.learnmate.dto.StudentScore;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Replaces the stored ranks of one exam or one class term with JDBC batches in one
+ * transaction, so readers see either the old ranking or the new one.
+ */
+@Component
+public class RankWriter {
+
+    private static final String INSERT_SQL = "INSERT INTO student_ranks "
+            + "(exam_id, school_class_id, student_id, term_start, score, class_rank, percentile, class_size) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // Scores are ranked in hundredths of a mark, which keeps term averages apart
+    private static final int SCALE = 100;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public RankWriter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * @return the classes the exam was ranked in before, and the one it is ranked in now
+     */
+    @Transactional
+    public Set<Long> replaceExam(Long examId, Long classId, List<StudentScore> scores) {
+        Set<Long> classIds = new HashSet<>(jdbcTemplate.queryForList(
+                "SELECT DISTINCT school_class_id FROM student_ranks WHERE exam_id = ?", Long.class, examId));
+        jdbcTemplate.update("DELETE FROM student_ranks WHERE exam_id = ?", examId);
+        if (classId != null) {
+            insert(examId, classId, null, scores);
+            classIds.add(classId);
+        }
+        return classIds;
+    }
+
+    @Transactional
+    public void replaceTerm(Long classId, LocalDate termStart, List<StudentScore> scores) {
+        jdbcTemplate.update("DELETE FROM student_ranks WHERE exam_id IS NULL AND school_class_id = ? AND term_start = ?",
+                classId, Date.valueOf(termStart));
+        insert(null, classId, termStart, scores);
+    }
+
+    private void insert(Long examId, Long classId, LocalDate termStart, List<StudentScore> scores) {
+        if (scores.isEmpty()) {
+            return;
+        }
+        int[] scaled = new int[scores.size()];
+        for (int i = 0; i < scaled.length; i++) {
+            scaled[i] = (int) Math.round(scores.get(i).score() * SCALE);
+        }
+        RankCalculator.Result result = RankCalculator.rank(scaled);
+        Date term = termStart != null ? Date.valueOf(termStart) : null;
+        jdbcTemplate.batchUpdate(INSERT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement statement, int i) throws SQLException {
+                statement.setObject(1, examId);
+                statement.setLong(2, classId);
+                statement.setLong(3, scores.get(i).studentId());
+                statement.setDate(4, term);
+                statement.setDouble(5, scaled[i] / (double) SCALE);
+                statement.setInt(6, result.ranks()[i]);
+                statement.setDouble(7, result.percentiles()[i]);
+                statement.setInt(8, scaled.length);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return scaled.length;
+            }
+        });
+    }
+}
@@ -0,0 +1,170 @@
+package com.learnmate.service.ranking;
+
+import com.learnmate.model.Exam;
+import com.learnmate.model.StudentRank;
+import com.learnmate.model.User;
+import com.learnmate.repository.ExamRepository;
+import com.learnmate.repository.MarkRepository;
+import com.learnmate.repository.StudentRankRepository;
+import com.learnmate.service.dashboard.ParentDashboardCache;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Class ranks and percentiles, per exam and per term, kept in student_ranks. When a mark
+ * changes only its exam is re-ranked, together with the term ranking of the exam's class,
+ * each in one pass over that exam's or class's scores. Exam ranks cover the exam's published
+ * marks; term ranks average the student's published marks for exams of their class in the term.
+ * Re-ranking locks only the exam or class being written, so saves for other exams and the
+ * nightly rebuild do not wait on each other.
+ */
+@Service
+public class RankingService {
+    private static final Logger LOGGER = LoggerFactory.getLogger(RankingService.class);
+
+    private static final int LOCK_STRIPES = 64;
+
+    private final MarkRepository markRepository;
+    private final ExamRepository examRepository;
+    private final StudentRankRepository studentRankRepository;
+    private final RankWriter rankWriter;
+    private final ParentDashboardCache parentDashboardCache;
+    private final Object[] examLocks = newLocks();
+    private final Object[] classLocks = newLocks();
+
+    @Value("${ranking.term-start:${calendar.feed.term-start:}}")
+    private String termStart;
+
+    @Value("${ranking.term-end:${calendar.feed.term-end:}}")
+    private String termEnd;
+
+    @Value("${ranking.rebuild-enabled:true}")
+    private boolean rebuildEnabled;
+
+    public RankingService(MarkRepository markRepository, ExamRepository examRepository,
+                          StudentRankRepository studentRankRepository, RankWriter rankWriter,
+                          ParentDashboardCache parentDashboardCache) {
+        this.markRepository = markRepository;
+        this.examRepository = examRepository;
+        this.studentRankRepository = studentRankRepository;
+        this.rankWriter = rankWriter;
+        this.parentDashboardCache = parentDashboardCache;
+    }
+
+    /**
+     * The student's exam ranks, keyed by exam id.
+     */
+    public Map<Long, StudentRank> getExamRanks(User student) {
+        return studentRankRepository.findByStudentIdAndExamIdIsNotNull(student.getId()).stream()
+                .collect(Collectors.toMap(StudentRank::getExamId, Function.identity(), (first, second) -> first));
+    }
+
+    public Optional<StudentRank> getTermRank(User student) {
+        return getTermRanks(List.of(student)).values().stream().findFirst();
+    }
+
+    /**
+     * Term ranks in each student's current class, keyed by student id.
+     */
+    public Map<Long, StudentRank> getTermRanks(Collection<User> students) {
+        Map<Long, Long> classIds = students.stream()
+                .filter(student -> student.getSchoolClass() != null)
+                .collect(Collectors.toMap(User::getId, student -> student.getSchoolClass().getId(),
+                        (first, second) -> first));
+        if (classIds.isEmpty()) {
+            return Map.of();
+        }
+        return studentRankRepository.findByStudentIdInAndExamIdIsNullAndTermStart(classIds.keySet(), termStart())
+                .stream()
+                .filter(rank -> Objects.equals(classIds.get(rank.getStudentId()), rank.getSchoolClassId()))
+                .collect(Collectors.toMap(StudentRank::getStudentId, Function.identity(), (first, second) -> first));
+    }
+
+    /**
+     * Re-ranks the exam after one of its marks was created, changed or deleted, or the exam
+     * itself was changed or deleted, along with the term ranking of every class it touched.
+     */
+    public void examChanged(Exam exam) {
+        if (exam == null || exam.getId() == null) {
+            return;
+        }
+        Set<Long> classIds = rankExam(exam);
+        classIds.forEach(this::rankTerm);
+        classIds.forEach(parentDashboardCache::invalidateClass);
+    }
+
+    @Scheduled(cron = "${ranking.rebuild-cron:0 30 0 * * *}")
+    public void scheduledRebuild() {
+        if (rebuildEnabled) {
+            rebuildAll();
+        }
+    }
+
+    /**
+     * Re-ranks every exam and class term, which also starts the ranking of a new term.
+     */
+    public void rebuildAll() {
+        long start = System.nanoTime();
+        List<Exam> exams = examRepository.findAll();
+        Set<Long> classIds = new HashSet<>();
+        for (Exam exam : exams) {
+            classIds.addAll(rankExam(exam));
+        }
+        classIds.forEach(this::rankTerm);
+        parentDashboardCache.invalidate();
+        LOGGER.info("Ranked {} exams and {} classes in {} ms", exams.size(), classIds.size(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    // Reading and replacing under the exam's lock keeps a concurrent re-rank from writing older scores last
+    private Set<Long> rankExam(Exam exam) {
+        Long classId = exam.getSchoolClass() != null ? exam.getSchoolClass().getId() : null;
+        synchronized (lockFor(examLocks, exam.getId())) {
+            return rankWriter.replaceExam(exam.getId(), classId,
+                    classId != null ? markRepository.scoresByExam(exam.getId()) : List.of());
+        }
+    }
+
+    private void rankTerm(Long classId) {
+        LocalDate start = termStart();
+        synchronized (lockFor(classLocks, classId)) {
+            rankWriter.replaceTerm(classId, start, markRepository.publishedAveragesByClass(classId, start, termEnd(start)));
+        }
+    }
+
+    private static Object[] newLocks() {
+        Object[] locks = new Object[LOCK_STRIPES];
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new Object();
+        }
+        return locks;
+    }
+
+    private static Object lockFor(Object[] locks, Long id) {
+        return locks[Math.floorMod(id.hashCode(), locks.length)];
+    }
+
+    LocalDate termStart() {
+        return termStart == null || termStart.isBlank()
+                ? LocalDate.now().withDayOfYear(1) : LocalDate.parse(termStart);
+    }
+
+    private LocalDate termEnd(LocalDate start) {
+        return termEnd == null || termEnd.isBlank()
+                ? start.withDayOfYear(start.lengthOfYear()) : LocalDate.parse(termEnd);
+    }
+}
@@ -0,0 +1,382 @@
+package com.learnmate.service.search;
+
+import com.learnmate.dto.StoredFileReference;
+import com.learnmate.model.Material;
+import com.learnmate.repository.MaterialRepository;
+import com.learnmate.service.FileStorageService;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.en.EnglishAnalyzer;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.DirectoryReader;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.LeafReaderContext;
+import org.apache.lucene.index.StoredFields;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.queryparser.simple.SimpleQueryParser;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.TermInSetQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.uhighlight.DefaultPassageFormatter;
+import org.apache.lucene.search.uhighlight.UnifiedHighlighter;
+import org.apache.lucene.store.FSDirectory;
+import org.apache.lucene.util.BytesRef;
+import org.apache.lucene.util.Bits;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Embedded Lucene index over the extracted text of uploaded materials, ranked with BM25.
+ * Materials are (re)indexed in the background when saved, and a periodic pass picks up
+ * anything that was missed, e.g. files still waiting for upload validation.
+ */
+@Component
+public class MaterialContentIndex {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MaterialContentIndex.class);
+
+    private static final String ID = "id";
+    private static final String FILE_NAME = "fileName";
+    private static final String SUBJECT_ID = "subjectId";
+    private static final String CLASS_ID = "classId";
+    private static final String TEACHER_ID = "teacherId";
+    private static final String TITLE = "title";
+    private static final String DESCRIPTION = "description";
+    private static final String CONTENT = "content";
+
+    // Bumped when the indexed fields change; an index written with other fields is rebuilt
+    private static final String SCHEMA = "schema";
+    private static final String SCHEMA_VERSION = "2";
+    private static final Map<MaterialFacetIndex.Facet, String> SCOPE_FIELDS = Map.of(
+            MaterialFacetIndex.Facet.SUBJECT, SUBJECT_ID,
+            MaterialFacetIndex.Facet.CLASS, CLASS_ID,
+            MaterialFacetIndex.Facet.TEACHER, TEACHER_ID);
+
+    // Matches in the title count for more than a passing mention deep inside a file
+    private static final Map<String, Float> FIELD_WEIGHTS = Map.of(TITLE, 3f, DESCRIPTION, 2f, CONTENT, 1f);
+
+    private final MaterialRepository materialRepository;
+    private final FileStorageService fileStorageService;
+    private final MaterialTextExtractor textExtractor;
+    private final MaterialSearchCache searchCache;
+
+    private final Analyzer analyzer = new EnglishAnalyzer();
+    // id -> stored file name that is currently indexed ("" for materials without a file)
+    private final Map<Long, String> indexedFiles = new ConcurrentHashMap<>();
+    private final ExecutorService indexExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "material-content-index");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @Value("${search.content.index-dir:./data/content-index}")
+    private Path indexDir;
+
+    @Value("${search.content.max-results:100}")
+    private int maxResults;
+
+    private FSDirectory directory;
+    private IndexWriter writer;
+    private SearcherManager searcherManager;
+
+    public MaterialContentIndex(MaterialRepository materialRepository, FileStorageService fileStorageService,
+                                MaterialTextExtractor textExtractor, MaterialSearchCache searchCache) {
+        this.materialRepository = materialRepository;
+        this.fileStorageService = fileStorageService;
+        this.textExtractor = textExtractor;
+        this.searchCache = searchCache;
+    }
+
+    @PostConstruct
+    void open() throws IOException {
+        Files.createDirectories(indexDir);
+        directory = FSDirectory.open(indexDir);
+        writer = new IndexWriter(directory, new IndexWriterConfig(analyzer)
+                .setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND));
+        if (!SCHEMA_VERSION.equals(schemaVersion())) {
+            // Filled again by the first reconcile pass
+            writer.deleteAll();
+            writer.setLiveCommitData(Map.of(SCHEMA, SCHEMA_VERSION).entrySet());
+            writer.commit();
+        }
+        searcherManager = new SearcherManager(writer, null);
+        loadIndexedFiles();
+        LOGGER.info("Opened material content index at {} ({} materials)", indexDir, indexedFiles.size());
+    }
+
+    @PreDestroy
+    void close() throws IOException {
+        indexExecutor.shutdownNow();
+        searcherManager.close();
+        writer.close();
+        directory.close();
+    }
+
+    public void scheduleIndexing(Long materialId) {
+        indexExecutor.execute(() -> indexMaterial(materialId, true));
+    }
+
+    public void scheduleRemoval(Long materialId) {
+        indexExecutor.execute(() -> removeMaterial(materialId));
+    }
+
+    /**
+     * Brings the index in line with the database: indexes active materials that are missing
+     * or whose file changed and drops materials that were deleted.
+     */
+    @Scheduled(initialDelayString = "${search.content.reconcile-delay:PT1M}",
+            fixedDelayString = "${search.content.reconcile-interval:PT10M}")
+    public void reconcile() {
+        Set<Long> active = new HashSet<>();
+        for (StoredFileReference reference : materialRepository.findActiveFileReferences()) {
+            active.add(reference.id());
+            if (!Objects.equals(indexedFiles.get(reference.id()), Objects.requireNonNullElse(reference.fileName(), ""))) {
+                indexExecutor.execute(() -> indexMaterial(reference.id(), false));
+            }
+        }
+        for (Long id : indexedFiles.keySet()) {
+            if (!active.contains(id)) {
+                indexExecutor.execute(() -> removeMaterial(id));
+            }
+        }
+    }
+
+    /**
+     * Ids of the best matching materials in rank order, optionally restricted to a subject,
+     * a class and/or a set of candidate materials.
+     */
+    public List<Long> search(String queryText, Long subjectId, Long classId, Collection<Long> withinIds) {
+        Map<MaterialFacetIndex.Facet, Set<String>> scope = new EnumMap<>(MaterialFacetIndex.Facet.class);
+        if (subjectId != null) {
+            scope.put(MaterialFacetIndex.Facet.SUBJECT, Set.of(subjectId.toString()));
+        }
+        if (classId != null) {
+            scope.put(MaterialFacetIndex.Facet.CLASS, Set.of(classId.toString()));
+        }
+        return search(buildQuery(queryText, scope, withinIds));
+    }
+
+    /**
+     * Ids of the best matching materials within the scope (subjects, classes and/or teachers),
+     * in rank order. The scope filters the search itself, so the result limit is never used
+     * up by materials the user cannot see.
+     */
+    public List<Long> search(String queryText, Map<MaterialFacetIndex.Facet, Set<String>> scope) {
+        return search(buildQuery(queryText, scope, null));
+    }
+
+    private List<Long> search(Query query) {
+        if (query == null) {
+            return List.of();
+        }
+        try {
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                List<Long> ids = new ArrayList<>();
+                StoredFields storedFields = searcher.storedFields();
+                for (ScoreDoc hit : searcher.search(query, maxResults).scoreDocs) {
+                    ids.add(Long.valueOf(storedFields.document(hit.doc, Set.of(ID)).get(ID)));
+                }
+                return ids;
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Material content search failed", ex);
+        }
+    }
+
+    /**
+     * Highlighted passages from the content of the given materials that match the query.
+     * The text is HTML-escaped apart from the {@code <mark>} tags around matches.
+     */
+    public Map<Long, String> snippets(String queryText, Collection<Long> materialIds) {
+        Query query = buildQuery(queryText, Map.of(), materialIds);
+        if (query == null || materialIds.isEmpty()) {
+            return Map.of();
+        }
+        try {
+            IndexSearcher searcher = searcherManager.acquire();
+            try {
+                TopDocs topDocs = searcher.search(query, materialIds.size());
+                UnifiedHighlighter highlighter = UnifiedHighlighter.builder(searcher, analyzer)
+                        .withFormatter(new DefaultPassageFormatter("<mark>", "</mark>", " … ", true))
+                        .withMaxLength(Integer.MAX_VALUE - 1)
+                        .build();
+                String[] passages = highlighter.highlight(CONTENT, query, topDocs, 2);
+
+                Map<Long, String> snippets = new LinkedHashMap<>();
+                StoredFields storedFields = searcher.storedFields();
+                for (int i = 0; i < passages.length; i++) {
+                    if (passages[i] != null && passages[i].contains("<mark>")) {
+                        Long id = Long.valueOf(storedFields.document(topDocs.scoreDocs[i].doc, Set.of(ID)).get(ID));
+                        snippets.put(id, passages[i]);
+                    }
+                }
+                return snippets;
+            } finally {
+                searcherManager.release(searcher);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException("Material snippet highlighting failed", ex);
+        }
+    }
+
+    private Query buildQuery(String queryText, Map<MaterialFacetIndex.Facet, Set<String>> scope,
+                             Collection<Long> materialIds) {
+        if (queryText == null || queryText.isBlank()) {
+            return null;
+        }
+        // The simple parser never throws on user input; stray quotes or operators are ignored
+        SimpleQueryParser parser = new SimpleQueryParser(analyzer, FIELD_WEIGHTS);
+        parser.setDefaultOperator(BooleanClause.Occur.MUST);
+        Query text = parser.parse(queryText);
+        if (text == null) {
+            return null;
+        }
+
+        BooleanQuery.Builder query = new BooleanQuery.Builder().add(text, BooleanClause.Occur.MUST);
+        for (Map.Entry<MaterialFacetIndex.Facet, Set<String>> restriction : scope.entrySet()) {
+            String field = SCOPE_FIELDS.get(restriction.getKey());
+            if (field == null) {
+                throw new IllegalArgumentException("Content search cannot be scoped by " + restriction.getKey());
+            }
+            query.add(new TermInSetQuery(field, restriction.getValue().stream().map(BytesRef::new).toList()),
+                    BooleanClause.Occur.FILTER);
+        }
+        if (materialIds != null) {
+            query.add(new TermInSetQuery(ID, materialIds.stream().map(id -> new BytesRef(id.toString())).toList()),
+                    BooleanClause.Occur.FILTER);
+        }
+        return query.build();
+    }
+
+    private void indexMaterial(Long materialId, boolean force) {
+        Material material = materialRepository.findById(materialId).orElse(null);
+        if (material == null || !material.isActive()) {
+            removeMaterial(materialId);
+            return;
+        }
+        String fileName = Objects.requireNonNullElse(material.getFileName(), "");
+        if (!force && fileName.equals(indexedFiles.get(materialId))) {
+            return;
+        }
+
+        String content = null;
+        if (!fileName.isEmpty() && textExtractor.supports(fileName)) {
+            // Left for a later reconcile pass until the upload has been validated
+            if (!fileStorageService.isDownloadable(fileName, FileStorageService.FileType.MATERIAL)) {
+                return;
+            }
+            try (InputStream in = fileStorageService.openFile(fileName, FileStorageService.FileType.MATERIAL)) {
+                content = textExtractor.extract(in, fileName).orElse(null);
+            } catch (IOException | RuntimeException ex) {
+                // Still indexed by title and description; the file is not retried until it changes
+                LOGGER.warn("Could not extract text from material {} ({})", materialId, fileName, ex);
+            }
+        }
+
+        Document document = new Document();
+        document.add(new StringField(ID, materialId.toString(), Field.Store.YES));
+        document.add(new StoredField(FILE_NAME, fileName));
+        if (material.getSubject() != null && material.getSubject().getId() != null) {
+            document.add(new StringField(SUBJECT_ID, material.getSubject().getId().toString(), Field.Store.NO));
+        }
+        if (material.getSchoolClass() != null && material.getSchoolClass().getId() != null) {
+            document.add(new StringField(CLASS_ID, material.getSchoolClass().getId().toString(), Field.Store.NO));
+        }
+        if (material.getTeacher() != null && material.getTeacher().getId() != null) {
+            document.add(new StringField(TEACHER_ID, material.getTeacher().getId().toString(), Field.Store.NO));
+        }
+        if (material.getTitle() != null) {
+            document.add(new TextField(TITLE, material.getTitle(), Field.Store.NO));
+        }
+        if (material.getDescription() != null) {
+            document.add(new TextField(DESCRIPTION, material.getDescription(), Field.Store.NO));
+        }
+        if (content != null) {
+            // Stored so snippets can be highlighted from it
+            document.add(new TextField(CONTENT, content, Field.Store.YES));
+        }
+
+        try {
+            writer.updateDocument(new Term(ID, materialId.toString()), document);
+            commit();
+            indexedFiles.put(materialId, fileName);
+        } catch (IOException ex) {
+            LOGGER.error("Failed to index material {}", materialId, ex);
+        }
+    }
+
+    private void removeMaterial(Long materialId) {
+        try {
+            writer.deleteDocuments(new Term(ID, materialId.toString()));
+            commit();
+            indexedFiles.remove(materialId);
+        } catch (IOException ex) {
+            LOGGER.error("Failed to remove material {} from the content index", materialId, ex);
+        }
+    }
+
+    private void commit() throws IOException {
+        writer.commit();
+        searcherManager.maybeRefresh();
+        // Indexing runs after the save returned, so content searches cached since then are stale
+        searchCache.invalidate();
+    }
+
+    private String schemaVersion() {
+        for (Map.Entry<String, String> entry : writer.getLiveCommitData()) {
+            if (SCHEMA.equals(entry.getKey())) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    private void loadIndexedFiles() throws IOException {
+        try (DirectoryReader reader = DirectoryReader.open(writer)) {
+            for (LeafReaderContext leaf : reader.leaves()) {
+                Bits liveDocs = leaf.reader().getLiveDocs();
+                StoredFields storedFields = leaf.reader().storedFields();
+                for (int doc = 0; doc < leaf.reader().maxDoc(); doc++) {
+                    if (liveDocs == null || liveDocs.get(doc)) {
+                        Document document = storedFields.document(doc, Set.of(ID, FILE_NAME));
+                        indexedFiles.put(Long.valueOf(document.get(ID)), document.get(FILE_NAME));
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.learnmate.service.search;
+
+import com.learnmate.model.Material;
+import org.roaringbitmap.RoaringBitmap;
+
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Posting bitmaps of material ids per facet value (subject, class, teacher, file type and
+ * upload month). Filtering and counting are bitmap intersections, so neither depends on
+ * re-reading the materials.
+ * <p>
+ * Not thread-safe; {@link MaterialSearchIndex} guards it with its own lock.
+ */
+public class MaterialFacetIndex {
+
+    public enum Facet {
+        SUBJECT, CLASS, TEACHER, FILE_TYPE, MONTH
+    }
+
+    public record FacetCount(String value, String label, int count) {
+    }
+
+    public record Result(RoaringBitmap matches, Map<Facet, List<FacetCount>> counts) {
+    }
+
+    private static final DateTimeFormatter MONTH = DateTimeFormatter.ofPattern("yyyy-MM");
+
+    private final RoaringBitmap all = new RoaringBitmap();
+    private final Map<Facet, Map<String, RoaringBitmap>> postings = new EnumMap<>(Facet.class);
+    private final Map<Facet, Map<String, String>> labels = new EnumMap<>(Facet.class);
+    // id -> the facet values it was indexed under, so it can be taken out again
+    private final Map<Integer, Map<Facet, String>> documentValues = new HashMap<>();
+
+    public MaterialFacetIndex() {
+        for (Facet facet : Facet.values()) {
+            postings.put(facet, new HashMap<>());
+            labels.put(facet, new HashMap<>());
+        }
+    }
+
+    public void add(Material material) {
+        int id = Math.toIntExact(material.getId());
+        remove(id);
+
+        Map<Facet, String> values = new EnumMap<>(Facet.class);
+        if (material.getSubject() != null && material.getSubject().getId() != null) {
+            put(values, Facet.SUBJECT, material.getSubject().getId().toString(), material.getSubject().getName());
+        }
+        if (material.getSchoolClass() != null && material.getSchoolClass().getId() != null) {
+            put(values, Facet.CLASS, material.getSchoolClass().getId().toString(), material.getSchoolClass().getName());
+        }
+        if (material.getTeacher() != null && material.getTeacher().getId() != null) {
+            put(values, Facet.TEACHER, material.getTeacher().getId().toString(), material.getTeacher().getName());
+        }
+        if (material.getFileType() != null) {
+            put(values, Facet.FILE_TYPE, material.getFileType(), material.getFileType());
+        }
+        if (material.getUploadedAt() != null) {
+            String month = material.getUploadedAt().format(MONTH);
+            put(values, Facet.MONTH, month, month);
+        }
+
+        for (Map.Entry<Facet, String> value : values.entrySet()) {
+            postings.get(value.getKey()).computeIfAbsent(value.getValue(), key -> new RoaringBitmap()).add(id);
+        }
+        documentValues.put(id, values);
+        all.add(id);
+    }
+
+    public void remove(long materialId) {
+        int id = Math.toIntExact(materialId);
+        Map<Facet, String> values = documentValues.remove(id);
+        if (values == null) {
+            return;
+        }
+        for (Map.Entry<Facet, String> value : values.entrySet()) {
+            Map<String, RoaringBitmap> facetPostings = postings.get(value.getKey());
+            RoaringBitmap ids = facetPostings.get(value.getValue());
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    facetPostings.remove(value.getValue());
+                    labels.get(value.getKey()).remove(value.getValue());
+                }
+            }
+        }
+        all.remove(id);
+    }
+
+    public void clear() {
+        all.clear();
+        documentValues.clear();
+        postings.values().forEach(Map::clear);
+        labels.values().forEach(Map::clear);
+    }
+
+    /**
+     * Applies the filters and counts every facet value among the matches.
+     *
+     * @param candidates materials to start from, or null for all of them
+     * @param scope      restrictions that always apply, e.g. a student's class and subjects
+     * @param filters    user-selected values; within one facet they are alternatives
+     */
+    public Result search(RoaringBitmap candidates, Map<Facet, Set<String>> scope, Map<Facet, Set<String>> filters) {
+        RoaringBitmap base = scoped(candidates, scope);
+
+        Map<Facet, RoaringBitmap> filterBitmaps = new EnumMap<>(Facet.class);
+        filters.forEach((facet, values) -> filterBitmaps.put(facet, union(facet, values)));
+        RoaringBitmap matches = base.clone();
+        filterBitmaps.values().forEach(matches::and);
+
+        Map<Facet, List<FacetCount>> counts = new EnumMap<>(Facet.class);
+        for (Facet facet : Facet.values()) {
+            // A facet is counted without its own filter, so the other values stay selectable
+            RoaringBitmap countBase = base.clone();
+            filterBitmaps.forEach((other, bitmap) -> {
+                if (other != facet) {
+                    countBase.and(bitmap);
+                }
+            });
+
+            List<FacetCount> facetCounts = new ArrayList<>();
+            for (Map.Entry<String, RoaringBitmap> value : postings.get(facet).entrySet()) {
+                int count = RoaringBitmap.andCardinality(countBase, value.getValue());
+                if (count > 0) {
+                    facetCounts.add(new FacetCount(value.getKey(), labels.get(facet).get(value.getKey()), count));
+                }
+            }
+            facetCounts.sort(Comparator.comparingInt(FacetCount::count).reversed()
+                    .thenComparing(FacetCount::label, Comparator.nullsLast(Comparator.naturalOrder())));
+            counts.put(facet, facetCounts);
+        }
+        return new Result(matches, counts);
+    }
+
+    /**
+     * The candidates, or all materials when null, that lie within every restriction of the scope.
+     */
+    public RoaringBitmap scoped(RoaringBitmap candidates, Map<Facet, Set<String>> scope) {
+        RoaringBitmap base = candidates != null ? RoaringBitmap.and(candidates, all) : all.clone();
+        for (Map.Entry<Facet, Set<String>> restriction : scope.entrySet()) {
+            base.and(union(restriction.getKey(), restriction.getValue()));
+        }
+        return base;
+    }
+
+    private RoaringBitmap union(Facet facet, Set<String> values) {
+        RoaringBitmap union = new RoaringBitmap();
+        for (String value : values) {
+            RoaringBitmap ids = postings.get(facet).get(value);
+            if (ids != null) {
+                union.or(ids);
+            }
+        }
+        return union;
+    }
+
+    private void put(Map<Facet, String> values, Facet facet, String value, String label) {
+        values.put(facet, value);
+        labels.get(facet).put(value, label);
+    }
+}
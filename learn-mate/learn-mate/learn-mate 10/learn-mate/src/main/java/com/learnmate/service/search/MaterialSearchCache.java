@@ -0,0 +1,86 @@
+package com.learnmate.service.search;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Bounded cache of material search results. Every key carries the catalogue version, which
+ * is bumped whenever a material or its indexed content changes, so entries computed before
+ * a change are never served again and simply age out.
+ */
+@Component
+public class MaterialSearchCache {
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final MeterRegistry meterRegistry;
+    private final AtomicLong version = new AtomicLong();
+
+    @Value("${search.cache.max-entries:10000}")
+    private long maxEntries;
+
+    @Value("${search.cache.expire-after-write:PT10M}")
+    private Duration expireAfterWrite;
+
+    private Cache<Key, Object> cache;
+
+    public MaterialSearchCache(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    void build() {
+        // Caffeine's W-TinyLFU admission keeps a burst of one-off searches from flushing the
+        // popular ones
+        cache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "materialSearch");
+        Gauge.builder("material.search.cache.hit.ratio", cache, c -> c.stats().hitRate())
+                .description("Share of material searches answered from the cache")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Key for one search by one audience. Students are keyed by their class and subject set
+     * rather than by user, so classmates share entries.
+     */
+    public Key key(String keyword, String searchType, Long scopeClassId, Collection<Long> scopeSubjectIds,
+                   Long teacherId, Long subjectId, Long classId, int page, int size) {
+        String normalized = keyword == null ? ""
+                : WHITESPACE.matcher(keyword.trim()).replaceAll(" ").toLowerCase(Locale.ROOT);
+        String strategy = searchType == null ? "keyword" : searchType.toLowerCase(Locale.ROOT);
+        return new Key(version.get(), normalized, strategy, scopeClassId,
+                scopeSubjectIds == null ? Set.of() : Set.copyOf(scopeSubjectIds),
+                teacherId, subjectId, classId, page, size);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> T get(Key key, Supplier<T> loader) {
+        // Concurrent misses on one key wait for a single load instead of all searching
+        return (T) cache.get(key, ignored -> loader.get());
+    }
+
+    public void invalidate() {
+        version.incrementAndGet();
+    }
+
+    public record Key(long version, String keyword, String searchType, Long scopeClassId, Set<Long> scopeSubjectIds,
+                      Long teacherId, Long subjectId, Long classId, int page, int size) {
+    }
+}
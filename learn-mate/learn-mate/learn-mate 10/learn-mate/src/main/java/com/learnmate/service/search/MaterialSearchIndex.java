@@ -0,0 +1,455 @@
+package com.learnmate.service.search;
+
+import com.learnmate.dto.MaterialSuggestion;
+import com.learnmate.model.Material;
+import com.learnmate.repository.MaterialRepository;
+import com.learnmate.service.MaterialDownloadsFlushedEvent;
+import com.learnmate.service.MaterialPopularityService;
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.text.Normalizer;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Inverted index over the title, description, subject and class of every active material.
+ * Built once at startup and kept current by {@link com.learnmate.service.MaterialService}
+ * as materials are saved or deleted.
+ */
+@Component
+public class MaterialSearchIndex {
+    private static final Logger LOGGER = LoggerFactory.getLogger(MaterialSearchIndex.class);
+
+    private static final Pattern TOKEN_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    private final MaterialRepository materialRepository;
+    private final MaterialPopularityService popularityService;
+
+    // token -> ids of the materials containing it; sorted so a prefix maps to a contiguous range
+    private final NavigableMap<String, Set<Long>> postings = new TreeMap<>();
+    // id -> its tokens, so an update or delete can remove the old postings
+    private final Map<Long, Set<String>> documentTokens = new HashMap<>();
+    // Title and subject only; descriptions would drown typo matches in noise
+    private final TrigramIndex trigramIndex = new TrigramIndex();
+    private final MaterialFacetIndex facetIndex = new MaterialFacetIndex();
+    // Typeahead over titles, title suffixes and subject names; weighted by downloads, then recency
+    private final SuggestionTrie suggestionTrie = new SuggestionTrie();
+    // The same entries per class and subject and per teacher, so students and teachers read
+    // their own top lists instead of filtering the whole school's
+    private final Map<ClassSubject, SuggestionTrie> classSubjectTries = new HashMap<>();
+    private final Map<Long, SuggestionTrie> teacherTries = new HashMap<>();
+    private final Map<Long, SuggestionEntry> suggestions = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public MaterialSearchIndex(MaterialRepository materialRepository, MaterialPopularityService popularityService) {
+        this.materialRepository = materialRepository;
+        this.popularityService = popularityService;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<Material> materials = materialRepository.findByActiveTrueOrderByUploadedAtDesc();
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            documentTokens.clear();
+            trigramIndex.clear();
+            facetIndex.clear();
+            suggestionTrie.clear();
+            classSubjectTries.clear();
+            teacherTries.clear();
+            suggestions.clear();
+            materials.forEach(this::add);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        LOGGER.info("Indexed {} materials ({} distinct terms)", materials.size(), postings.size());
+    }
+
+    /**
+     * Adds or replaces a material. Inactive materials are removed from the index.
+     */
+    public void index(Material material) {
+        if (material.getId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            removeTokens(material.getId());
+            if (material.isActive()) {
+                add(material);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            removeTokens(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @EventListener
+    public void onDownloadsFlushed(MaterialDownloadsFlushedEvent event) {
+        lock.writeLock().lock();
+        try {
+            for (Long id : event.materialIds()) {
+                SuggestionEntry entry = suggestions.get(id);
+                if (entry != null) {
+                    long weight = suggestionWeight(id, entry.uploadedMinute());
+                    triesOf(entry.scope()).forEach(trie -> trie.reweight(id, weight));
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Ids of the materials matching every word of the query. A word matches any indexed
+     * term it is a prefix of, so partially typed words find results.
+     */
+    public Set<Long> search(String query) {
+        List<String> terms = tokenize(query);
+        if (terms.isEmpty()) {
+            return Set.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            Set<Long> result = null;
+            for (String term : terms) {
+                Set<Long> matches = new HashSet<>();
+                for (Set<Long> ids : postings.subMap(term, true, term + Character.MAX_VALUE, false).values()) {
+                    matches.addAll(ids);
+                }
+                if (result == null) {
+                    result = matches;
+                } else {
+                    result.retainAll(matches);
+                }
+                if (result.isEmpty()) {
+                    break;
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ids of the materials whose title or subject is closest to the query, tolerating typos,
+     * best match first.
+     */
+    public List<Long> fuzzySearch(String query, int limit) {
+        return fuzzySearch(query, limit, Map.of());
+    }
+
+    /**
+     * Closest matches among the materials within the scope, e.g. a student's class and
+     * subjects. The scope is applied before the limit, so other classes never crowd out
+     * matches the user may see.
+     */
+    public List<Long> fuzzySearch(String query, int limit, Map<MaterialFacetIndex.Facet, Set<String>> scope) {
+        lock.readLock().lock();
+        try {
+            if (scope.isEmpty()) {
+                return trigramIndex.search(query, limit);
+            }
+            RoaringBitmap visible = facetIndex.scoped(null, scope);
+            return trigramIndex.search(query, limit, id -> visible.contains(Math.toIntExact(id)));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ids of the materials within the scope matching every word of the query, most downloaded
+     * first and then newest, so a listing only has to load the page it shows.
+     */
+    public List<Long> searchByPopularity(String query, Map<MaterialFacetIndex.Facet, Set<String>> scope) {
+        lock.readLock().lock();
+        try {
+            Set<Long> matches = search(query);
+            if (matches.isEmpty()) {
+                return List.of();
+            }
+            RoaringBitmap candidates = new RoaringBitmap();
+            for (Long id : matches) {
+                candidates.add(Math.toIntExact(id));
+            }
+
+            List<PopularityRank> ranks = new ArrayList<>();
+            for (int id : facetIndex.scoped(candidates, scope)) {
+                SuggestionEntry entry = suggestions.get((long) id);
+                ranks.add(new PopularityRank(id, popularityService.getDownloads((long) id),
+                        entry != null ? entry.uploadedMinute() : 0L));
+            }
+            ranks.sort(Comparator.comparingLong(PopularityRank::downloads)
+                    .thenComparingLong(PopularityRank::uploadedMinute)
+                    .thenComparingLong(PopularityRank::id)
+                    .reversed());
+            return ranks.stream().map(PopularityRank::id).toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * One page of materials matching the query and filters, newest first, with the facet
+     * counts of everything that matched.
+     */
+    public FacetedPage facetedSearch(String query, Map<MaterialFacetIndex.Facet, Set<String>> scope,
+                                     Map<MaterialFacetIndex.Facet, Set<String>> filters, int page, int size) {
+        lock.readLock().lock();
+        try {
+            RoaringBitmap candidates = null;
+            if (query != null && !query.isBlank()) {
+                candidates = new RoaringBitmap();
+                for (Long id : search(query)) {
+                    candidates.add(Math.toIntExact(id));
+                }
+            }
+            MaterialFacetIndex.Result result = facetIndex.search(candidates, scope, filters);
+
+            // Ids grow with upload order, so walking them backwards lists the newest first
+            List<Long> ids = new ArrayList<>(size);
+            IntIterator iterator = result.matches().getReverseIntIterator();
+            long skip = (long) page * size;
+            while (iterator.hasNext() && ids.size() < size) {
+                int id = iterator.next();
+                if (skip > 0) {
+                    skip--;
+                } else {
+                    ids.add((long) id);
+                }
+            }
+            return new FacetedPage(result.matches().getLongCardinality(), ids, result.counts());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Titles for a partly typed query, newest first, limited to the materials within the
+     * scope. Every word of the query but the last has to be complete.
+     */
+    public List<MaterialSuggestion> suggest(String query, int limit, Map<MaterialFacetIndex.Facet, Set<String>> scope) {
+        String prefix = String.join(" ", tokenize(query));
+        if (prefix.isEmpty()) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            List<SuggestionTrie> tries = scopeTries(scope);
+            List<Long> ids;
+            if (tries != null) {
+                ids = SuggestionTrie.search(tries, prefix, limit);
+            } else {
+                RoaringBitmap visible = facetIndex.scoped(null, scope);
+                ids = suggestionTrie.search(prefix, limit, id -> visible.contains(Math.toIntExact(id)));
+            }
+            return ids.stream().map(id -> suggestions.get(id).suggestion()).toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documentTokens.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        // Fold case and accents so "Física" is found by "fisica"
+        String folded = COMBINING_MARKS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        Set<String> tokens = new LinkedHashSet<>();
+        for (String token : TOKEN_SEPARATOR.split(folded)) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return new ArrayList<>(tokens);
+    }
+
+    private void add(Material material) {
+        Set<String> tokens = new HashSet<>();
+        addTokens(tokens, material.getTitle());
+        addTokens(tokens, material.getDescription());
+        if (material.getSubject() != null) {
+            addTokens(tokens, material.getSubject().getName());
+        }
+        if (material.getSchoolClass() != null) {
+            addTokens(tokens, material.getSchoolClass().getName());
+        }
+
+        for (String token : tokens) {
+            postings.computeIfAbsent(token, key -> new HashSet<>()).add(material.getId());
+        }
+        documentTokens.put(material.getId(), tokens);
+        trigramIndex.add(material.getId(), material.getTitle()
+                + (material.getSubject() != null ? " " + material.getSubject().getName() : ""));
+        facetIndex.add(material);
+        addSuggestion(material);
+    }
+
+    private void addSuggestion(Material material) {
+        List<String> titleWords = tokenize(material.getTitle());
+        List<String> keys = new ArrayList<>();
+        // Every word suffix of the title, so "chem" also finds "Organic chemistry notes"
+        for (int i = 0; i < titleWords.size(); i++) {
+            keys.add(String.join(" ", titleWords.subList(i, titleWords.size())));
+        }
+        String subjectName = material.getSubject() != null ? material.getSubject().getName() : null;
+        keys.add(String.join(" ", tokenize(subjectName)));
+
+        long uploadedMinute = material.getUploadedAt() != null
+                ? material.getUploadedAt().toEpochSecond(ZoneOffset.UTC) / 60 : 0L;
+        SuggestionScope scope = new SuggestionScope(
+                material.getSubject() != null ? material.getSubject().getId() : null,
+                material.getSchoolClass() != null ? material.getSchoolClass().getId() : null,
+                material.getTeacher() != null ? material.getTeacher().getId() : null);
+        long weight = suggestionWeight(material.getId(), uploadedMinute);
+        triesOf(scope).forEach(trie -> trie.add(material.getId(), keys, weight));
+        suggestions.put(material.getId(), new SuggestionEntry(uploadedMinute,
+                new MaterialSuggestion(material.getId(), material.getTitle(), subjectName), scope));
+    }
+
+    // Downloads rounded to powers of two, then upload time, so materials with a similar number
+    // of downloads are still offered newest first
+    private long suggestionWeight(Long id, long uploadedMinute) {
+        long downloadBucket = 64 - Long.numberOfLeadingZeros(popularityService.getDownloads(id));
+        return downloadBucket << 40 | uploadedMinute;
+    }
+
+    // Every trie an entry with this scope is filed in
+    private List<SuggestionTrie> triesOf(SuggestionScope scope) {
+        List<SuggestionTrie> tries = new ArrayList<>(3);
+        tries.add(suggestionTrie);
+        if (scope.classId() != null && scope.subjectId() != null) {
+            tries.add(classSubjectTries.computeIfAbsent(new ClassSubject(scope.classId(), scope.subjectId()),
+                    key -> new SuggestionTrie()));
+        }
+        if (scope.teacherId() != null) {
+            tries.add(teacherTries.computeIfAbsent(scope.teacherId(), key -> new SuggestionTrie()));
+        }
+        return tries;
+    }
+
+    // The tries holding exactly the materials within the scope, or null if it has none of its own
+    private List<SuggestionTrie> scopeTries(Map<MaterialFacetIndex.Facet, Set<String>> scope) {
+        if (scope.isEmpty()) {
+            return List.of(suggestionTrie);
+        }
+        List<SuggestionTrie> tries = new ArrayList<>();
+        if (scope.keySet().equals(Set.of(MaterialFacetIndex.Facet.TEACHER))) {
+            for (String teacherId : scope.get(MaterialFacetIndex.Facet.TEACHER)) {
+                addIfPresent(tries, teacherTries.get(Long.valueOf(teacherId)));
+            }
+            return tries;
+        }
+        if (scope.keySet().equals(Set.of(MaterialFacetIndex.Facet.CLASS, MaterialFacetIndex.Facet.SUBJECT))) {
+            for (String classId : scope.get(MaterialFacetIndex.Facet.CLASS)) {
+                for (String subjectId : scope.get(MaterialFacetIndex.Facet.SUBJECT)) {
+                    addIfPresent(tries, classSubjectTries.get(new ClassSubject(Long.valueOf(classId), Long.valueOf(subjectId))));
+                }
+            }
+            return tries;
+        }
+        return null;
+    }
+
+    private static void addIfPresent(List<SuggestionTrie> tries, SuggestionTrie trie) {
+        if (trie != null) {
+            tries.add(trie);
+        }
+    }
+
+    private static <K> void removeSuggestion(Map<K, SuggestionTrie> tries, K key, long id) {
+        SuggestionTrie trie = tries.get(key);
+        if (trie != null) {
+            trie.remove(id);
+            if (trie.size() == 0) {
+                tries.remove(key);
+            }
+        }
+    }
+
+    private void addTokens(Collection<String> tokens, String text) {
+        tokens.addAll(tokenize(text));
+    }
+
+    private void removeTokens(Long id) {
+        trigramIndex.remove(id);
+        facetIndex.remove(id);
+        suggestionTrie.remove(id);
+        SuggestionEntry suggestion = suggestions.remove(id);
+        if (suggestion != null) {
+            SuggestionScope scope = suggestion.scope();
+            removeSuggestion(classSubjectTries, new ClassSubject(scope.classId(), scope.subjectId()), id);
+            removeSuggestion(teacherTries, scope.teacherId(), id);
+        }
+        Set<String> tokens = documentTokens.remove(id);
+        if (tokens == null) {
+            return;
+        }
+        for (String token : tokens) {
+            Set<Long> ids = postings.get(token);
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    postings.remove(token);
+                }
+            }
+        }
+    }
+
+    private record SuggestionScope(Long subjectId, Long classId, Long teacherId) {
+    }
+
+    private record ClassSubject(Long classId, Long subjectId) {
+    }
+
+    private record PopularityRank(long id, long downloads, long uploadedMinute) {
+    }
+
+    private record SuggestionEntry(long uploadedMinute, MaterialSuggestion suggestion, SuggestionScope scope) {
+    }
+
+    public record FacetedPage(long total, List<Long> ids, Map<MaterialFacetIndex.Facet, List<MaterialFacetIndex.FacetCount>> facets) {
+    }
+}
@@ -0,0 +1,139 @@
+package com.learnmate.service.search;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.RandomAccessReadBufferedFile;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.text.PDFTextStripper;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Pulls plain text out of uploaded materials for the content index. Supports PDF, DOCX
+ * and plain text; anything else has no extractable text.
+ */
+@Component
+public class MaterialTextExtractor {
+
+    private static final String WORDPROCESSING_NS = "http://schemas.openxmlformats.org/wordprocessingml/2006/main";
+
+    // Long books would otherwise dominate index size for little search benefit
+    @Value("${search.content.max-chars:500000}")
+    private int maxChars;
+
+    public boolean supports(String fileName) {
+        return switch (extension(fileName)) {
+            case "pdf", "docx", "txt", "md", "csv" -> true;
+            default -> false;
+        };
+    }
+
+    public Optional<String> extract(InputStream content, String fileName) throws IOException {
+        String text = switch (extension(fileName)) {
+            case "pdf" -> extractPdf(content);
+            case "docx" -> extractDocx(content);
+            case "txt", "md", "csv" -> extractText(content);
+            default -> null;
+        };
+        return Optional.ofNullable(text).map(String::strip).filter(s -> !s.isEmpty());
+    }
+
+    private String extractPdf(InputStream content) throws IOException {
+        // Stage on local disk so large uploads are parsed from the file rather than the heap
+        Path tempFile = Files.createTempFile("extract-", ".pdf");
+        try {
+            Files.copy(content, tempFile, StandardCopyOption.REPLACE_EXISTING);
+            try (PDDocument document = Loader.loadPDF(new RandomAccessReadBufferedFile(tempFile.toFile()))) {
+                return truncate(new PDFTextStripper().getText(document));
+            }
+        } finally {
+            try {
+                Files.deleteIfExists(tempFile);
+            } catch (IOException ignored) {
+                // best effort cleanup of the staging file
+            }
+        }
+    }
+
+    private String extractDocx(InputStream content) throws IOException {
+        try (ZipInputStream zip = new ZipInputStream(content)) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                if ("word/document.xml".equals(entry.getName())) {
+                    return readDocumentXml(zip);
+                }
+            }
+        }
+        return null;
+    }
+
+    private String readDocumentXml(InputStream xml) throws IOException {
+        XMLInputFactory factory = XMLInputFactory.newFactory();
+        factory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        factory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+
+        StringBuilder text = new StringBuilder();
+        try {
+            XMLStreamReader reader = factory.createXMLStreamReader(xml);
+            boolean inText = false;
+            while (reader.hasNext() && text.length() < maxChars) {
+                int event = reader.next();
+                if (event == XMLStreamConstants.START_ELEMENT && WORDPROCESSING_NS.equals(reader.getNamespaceURI())) {
+                    inText = "t".equals(reader.getLocalName());
+                    if ("tab".equals(reader.getLocalName())) {
+                        text.append(' ');
+                    }
+                } else if (event == XMLStreamConstants.END_ELEMENT && WORDPROCESSING_NS.equals(reader.getNamespaceURI())) {
+                    inText = false;
+                    if ("p".equals(reader.getLocalName())) {
+                        text.append('\n');
+                    }
+                } else if (event == XMLStreamConstants.CHARACTERS && inText) {
+                    text.append(reader.getText());
+                }
+            }
+            reader.close();
+        } catch (XMLStreamException ex) {
+            throw new IOException("Malformed DOCX document", ex);
+        }
+        return truncate(text.toString());
+    }
+
+    private String extractText(InputStream content) throws IOException {
+        Reader reader = new InputStreamReader(content, StandardCharsets.UTF_8);
+        char[] buffer = new char[maxChars];
+        int length = 0;
+        int read;
+        while (length < maxChars && (read = reader.read(buffer, length, maxChars - length)) > 0) {
+            length += read;
+        }
+        return new String(buffer, 0, length);
+    }
+
+    private String truncate(String text) {
+        return text.length() > maxChars ? text.substring(0, maxChars) : text;
+    }
+
+    private static String extension(String fileName) {
+        if (fileName == null || fileName.lastIndexOf('.') < 0) {
+            return "";
+        }
+        return fileName.substring(fileName.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+    }
+}
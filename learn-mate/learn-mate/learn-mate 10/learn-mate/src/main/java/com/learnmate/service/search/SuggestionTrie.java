@@ -0,0 +1,301 @@
+package com.learnmate.service.search;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.LongPredicate;
+
+/**
+ * Compressed prefix trie (radix tree) for typeahead. Each id is filed under one or more keys
+ * with a weight, and every node keeps the best {@link #TOP_K} ids of its subtree, so a prefix
+ * is answered by walking down to its node and reading that list. Audiences that only see part
+ * of the ids get tries of their own, which {@link #search(Collection, String, int)} merges.
+ * <p>
+ * Keys are expected to be normalized already. Not thread-safe for writes; callers guard
+ * updates against concurrent searches.
+ */
+public class SuggestionTrie {
+
+    static final int TOP_K = 32;
+
+    private static final Comparator<Entry> BEST_FIRST = Comparator.comparingLong(Entry::weight).reversed()
+            .thenComparing(Comparator.comparingLong(Entry::id).reversed());
+
+    private final Node root = new Node("");
+    private final Map<Long, Set<String>> keysById = new HashMap<>();
+
+    public void add(long id, Collection<String> keys, long weight) {
+        remove(id);
+        Set<String> distinct = new LinkedHashSet<>();
+        for (String key : keys) {
+            if (key != null && !key.isEmpty()) {
+                distinct.add(key);
+            }
+        }
+        if (distinct.isEmpty()) {
+            return;
+        }
+        Entry entry = new Entry(id, weight);
+        for (String key : distinct) {
+            insert(key, entry);
+        }
+        keysById.put(id, distinct);
+    }
+
+    /**
+     * Files an id again under the same keys with a new weight.
+     */
+    public void reweight(long id, long weight) {
+        Set<String> keys = keysById.get(id);
+        if (keys != null) {
+            add(id, List.copyOf(keys), weight);
+        }
+    }
+
+    public void remove(long id) {
+        Set<String> keys = keysById.remove(id);
+        if (keys != null) {
+            keys.forEach(key -> delete(key, id));
+        }
+    }
+
+    public void clear() {
+        root.children.clear();
+        root.terminals.clear();
+        root.top.clear();
+        keysById.clear();
+    }
+
+    public int size() {
+        return keysById.size();
+    }
+
+    /**
+     * The best ids filed under a key starting with the prefix across tries holding distinct
+     * ids, highest weight first. Each trie contributes its cached top list, so the cost does
+     * not depend on how many entries match.
+     */
+    public static List<Long> search(Collection<SuggestionTrie> tries, String prefix, int limit) {
+        if (limit <= 0) {
+            return List.of();
+        }
+        List<Entry> best = new ArrayList<>();
+        for (SuggestionTrie trie : tries) {
+            Node node = trie.find(prefix);
+            if (node == null) {
+                continue;
+            }
+            if (limit <= node.top.size() || node.top.size() < TOP_K) {
+                best.addAll(node.top.subList(0, Math.min(limit, node.top.size())));
+            } else {
+                // More were asked for than are cached
+                Map<Long, Entry> all = new HashMap<>();
+                collect(node, all);
+                best.addAll(all.values());
+            }
+        }
+        return best.stream().sorted(BEST_FIRST).map(Entry::id).distinct().limit(limit).toList();
+    }
+
+    /**
+     * The best ids filed under a key starting with the prefix, highest weight first.
+     */
+    public List<Long> search(String prefix, int limit) {
+        return search(List.of(this), prefix, limit);
+    }
+
+    /**
+     * The best ids under the prefix that the filter accepts. A filter rejecting most of the
+     * cached top list costs a scan of the prefix's subtree; audiences seeing a fixed part of
+     * the ids should have a trie of their own instead.
+     */
+    public List<Long> search(String prefix, int limit, LongPredicate filter) {
+        Node node = find(prefix);
+        if (node == null || limit <= 0) {
+            return List.of();
+        }
+
+        List<Long> ids = new ArrayList<>(limit);
+        for (Entry entry : node.top) {
+            if (filter.test(entry.id())) {
+                ids.add(entry.id());
+                if (ids.size() == limit) {
+                    return ids;
+                }
+            }
+        }
+        if (node.top.size() < TOP_K) {
+            // The list held the whole subtree
+            return ids;
+        }
+
+        // The filter rejected too many of the cached best, or more were asked for than are
+        // cached; rank the whole subtree instead
+        Map<Long, Entry> all = new HashMap<>();
+        collect(node, all);
+        return all.values().stream()
+                .filter(entry -> filter.test(entry.id()))
+                .sorted(BEST_FIRST)
+                .limit(limit)
+                .map(Entry::id)
+                .toList();
+    }
+
+    private Node find(String prefix) {
+        Node node = root;
+        int i = 0;
+        while (i < prefix.length()) {
+            Node child = node.children.get(prefix.charAt(i));
+            if (child == null) {
+                return null;
+            }
+            String remaining = prefix.substring(i);
+            if (child.label.startsWith(remaining)) {
+                return child;
+            }
+            if (!remaining.startsWith(child.label)) {
+                return null;
+            }
+            i += child.label.length();
+            node = child;
+        }
+        return node;
+    }
+
+    private void insert(String key, Entry entry) {
+        Node node = root;
+        node.offer(entry);
+        int i = 0;
+        while (i < key.length()) {
+            char first = key.charAt(i);
+            Node child = node.children.get(first);
+            if (child == null) {
+                child = new Node(key.substring(i));
+                node.children.put(first, child);
+                node = child;
+                node.offer(entry);
+                break;
+            }
+
+            int common = commonPrefix(child.label, key, i);
+            if (common < child.label.length()) {
+                // Split the edge; the new middle node covers exactly what the old child did
+                Node middle = new Node(child.label.substring(0, common));
+                child.label = child.label.substring(common);
+                middle.children.put(child.label.charAt(0), child);
+                middle.top.addAll(child.top);
+                node.children.put(first, middle);
+                child = middle;
+            }
+            node = child;
+            node.offer(entry);
+            i += common;
+        }
+        node.terminals.put(entry.id(), entry);
+    }
+
+    private void delete(String key, long id) {
+        List<Node> path = new ArrayList<>();
+        Node node = root;
+        path.add(node);
+        int i = 0;
+        while (i < key.length()) {
+            Node child = node.children.get(key.charAt(i));
+            if (child == null || !key.startsWith(child.label, i)) {
+                return;
+            }
+            i += child.label.length();
+            node = child;
+            path.add(node);
+        }
+        if (node.terminals.remove(id) == null) {
+            return;
+        }
+
+        for (int depth = path.size() - 1; depth >= 0; depth--) {
+            Node current = path.get(depth);
+            if (depth > 0) {
+                Node parent = path.get(depth - 1);
+                if (current.terminals.isEmpty() && current.children.isEmpty()) {
+                    parent.children.remove(current.label.charAt(0));
+                    continue;
+                }
+                if (current.terminals.isEmpty() && current.children.size() == 1) {
+                    // Fold a pass-through node into its only child to keep the trie compressed
+                    Node only = current.children.values().iterator().next();
+                    only.label = current.label + only.label;
+                    parent.children.put(only.label.charAt(0), only);
+                    path.set(depth, only);
+                    continue;
+                }
+            }
+            // The id may still be reachable through another key of the subtree
+            if (current.top.removeIf(entry -> entry.id() == id)) {
+                current.recompute();
+            }
+        }
+    }
+
+    private static void collect(Node node, Map<Long, Entry> into) {
+        node.terminals.values().forEach(entry -> into.putIfAbsent(entry.id(), entry));
+        node.children.values().forEach(child -> collect(child, into));
+    }
+
+    private static int commonPrefix(String label, String key, int offset) {
+        int max = Math.min(label.length(), key.length() - offset);
+        int i = 0;
+        while (i < max && label.charAt(i) == key.charAt(offset + i)) {
+            i++;
+        }
+        return i;
+    }
+
+    private record Entry(long id, long weight) {
+    }
+
+    private static final class Node {
+        private String label;
+        private final Map<Character, Node> children = new HashMap<>(4);
+        // ids whose key ends exactly here
+        private final Map<Long, Entry> terminals = new HashMap<>(2);
+        // best of the whole subtree, distinct ids, best first
+        private final List<Entry> top = new ArrayList<>(4);
+
+        private Node(String label) {
+            this.label = label;
+        }
+
+        private void offer(Entry entry) {
+            for (Entry existing : top) {
+                if (existing.id() == entry.id()) {
+                    return;
+                }
+            }
+            if (top.size() == TOP_K && BEST_FIRST.compare(entry, top.get(TOP_K - 1)) >= 0) {
+                return;
+            }
+            int position = 0;
+            while (position < top.size() && BEST_FIRST.compare(top.get(position), entry) < 0) {
+                position++;
+            }
+            top.add(position, entry);
+            if (top.size() > TOP_K) {
+                top.remove(TOP_K);
+            }
+        }
+
+        private void recompute() {
+            Map<Long, Entry> candidates = new HashMap<>(terminals);
+            for (Node child : children.values()) {
+                child.top.forEach(entry -> candidates.putIfAbsent(entry.id(), entry));
+            }
+            top.clear();
+            candidates.values().stream().sorted(BEST_FIRST).limit(TOP_K).forEach(top::add);
+        }
+    }
+}
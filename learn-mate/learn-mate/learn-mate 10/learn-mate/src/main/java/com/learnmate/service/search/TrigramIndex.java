@@ -0,0 +1,249 @@
+package com.learnmate.service.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.LongPredicate;
+
+/**
+ * Typo-tolerant lookup of short texts. Each text is broken into character trigrams per
+ * word; a query gathers candidates sharing trigrams with it, keeps those containing enough
+ * of the query's trigrams and re-ranks the best of them by Jaccard similarity and by edit
+ * distance word against word.
+ * <p>
+ * Not thread-safe for writes; callers guard updates against concurrent searches.
+ */
+public class TrigramIndex {
+
+    // Share of the query's trigrams a text must contain to be considered at all; measured
+    // against the query alone so a typo still finds a long title
+    private static final double MIN_COVERAGE = 0.4;
+    private static final int RERANK_CANDIDATES = 100;
+
+    private final Map<String, IntList> postings = new HashMap<>();
+    private final Map<Long, Integer> ordinals = new HashMap<>();
+    private final List<Entry> entries = new ArrayList<>();
+    private int removed;
+
+    public void add(Long id, String text) {
+        remove(id);
+        List<String> words = MaterialSearchIndex.tokenize(text);
+        Set<String> trigrams = trigrams(words);
+        if (trigrams.isEmpty()) {
+            return;
+        }
+
+        int ordinal = entries.size();
+        entries.add(new Entry(id, words.toArray(String[]::new), trigrams.size()));
+        ordinals.put(id, ordinal);
+        for (String trigram : trigrams) {
+            postings.computeIfAbsent(trigram, key -> new IntList()).add(ordinal);
+        }
+    }
+
+    public void remove(Long id) {
+        Integer ordinal = ordinals.remove(id);
+        if (ordinal == null) {
+            return;
+        }
+        // Postings keep pointing at the slot until the next compaction; searches skip it
+        entries.set(ordinal, null);
+        if (++removed > 1024 && removed > entries.size() / 2) {
+            compact();
+        }
+    }
+
+    public void clear() {
+        postings.clear();
+        ordinals.clear();
+        entries.clear();
+        removed = 0;
+    }
+
+    public int size() {
+        return ordinals.size();
+    }
+
+    /**
+     * Ids of the closest texts, best first.
+     */
+    public List<Long> search(String query, int limit) {
+        return search(query, limit, id -> true);
+    }
+
+    /**
+     * Ids of the closest texts among those the filter accepts, best first. The filter is
+     * applied before the best candidates are picked, so a narrow filter still fills the limit.
+     */
+    public List<Long> search(String query, int limit, LongPredicate accept) {
+        List<String> queryWords = MaterialSearchIndex.tokenize(query);
+        Set<String> queryTrigrams = trigrams(queryWords);
+        if (queryTrigrams.isEmpty() || entries.isEmpty()) {
+            return List.of();
+        }
+
+        // Count shared trigrams per candidate; only touched slots are visited afterwards
+        int[] shared = new int[entries.size()];
+        IntList touched = new IntList();
+        for (String trigram : queryTrigrams) {
+            IntList posting = postings.get(trigram);
+            if (posting == null) {
+                continue;
+            }
+            for (int i = 0; i < posting.size; i++) {
+                int ordinal = posting.values[i];
+                if (shared[ordinal]++ == 0) {
+                    touched.add(ordinal);
+                }
+            }
+        }
+
+        // Keep only the best candidates by shared trigrams, then fewest trigrams (higher Jaccard),
+        // in a bounded min-heap of packed keys so popular trigrams cost no allocation per match
+        int minShared = (int) Math.ceil(MIN_COVERAGE * queryTrigrams.size());
+        long[] heap = new long[Math.max(RERANK_CANDIDATES, limit)];
+        int heapSize = 0;
+        for (int i = 0; i < touched.size; i++) {
+            int ordinal = touched.values[i];
+            Entry entry = entries.get(ordinal);
+            if (entry == null || shared[ordinal] < minShared || !accept.test(entry.id)) {
+                continue;
+            }
+            long key = ((long) Math.min(shared[ordinal], 0x7FF) << 52)
+                    | ((long) (0xFFFFF - Math.min(entry.trigramCount, 0xFFFFF)) << 32)
+                    | ordinal;
+            if (heapSize < heap.length) {
+                heap[heapSize] = key;
+                siftUp(heap, heapSize++);
+            } else if (key > heap[0]) {
+                heap[0] = key;
+                siftDown(heap, heapSize);
+            }
+        }
+
+        List<Candidate> reranked = new ArrayList<>(heapSize);
+        for (int i = 0; i < heapSize; i++) {
+            int ordinal = (int) heap[i];
+            Entry entry = entries.get(ordinal);
+            double jaccard = (double) shared[ordinal] / (queryTrigrams.size() + entry.trigramCount - shared[ordinal]);
+            // Closeness of the words matters most; Jaccard prefers texts with little else in them
+            reranked.add(new Candidate(entry, 0.7 * wordSimilarity(queryWords, entry.words) + 0.3 * jaccard));
+        }
+        reranked.sort((a, b) -> Double.compare(b.score(), a.score()));
+        return reranked.stream().limit(limit).map(candidate -> candidate.entry().id()).toList();
+    }
+
+    // Average over query words of how close the best matching text word is, from 0 to 1
+    private static double wordSimilarity(List<String> queryWords, String[] words) {
+        double total = 0;
+        for (String queryWord : queryWords) {
+            double best = 0;
+            for (String word : words) {
+                // A partially typed word should match the word it starts
+                String compared = word.length() > queryWord.length() + 2 ? word.substring(0, queryWord.length() + 2) : word;
+                int distance = levenshtein(queryWord, compared);
+                best = Math.max(best, 1 - (double) distance / Math.max(queryWord.length(), compared.length()));
+            }
+            total += best;
+        }
+        return total / queryWords.size();
+    }
+
+    static int levenshtein(String a, String b) {
+        int[] previous = new int[b.length() + 1];
+        int[] current = new int[b.length() + 1];
+        for (int j = 0; j <= b.length(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= a.length(); i++) {
+            current[0] = i;
+            for (int j = 1; j <= b.length(); j++) {
+                int substitution = previous[j - 1] + (a.charAt(i - 1) == b.charAt(j - 1) ? 0 : 1);
+                current[j] = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return previous[b.length()];
+    }
+
+    private static void siftUp(long[] heap, int index) {
+        while (index > 0) {
+            int parent = (index - 1) / 2;
+            if (heap[parent] <= heap[index]) {
+                return;
+            }
+            swap(heap, parent, index);
+            index = parent;
+        }
+    }
+
+    private static void siftDown(long[] heap, int size) {
+        int index = 0;
+        while (true) {
+            int smallest = index;
+            int left = 2 * index + 1;
+            int right = left + 1;
+            if (left < size && heap[left] < heap[smallest]) {
+                smallest = left;
+            }
+            if (right < size && heap[right] < heap[smallest]) {
+                smallest = right;
+            }
+            if (smallest == index) {
+                return;
+            }
+            swap(heap, smallest, index);
+            index = smallest;
+        }
+    }
+
+    private static void swap(long[] heap, int a, int b) {
+        long tmp = heap[a];
+        heap[a] = heap[b];
+        heap[b] = tmp;
+    }
+
+    private static Set<String> trigrams(List<String> words) {
+        Set<String> trigrams = new LinkedHashSet<>();
+        for (String word : words) {
+            // Padding lets short words and word starts/ends take part
+            String padded = "  " + word + " ";
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                trigrams.add(padded.substring(i, i + 3));
+            }
+        }
+        return trigrams;
+    }
+
+    private void compact() {
+        List<Entry> live = entries.stream().filter(entry -> entry != null).toList();
+        clear();
+        for (Entry entry : live) {
+            add(entry.id, String.join(" ", entry.words));
+        }
+    }
+
+    private record Entry(Long id, String[] words, int trigramCount) {
+    }
+
+    private record Candidate(Entry entry, double score) {
+    }
+
+    private static final class IntList {
+        private int[] values = new int[4];
+        private int size;
+
+        private void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+    }
+}
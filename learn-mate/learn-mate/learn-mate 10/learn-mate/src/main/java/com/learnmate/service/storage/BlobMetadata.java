@@ -0,0 +1,10 @@
+package com.learnmate.service.storage;
+
+import java.time.Instant;
+
+public record BlobMetadata(String key, long size, String contentType, Instant lastModified) {
+
+    public String fileName() {
+        return key.substring(key.lastIndexOf('/') + 1);
+    }
+}
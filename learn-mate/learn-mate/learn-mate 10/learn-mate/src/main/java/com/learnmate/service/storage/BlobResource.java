@@ -0,0 +1,138 @@
+package com.learnmate.service.storage;
+
+import org.springframework.core.io.AbstractResource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Spring {@link org.springframework.core.io.Resource} view of a stored blob, so controllers can
+ * return it as a response body. Range requests are served with a ranged read from the store:
+ * Spring skips to the start of the requested region before reading, and that skip is turned
+ * into {@link BlobStore#getRange} instead of reading and discarding the leading bytes.
+ * Gzip-compressed blobs are decompressed while streaming and cannot use ranged reads.
+ */
+public class BlobResource extends AbstractResource {
+    private final BlobStore blobStore;
+    private final BlobMetadata metadata;
+    private final long contentLength;
+    private final boolean gzipped;
+    private final String contentType;
+
+    public BlobResource(BlobStore blobStore, BlobMetadata metadata) {
+        this(blobStore, metadata, metadata.size(), false, metadata.contentType());
+    }
+
+    public BlobResource(BlobStore blobStore, BlobMetadata metadata, String contentType) {
+        this(blobStore, metadata, metadata.size(), false, contentType);
+    }
+
+    private BlobResource(BlobStore blobStore, BlobMetadata metadata, long contentLength, boolean gzipped, String contentType) {
+        this.blobStore = blobStore;
+        this.metadata = metadata;
+        this.contentLength = contentLength;
+        this.gzipped = gzipped;
+        this.contentType = contentType;
+    }
+
+    public static BlobResource gzipped(BlobStore blobStore, BlobMetadata metadata, long uncompressedSize, String contentType) {
+        return new BlobResource(blobStore, metadata, uncompressedSize, true, contentType);
+    }
+
+    // Content type of the original file, or null if unknown
+    public String getContentType() {
+        return contentType;
+    }
+
+    @Override
+    public InputStream getInputStream() {
+        return new LazyBlobInputStream();
+    }
+
+    @Override
+    public boolean exists() {
+        return true;
+    }
+
+    @Override
+    public long contentLength() {
+        return contentLength;
+    }
+
+    @Override
+    public long lastModified() {
+        return metadata.lastModified() != null ? metadata.lastModified().toEpochMilli() : 0L;
+    }
+
+    @Override
+    public String getFilename() {
+        return metadata.fileName();
+    }
+
+    @Override
+    public String getDescription() {
+        return "Blob [" + metadata.key() + "]";
+    }
+
+    private final class LazyBlobInputStream extends InputStream {
+        private InputStream delegate;
+        private long offset;
+
+        @Override
+        public long skip(long n) throws IOException {
+            if (delegate != null || gzipped) {
+                return open().skip(n);
+            }
+            long skipped = Math.max(0, Math.min(n, contentLength - offset));
+            offset += skipped;
+            return skipped;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return open().read();
+        }
+
+        @Override
+        public int read(byte[] buffer, int off, int len) throws IOException {
+            return open().read(buffer, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (delegate != null) {
+                delegate.close();
+            }
+        }
+
+        private InputStream open() {
+            if (delegate == null) {
+                if (gzipped) {
+                    delegate = gunzip(blobStore.get(metadata.key()));
+                } else if (offset == 0) {
+                    delegate = blobStore.get(metadata.key());
+                } else if (offset >= contentLength) {
+                    delegate = InputStream.nullInputStream();
+                } else {
+                    delegate = blobStore.getRange(metadata.key(), offset, contentLength - offset);
+                }
+            }
+            return delegate;
+        }
+
+        private InputStream gunzip(InputStream compressed) {
+            try {
+                return new GZIPInputStream(compressed, 64 * 1024);
+            } catch (IOException ex) {
+                try {
+                    compressed.close();
+                } catch (IOException ignored) {
+                    // already failing
+                }
+                throw new UncheckedIOException("Could not decompress blob " + metadata.key(), ex);
+            }
+        }
+    }
+}
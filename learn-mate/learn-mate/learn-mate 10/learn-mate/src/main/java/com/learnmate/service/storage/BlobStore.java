@@ -0,0 +1,57 @@
+package com.learnmate.service.storage;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Storage backend for uploaded files. Keys are '/'-separated paths such as
+ * {@code materials/1f0c...e2.pdf}; every application node pointing at the same
+ * store sees the same blobs.
+ */
+public interface BlobStore {
+
+    /**
+     * Stores a blob, replacing any existing blob with the same key. Readers never
+     * observe a partially written blob.
+     */
+    void put(String key, InputStream content, long contentLength, String contentType);
+
+    /**
+     * Opens the full content of a blob. Throws if the blob does not exist.
+     */
+    InputStream get(String key);
+
+    /**
+     * Opens {@code length} bytes of a blob starting at {@code offset}.
+     */
+    InputStream getRange(String key, long offset, long length);
+
+    Optional<BlobMetadata> stat(String key);
+
+    /**
+     * Removes a blob. Deleting a missing key is not an error.
+     */
+    void delete(String key);
+
+    /**
+     * Moves a blob to a new key. The moved blob's last-modified time is the time of the move.
+     */
+    void move(String sourceKey, String targetKey);
+
+    /**
+     * Lists every blob whose key starts with {@code prefix}, which should end with '/'.
+     * The returned stream must be closed.
+     */
+    Stream<BlobMetadata> list(String prefix);
+
+    /**
+     * Returns a time-limited URL that lets a client download the blob directly from the
+     * store, or empty if this backend cannot serve clients itself.
+     */
+    default Optional<URI> presignedGetUrl(String key, Duration ttl, String downloadFileName, String contentType) {
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,9 @@
+package com.learnmate.service.storage;
+
+import com.learnmate.service.FileStorageService;
+
+/**
+ * Published after an upload's bytes have been written to the blob store.
+ */
+public record FileStoredEvent(FileStorageService.FileType fileType, String fileName) {
+}
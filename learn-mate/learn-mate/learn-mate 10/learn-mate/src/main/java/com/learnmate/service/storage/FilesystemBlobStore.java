@@ -0,0 +1,198 @@
+package com.learnmate.service.storage;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+/**
+ * Stores blobs as files below a root directory, one sub-directory per key prefix.
+ * Several nodes can share it only through a shared mount.
+ */
+public class FilesystemBlobStore implements BlobStore {
+    private static final String TEMP_SUFFIX = ".part";
+
+    private final Path root;
+
+    public FilesystemBlobStore(Path root) {
+        this.root = root.toAbsolutePath().normalize();
+        try {
+            Files.createDirectories(this.root);
+        } catch (IOException ex) {
+            throw new RuntimeException("Could not create the directory where the uploaded files will be stored.", ex);
+        }
+    }
+
+    @Override
+    public void put(String key, InputStream content, long contentLength, String contentType) {
+        Path target = resolve(key);
+        Path tempFile = target.resolveSibling(target.getFileName() + "." + UUID.randomUUID() + TEMP_SUFFIX);
+        try {
+            Files.createDirectories(target.getParent());
+            Files.copy(content, tempFile);
+            Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException ex) {
+            throw new RuntimeException("Could not store blob " + key, ex);
+        } finally {
+            deleteQuietly(tempFile);
+        }
+    }
+
+    @Override
+    public InputStream get(String key) {
+        try {
+            return Files.newInputStream(resolve(key));
+        } catch (NoSuchFileException ex) {
+            throw new RuntimeException("Blob not found: " + key, ex);
+        } catch (IOException ex) {
+            throw new RuntimeException("Could not read blob " + key, ex);
+        }
+    }
+
+    @Override
+    public InputStream getRange(String key, long offset, long length) {
+        try {
+            SeekableByteChannel channel = Files.newByteChannel(resolve(key));
+            channel.position(offset);
+            return new BoundedInputStream(Channels.newInputStream(channel), length);
+        } catch (NoSuchFileException ex) {
+            throw new RuntimeException("Blob not found: " + key, ex);
+        } catch (IOException ex) {
+            throw new RuntimeException("Could not read blob " + key, ex);
+        }
+    }
+
+    @Override
+    public Optional<BlobMetadata> stat(String key) {
+        Path file = resolve(key);
+        try {
+            BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+            return attributes.isRegularFile() ? Optional.of(toMetadata(key, file, attributes)) : Optional.empty();
+        } catch (NoSuchFileException ex) {
+            return Optional.empty();
+        } catch (IOException ex) {
+            throw new RuntimeException("Could not read blob " + key, ex);
+        }
+    }
+
+    @Override
+    public void delete(String key) {
+        try {
+            Files.deleteIfExists(resolve(key));
+        } catch (IOException ex) {
+            throw new RuntimeException("Could not delete blob " + key, ex);
+        }
+    }
+
+    @Override
+    public void move(String sourceKey, String targetKey) {
+        Path target = resolve(targetKey);
+        try {
+            Files.createDirectories(target.getParent());
+            Files.move(resolve(sourceKey), target, StandardCopyOption.REPLACE_EXISTING);
+            Files.setLastModifiedTime(target, FileTime.from(Instant.now()));
+        } catch (IOException ex) {
+            throw new RuntimeException("Could not move blob " + sourceKey + " to " + targetKey, ex);
+        }
+    }
+
+    @Override
+    public Stream<BlobMetadata> list(String prefix) {
+        Path directory = resolve(prefix);
+        if (!Files.isDirectory(directory)) {
+            return Stream.empty();
+        }
+        try {
+            return Files.walk(directory)
+                    .filter(file -> !file.getFileName().toString().endsWith(TEMP_SUFFIX))
+                    .flatMap(file -> {
+                        String key = root.relativize(file).toString().replace(file.getFileSystem().getSeparator(), "/");
+                        return stat(key).stream();
+                    });
+        } catch (IOException ex) {
+            throw new RuntimeException("Could not list blobs under " + prefix, ex);
+        }
+    }
+
+    private Path resolve(String key) {
+        Path path = root.resolve(key).normalize();
+        if (!path.startsWith(root)) {
+            throw new IllegalArgumentException("Invalid blob key " + key);
+        }
+        return path;
+    }
+
+    private BlobMetadata toMetadata(String key, Path file, BasicFileAttributes attributes) {
+        String contentType = null;
+        try {
+            contentType = Files.probeContentType(file);
+        } catch (IOException ignored) {
+            // content type is informational only
+        }
+        return new BlobMetadata(key, attributes.size(), contentType, attributes.lastModifiedTime().toInstant());
+    }
+
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ignored) {
+            // best effort cleanup of a partial write
+        }
+    }
+
+    private static final class BoundedInputStream extends FilterInputStream {
+        private long remaining;
+
+        private BoundedInputStream(InputStream in, long limit) {
+            super(in);
+            this.remaining = limit;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int value = super.read();
+            if (value >= 0) {
+                remaining--;
+            }
+            return value;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            if (remaining <= 0) {
+                return -1;
+            }
+            int read = super.read(buffer, offset, (int) Math.min(length, remaining));
+            if (read > 0) {
+                remaining -= read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(Math.min(n, remaining));
+            remaining -= skipped;
+            return skipped;
+        }
+
+        @Override
+        public int available() throws IOException {
+            return (int) Math.min(super.available(), remaining);
+        }
+    }
+}
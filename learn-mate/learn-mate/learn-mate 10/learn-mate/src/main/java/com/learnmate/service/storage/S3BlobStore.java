@@ -0,0 +1,135 @@
+package com.learnmate.service.storage;
+
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.S3Exception;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/**
+ * Stores blobs in a bucket of an S3-compatible object store (AWS S3, MinIO, ...),
+ * so any number of application nodes can share them.
+ */
+public class S3BlobStore implements BlobStore, AutoCloseable {
+    private static final int NOT_FOUND = 404;
+
+    private final S3Client s3Client;
+    private final S3Presigner presigner;
+    private final String bucket;
+
+    public S3BlobStore(S3Client s3Client, S3Presigner presigner, String bucket) {
+        this.s3Client = s3Client;
+        this.presigner = presigner;
+        this.bucket = bucket;
+    }
+
+    @Override
+    public void put(String key, InputStream content, long contentLength, String contentType) {
+        try {
+            s3Client.putObject(request -> request.bucket(bucket).key(key).contentType(contentType),
+                    RequestBody.fromInputStream(content, contentLength));
+        } catch (S3Exception ex) {
+            throw new RuntimeException("Could not store blob " + key, ex);
+        }
+    }
+
+    @Override
+    public InputStream get(String key) {
+        try {
+            return s3Client.getObject(request -> request.bucket(bucket).key(key));
+        } catch (S3Exception ex) {
+            throw new RuntimeException(notFound(ex) ? "Blob not found: " + key : "Could not read blob " + key, ex);
+        }
+    }
+
+    @Override
+    public InputStream getRange(String key, long offset, long length) {
+        String range = "bytes=" + offset + "-" + (offset + length - 1);
+        try {
+            return s3Client.getObject(request -> request.bucket(bucket).key(key).range(range));
+        } catch (S3Exception ex) {
+            throw new RuntimeException(notFound(ex) ? "Blob not found: " + key : "Could not read blob " + key, ex);
+        }
+    }
+
+    @Override
+    public Optional<BlobMetadata> stat(String key) {
+        try {
+            HeadObjectResponse head = s3Client.headObject(request -> request.bucket(bucket).key(key));
+            return Optional.of(new BlobMetadata(key, head.contentLength(), head.contentType(), head.lastModified()));
+        } catch (S3Exception ex) {
+            if (notFound(ex)) {
+                return Optional.empty();
+            }
+            throw new RuntimeException("Could not read blob " + key, ex);
+        }
+    }
+
+    @Override
+    public void delete(String key) {
+        try {
+            s3Client.deleteObject(request -> request.bucket(bucket).key(key));
+        } catch (S3Exception ex) {
+            throw new RuntimeException("Could not delete blob " + key, ex);
+        }
+    }
+
+    @Override
+    public void move(String sourceKey, String targetKey) {
+        try {
+            // Server-side copy, the bytes never pass through this node
+            s3Client.copyObject(request -> request
+                    .sourceBucket(bucket).sourceKey(sourceKey)
+                    .destinationBucket(bucket).destinationKey(targetKey));
+            s3Client.deleteObject(request -> request.bucket(bucket).key(sourceKey));
+        } catch (S3Exception ex) {
+            throw new RuntimeException("Could not move blob " + sourceKey + " to " + targetKey, ex);
+        }
+    }
+
+    @Override
+    public Stream<BlobMetadata> list(String prefix) {
+        ListObjectsV2Request request = ListObjectsV2Request.builder().bucket(bucket).prefix(prefix).build();
+        return s3Client.listObjectsV2Paginator(request).contents().stream()
+                .map(object -> new BlobMetadata(object.key(), object.size(), null, object.lastModified()));
+    }
+
+    @Override
+    public Optional<URI> presignedGetUrl(String key, Duration ttl, String downloadFileName, String contentType) {
+        try {
+            URI url = presigner.presignGetObject(presign -> presign
+                    .signatureDuration(ttl)
+                    .getObjectRequest(request -> {
+                        request.bucket(bucket).key(key);
+                        if (downloadFileName != null) {
+                            request.responseContentDisposition("attachment; filename=\"" + downloadFileName + "\"");
+                        }
+                        if (contentType != null) {
+                            request.responseContentType(contentType);
+                        }
+                    }))
+                    .url().toURI();
+            return Optional.of(url);
+        } catch (URISyntaxException ex) {
+            throw new RuntimeException("Could not presign blob " + key, ex);
+        }
+    }
+
+    @Override
+    public void close() {
+        presigner.close();
+        s3Client.close();
+    }
+
+    private boolean notFound(S3Exception ex) {
+        return ex.statusCode() == NOT_FOUND;
+    }
+}
@@ -0,0 +1,38 @@
+package com.learnmate.service.strategy;
+
+import com.learnmate.model.Material;
+import com.learnmate.service.search.MaterialContentIndex;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Full-text search inside uploaded files, returning matches in relevance order.
+ */
+public class ContentMaterialSearchStrategy implements MaterialSearchStrategy {
+    private final MaterialContentIndex index;
+
+    public ContentMaterialSearchStrategy(MaterialContentIndex index) {
+        this.index = index;
+    }
+
+    @Override
+    public List<Material> search(List<Material> materials, String keyword) {
+        if (keyword == null || keyword.trim().isEmpty()) {
+            return materials;
+        }
+
+        List<Long> ranked = index.search(keyword, null, null,
+                materials.stream().map(Material::getId).toList());
+        Map<Long, Integer> rank = new HashMap<>();
+        for (int i = 0; i < ranked.size(); i++) {
+            rank.put(ranked.get(i), i);
+        }
+        return materials.stream()
+                .filter(material -> rank.containsKey(material.getId()))
+                .sorted(Comparator.comparing(material -> rank.get(material.getId())))
+                .toList();
+    }
+}
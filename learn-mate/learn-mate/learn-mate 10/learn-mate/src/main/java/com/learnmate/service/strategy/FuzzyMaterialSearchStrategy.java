@@ -0,0 +1,42 @@
+package com.learnmate.service.strategy;
+
+import com.learnmate.model.Material;
+import com.learnmate.service.search.MaterialSearchIndex;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Typo-tolerant search over titles and subject names, so "mathmatics" still finds
+ * Mathematics. Results come back closest match first.
+ */
+public class FuzzyMaterialSearchStrategy implements MaterialSearchStrategy {
+    private static final int MAX_RESULTS = 50;
+
+    private final MaterialSearchIndex index;
+
+    public FuzzyMaterialSearchStrategy(MaterialSearchIndex index) {
+        this.index = index;
+    }
+
+    @Override
+    public List<Material> search(List<Material> materials, String keyword) {
+        if (keyword == null || keyword.trim().isEmpty()) {
+            return materials;
+        }
+
+        // Ranked over the whole catalogue, so ask for enough to survive the caller's narrowing
+        List<Long> ranked = index.fuzzySearch(keyword, Math.max(MAX_RESULTS, materials.size()));
+        Map<Long, Integer> rank = new HashMap<>();
+        for (int i = 0; i < ranked.size(); i++) {
+            rank.put(ranked.get(i), i);
+        }
+        return materials.stream()
+                .filter(material -> rank.containsKey(material.getId()))
+                .sorted(Comparator.comparing(material -> rank.get(material.getId())))
+                .limit(MAX_RESULTS)
+                .toList();
+    }
+}
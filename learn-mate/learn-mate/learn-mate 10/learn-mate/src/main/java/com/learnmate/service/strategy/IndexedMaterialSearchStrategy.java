@@ -0,0 +1,31 @@
+package com.learnmate.service.strategy;
+
+import com.learnmate.model.Material;
+import com.learnmate.service.search.MaterialSearchIndex;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Keyword search over title, description, subject and class, answered from the
+ * {@link MaterialSearchIndex} instead of scanning each material's text.
+ */
+public class IndexedMaterialSearchStrategy implements MaterialSearchStrategy {
+    private final MaterialSearchIndex index;
+
+    public IndexedMaterialSearchStrategy(MaterialSearchIndex index) {
+        this.index = index;
+    }
+
+    @Override
+    public List<Material> search(List<Material> materials, String keyword) {
+        if (keyword == null || keyword.trim().isEmpty()) {
+            return materials;
+        }
+
+        Set<Long> matches = index.search(keyword);
+        return materials.stream()
+                .filter(material -> matches.contains(material.getId()))
+                .toList();
+    }
+}
@@ -0,0 +1,197 @@
+package com.learnmate.service.timetable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Half-open integer intervals {@code [start, end)} in an AVL tree ordered by start, with every
+ * node carrying the largest end in its subtree. Finding the intervals that overlap a range
+ * costs O(log n + k) for k matches; insertions and removals stay O(log n).
+ * <p>
+ * Each interval has a caller-supplied id that is unique within the tree. Not thread-safe.
+ */
+public class IntervalTree<T> {
+
+    private Node<T> root;
+    private int size;
+
+    public void insert(int start, int end, long id, T value) {
+        root = insert(root, new Node<>(start, end, id, value));
+        size++;
+    }
+
+    /**
+     * Removes the interval with this id; its start is needed to find it.
+     */
+    public boolean remove(int start, long id) {
+        int before = size;
+        root = remove(root, start, id);
+        return size < before;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Values of every interval overlapping {@code [start, end)}, in start order.
+     */
+    public List<T> overlapping(int start, int end) {
+        List<T> result = new ArrayList<>();
+        collect(root, start, end, result::add);
+        return result;
+    }
+
+    public void forEach(Consumer<T> action) {
+        inOrder(root, action);
+    }
+
+    private Node<T> insert(Node<T> node, Node<T> added) {
+        if (node == null) {
+            return added;
+        }
+        if (compare(added.start, added.id, node) < 0) {
+            node.left = insert(node.left, added);
+        } else {
+            node.right = insert(node.right, added);
+        }
+        return rebalance(node);
+    }
+
+    private Node<T> remove(Node<T> node, int start, long id) {
+        if (node == null) {
+            return null;
+        }
+        int order = compare(start, id, node);
+        if (order < 0) {
+            node.left = remove(node.left, start, id);
+        } else if (order > 0) {
+            node.right = remove(node.right, start, id);
+        } else {
+            size--;
+            if (node.left == null) {
+                return node.right;
+            }
+            if (node.right == null) {
+                return node.left;
+            }
+            // Replace with the in-order successor, unlinked from the right subtree
+            Node<T> successor = node.right;
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+            successor.right = removeMin(node.right);
+            successor.left = node.left;
+            node = successor;
+        }
+        return rebalance(node);
+    }
+
+    private Node<T> removeMin(Node<T> node) {
+        if (node.left == null) {
+            return node.right;
+        }
+        node.left = removeMin(node.left);
+        return rebalance(node);
+    }
+
+    private static <T> void collect(Node<T> node, int start, int end, Consumer<T> into) {
+        // Nothing below ends after the range starts
+        if (node == null || node.maxEnd <= start) {
+            return;
+        }
+        collect(node.left, start, end, into);
+        if (node.start < end && node.end > start) {
+            into.accept(node.value);
+        }
+        // Everything to the right starts at or after this node
+        if (node.start < end) {
+            collect(node.right, start, end, into);
+        }
+    }
+
+    private static <T> void inOrder(Node<T> node, Consumer<T> action) {
+        if (node != null) {
+            inOrder(node.left, action);
+            action.accept(node.value);
+            inOrder(node.right, action);
+        }
+    }
+
+    private static int compare(int start, long id, Node<?> node) {
+        int order = Integer.compare(start, node.start);
+        return order != 0 ? order : Long.compare(id, node.id);
+    }
+
+    private Node<T> rebalance(Node<T> node) {
+        update(node);
+        int balance = height(node.left) - height(node.right);
+        if (balance > 1) {
+            if (height(node.left.left) < height(node.left.right)) {
+                node.left = rotateLeft(node.left);
+            }
+            return rotateRight(node);
+        }
+        if (balance < -1) {
+            if (height(node.right.right) < height(node.right.left)) {
+                node.right = rotateRight(node.right);
+            }
+            return rotateLeft(node);
+        }
+        return node;
+    }
+
+    private Node<T> rotateRight(Node<T> node) {
+        Node<T> pivot = node.left;
+        node.left = pivot.right;
+        pivot.right = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private Node<T> rotateLeft(Node<T> node) {
+        Node<T> pivot = node.right;
+        node.right = pivot.left;
+        pivot.left = node;
+        update(node);
+        update(pivot);
+        return pivot;
+    }
+
+    private static void update(Node<?> node) {
+        node.height = 1 + Math.max(height(node.left), height(node.right));
+        int maxEnd = node.end;
+        if (node.left != null) {
+            maxEnd = Math.max(maxEnd, node.left.maxEnd);
+        }
+        if (node.right != null) {
+            maxEnd = Math.max(maxEnd, node.right.maxEnd);
+        }
+        node.maxEnd = maxEnd;
+    }
+
+    private static int height(Node<?> node) {
+        return node == null ? 0 : node.height;
+    }
+
+    private static final class Node<T> {
+        private final int start;
+        private final int end;
+        private final long id;
+        private final T value;
+        private int maxEnd;
+        private int height = 1;
+        private Node<T> left;
+        private Node<T> right;
+
+        private Node(int start, int end, long id, T value) {
+            this.start = start;
+            this.end = end;
+            this.id = id;
+            this.value = value;
+            this.maxEnd = end;
+        }
+    }
+}
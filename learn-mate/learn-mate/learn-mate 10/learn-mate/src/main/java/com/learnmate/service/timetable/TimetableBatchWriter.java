@@ -0,0 +1,62 @@
+package com.learnmate.service.timetable;
+
+import com.learnmate.model.Timetable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Time;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Writes a validated batch of lessons with JDBC batches in one transaction. Timetable ids are
+ * database identities, which stop Hibernate from batching inserts.
+ */
+@Component
+public class TimetableBatchWriter {
+
+    private static final String INSERT_SQL = "INSERT INTO timetables "
+            + "(school_class_id, teacher_id, subject_id, title, description, day, start_time, end_time, room) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Value("${timetable.import.batch-size:500}")
+    private int batchSize;
+
+    public TimetableBatchWriter(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Removes every lesson of the given classes, then inserts the new ones.
+     *
+     * @return the number of lessons removed
+     */
+    @Transactional
+    public int replace(Collection<Long> classIds, List<Timetable> lessons) {
+        int removed = 0;
+        if (!classIds.isEmpty()) {
+            List<Long> ids = new ArrayList<>(classIds);
+            String placeholders = String.join(",", Collections.nCopies(ids.size(), "?"));
+            removed = jdbcTemplate.update("DELETE FROM timetables WHERE school_class_id IN (" + placeholders + ")",
+                    ids.toArray());
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, lessons, batchSize, (statement, lesson) -> {
+            statement.setLong(1, lesson.getSchoolClass().getId());
+            statement.setLong(2, lesson.getTeacher().getId());
+            statement.setObject(3, lesson.getSubject() != null ? lesson.getSubject().getId() : null);
+            statement.setString(4, lesson.getTitle());
+            statement.setString(5, lesson.getDescription());
+            statement.setString(6, lesson.getDay().name());
+            statement.setTime(7, Time.valueOf(lesson.getStartTime()));
+            statement.setTime(8, Time.valueOf(lesson.getEndTime()));
+            statement.setString(9, lesson.getRoom());
+        });
+        return removed;
+    }
+}
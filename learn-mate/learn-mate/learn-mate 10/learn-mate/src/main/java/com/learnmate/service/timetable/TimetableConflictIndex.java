@@ -0,0 +1,257 @@
+package com.learnmate.service.timetable;
+
+import com.learnmate.dto.TimetableConflict;
+import com.learnmate.model.Timetable;
+import com.learnmate.repository.TimetableRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.time.DayOfWeek;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Every timetable slot in one interval tree per day for its class, its teacher and its room,
+ * so a new or moved lesson is checked against each of them in O(log n). Loaded from the
+ * database on first use and kept current by {@link com.learnmate.service.TimetableService}.
+ */
+@Component
+public class TimetableConflictIndex {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TimetableConflictIndex.class);
+
+    public enum Dimension {
+        CLASS, TEACHER, ROOM
+    }
+
+    private final TimetableRepository timetableRepository;
+
+    // dimension -> resource key -> day -> slots
+    private final Map<Dimension, Map<String, Map<DayOfWeek, IntervalTree<Entry>>>> trees = new EnumMap<>(Dimension.class);
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean loaded;
+
+    public TimetableConflictIndex(TimetableRepository timetableRepository) {
+        this.timetableRepository = timetableRepository;
+        for (Dimension dimension : Dimension.values()) {
+            trees.put(dimension, new HashMap<>());
+        }
+    }
+
+    /**
+     * A standalone index over the given lessons, for checking a batch of changes before any of
+     * them reach the shared one.
+     */
+    public static TimetableConflictIndex of(Collection<Timetable> timetables) {
+        TimetableConflictIndex index = new TimetableConflictIndex(null);
+        timetables.forEach(index::add);
+        index.loaded = true;
+        return index;
+    }
+
+    public void rebuild() {
+        List<Timetable> timetables = timetableRepository.findAll();
+        lock.writeLock().lock();
+        try {
+            trees.values().forEach(Map::clear);
+            entries.clear();
+            timetables.forEach(this::add);
+            loaded = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        LOGGER.info("Indexed {} timetable slots for conflict checks", entries.size());
+    }
+
+    /**
+     * Lessons the given one would overlap for its class, teacher or room, ignoring the
+     * lesson's own current slot when it is being moved.
+     */
+    public List<TimetableConflict> conflictsWith(Timetable timetable) {
+        Entry candidate = Entry.of(timetable);
+        if (candidate == null) {
+            return List.of();
+        }
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            List<TimetableConflict> conflicts = new ArrayList<>();
+            for (Dimension dimension : Dimension.values()) {
+                String key = candidate.key(dimension);
+                if (key == null) {
+                    continue;
+                }
+                IntervalTree<Entry> tree = trees.get(dimension).getOrDefault(key, Map.of()).get(candidate.day());
+                if (tree == null) {
+                    continue;
+                }
+                for (Entry other : tree.overlapping(candidate.start(), candidate.end())) {
+                    if (!other.slot().id().equals(candidate.slot().id())) {
+                        conflicts.add(new TimetableConflict(dimension, candidate.resource(dimension), candidate.day(),
+                                candidate.slot(), other.slot()));
+                    }
+                }
+            }
+            return conflicts;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Every pair of overlapping lessons in the school, once per class, teacher or room they
+     * share.
+     */
+    public List<TimetableConflict> findAllConflicts() {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            List<TimetableConflict> conflicts = new ArrayList<>();
+            for (Dimension dimension : Dimension.values()) {
+                for (Map<DayOfWeek, IntervalTree<Entry>> days : trees.get(dimension).values()) {
+                    for (Map.Entry<DayOfWeek, IntervalTree<Entry>> day : days.entrySet()) {
+                        // Sweep in start order, keeping the lessons that have not ended yet
+                        List<Entry> running = new ArrayList<>();
+                        day.getValue().forEach(entry -> {
+                            running.removeIf(earlier -> earlier.end() <= entry.start());
+                            for (Entry earlier : running) {
+                                conflicts.add(new TimetableConflict(dimension, entry.resource(dimension), day.getKey(),
+                                        earlier.slot(), entry.slot()));
+                            }
+                            running.add(entry);
+                        });
+                    }
+                }
+            }
+            return conflicts;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Adds or moves a saved lesson.
+     */
+    public void index(Timetable timetable) {
+        if (timetable.getId() == null || !loaded) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            removeEntry(timetable.getId());
+            add(timetable);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        if (!loaded) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            removeEntry(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void ensureLoaded() {
+        if (!loaded) {
+            synchronized (this) {
+                if (!loaded) {
+                    rebuild();
+                }
+            }
+        }
+    }
+
+    private void add(Timetable timetable) {
+        Entry entry = Entry.of(timetable);
+        if (entry == null || entry.slot().id() == null) {
+            return;
+        }
+        for (Dimension dimension : Dimension.values()) {
+            String key = entry.key(dimension);
+            if (key != null) {
+                trees.get(dimension).computeIfAbsent(key, ignored -> new EnumMap<>(DayOfWeek.class))
+                        .computeIfAbsent(entry.day(), ignored -> new IntervalTree<>())
+                        .insert(entry.start(), entry.end(), entry.slot().id(), entry);
+            }
+        }
+        entries.put(entry.slot().id(), entry);
+    }
+
+    private void removeEntry(Long id) {
+        Entry entry = entries.remove(id);
+        if (entry == null) {
+            return;
+        }
+        for (Dimension dimension : Dimension.values()) {
+            String key = entry.key(dimension);
+            if (key == null) {
+                continue;
+            }
+            Map<DayOfWeek, IntervalTree<Entry>> days = trees.get(dimension).get(key);
+            IntervalTree<Entry> tree = days != null ? days.get(entry.day()) : null;
+            if (tree != null) {
+                tree.remove(entry.start(), id);
+                if (tree.size() == 0) {
+                    days.remove(entry.day());
+                    if (days.isEmpty()) {
+                        trees.get(dimension).remove(key);
+                    }
+                }
+            }
+        }
+    }
+
+    private record Entry(TimetableConflict.Slot slot, DayOfWeek day, int start, int end,
+                         Long classId, Long teacherId, String roomKey) {
+
+        // Null for slots that cannot clash with anything: no day, or no positive duration
+        static Entry of(Timetable timetable) {
+            if (timetable.getDay() == null || timetable.getStartTime() == null || timetable.getEndTime() == null
+                    || !timetable.getEndTime().isAfter(timetable.getStartTime())) {
+                return null;
+            }
+            String room = timetable.getRoom() != null && !timetable.getRoom().isBlank() ? timetable.getRoom().trim() : null;
+            TimetableConflict.Slot slot = new TimetableConflict.Slot(timetable.getId(), timetable.getTitle(),
+                    timetable.getStartTime(), timetable.getEndTime(),
+                    timetable.getSchoolClass() != null ? timetable.getSchoolClass().getName() : null,
+                    timetable.getTeacher() != null ? timetable.getTeacher().getName() : null,
+                    room);
+            return new Entry(slot, timetable.getDay(),
+                    timetable.getStartTime().toSecondOfDay(), timetable.getEndTime().toSecondOfDay(),
+                    timetable.getSchoolClass() != null ? timetable.getSchoolClass().getId() : null,
+                    timetable.getTeacher() != null ? timetable.getTeacher().getId() : null,
+                    room != null ? room.toLowerCase(Locale.ROOT) : null);
+        }
+
+        String key(Dimension dimension) {
+            Object key = switch (dimension) {
+                case CLASS -> classId;
+                case TEACHER -> teacherId;
+                case ROOM -> roomKey;
+            };
+            return key != null ? key.toString() : null;
+        }
+
+        String resource(Dimension dimension) {
+            return switch (dimension) {
+                case CLASS -> slot.schoolClass();
+                case TEACHER -> slot.teacher();
+                case ROOM -> slot.room();
+            };
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.learnmate.service.timetable;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.learnmate.dto.TimetableGrid;
+import com.learnmate.model.Timetable;
+import com.learnmate.service.AfterCommit;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Built weekly grids per audience: a class with a student's subject set, a whole class, a
+ * teacher, or the whole school. Students of one class taking the same subjects share an
+ * entry. Keys carry a version that every timetable, subject, class or teacher change bumps.
+ */
+@Component
+public class TimetableGridCache {
+    static final List<String> DAYS = List.of("MONDAY", "TUESDAY", "WEDNESDAY", "THURSDAY", "FRIDAY");
+
+    private static final List<String> DEFAULT_SLOTS = List.of("08:00-09:00", "09:00-10:00", "10:00-11:00",
+            "11:00-12:00", "12:00-13:00", "13:00-14:00", "14:00-15:00");
+    private static final Comparator<Timetable> BY_START = Comparator.comparing(Timetable::getStartTime)
+            .thenComparing(Timetable::getId, Comparator.nullsLast(Comparator.naturalOrder()));
+
+    private final MeterRegistry meterRegistry;
+    private final AtomicLong version = new AtomicLong();
+
+    @Value("${timetable.grid-cache.max-entries:2000}")
+    private long maxEntries;
+
+    @Value("${timetable.grid-cache.expire-after-write:PT30M}")
+    private Duration expireAfterWrite;
+
+    private Cache<Key, TimetableGrid> cache;
+
+    public TimetableGridCache(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    void build() {
+        cache = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "timetableGrid");
+    }
+
+    /**
+     * A class's lessons in the given subjects; all of its lessons when subjects is null.
+     */
+    public Key forClass(Long classId, Collection<Long> subjectIds) {
+        return new Key(version.get(), Audience.CLASS, classId,
+                subjectIds == null ? null : Collections.unmodifiableSet(new TreeSet<>(subjectIds)));
+    }
+
+    public Key forTeacher(Long teacherId) {
+        return new Key(version.get(), Audience.TEACHER, teacherId, null);
+    }
+
+    public Key forSchool() {
+        return new Key(version.get(), Audience.SCHOOL, null, null);
+    }
+
+    public TimetableGrid get(Key key, Supplier<List<Timetable>> loader) {
+        return cache.get(key, ignored -> build(loader.get()));
+    }
+
+    // Inside a transaction this waits for its commit, so a grid is not rebuilt from the old state
+    public void invalidate() {
+        AfterCommit.run(version::incrementAndGet);
+    }
+
+    static TimetableGrid build(List<Timetable> timetables) {
+        List<Timetable> scheduled = new ArrayList<>();
+        List<TimetableGrid.Entry> entries = new ArrayList<>(timetables.size());
+        for (Timetable timetable : timetables) {
+            if (timetable.getDay() != null && DAYS.contains(timetable.getDay().name())
+                    && timetable.getStartTime() != null && timetable.getEndTime() != null) {
+                scheduled.add(timetable);
+            } else {
+                entries.add(entry(timetable));
+            }
+        }
+        scheduled.sort(BY_START);
+
+        Set<String> slots = new TreeSet<>();
+        Map<String, List<TimetableGrid.Entry>> cells = new LinkedHashMap<>();
+        MessageDigest digest = sha256();
+        for (Timetable timetable : scheduled) {
+            String slot = timetable.getStartTime() + "-" + timetable.getEndTime();
+            TimetableGrid.Entry entry = entry(timetable);
+            slots.add(slot);
+            cells.computeIfAbsent(timetable.getDay().name() + "|" + slot, key -> new ArrayList<>()).add(entry);
+            entries.add(entry);
+            digest.update((timetable.getDay() + "|" + slot + "|" + entry + "\n").getBytes(StandardCharsets.UTF_8));
+        }
+        cells.replaceAll((cell, lessons) -> List.copyOf(lessons));
+
+        // Unscheduled lessons only show up in the count, so that is all they add to the tag
+        digest.update(Integer.toString(entries.size()).getBytes(StandardCharsets.UTF_8));
+        String etag = HexFormat.of().formatHex(digest.digest(), 0, 16);
+        return new TimetableGrid(slots.isEmpty() ? DEFAULT_SLOTS : List.copyOf(slots), Collections.unmodifiableMap(cells),
+                List.copyOf(entries), etag);
+    }
+
+    private static TimetableGrid.Entry entry(Timetable timetable) {
+        return new TimetableGrid.Entry(timetable.getId(), timetable.getTitle(),
+                timetable.getSubject() != null ? timetable.getSubject().getName() : null,
+                timetable.getRoom(),
+                timetable.getTeacher() != null ? timetable.getTeacher().getName() : null,
+                timetable.getSchoolClass() != null ? timetable.getSchoolClass().getName() : null);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    public enum Audience {
+        CLASS, TEACHER, SCHOOL
+    }
+
+    public record Key(long version, Audience audience, Long id, Set<Long> subjectIds) {
+    }
+}
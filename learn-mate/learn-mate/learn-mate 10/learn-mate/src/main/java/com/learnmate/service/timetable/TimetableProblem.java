@@ -0,0 +1,33 @@
+package com.learnmate.service.timetable;
+
+import java.util.List;
+
+/**
+ * Input of {@link TimetableSolver}, with classes, subjects, teachers and rooms referred to by
+ * index so the search never touches entities.
+ *
+ * @param days           school days in the week
+ * @param periodsPerDay  lesson periods in each day
+ * @param classSizes     students per class
+ * @param roomCapacities seats per room
+ * @param teacherCount   number of teachers
+ * @param courses        what each class is taught, and by whom it may be taught
+ */
+public record TimetableProblem(int days, int periodsPerDay, int[] classSizes, int[] roomCapacities,
+                               int teacherCount, List<Course> courses) {
+
+    /**
+     * A subject taught to one class a number of times a week, at most once a day, by one of the
+     * qualified teachers.
+     */
+    public record Course(int schoolClass, int subject, int periodsPerWeek, int[] teachers) {
+    }
+
+    public int periods() {
+        return days * periodsPerDay;
+    }
+
+    public int lessonCount() {
+        return courses.stream().mapToInt(Course::periodsPerWeek).sum();
+    }
+}
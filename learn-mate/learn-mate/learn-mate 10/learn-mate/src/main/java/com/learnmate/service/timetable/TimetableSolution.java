@@ -0,0 +1,19 @@
+package com.learnmate.service.timetable;
+
+import java.util.List;
+
+/**
+ * Best weekly timetable a {@link TimetableSolver} run found.
+ *
+ * @param conflicts pairs of lessons still sharing a class, teacher or room in the same period,
+ *                  or a subject taught twice on one day; zero for a valid timetable
+ */
+public record TimetableSolution(int conflicts, long iterations, List<Lesson> lessons) {
+
+    public record Lesson(int course, int teacher, int day, int period, int room) {
+    }
+
+    public boolean isFeasible() {
+        return conflicts == 0;
+    }
+}
@@ -0,0 +1,452 @@
+package com.learnmate.service.timetable;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.IntStream;
+
+/**
+ * Builds a weekly timetable by tabu search. Every lesson is given a period and a room large
+ * enough for its class, and every course a qualified teacher; the search then keeps moving
+ * a clashing lesson to its least clashing period until nothing clashes or time runs out.
+ * <p>
+ * Each thread searches independently from its own random start and the first to reach a
+ * clash-free timetable stops the others, so more cores mean more chances rather than a
+ * split workload.
+ */
+public class TimetableSolver {
+    private static final Logger LOGGER = LoggerFactory.getLogger(TimetableSolver.class);
+
+    private static final long PROGRESS_INTERVAL = 1 << 16;
+    private static final double NOISE = 0.02;
+    private static final double TEACHER_MOVE = 0.1;
+
+    /**
+     * Snapshot of one search thread, reported every few ten thousand moves.
+     */
+    public record Progress(int worker, long iterations, int conflicts, int bestConflicts, int bestOverall,
+                           Duration elapsed) {
+    }
+
+    private final int threads;
+    private final Duration timeLimit;
+    private final long seed;
+
+    public TimetableSolver(int threads, Duration timeLimit, long seed) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("At least one search thread is needed");
+        }
+        this.threads = threads;
+        this.timeLimit = timeLimit;
+        this.seed = seed;
+    }
+
+    /**
+     * Searches until a clash-free timetable is found or the time limit passes, and returns the
+     * best one seen.
+     *
+     * @param progress called from the search threads, so it has to be thread-safe
+     */
+    public TimetableSolution solve(TimetableProblem problem, Consumer<Progress> progress) {
+        validate(problem);
+        long started = System.nanoTime();
+        long deadline = started + timeLimit.toNanos();
+        AtomicBoolean solved = new AtomicBoolean();
+        AtomicInteger bestOverall = new AtomicInteger(Integer.MAX_VALUE);
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<TimetableSolution>> workers = new ArrayList<>(threads);
+            for (int worker = 0; worker < threads; worker++) {
+                Search search = new Search(problem, worker, new SplittableRandom(seed + worker));
+                workers.add(executor.submit(() -> search.run(started, deadline, solved, bestOverall, progress)));
+            }
+
+            TimetableSolution best = null;
+            long iterations = 0;
+            for (Future<TimetableSolution> worker : workers) {
+                TimetableSolution solution = worker.get();
+                iterations += solution.iterations();
+                if (best == null || solution.conflicts() < best.conflicts()) {
+                    best = solution;
+                }
+            }
+            LOGGER.info("Timetable search finished with {} conflicts among {} lessons after {} moves on {} threads in {} ms",
+                    best.conflicts(), best.lessons().size(), iterations, threads,
+                    Duration.ofNanos(System.nanoTime() - started).toMillis());
+            return new TimetableSolution(best.conflicts(), iterations, best.lessons());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Timetable search was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Timetable search failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void validate(TimetableProblem problem) {
+        if (problem.periods() < 1) {
+            throw new IllegalArgumentException("The week has no lesson periods");
+        }
+        if (problem.roomCapacities().length == 0) {
+            throw new IllegalArgumentException("At least one room is needed");
+        }
+        for (TimetableProblem.Course course : problem.courses()) {
+            if (course.teachers().length == 0) {
+                throw new IllegalArgumentException("No teacher can take subject " + course.subject()
+                        + " for class " + course.schoolClass());
+            }
+        }
+    }
+
+    /**
+     * One thread's search state. Busy counters hold how many lessons use each class, teacher
+     * and room in each period, and each course on each day; the cost is the number of lesson
+     * pairs sharing any of those.
+     */
+    private static final class Search {
+        private final int worker;
+        private final SplittableRandom random;
+        private final int periods;
+        private final int days;
+        private final int periodsPerDay;
+        private final List<TimetableProblem.Course> courses;
+
+        private final int[] lessonCourse;
+        private final int[] lessonClass;
+        private final int[] courseStart;
+        // rooms each class fits in, smallest first so large rooms stay free for large classes
+        private final int[][] classRooms;
+
+        private final int[] period;
+        private final int[] room;
+        private final int[] courseTeacher;
+        private final int[] classBusy;
+        private final int[] teacherBusy;
+        private final int[] roomBusy;
+        private final int[] courseDay;
+        // lesson * periods + period -> iteration until which moving back there is tabu
+        private final long[] tabuUntil;
+
+        private int cost;
+        private long iteration;
+        private int bestCost = Integer.MAX_VALUE;
+        private long lastImprovement;
+        private int[] bestPeriod;
+        private int[] bestRoom;
+        private int[] bestTeacher;
+
+        private Search(TimetableProblem problem, int worker, SplittableRandom random) {
+            this.worker = worker;
+            this.random = random;
+            this.periods = problem.periods();
+            this.days = problem.days();
+            this.periodsPerDay = problem.periodsPerDay();
+            this.courses = problem.courses();
+
+            int lessons = problem.lessonCount();
+            lessonCourse = new int[lessons];
+            lessonClass = new int[lessons];
+            courseStart = new int[courses.size() + 1];
+            for (int c = 0, l = 0; c < courses.size(); c++) {
+                courseStart[c] = l;
+                for (int i = 0; i < courses.get(c).periodsPerWeek(); i++, l++) {
+                    lessonCourse[l] = c;
+                    lessonClass[l] = courses.get(c).schoolClass();
+                }
+                courseStart[c + 1] = l;
+            }
+            classRooms = fittingRooms(problem.classSizes(), problem.roomCapacities());
+
+            period = new int[lessons];
+            room = new int[lessons];
+            courseTeacher = new int[courses.size()];
+            classBusy = new int[problem.classSizes().length * periods];
+            teacherBusy = new int[problem.teacherCount() * periods];
+            roomBusy = new int[problem.roomCapacities().length * periods];
+            courseDay = new int[courses.size() * days];
+            tabuUntil = new long[lessons * periods];
+        }
+
+        private TimetableSolution run(long started, long deadline, AtomicBoolean solved, AtomicInteger bestOverall,
+                                      Consumer<Progress> progress) {
+            construct();
+            improved(bestOverall);
+            int stagnationLimit = Math.max(10_000, 20 * period.length);
+
+            while (cost > 0) {
+                if ((iteration & 1023) == 0 && (solved.get() || System.nanoTime() > deadline
+                        || Thread.currentThread().isInterrupted())) {
+                    break;
+                }
+                iteration++;
+
+                int lesson = pickClashing();
+                int course = lessonCourse[lesson];
+                if (courses.get(course).teachers().length > 1
+                        && teacherBusy[courseTeacher[course] * periods + period[lesson]] > 1
+                        && random.nextDouble() < TEACHER_MOVE) {
+                    reassignTeacher(course);
+                } else {
+                    move(lesson);
+                }
+
+                if (cost < bestCost) {
+                    improved(bestOverall);
+                } else if (iteration - lastImprovement > stagnationLimit) {
+                    kick();
+                    lastImprovement = iteration;
+                }
+                if (iteration % PROGRESS_INTERVAL == 0) {
+                    progress.accept(new Progress(worker, iteration, cost, bestCost, bestOverall.get(),
+                            Duration.ofNanos(System.nanoTime() - started)));
+                }
+            }
+            if (bestCost == 0) {
+                solved.set(true);
+            }
+            return toSolution();
+        }
+
+        // Balanced teachers first, then every lesson at its least clashing period in random order
+        private void construct() {
+            int[] load = new int[teacherBusy.length / periods];
+            Integer[] order = new Integer[courses.size()];
+            Arrays.setAll(order, i -> i);
+            Arrays.sort(order, Comparator.<Integer>comparingInt(c -> courses.get(c).teachers().length)
+                    .thenComparing(c -> -courses.get(c).periodsPerWeek()));
+            for (int c : order) {
+                int[] teachers = courses.get(c).teachers();
+                int chosen = -1;
+                int ties = 0;
+                for (int teacher : teachers) {
+                    if (chosen < 0 || load[teacher] < load[chosen]) {
+                        chosen = teacher;
+                        ties = 1;
+                    } else if (load[teacher] == load[chosen] && random.nextInt(++ties) == 0) {
+                        chosen = teacher;
+                    }
+                }
+                courseTeacher[c] = chosen;
+                load[chosen] += courses.get(c).periodsPerWeek();
+            }
+
+            int[] lessons = new int[period.length];
+            Arrays.setAll(lessons, i -> i);
+            for (int i = lessons.length - 1; i > 0; i--) {
+                int j = random.nextInt(i + 1);
+                int swap = lessons[i];
+                lessons[i] = lessons[j];
+                lessons[j] = swap;
+            }
+            for (int lesson : lessons) {
+                int best = -1;
+                int bestClash = Integer.MAX_VALUE;
+                int ties = 0;
+                for (int p = 0; p < periods; p++) {
+                    int clash = clash(lesson, p, freeRoom(lesson, p));
+                    if (clash < bestClash) {
+                        best = p;
+                        bestClash = clash;
+                        ties = 1;
+                    } else if (clash == bestClash && random.nextInt(++ties) == 0) {
+                        best = p;
+                    }
+                }
+                place(lesson, best, freeRoom(lesson, best));
+            }
+        }
+
+        private void move(int lesson) {
+            int from = period[lesson];
+            unplace(lesson);
+
+            int to = -1;
+            if (random.nextDouble() < NOISE) {
+                to = random.nextInt(periods);
+            } else {
+                int bestClash = Integer.MAX_VALUE;
+                int ties = 0;
+                for (int p = 0; p < periods; p++) {
+                    int clash = clash(lesson, p, freeRoom(lesson, p));
+                    // A tabu period is still taken when it beats the best timetable so far
+                    if (tabuUntil[lesson * periods + p] > iteration && cost + clash >= bestCost) {
+                        continue;
+                    }
+                    if (clash < bestClash) {
+                        to = p;
+                        bestClash = clash;
+                        ties = 1;
+                    } else if (clash == bestClash && random.nextInt(++ties) == 0) {
+                        to = p;
+                    }
+                }
+                if (to < 0) {
+                    to = from;
+                }
+            }
+            if (to != from) {
+                tabuUntil[lesson * periods + from] = iteration + 10 + random.nextInt(10);
+            }
+            place(lesson, to, freeRoom(lesson, to));
+        }
+
+        private void reassignTeacher(int course) {
+            int current = courseTeacher[course];
+            for (int l = courseStart[course]; l < courseStart[course + 1]; l++) {
+                int cell = current * periods + period[l];
+                teacherBusy[cell]--;
+                cost -= teacherBusy[cell];
+            }
+
+            int chosen = current;
+            int bestClash = Integer.MAX_VALUE;
+            int ties = 0;
+            for (int teacher : courses.get(course).teachers()) {
+                int clash = 0;
+                for (int l = courseStart[course]; l < courseStart[course + 1]; l++) {
+                    clash += teacherBusy[teacher * periods + period[l]];
+                }
+                if (clash < bestClash) {
+                    chosen = teacher;
+                    bestClash = clash;
+                    ties = 1;
+                } else if (clash == bestClash && random.nextInt(++ties) == 0) {
+                    chosen = teacher;
+                }
+            }
+
+            courseTeacher[course] = chosen;
+            for (int l = courseStart[course]; l < courseStart[course + 1]; l++) {
+                int cell = chosen * periods + period[l];
+                cost += teacherBusy[cell];
+                teacherBusy[cell]++;
+            }
+        }
+
+        // Scatter a few lessons to leave a plateau the tabu list cannot get out of
+        private void kick() {
+            for (int i = Math.max(1, period.length / 50); i > 0; i--) {
+                int lesson = random.nextInt(period.length);
+                int to = random.nextInt(periods);
+                unplace(lesson);
+                place(lesson, to, freeRoom(lesson, to));
+            }
+        }
+
+        private int pickClashing() {
+            int lessons = period.length;
+            int start = random.nextInt(lessons);
+            for (int i = 0; i < lessons; i++) {
+                int lesson = start + i < lessons ? start + i : start + i - lessons;
+                if (clashes(lesson)) {
+                    return lesson;
+                }
+            }
+            throw new IllegalStateException("Cost is " + cost + " but no lesson clashes");
+        }
+
+        private boolean clashes(int lesson) {
+            int p = period[lesson];
+            int course = lessonCourse[lesson];
+            return classBusy[lessonClass[lesson] * periods + p] > 1
+                    || teacherBusy[courseTeacher[course] * periods + p] > 1
+                    || roomBusy[room[lesson] * periods + p] > 1
+                    || courseDay[course * days + p / periodsPerDay] > 1;
+        }
+
+        // Lessons the given one would clash with at that period and room, itself not placed
+        private int clash(int lesson, int p, int r) {
+            int course = lessonCourse[lesson];
+            return classBusy[lessonClass[lesson] * periods + p]
+                    + teacherBusy[courseTeacher[course] * periods + p]
+                    + roomBusy[r * periods + p]
+                    + courseDay[course * days + p / periodsPerDay];
+        }
+
+        private int freeRoom(int lesson, int p) {
+            int[] rooms = classRooms[lessonClass[lesson]];
+            int best = rooms[0];
+            for (int r : rooms) {
+                int busy = roomBusy[r * periods + p];
+                if (busy == 0) {
+                    return r;
+                }
+                if (busy < roomBusy[best * periods + p]) {
+                    best = r;
+                }
+            }
+            return best;
+        }
+
+        private void place(int lesson, int p, int r) {
+            cost += clash(lesson, p, r);
+            period[lesson] = p;
+            room[lesson] = r;
+            int course = lessonCourse[lesson];
+            classBusy[lessonClass[lesson] * periods + p]++;
+            teacherBusy[courseTeacher[course] * periods + p]++;
+            roomBusy[r * periods + p]++;
+            courseDay[course * days + p / periodsPerDay]++;
+        }
+
+        private void unplace(int lesson) {
+            int p = period[lesson];
+            int course = lessonCourse[lesson];
+            classBusy[lessonClass[lesson] * periods + p]--;
+            teacherBusy[courseTeacher[course] * periods + p]--;
+            roomBusy[room[lesson] * periods + p]--;
+            courseDay[course * days + p / periodsPerDay]--;
+            cost -= clash(lesson, p, room[lesson]);
+        }
+
+        private void improved(AtomicInteger bestOverall) {
+            bestCost = cost;
+            lastImprovement = iteration;
+            bestPeriod = period.clone();
+            bestRoom = room.clone();
+            bestTeacher = courseTeacher.clone();
+            bestOverall.accumulateAndGet(cost, Math::min);
+        }
+
+        private TimetableSolution toSolution() {
+            List<TimetableSolution.Lesson> lessons = new ArrayList<>(bestPeriod.length);
+            for (int l = 0; l < bestPeriod.length; l++) {
+                lessons.add(new TimetableSolution.Lesson(lessonCourse[l], bestTeacher[lessonCourse[l]],
+                        bestPeriod[l] / periodsPerDay, bestPeriod[l] % periodsPerDay, bestRoom[l]));
+            }
+            return new TimetableSolution(bestCost, iteration, lessons);
+        }
+
+        private static int[][] fittingRooms(int[] classSizes, int[] roomCapacities) {
+            int[] bySize = IntStream.range(0, roomCapacities.length).boxed()
+                    .sorted(Comparator.comparingInt(r -> roomCapacities[r]))
+                    .mapToInt(Integer::intValue)
+                    .toArray();
+
+            int[][] rooms = new int[classSizes.length][];
+            for (int c = 0; c < classSizes.length; c++) {
+                int size = classSizes[c];
+                int[] fitting = Arrays.stream(bySize).filter(r -> roomCapacities[r] >= size).toArray();
+                // No room is big enough: fall back to the largest ones rather than fail
+                rooms[c] = fitting.length > 0 ? fitting
+                        : IntStream.range(0, bySize.length).map(i -> bySize[bySize.length - 1 - i]).toArray();
+            }
+            return rooms;
+        }
+    }
+}
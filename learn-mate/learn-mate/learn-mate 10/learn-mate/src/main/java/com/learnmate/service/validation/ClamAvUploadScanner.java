@@ -0,0 +1,79 @@
+package com.learnmate.service.validation;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+
+/**
+ * Scans uploads with a clamd daemon using its INSTREAM command, so the file never has
+ * to be on a disk clamd can see.
+ */
+@Component
+@ConditionalOnProperty(name = "upload.scanner", havingValue = "clamav")
+public class ClamAvUploadScanner implements UploadScanner {
+    private static final int CHUNK_SIZE = 64 * 1024;
+
+    private final String host;
+    private final int port;
+    private final Duration timeout;
+
+    public ClamAvUploadScanner(@Value("${upload.scanner.clamav.host:localhost}") String host,
+                               @Value("${upload.scanner.clamav.port:3310}") int port,
+                               @Value("${upload.scanner.clamav.timeout:PT30S}") Duration timeout) {
+        this.host = host;
+        this.port = port;
+        this.timeout = timeout;
+    }
+
+    @Override
+    public ScanResult scan(InputStream content) throws IOException {
+        try (Socket socket = new Socket()) {
+            socket.connect(new InetSocketAddress(host, port), (int) timeout.toMillis());
+            socket.setSoTimeout((int) timeout.toMillis());
+
+            DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+            out.write("zINSTREAM\0".getBytes(StandardCharsets.US_ASCII));
+            // Each chunk is prefixed with its length; a zero length ends the stream
+            byte[] buffer = new byte[CHUNK_SIZE];
+            int read;
+            while ((read = content.read(buffer)) > 0) {
+                out.writeInt(read);
+                out.write(buffer, 0, read);
+            }
+            out.writeInt(0);
+            out.flush();
+
+            return parseReply(readReply(socket.getInputStream()));
+        }
+    }
+
+    static ScanResult parseReply(String reply) throws IOException {
+        // "stream: OK", "stream: Eicar-Signature FOUND" or "INSTREAM size limit exceeded. ERROR"
+        if (reply.endsWith("OK")) {
+            return ScanResult.ok();
+        }
+        if (reply.endsWith("FOUND")) {
+            String signature = reply.substring(reply.indexOf(':') + 1, reply.length() - "FOUND".length()).trim();
+            return ScanResult.infected(signature);
+        }
+        throw new IOException("clamd could not scan the file: " + reply);
+    }
+
+    private String readReply(InputStream in) throws IOException {
+        ByteArrayOutputStream reply = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) > 0) {
+            reply.write(b);
+        }
+        return reply.toString(StandardCharsets.US_ASCII).trim();
+    }
+}
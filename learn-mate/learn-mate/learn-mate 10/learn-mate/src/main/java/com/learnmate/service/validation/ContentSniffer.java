@@ -0,0 +1,186 @@
+package com.learnmate.service.validation;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Identifies a file's real type from its leading bytes rather than trusting the
+ * client-supplied Content-Type or extension.
+ */
+public final class ContentSniffer {
+
+    // Enough for every signature below, and for a meaningful text/binary check
+    public static final int SNIFF_LENGTH = 8 * 1024;
+
+    public static final String PDF = "application/pdf";
+    public static final String OCTET_STREAM = "application/octet-stream";
+
+    private static final Set<String> EXECUTABLE_TYPES = Set.of(
+            "application/x-msdownload", "application/x-executable", "application/x-mach-binary",
+            "text/x-shellscript", "text/html");
+
+    private static final Map<String, String> ZIP_CONTAINERS = Map.of(
+            "docx", "application/vnd.openxmlformats-officedocument.wordprocessingml.document",
+            "xlsx", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet",
+            "pptx", "application/vnd.openxmlformats-officedocument.presentationml.presentation");
+
+    private static final Map<String, String> OLE_CONTAINERS = Map.of(
+            "doc", "application/msword",
+            "xls", "application/vnd.ms-excel",
+            "ppt", "application/vnd.ms-powerpoint");
+
+    // Extensions whose content type we can check against the sniffed one
+    private static final Map<String, Set<String>> EXTENSION_TYPES = Map.ofEntries(
+            Map.entry("pdf", Set.of(PDF)),
+            Map.entry("png", Set.of("image/png")),
+            Map.entry("jpg", Set.of("image/jpeg")),
+            Map.entry("jpeg", Set.of("image/jpeg")),
+            Map.entry("gif", Set.of("image/gif")),
+            Map.entry("webp", Set.of("image/webp")),
+            Map.entry("docx", Set.of(ZIP_CONTAINERS.get("docx"))),
+            Map.entry("xlsx", Set.of(ZIP_CONTAINERS.get("xlsx"))),
+            Map.entry("pptx", Set.of(ZIP_CONTAINERS.get("pptx"))),
+            Map.entry("doc", Set.of(OLE_CONTAINERS.get("doc"))),
+            Map.entry("xls", Set.of(OLE_CONTAINERS.get("xls"))),
+            Map.entry("ppt", Set.of(OLE_CONTAINERS.get("ppt"))),
+            Map.entry("zip", Set.of("application/zip")),
+            Map.entry("mp4", Set.of("video/mp4")),
+            Map.entry("mp3", Set.of("audio/mpeg")),
+            Map.entry("txt", Set.of("text/plain")),
+            Map.entry("csv", Set.of("text/plain")));
+
+    private ContentSniffer() {
+    }
+
+    public static String detect(byte[] head, String fileName) {
+        String extension = extension(fileName);
+
+        // PDF readers accept the header anywhere in the first 1024 bytes
+        if (indexOf(head, "%PDF-", 1024) >= 0) {
+            return PDF;
+        }
+        if (startsWith(head, 0, 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A)) {
+            return "image/png";
+        }
+        if (startsWith(head, 0, 0xFF, 0xD8, 0xFF)) {
+            return "image/jpeg";
+        }
+        if (startsWith(head, 0, "GIF87a") || startsWith(head, 0, "GIF89a")) {
+            return "image/gif";
+        }
+        if (startsWith(head, 0, "RIFF") && startsWith(head, 8, "WEBP")) {
+            return "image/webp";
+        }
+        if (startsWith(head, 0, 'P', 'K', 0x03, 0x04)) {
+            return ZIP_CONTAINERS.getOrDefault(extension, "application/zip");
+        }
+        if (startsWith(head, 0, 0xD0, 0xCF, 0x11, 0xE0, 0xA1, 0xB1, 0x1A, 0xE1)) {
+            return OLE_CONTAINERS.getOrDefault(extension, "application/x-ole-storage");
+        }
+        if (startsWith(head, 4, "ftyp")) {
+            return "video/mp4";
+        }
+        if (startsWith(head, 0, "ID3") || startsWith(head, 0, 0xFF, 0xFB)) {
+            return "audio/mpeg";
+        }
+        if (startsWith(head, 0, "MZ")) {
+            return "application/x-msdownload";
+        }
+        if (startsWith(head, 0, 0x7F, 'E', 'L', 'F')) {
+            return "application/x-executable";
+        }
+        if (startsWith(head, 0, 0xCA, 0xFE, 0xBA, 0xBE) || startsWith(head, 0, 0xCF, 0xFA, 0xED, 0xFE)
+                || startsWith(head, 0, 0xCE, 0xFA, 0xED, 0xFE)) {
+            return "application/x-mach-binary";
+        }
+        if (startsWith(head, 0, "#!")) {
+            return "text/x-shellscript";
+        }
+        if (isText(head)) {
+            String lower = new String(head, StandardCharsets.UTF_8).toLowerCase(Locale.ROOT);
+            return lower.contains("<html") || lower.contains("<script") || lower.contains("<svg")
+                    ? "text/html" : "text/plain";
+        }
+        return OCTET_STREAM;
+    }
+
+    /**
+     * Executables and markup a browser would run if the file were served inline.
+     */
+    public static boolean isExecutable(String contentType) {
+        return EXECUTABLE_TYPES.contains(contentType);
+    }
+
+    /**
+     * False when the file name claims a known type its content does not have,
+     * e.g. an executable renamed to {@code notes.pdf}.
+     */
+    public static boolean matchesExtension(String contentType, String fileName) {
+        Set<String> expected = EXTENSION_TYPES.get(extension(fileName));
+        return expected == null || expected.contains(contentType);
+    }
+
+    private static String extension(String fileName) {
+        if (fileName == null || fileName.lastIndexOf('.') < 0) {
+            return "";
+        }
+        return fileName.substring(fileName.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+    }
+
+    private static boolean isText(byte[] head) {
+        if (head.length == 0) {
+            return false;
+        }
+        for (byte b : head) {
+            if (b == 0) {
+                return false;
+            }
+        }
+        try {
+            // A multi-byte character cut off at the end of the sample is still text
+            StandardCharsets.UTF_8.newDecoder()
+                    .onMalformedInput(CodingErrorAction.REPORT)
+                    .onUnmappableCharacter(CodingErrorAction.REPORT)
+                    .decode(ByteBuffer.wrap(head, 0, Math.max(0, head.length - 3)));
+            return true;
+        } catch (CharacterCodingException ex) {
+            return false;
+        }
+    }
+
+    private static boolean startsWith(byte[] data, int offset, String signature) {
+        return startsWith(data, offset, signature.chars().toArray());
+    }
+
+    private static boolean startsWith(byte[] data, int offset, int... signature) {
+        if (data.length < offset + signature.length) {
+            return false;
+        }
+        for (int i = 0; i < signature.length; i++) {
+            if ((data[offset + i] & 0xFF) != signature[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int indexOf(byte[] data, String signature, int limit) {
+        byte[] needle = signature.getBytes(StandardCharsets.US_ASCII);
+        int end = Math.min(data.length, limit) - needle.length;
+        for (int i = 0; i <= end; i++) {
+            boolean match = true;
+            for (int j = 0; j < needle.length && match; j++) {
+                match = data[i + j] == needle[j];
+            }
+            if (match) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
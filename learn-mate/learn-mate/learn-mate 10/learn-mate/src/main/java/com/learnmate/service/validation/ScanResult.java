@@ -0,0 +1,15 @@
+package com.learnmate.service.validation;
+
+/**
+ * Outcome of a malware scan; {@code signature} names what was found when not clean.
+ */
+public record ScanResult(boolean clean, String signature) {
+
+    public static ScanResult ok() {
+        return new ScanResult(true, null);
+    }
+
+    public static ScanResult infected(String signature) {
+        return new ScanResult(false, signature);
+    }
+}
@@ -0,0 +1,48 @@
+package com.learnmate.service.validation;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Local stand-in for a real scanner, for development and tests. It only recognises the
+ * EICAR anti-virus test string, so the rejection path can be exercised without clamd.
+ */
+@Component
+@ConditionalOnProperty(name = "upload.scanner", havingValue = "stub", matchIfMissing = true)
+public class StubUploadScanner implements UploadScanner {
+    private static final byte[] EICAR = "EICAR-STANDARD-ANTIVIRUS-TEST-FILE".getBytes(StandardCharsets.US_ASCII);
+
+    @Override
+    public ScanResult scan(InputStream content) throws IOException {
+        byte[] buffer = new byte[64 * 1024];
+        // Keep the tail of the previous chunk so a match across a chunk boundary is not missed
+        int carried = 0;
+        int read;
+        while ((read = content.read(buffer, carried, buffer.length - carried)) > 0) {
+            int length = carried + read;
+            if (contains(buffer, length)) {
+                return ScanResult.infected("Eicar-Test-Signature");
+            }
+            carried = Math.min(EICAR.length - 1, length);
+            System.arraycopy(buffer, length - carried, buffer, 0, carried);
+        }
+        return ScanResult.ok();
+    }
+
+    private boolean contains(byte[] data, int length) {
+        outer:
+        for (int i = 0; i <= length - EICAR.length; i++) {
+            for (int j = 0; j < EICAR.length; j++) {
+                if (data[i + j] != EICAR[j]) {
+                    continue outer;
+                }
+            }
+            return true;
+        }
+        return false;
+    }
+}
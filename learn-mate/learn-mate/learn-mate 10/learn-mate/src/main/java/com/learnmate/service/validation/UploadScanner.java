@@ -0,0 +1,16 @@
+package com.learnmate.service.validation;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Malware scanner hook for uploaded files. Selected with {@code upload.scanner}.
+ */
+public interface UploadScanner {
+
+    /**
+     * Scans the full content. Throws {@link IOException} when the scanner itself is
+     * unavailable, so the file can be retried later instead of being rejected.
+     */
+    ScanResult scan(InputStream content) throws IOException;
+}
@@ -0,0 +1,106 @@
+package com.learnmate.controller;
+
+import com.learnmate.dto.TimetableGrid;
+import com.learnmate.model.Role;
+import com.learnmate.model.SchoolClass;
+import com.learnmate.model.Subject;
+import com.learnmate.model.User;
+import com.learnmate.service.FileStorageService;
+import com.learnmate.service.NotificationService;
+import com.learnmate.service.SchoolClassService;
+import com.learnmate.service.SubjectService;
+import com.learnmate.service.TimetableCsvService;
+import com.learnmate.service.TimetableService;
+import com.learnmate.service.UserService;
+import com.learnmate.service.calendar.CalendarFeedService;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(TimetableController.class)
+@AutoConfigureMockMvc(addFilters = false)
+class TimetableControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockitoBean
+    private TimetableService timetableService;
+    @MockitoBean
+    private UserService userService;
+    @MockitoBean
+    private FileStorageService fileStorageService;
+    @MockitoBean
+    private SchoolClassService schoolClassService;
+    @MockitoBean
+    private SubjectService subjectService;
+    @MockitoBean
+    private NotificationService notificationService;
+    @MockitoBean
+    private CalendarFeedService calendarFeedService;
+    @MockitoBean
+    private TimetableCsvService timetableCsvService;
+
+    @Test
+    @WithMockUser(username = "amara", roles = "STUDENT")
+    void weeklyViewAnswersNotModifiedWhileTheGridIsUnchanged() throws Exception {
+        SchoolClass schoolClass = new SchoolClass();
+        schoolClass.setId(7L);
+        schoolClass.setName("Grade 10");
+        Subject maths = new Subject();
+        maths.setId(1L);
+        maths.setName("Mathematics");
+        User student = new User();
+        student.setId(3L);
+        student.setUsername("amara");
+        student.setName("Amara");
+        student.setRole(Role.STUDENT);
+        student.setSchoolClass(schoolClass);
+        student.setSubjects(Set.of(maths));
+
+        TimetableGrid.Entry lesson = new TimetableGrid.Entry(11L, "Algebra", "Mathematics", "101", "Ms Smith", "Grade 10");
+        TimetableGrid grid = new TimetableGrid(List.of("08:00-09:00"), Map.of("MONDAY|08:00-09:00", List.of(lesson)),
+                List.of(lesson), "abc");
+        when(userService.getUserWithEnrollment("amara")).thenReturn(Optional.of(student));
+        when(schoolClassService.getSchoolClassOptions()).thenReturn(List.of(schoolClass));
+        when(timetableService.getStudentGrid(any(), any())).thenReturn(grid);
+
+        MockHttpSession session = new MockHttpSession();
+        MvcResult first = mockMvc.perform(MockMvcRequestBuilders.get("/timetables/weekly")
+                        .session(session))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn();
+        String etag = first.getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(MockMvcRequestBuilders.get("/timetables/weekly")
+                        .session(session)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+
+        TimetableGrid moved = new TimetableGrid(grid.timeSlots(), grid.cells(), grid.entries(), "def");
+        when(timetableService.getStudentGrid(any(), any())).thenReturn(moved);
+        mockMvc.perform(MockMvcRequestBuilders.get("/timetables/weekly")
+                        .session(session)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk());
+    }
+}
@@ -0,0 +1,144 @@
+package com.learnmate.repository;
+
+import com.learnmate.dto.MaterialListItem;
+import com.learnmate.model.Material;
+import com.learnmate.model.Role;
+import com.learnmate.model.SchoolClass;
+import com.learnmate.model.Subject;
+import com.learnmate.model.User;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.TestPropertySource;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@TestPropertySource(properties = {
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.globally_quoted_identifiers=true",
+        "spring.jpa.properties.jakarta.persistence.validation.mode=none"
+})
+class MaterialRepositoryTest {
+    private static final Pageable NEWEST_FIRST = PageRequest.of(0, 10,
+            Sort.by(Sort.Order.desc("uploadedAt"), Sort.Order.desc("id")));
+    private static final List<Long> ALL = List.of(-1L);
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private MaterialRepository materialRepository;
+
+    private SchoolClass grade10;
+    private SchoolClass grade11;
+    private Subject maths;
+    private Subject biology;
+    private User mathsTeacher;
+    private Material algebra;
+    private Material cells;
+    private Material geometry;
+
+    @BeforeEach
+    void setUp() {
+        grade10 = entityManager.persist(schoolClass("Grade 10"));
+        grade11 = entityManager.persist(schoolClass("Grade 11"));
+        maths = entityManager.persist(subject("Mathematics"));
+        biology = entityManager.persist(subject("Biology"));
+        mathsTeacher = entityManager.persist(teacher("maths"));
+        User biologyTeacher = entityManager.persist(teacher("biology"));
+
+        algebra = entityManager.persist(material("Algebra", maths, grade10, mathsTeacher, 1));
+        cells = entityManager.persist(material("Cells", biology, grade10, biologyTeacher, 2));
+        geometry = entityManager.persist(material("Geometry", maths, grade11, mathsTeacher, 3));
+        Material withdrawn = material("Old algebra", maths, grade10, mathsTeacher, 4);
+        withdrawn.setActive(false);
+        entityManager.persist(withdrawn);
+        entityManager.flush();
+    }
+
+    @Test
+    void studentsOnlySeeTheirClassAndEnrolledSubjects() {
+        assertThat(ids(materialRepository.findStudentListing(grade10.getId(), List.of(maths.getId()),
+                null, null, true, ALL, NEWEST_FIRST))).containsExactly(algebra.getId());
+        assertThat(ids(materialRepository.findStudentListing(grade10.getId(), List.of(maths.getId(), biology.getId()),
+                null, null, true, ALL, NEWEST_FIRST))).containsExactly(cells.getId(), algebra.getId());
+
+        // Filters narrow the scope but never widen it
+        assertThat(materialRepository.findStudentListing(grade10.getId(), List.of(maths.getId()),
+                null, grade11.getId(), true, ALL, NEWEST_FIRST)).isEmpty();
+        assertThat(materialRepository.findStudentListing(grade10.getId(), List.of(maths.getId()),
+                null, null, false, List.of(geometry.getId(), cells.getId()), NEWEST_FIRST)).isEmpty();
+    }
+
+    @Test
+    void teachersOnlySeeTheirOwnUploads() {
+        assertThat(ids(materialRepository.findTeacherListing(mathsTeacher.getId(), null, null, true, ALL, NEWEST_FIRST)))
+                .containsExactly(geometry.getId(), algebra.getId());
+        assertThat(ids(materialRepository.findTeacherListing(mathsTeacher.getId(), null, grade10.getId(), true, ALL,
+                NEWEST_FIRST))).containsExactly(algebra.getId());
+        assertThat(ids(materialRepository.findTeacherListing(mathsTeacher.getId(), null, null, false,
+                List.of(algebra.getId(), cells.getId()), Pageable.unpaged()))).containsExactly(algebra.getId());
+    }
+
+    @Test
+    void listingPagesAndCountsActiveMaterialsAsListRows() {
+        Page<MaterialListItem> firstPage = materialRepository.findListing(null, null, true, ALL,
+                PageRequest.of(0, 2, NEWEST_FIRST.getSort()));
+
+        assertThat(firstPage.getTotalElements()).isEqualTo(3);
+        assertThat(ids(firstPage)).containsExactly(geometry.getId(), cells.getId());
+        MaterialListItem row = firstPage.getContent().get(0);
+        assertThat(row.subjectName()).isEqualTo("Mathematics");
+        assertThat(row.className()).isEqualTo("Grade 11");
+        assertThat(row.teacherName()).isEqualTo("Teacher maths");
+
+        assertThat(ids(materialRepository.findListing(maths.getId(), null, false,
+                List.of(algebra.getId(), cells.getId()), NEWEST_FIRST))).containsExactly(algebra.getId());
+    }
+
+    private static List<Long> ids(Page<MaterialListItem> page) {
+        return page.getContent().stream().map(MaterialListItem::id).toList();
+    }
+
+    private static SchoolClass schoolClass(String name) {
+        SchoolClass schoolClass = new SchoolClass();
+        schoolClass.setName(name);
+        return schoolClass;
+    }
+
+    private static Subject subject(String name) {
+        Subject subject = new Subject();
+        subject.setName(name);
+        return subject;
+    }
+
+    private static User teacher(String username) {
+        User teacher = new User();
+        teacher.setUsername(username);
+        teacher.setEmail(username + "@school.test");
+        teacher.setPassword("secret");
+        teacher.setName("Teacher " + username);
+        teacher.setRole(Role.TEACHER);
+        return teacher;
+    }
+
+    private static Material material(String title, Subject subject, SchoolClass schoolClass, User teacher, int day) {
+        Material material = new Material();
+        material.setTitle(title);
+        material.setSubject(subject);
+        material.setSchoolClass(schoolClass);
+        material.setTeacher(teacher);
+        material.setUploadedAt(LocalDateTime.of(2025, 3, day, 9, 0));
+        return material;
+    }
+}
@@ -0,0 +1,84 @@
+package com.learnmate.service;
+
+import com.learnmate.dto.AdminMetrics;
+import com.learnmate.model.Role;
+import com.learnmate.repository.FeeRepository;
+import com.learnmate.repository.SchoolClassRepository;
+import com.learnmate.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AdminMetricsServiceTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final SchoolClassRepository schoolClassRepository = mock(SchoolClassRepository.class);
+    private final FeeRepository feeRepository = mock(FeeRepository.class);
+    private final AdminMetricsService service = new AdminMetricsService(userRepository, schoolClassRepository,
+            feeRepository, new SimpleMeterRegistry());
+    private final AtomicLong nanos = new AtomicLong();
+    private final Queue<Runnable> background = new ArrayDeque<>();
+
+    @BeforeEach
+    void build() {
+        ReflectionTestUtils.setField(service, "refreshAfter", Duration.ofSeconds(30));
+        ReflectionTestUtils.setField(service, "expireAfter", Duration.ofMinutes(10));
+        service.ticker = nanos::get;
+        service.executor = background::add;
+        service.build();
+        when(userRepository.countByRoleAndActive()).thenReturn(List.of(
+                new AdminMetrics.UserCount(Role.STUDENT, true, 120),
+                new AdminMetrics.UserCount(Role.STUDENT, false, 4),
+                new AdminMetrics.UserCount(Role.TEACHER, true, 25),
+                new AdminMetrics.UserCount(Role.ADMIN, true, 2)));
+        when(feeRepository.countByStatus()).thenReturn(List.of(
+                new AdminMetrics.FeeStatusCount("PAID", 300, 45_000),
+                new AdminMetrics.FeeStatusCount("PENDING", 6, 900),
+                new AdminMetrics.FeeStatusCount("PAID_PENDING", 2, 300)));
+        when(schoolClassRepository.count()).thenReturn(15L);
+    }
+
+    @Test
+    void countsComeFromTheGroupedQueries() {
+        AdminMetrics metrics = service.getMetrics();
+
+        assertThat(metrics.totalUsers()).isEqualTo(151);
+        assertThat(metrics.users(Role.STUDENT, true)).isEqualTo(120);
+        assertThat(metrics.users(Role.STUDENT)).isEqualTo(124);
+        assertThat(metrics.users(Role.PARENT)).isZero();
+        assertThat(metrics.classes()).isEqualTo(15);
+        assertThat(metrics.pendingFees()).isEqualTo(8);
+    }
+
+    @Test
+    void servesTheCachedCountsAndReloadsThemOnceStale() {
+        AdminMetrics first = service.getMetrics();
+        nanos.addAndGet(Duration.ofSeconds(20).toNanos());
+        assertThat(service.getMetrics()).isSameAs(first);
+        verify(schoolClassRepository, times(1)).count();
+
+        when(schoolClassRepository.count()).thenReturn(16L);
+        nanos.addAndGet(Duration.ofSeconds(20).toNanos());
+        // The stale value is returned at once while the reload runs in the background
+        assertThat(service.getMetrics().classes()).isEqualTo(15);
+        verify(schoolClassRepository, times(1)).count();
+        while (!background.isEmpty()) {
+            background.remove().run();
+        }
+        assertThat(service.getMetrics().classes()).isEqualTo(16);
+        verify(schoolClassRepository, times(2)).count();
+    }
+}
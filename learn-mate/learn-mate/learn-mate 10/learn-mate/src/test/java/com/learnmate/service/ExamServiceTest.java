@@ -0,0 +1,72 @@
+package com.learnmate.service;
+
+import com.learnmate.model.Exam;
+import com.learnmate.model.SchoolClass;
+import com.learnmate.repository.AnswerSheetRepository;
+import com.learnmate.repository.ExamRepository;
+import com.learnmate.repository.MarkRepository;
+import com.learnmate.service.calendar.CalendarFeedCache;
+import com.learnmate.service.dashboard.ParentDashboardCache;
+import com.learnmate.service.ranking.RankingService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ExamServiceTest {
+
+    private final ExamRepository examRepository = mock(ExamRepository.class);
+    private final ParentDashboardCache parentDashboardCache = mock(ParentDashboardCache.class);
+    private final StudentSummaryService studentSummaryService = mock(StudentSummaryService.class);
+    private final ExamService service = new ExamService(examRepository, mock(AnswerSheetRepository.class),
+            mock(MarkRepository.class), mock(FileStorageService.class), mock(PreviewService.class),
+            mock(CalendarFeedCache.class), parentDashboardCache, studentSummaryService,
+            mock(RankingService.class), mock(ExamStatisticsService.class));
+
+    @BeforeEach
+    void setUp() {
+        when(examRepository.save(any(Exam.class)))
+                .thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    @Test
+    void movingAnExamRecountsTheOldAndTheNewClassOnly() {
+        when(examRepository.findSchoolClassIdById(5L)).thenReturn(Optional.of(6L));
+
+        service.updateExam(exam(5L, 7L));
+
+        verify(studentSummaryService).classExamsChanged(6L);
+        verify(studentSummaryService).classExamsChanged(7L);
+        verify(studentSummaryService, times(2)).classExamsChanged(anyLong());
+        verify(parentDashboardCache).invalidateClass(6L);
+        verify(parentDashboardCache).invalidateClass(7L);
+        verify(parentDashboardCache, never()).invalidate();
+    }
+
+    @Test
+    void editingAnExamInPlaceRecountsItsClassOnce() {
+        when(examRepository.findSchoolClassIdById(5L)).thenReturn(Optional.of(7L));
+
+        service.updateExam(exam(5L, 7L));
+
+        verify(studentSummaryService, times(1)).classExamsChanged(anyLong());
+        verify(studentSummaryService).classExamsChanged(7L);
+    }
+
+    private static Exam exam(Long id, Long classId) {
+        SchoolClass schoolClass = new SchoolClass();
+        schoolClass.setId(classId);
+        Exam exam = new Exam();
+        exam.setId(id);
+        exam.setSchoolClass(schoolClass);
+        return exam;
+    }
+}
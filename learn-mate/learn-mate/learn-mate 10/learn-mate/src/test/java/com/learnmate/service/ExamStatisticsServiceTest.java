@@ -0,0 +1,134 @@
+package com.learnmate.service;
+
+import com.learnmate.dto.ScoreCount;
+import com.learnmate.model.Exam;
+import com.learnmate.model.ExamStatistics;
+import com.learnmate.repository.ExamRepository;
+import com.learnmate.repository.ExamStatisticsRepository;
+import com.learnmate.repository.MarkRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ExamStatisticsServiceTest {
+
+    private final ExamStatisticsRepository examStatisticsRepository = mock(ExamStatisticsRepository.class);
+    private final MarkRepository markRepository = mock(MarkRepository.class);
+    private final ExamRepository examRepository = mock(ExamRepository.class);
+    private final ExamStatisticsService service = new ExamStatisticsService(examStatisticsRepository, markRepository,
+            examRepository, new TransactionTemplate(mock(PlatformTransactionManager.class)));
+    private final Exam exam = new Exam();
+
+    @BeforeEach
+    void setUp() {
+        exam.setId(5L);
+        exam.setPassMark(50);
+    }
+
+    @Test
+    void summarisesScoresFromTheRunningTotals() {
+        ExamStatistics statistics = new ExamStatistics(5L, 50);
+        for (int score : new int[]{40, 55, 70, 70, 90, 100}) {
+            statistics.add(score);
+        }
+
+        assertThat(statistics.getMarkCount()).isEqualTo(6);
+        assertThat(statistics.getMean()).isCloseTo(70.833, within(0.001));
+        assertThat(statistics.getStandardDeviation()).isCloseTo(20.0866, within(0.001));
+        assertThat(statistics.getMedian()).isEqualTo(70.0);
+        assertThat(statistics.getLowerQuartile()).isEqualTo(55);
+        assertThat(statistics.getUpperQuartile()).isEqualTo(90);
+        assertThat(statistics.getLowest()).isEqualTo(40);
+        assertThat(statistics.getHighest()).isEqualTo(100);
+        assertThat(statistics.getPassCount()).isEqualTo(5);
+        assertThat(statistics.getBands()).containsExactly(0, 0, 0, 0, 1, 1, 0, 2, 0, 2);
+    }
+
+    @Test
+    void recountsPassesFromTheHistogramWhenThePassMarkChanges() {
+        ExamStatistics statistics = new ExamStatistics(5L, 50);
+        statistics.add(45);
+        statistics.add(65);
+        statistics.add(80);
+
+        statistics.applyPassMark(70);
+
+        assertThat(statistics.getPassCount()).isEqualTo(1);
+        assertThat(statistics.getPassRate()).isCloseTo(33.33, within(0.01));
+    }
+
+    @Test
+    void movesAChangedScoreWithoutReadingOtherMarks() {
+        ExamStatistics statistics = new ExamStatistics(5L, 50);
+        statistics.add(40);
+        statistics.add(80);
+        when(examStatisticsRepository.findForUpdate(5L)).thenReturn(Optional.of(statistics));
+
+        service.markChanged(5L, 40, exam, 60);
+
+        assertThat(statistics.getMean()).isEqualTo(70.0);
+        assertThat(statistics.getPassCount()).isEqualTo(2);
+        assertThat(statistics.getHistogram()[40]).isZero();
+        verify(markRepository, never()).countScoresByExam(any());
+    }
+
+    @Test
+    void countsAnExamWithoutStatisticsOnFirstRead() {
+        when(examStatisticsRepository.findById(5L)).thenReturn(Optional.empty());
+        when(markRepository.countScoresByExam(5L)).thenReturn(List.of(new ScoreCount(30, 1), new ScoreCount(75, 3)));
+        when(examStatisticsRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        ExamStatistics statistics = service.getStatistics(exam);
+
+        assertThat(statistics.getMarkCount()).isEqualTo(4);
+        assertThat(statistics.getPassCount()).isEqualTo(3);
+        assertThat(statistics.getMedian()).isEqualTo(75.0);
+    }
+
+    @Test
+    void nightlyRecountCorrectsDriftedTotals() {
+        // Two concurrent edits of the same mark both took out its old score
+        ExamStatistics drifted = new ExamStatistics(5L, 50);
+        drifted.add(90);
+        Exam uncounted = new Exam();
+        uncounted.setId(6L);
+        when(examRepository.findAll()).thenReturn(List.of(exam, uncounted));
+        when(examStatisticsRepository.findForUpdate(5L)).thenReturn(Optional.of(drifted));
+        when(examStatisticsRepository.findForUpdate(6L)).thenReturn(Optional.empty());
+        when(markRepository.countScoresByExam(5L)).thenReturn(List.of(new ScoreCount(60, 1), new ScoreCount(90, 1)));
+
+        service.recountAll();
+
+        ArgumentCaptor<ExamStatistics> saved = ArgumentCaptor.forClass(ExamStatistics.class);
+        verify(examStatisticsRepository).save(saved.capture());
+        assertThat(saved.getValue().getExamId()).isEqualTo(5L);
+        assertThat(saved.getValue().getMarkCount()).isEqualTo(2);
+        assertThat(saved.getValue().getMean()).isEqualTo(75.0);
+        // Exams without statistics are still counted lazily on first read
+        verify(markRepository, never()).countScoresByExam(6L);
+    }
+
+    @Test
+    void ignoresScoresNotCountedForTheExam() {
+        ExamStatistics statistics = new ExamStatistics(5L, 50);
+        statistics.add(70);
+
+        statistics.remove(20);
+
+        assertThat(statistics.getMarkCount()).isEqualTo(1);
+        assertThat(statistics.getScoreSum()).isEqualTo(70);
+    }
+}
@@ -0,0 +1,83 @@
+package com.learnmate.service;
+
+import com.learnmate.model.StoredFile;
+import com.learnmate.repository.StoredFileRepository;
+import com.learnmate.service.storage.FilesystemBlobStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class FileStorageServiceTest {
+
+    @TempDir
+    Path root;
+
+    private final StoredFileRepository storedFileRepository = mock(StoredFileRepository.class);
+    private FileStorageService fileStorageService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        fileStorageService = new FileStorageService(new FilesystemBlobStore(root), storedFileRepository,
+                mock(ApplicationEventPublisher.class));
+        ReflectionTestUtils.setField(fileStorageService, "presignedDownloads", true);
+        Files.createDirectories(root.resolve("materials"));
+        Files.writeString(root.resolve("materials/notes.pdf"), "data");
+    }
+
+    @Test
+    void downloadsRecordAccessOnExistingRows() {
+        StoredFile storedFile = storedFile("notes.pdf", LocalDateTime.now().minusDays(3));
+
+        assertThat(fileStorageService.loadAsResource("notes.pdf", FileStorageService.FileType.MATERIAL)).isPresent();
+
+        assertThat(storedFile.getLastAccessedAt()).isAfter(LocalDateTime.now().minusMinutes(1));
+        verify(storedFileRepository).save(storedFile);
+    }
+
+    @Test
+    void unknownOrMissingFilesNeverCreateRows() {
+        storedFile("gone.pdf", LocalDateTime.now().minusDays(3));
+
+        assertThat(fileStorageService.loadAsResource("made-up.pdf", FileStorageService.FileType.MATERIAL)).isEmpty();
+        assertThat(fileStorageService.loadAsResource("gone.pdf", FileStorageService.FileType.MATERIAL)).isEmpty();
+        fileStorageService.presignedDownloadUrl("made-up.pdf", FileStorageService.FileType.MATERIAL, "x.pdf", null);
+        fileStorageService.presignedDownloadUrl("gone.pdf", FileStorageService.FileType.MATERIAL, "x.pdf", null);
+
+        verify(storedFileRepository, never()).save(any());
+    }
+
+    @Test
+    void backgroundReadsDoNotCountAsAccess() throws IOException {
+        storedFile("notes.pdf", LocalDateTime.now().minusDays(3));
+
+        try (InputStream in = fileStorageService.openFile("notes.pdf", FileStorageService.FileType.MATERIAL)) {
+            assertThat(in.readAllBytes()).hasSize(4);
+        }
+
+        verify(storedFileRepository, never()).save(any());
+    }
+
+    private StoredFile storedFile(String fileName, LocalDateTime lastAccessedAt) {
+        StoredFile storedFile = new StoredFile(FileStorageService.FileType.MATERIAL, fileName);
+        storedFile.setLastAccessedAt(lastAccessedAt);
+        when(storedFileRepository.findByFileTypeAndFileName(FileStorageService.FileType.MATERIAL, fileName))
+                .thenReturn(Optional.of(storedFile));
+        return storedFile;
+    }
+}
@@ -0,0 +1,103 @@
+package com.learnmate.service;
+
+import com.learnmate.model.Material;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class MaterialPopularityServiceTest {
+
+    @Test
+    void concurrentDownloadsAreFlushedAsOneBatchOfDeltas() throws InterruptedException {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        // Another node has counted 150 more downloads of the notes in the meantime
+        when(jdbcTemplate.query(startsWith("SELECT id, download_count"), any(RowMapper.class), any(Object[].class)))
+                .thenReturn(List.of(Map.entry(1L, 900L), Map.entry(2L, 250L)));
+        ApplicationEventPublisher publisher = mock(ApplicationEventPublisher.class);
+        MaterialPopularityService popularity = new MaterialPopularityService(jdbcTemplate, publisher);
+        Material notes = material(1L, "notes.pdf");
+        Material slides = material(2L, "slides.pdf");
+
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        for (int i = 0; i < 1000; i++) {
+            Material material = i % 4 == 0 ? slides : notes;
+            pool.execute(() -> popularity.recordDownload(material));
+        }
+        pool.shutdown();
+        assertThat(pool.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(popularity.getDownloads(1L)).isEqualTo(750);
+        assertThat(popularity.getDownloadsOfFile("slides.pdf")).isEqualTo(250);
+
+        popularity.flush();
+        verify(jdbcTemplate).batchUpdate(anyString(), argThat((List<Object[]> rows) -> rows.size() == 2
+                && rows.stream().mapToLong(row -> (Long) row[0]).sum() == 1000));
+        verify(publisher).publishEvent(new MaterialDownloadsFlushedEvent(Set.of(1L, 2L)));
+        assertThat(popularity.getDownloads(1L)).isEqualTo(900);
+        assertThat(popularity.getDownloadsOfFile("slides.pdf")).isEqualTo(250);
+
+        // Nothing new to write
+        JdbcTemplate idle = mock(JdbcTemplate.class);
+        MaterialPopularityService quiet = new MaterialPopularityService(idle, publisher);
+        quiet.flush();
+        verifyNoInteractions(idle);
+    }
+
+    @Test
+    void failedFlushKeepsTheDeltasForTheNextRun() {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenThrow(new DataAccessResourceFailureException("down"));
+        MaterialPopularityService popularity = new MaterialPopularityService(jdbcTemplate, mock(ApplicationEventPublisher.class));
+        popularity.recordDownload(material(3L, "worksheet.docx"));
+        popularity.recordDownload(material(3L, "worksheet.docx"));
+
+        popularity.flush();
+        popularity.flush();
+
+        assertThat(popularity.getDownloads(3L)).isEqualTo(2);
+        verify(jdbcTemplate, times(2)).batchUpdate(
+                eq("UPDATE materials SET download_count = download_count + ? WHERE id = ?"),
+                argThat((List<Object[]> rows) -> rows.size() == 1 && (Long) rows.get(0)[0] == 2L));
+    }
+
+    @Test
+    void flushedDeltasAreCountedLocallyWhenTheTotalsCannotBeReRead() {
+        JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+        when(jdbcTemplate.query(startsWith("SELECT id, download_count"), any(RowMapper.class), any(Object[].class)))
+                .thenThrow(new DataAccessResourceFailureException("down"));
+        MaterialPopularityService popularity = new MaterialPopularityService(jdbcTemplate, mock(ApplicationEventPublisher.class));
+        popularity.recordDownload(material(4L, "essay.pdf"));
+
+        popularity.flush();
+
+        assertThat(popularity.getDownloads(4L)).isEqualTo(1);
+    }
+
+    private static Material material(Long id, String fileName) {
+        Material material = new Material();
+        material.setId(id);
+        material.setFileName(fileName);
+        return material;
+    }
+}
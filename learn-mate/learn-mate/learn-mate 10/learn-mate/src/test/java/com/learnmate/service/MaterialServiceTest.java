@@ -0,0 +1,187 @@
+package com.learnmate.service;
+
+import com.learnmate.dto.MaterialListItem;
+import com.learnmate.model.Material;
+import com.learnmate.model.Role;
+import com.learnmate.model.SchoolClass;
+import com.learnmate.model.Subject;
+import com.learnmate.model.User;
+import com.learnmate.repository.MaterialRepository;
+import com.learnmate.service.search.MaterialContentIndex;
+import com.learnmate.service.search.MaterialFacetIndex;
+import com.learnmate.service.search.MaterialSearchCache;
+import com.learnmate.service.search.MaterialSearchIndex;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class MaterialServiceTest {
+
+    private final MaterialRepository materialRepository = mock(MaterialRepository.class);
+    private final MaterialPopularityService popularityService = mock(MaterialPopularityService.class);
+    private final MaterialContentIndex contentIndex = mock(MaterialContentIndex.class);
+    private final MaterialSearchIndex searchIndex = new MaterialSearchIndex(materialRepository, popularityService);
+    private final MaterialSearchCache searchCache = new MaterialSearchCache(new SimpleMeterRegistry());
+    private final MaterialService service = new MaterialService(materialRepository, mock(FileStorageService.class),
+            mock(PreviewService.class), searchIndex, contentIndex, searchCache);
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(searchCache, "maxEntries", 100L);
+        ReflectionTestUtils.setField(searchCache, "expireAfterWrite", Duration.ofMinutes(1));
+        ReflectionTestUtils.invokeMethod(searchCache, "build");
+
+        // The listing queries return the requested rows in no particular order, as SQL would
+        when(materialRepository.findListing(any(), any(), anyBoolean(), anyCollection(), any()))
+                .thenAnswer(call -> rows(call.getArgument(3)));
+        when(materialRepository.findTeacherListing(any(), any(), any(), anyBoolean(), anyCollection(), any()))
+                .thenAnswer(call -> rows(call.getArgument(4)));
+        when(materialRepository.findStudentListing(any(), anyCollection(), any(), any(), anyBoolean(), anyCollection(), any()))
+                .thenAnswer(call -> rows(call.getArgument(5)));
+    }
+
+    @Test
+    void keywordResultsArePagedMostDownloadedFirstQueryingOnlyThePageShown() {
+        for (long id = 1; id <= 5; id++) {
+            searchIndex.index(material(id, "Algebra worksheet " + id, 1L, 1L, 1L));
+        }
+        when(popularityService.getDownloads(3L)).thenReturn(50L);
+        when(popularityService.getDownloads(1L)).thenReturn(20L);
+        User admin = user(9L, Role.ADMIN);
+
+        Page<MaterialListItem> first = service.listMaterials(admin, "algebra", "keyword", null, null, 0, 2);
+        Page<MaterialListItem> second = service.listMaterials(admin, "algebra", "keyword", null, null, 1, 2);
+        Page<MaterialListItem> last = service.listMaterials(admin, "algebra", "keyword", null, null, 2, 2);
+
+        assertThat(ids(first)).containsExactly(3L, 1L);
+        assertThat(ids(second)).containsExactly(5L, 4L);
+        assertThat(ids(last)).containsExactly(2L);
+        assertThat(first.getTotalElements()).isEqualTo(5);
+        assertThat(first.getTotalPages()).isEqualTo(3);
+        ArgumentCaptor<Collection<Long>> queried = idCaptor();
+        verify(materialRepository, times(3))
+                .findListing(any(), any(), eq(false), queried.capture(), any());
+        assertThat(queried.getAllValues()).allSatisfy(ids -> assertThat(ids).hasSizeLessThanOrEqualTo(2));
+    }
+
+    @Test
+    void studentsSearchOnlyTheirClassAndSubjects() {
+        searchIndex.index(material(1L, "Algebra basics", 10L, 1L, 7L));
+        searchIndex.index(material(2L, "Algebra basics", 11L, 1L, 7L));
+        searchIndex.index(material(3L, "Algebra basics", 10L, 2L, 7L));
+        User student = student(10L, 1L);
+
+        Page<MaterialListItem> page = service.listMaterials(student, "algebra", "keyword", null, null, 0, 10);
+
+        assertThat(ids(page)).containsExactly(1L);
+        assertThat(page.getTotalElements()).isEqualTo(1);
+        // A filter outside the student's scope matches nothing rather than widening it
+        assertThat(service.listMaterials(student, "algebra", "keyword", null, 11L, 0, 10)).isEmpty();
+    }
+
+    @Test
+    void fuzzyMatchesInTheStudentsClassAreFoundBehindOtherClassesMatches() {
+        // Filed first with a longer title, so it loses every tie against the other classes
+        searchIndex.index(material(100L, "Photosynthesis notes week one", 10L, 1L, 7L));
+        for (long id = 1; id <= 60; id++) {
+            searchIndex.index(material(id, "Photosynthesis notes", 20L + id, 1L, 7L));
+        }
+        assertThat(searchIndex.fuzzySearch("photosynthesis", 50)).doesNotContain(100L);
+
+        Page<MaterialListItem> page = service.listMaterials(student(10L, 1L), "photosynthesis", "fuzzy", null, null, 0, 10);
+
+        assertThat(ids(page)).containsExactly(100L);
+        assertThat(page.getTotalElements()).isEqualTo(1);
+    }
+
+    @Test
+    void contentSearchIsScopedInTheIndexAndKeepsItsRanking() {
+        Map<MaterialFacetIndex.Facet, Set<String>> scope = Map.of(
+                MaterialFacetIndex.Facet.TEACHER, Set.of("7"),
+                MaterialFacetIndex.Facet.CLASS, Set.of("10"));
+        when(contentIndex.search("photosynthesis", scope)).thenReturn(List.of(5L, 8L, 4L));
+
+        Page<MaterialListItem> page = service.listMaterials(user(7L, Role.TEACHER), "photosynthesis", "content",
+                null, 10L, 0, 2);
+
+        assertThat(ids(page)).containsExactly(5L, 8L);
+        assertThat(page.getTotalElements()).isEqualTo(3);
+        verify(materialRepository).findTeacherListing(eq(7L), eq(null), eq(10L), eq(false), eq(List.of(5L, 8L)), any());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ArgumentCaptor<Collection<Long>> idCaptor() {
+        return ArgumentCaptor.forClass(Collection.class);
+    }
+
+    private static Page<MaterialListItem> rows(Collection<Long> ids) {
+        List<MaterialListItem> rows = new ArrayList<>();
+        for (Long id : ids) {
+            rows.add(new MaterialListItem(id, "Material " + id, null, null, null, null, null, null, 0, null, null, null));
+        }
+        Collections.reverse(rows);
+        return new PageImpl<>(rows);
+    }
+
+    private static List<Long> ids(Page<MaterialListItem> page) {
+        return page.getContent().stream().map(MaterialListItem::id).toList();
+    }
+
+    private static User user(Long id, Role role) {
+        User user = new User();
+        user.setId(id);
+        user.setRole(role);
+        return user;
+    }
+
+    private static User student(Long classId, Long subjectId) {
+        User student = user(50L, Role.STUDENT);
+        SchoolClass schoolClass = new SchoolClass();
+        schoolClass.setId(classId);
+        student.setSchoolClass(schoolClass);
+        Subject subject = new Subject();
+        subject.setId(subjectId);
+        student.setSubjects(Set.of(subject));
+        return student;
+    }
+
+    private static Material material(Long id, String title, Long classId, Long subjectId, Long teacherId) {
+        Subject subject = new Subject();
+        subject.setId(subjectId);
+        subject.setName("Subject " + subjectId);
+        SchoolClass schoolClass = new SchoolClass();
+        schoolClass.setId(classId);
+        schoolClass.setName("Class " + classId);
+        Material material = new Material();
+        material.setId(id);
+        material.setTitle(title);
+        material.setSubject(subject);
+        material.setSchoolClass(schoolClass);
+        material.setTeacher(user(teacherId, Role.TEACHER));
+        material.setUploadedAt(LocalDateTime.of(2025, 3, 1, 9, 0).plusMinutes(id));
+        return material;
+    }
+}
@@ -0,0 +1,165 @@
+package com.learnmate.service;
+
+import com.learnmate.dto.ParentDashboard;
+import com.learnmate.model.Role;
+import com.learnmate.model.SchoolClass;
+import com.learnmate.model.User;
+import com.learnmate.repository.AttendanceRepository;
+import com.learnmate.repository.ExamRepository;
+import com.learnmate.repository.FeeRepository;
+import com.learnmate.repository.MarkRepository;
+import com.learnmate.repository.UserRepository;
+import com.learnmate.service.dashboard.ParentDashboardCache;
+import com.learnmate.service.ranking.RankingService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.Period;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ParentDashboardServiceTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2026, 10, 19);
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final AttendanceRepository attendanceRepository = mock(AttendanceRepository.class);
+    private final ExamRepository examRepository = mock(ExamRepository.class);
+    private final FeeRepository feeRepository = mock(FeeRepository.class);
+    private final MarkRepository markRepository = mock(MarkRepository.class);
+    private final RankingService rankingService = mock(RankingService.class);
+    private final ParentDashboardCache cache = new ParentDashboardCache(new SimpleMeterRegistry());
+    private final ParentDashboardService service = new ParentDashboardService(userRepository, attendanceRepository,
+            examRepository, feeRepository, markRepository, rankingService, cache);
+    private final User parent = new User();
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(cache, "maxEntries", 100L);
+        ReflectionTestUtils.setField(cache, "expireAfterAccess", Duration.ofHours(1));
+        ReflectionTestUtils.invokeMethod(cache, "build");
+        ReflectionTestUtils.setField(service, "recentMarks", 2);
+        ReflectionTestUtils.setField(service, "recentMarksWindow", Period.ofDays(60));
+
+        parent.setId(1L);
+        parent.setUsername("parent");
+        parent.setRole(Role.PARENT);
+        SchoolClass grade6 = new SchoolClass();
+        grade6.setId(6L);
+        grade6.setName("Grade 6");
+        parent.getChildren().add(child(10L, "Amara", grade6));
+        parent.getChildren().add(child(11L, "Bongani", null));
+        when(userRepository.findParentWithChildrenByUsername("parent")).thenReturn(Optional.of(parent));
+    }
+
+    @Test
+    void aggregatesEveryChildFromOneQueryPerKind() {
+        when(attendanceRepository.countByStudentIds(Set.of(10L, 11L))).thenReturn(List.of(
+                new ParentDashboard.AttendanceCount(10L, 20, 18),
+                new ParentDashboard.AttendanceCount(11L, 20, 16)));
+        when(examRepository.countUpcomingByClassIds(Set.of(6L), TODAY)).thenReturn(List.of(
+                new ParentDashboard.ExamCount(6L, 2, TODAY.plusDays(3))));
+        when(feeRepository.countUnpaidByStudentIds(Set.of(10L, 11L))).thenReturn(List.of(
+                new ParentDashboard.FeeCount(11L, 1, 250.0)));
+        when(markRepository.averagePublishedByStudentIds(Set.of(10L, 11L))).thenReturn(List.of(
+                new ParentDashboard.ScoreAverage(10L, 80.0)));
+        when(markRepository.findRecentPublishedByStudentIds(Set.of(10L, 11L), TODAY.minusDays(60))).thenReturn(List.of(
+                new ParentDashboard.RecentMark(10L, "Algebra", "Maths", 90, TODAY.minusDays(1)),
+                new ParentDashboard.RecentMark(11L, "Cells", "Biology", 55, TODAY.minusDays(2)),
+                new ParentDashboard.RecentMark(10L, "Essay", "English", 70, TODAY.minusDays(5)),
+                new ParentDashboard.RecentMark(10L, "Mapping", "Geography", 80, TODAY.minusDays(9))));
+
+        ParentDashboard dashboard = service.build("parent", TODAY);
+
+        assertThat(dashboard.children()).extracting(ParentDashboard.Child::name).containsExactly("Amara", "Bongani");
+        ParentDashboard.Child amara = dashboard.children().get(0);
+        assertThat(amara.attendanceRate()).isEqualTo(90.0);
+        assertThat(amara.upcomingExams()).isEqualTo(2);
+        assertThat(amara.nextExam()).isEqualTo(TODAY.plusDays(3));
+        assertThat(amara.recentMarks()).extracting(ParentDashboard.RecentMark::examTitle).containsExactly("Algebra", "Essay");
+        ParentDashboard.Child bongani = dashboard.children().get(1);
+        assertThat(bongani.upcomingExams()).isZero();
+        assertThat(bongani.averageScore()).isNull();
+
+        assertThat(dashboard.attendanceRate()).isEqualTo(85.0);
+        assertThat(dashboard.pendingFees()).isEqualTo(1);
+        assertThat(dashboard.averageScore()).isEqualTo(80.0);
+        assertThat(dashboard.recentMarks()).extracting(ParentDashboard.RecentMark::examTitle)
+                .containsExactly("Algebra", "Cells", "Essay");
+    }
+
+    @Test
+    void keepsTheDashboardUntilAChildsDataChanges() {
+        service.getDashboard(parent);
+        service.getDashboard(parent);
+        verify(userRepository, times(1)).findParentWithChildrenByUsername("parent");
+
+        cache.invalidateStudent(99L);
+        cache.invalidateClass(7L);
+        service.getDashboard(parent);
+        verify(userRepository, times(1)).findParentWithChildrenByUsername("parent");
+
+        cache.invalidateClass(6L);
+        service.getDashboard(parent);
+        verify(userRepository, times(2)).findParentWithChildrenByUsername("parent");
+
+        cache.invalidateStudent(11L);
+        service.getDashboard(parent);
+        verify(userRepository, times(3)).findParentWithChildrenByUsername("parent");
+        verify(attendanceRepository, times(3)).countByStudentIds(anyCollection());
+    }
+
+    @Test
+    void aChildsChangeDropsOnlyTheDashboardsShowingThatChild() {
+        User other = new User();
+        other.setId(2L);
+        other.setUsername("other");
+        other.setRole(Role.PARENT);
+        other.getChildren().add(child(12L, "Chipo", null));
+        when(userRepository.findParentWithChildrenByUsername("other")).thenReturn(Optional.of(other));
+        service.getDashboard(parent);
+        service.getDashboard(other);
+
+        cache.invalidateStudents(List.of(10L));
+        service.getDashboard(parent);
+        service.getDashboard(other);
+
+        verify(userRepository, times(2)).findParentWithChildrenByUsername("parent");
+        verify(userRepository, times(1)).findParentWithChildrenByUsername("other");
+    }
+
+    @Test
+    void doesNotKeepADashboardBuiltWhileAChildChanged() {
+        when(attendanceRepository.countByStudentIds(anyCollection())).thenAnswer(invocation -> {
+            cache.invalidateStudent(10L);
+            return List.of();
+        });
+
+        service.getDashboard(parent);
+        service.getDashboard(parent);
+
+        verify(feeRepository, times(2)).countUnpaidByStudentIds(any());
+    }
+
+    private static User child(Long id, String name, SchoolClass schoolClass) {
+        User child = new User();
+        child.setId(id);
+        child.setName(name);
+        child.setRole(Role.STUDENT);
+        child.setSchoolClass(schoolClass);
+        return child;
+    }
+}
@@ -0,0 +1,138 @@
+package com.learnmate.service;
+
+import com.learnmate.model.StoredFile;
+import com.learnmate.model.ValidationStatus;
+import com.learnmate.repository.StoredFileRepository;
+import com.learnmate.service.storage.FilesystemBlobStore;
+import org.apache.pdfbox.pdmodel.PDDocument;
+import org.apache.pdfbox.pdmodel.PDPage;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PreviewServiceTest {
+
+    @TempDir
+    Path root;
+
+    private final StoredFileRepository storedFileRepository = mock(StoredFileRepository.class);
+    private PreviewService previewService;
+
+    @AfterEach
+    void tearDown() {
+        if (previewService != null) {
+            ReflectionTestUtils.invokeMethod(previewService, "stopWorkers");
+        }
+    }
+
+    @Test
+    void rendersFirstPageNextToTheStoredPdf() throws Exception {
+        storePdf("materials/notes.pdf");
+        previewService = previewService(realStorage(), 2, 10);
+
+        previewService.schedulePreview("notes.pdf", FileStorageService.FileType.MATERIAL);
+        drain();
+
+        Path thumbnail = root.resolve("materials/notes.pdf" + FileStorageService.THUMBNAIL_SUFFIX);
+        assertThat(thumbnail).exists();
+        byte[] png = Files.readAllBytes(thumbnail);
+        assertThat(png).startsWith(0x89, 'P', 'N', 'G');
+    }
+
+    @Test
+    void skipsFilesThatAreNotYetDownloadable() throws Exception {
+        storePdf("materials/pending.pdf");
+        StoredFile storedFile = new StoredFile(FileStorageService.FileType.MATERIAL, "pending.pdf");
+        storedFile.setValidationStatus(ValidationStatus.PENDING);
+        when(storedFileRepository.findByFileTypeAndFileName(FileStorageService.FileType.MATERIAL, "pending.pdf"))
+                .thenReturn(Optional.of(storedFile));
+        previewService = previewService(realStorage(), 2, 10);
+
+        previewService.schedulePreview("pending.pdf", FileStorageService.FileType.MATERIAL);
+        previewService.schedulePreview("notes.docx", FileStorageService.FileType.MATERIAL);
+        drain();
+
+        assertThat(root.resolve("materials/pending.pdf" + FileStorageService.THUMBNAIL_SUFFIX)).doesNotExist();
+        assertThat(root.resolve("materials/notes.docx" + FileStorageService.THUMBNAIL_SUFFIX)).doesNotExist();
+    }
+
+    @Test
+    void dropsWorkBeyondTheQueueAndIgnoresDuplicates() throws Exception {
+        FileStorageService storage = mock(FileStorageService.class);
+        when(storage.key(anyString(), any())).thenAnswer(invocation -> "materials/" + invocation.getArgument(0));
+        CountDownLatch release = new CountDownLatch(1);
+        when(storage.loadThumbnail(anyString(), any())).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return Optional.empty();
+        });
+        previewService = previewService(storage, 1, 1);
+
+        previewService.schedulePreview("running.pdf", FileStorageService.FileType.MATERIAL);
+        previewService.schedulePreview("queued.pdf", FileStorageService.FileType.MATERIAL);
+        previewService.schedulePreview("queued.pdf", FileStorageService.FileType.MATERIAL);
+        previewService.schedulePreview("rejected.pdf", FileStorageService.FileType.MATERIAL);
+
+        ThreadPoolExecutor executor = executor();
+        assertThat(executor.getMaximumPoolSize()).isEqualTo(1);
+        assertThat(executor.getQueue()).hasSize(1);
+
+        release.countDown();
+        drain();
+
+        verify(storage).loadThumbnail("running.pdf", FileStorageService.FileType.MATERIAL);
+        verify(storage).loadThumbnail("queued.pdf", FileStorageService.FileType.MATERIAL);
+        verify(storage, never()).loadThumbnail(eq("rejected.pdf"), any());
+    }
+
+    private PreviewService previewService(FileStorageService storage, int workers, int queueCapacity) {
+        PreviewService service = new PreviewService(storage);
+        ReflectionTestUtils.setField(service, "workers", workers);
+        ReflectionTestUtils.setField(service, "queueCapacity", queueCapacity);
+        ReflectionTestUtils.setField(service, "thumbnailWidth", 120);
+        ReflectionTestUtils.invokeMethod(service, "startWorkers");
+        return service;
+    }
+
+    private FileStorageService realStorage() {
+        return new FileStorageService(new FilesystemBlobStore(root), storedFileRepository,
+                mock(ApplicationEventPublisher.class));
+    }
+
+    private ThreadPoolExecutor executor() {
+        return (ThreadPoolExecutor) ReflectionTestUtils.getField(previewService, "previewExecutor");
+    }
+
+    private void drain() throws InterruptedException {
+        ThreadPoolExecutor executor = executor();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(10, TimeUnit.SECONDS)).isTrue();
+    }
+
+    private void storePdf(String key) throws IOException {
+        Path file = root.resolve(key);
+        Files.createDirectories(file.getParent());
+        try (PDDocument document = new PDDocument()) {
+            document.addPage(new PDPage());
+            document.save(file.toFile());
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.learnmate.service;
+
+import com.learnmate.dto.StoredFileReference;
+import com.learnmate.model.StorageTier;
+import com.learnmate.repository.AnswerSheetRepository;
+import com.learnmate.repository.ExamRepository;
+import com.learnmate.repository.FeeRepository;
+import com.learnmate.repository.MaterialRepository;
+import com.learnmate.repository.NotificationRepository;
+import com.learnmate.repository.StoredFileRepository;
+import com.learnmate.repository.TimetableRepository;
+import com.learnmate.service.storage.FilesystemBlobStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class StorageScrubberServiceTest {
+
+    private static final String QUARANTINE = ".quarantine/";
+
+    @TempDir
+    Path root;
+
+    private final MaterialRepository materialRepository = mock(MaterialRepository.class);
+    private final StoredFileRepository storedFileRepository = mock(StoredFileRepository.class);
+    private StorageScrubberService scrubber;
+
+    @BeforeEach
+    void setUp() {
+        scrubber = new StorageScrubberService(new FilesystemBlobStore(root), materialRepository,
+                mock(ExamRepository.class), mock(TimetableRepository.class), mock(AnswerSheetRepository.class),
+                mock(FeeRepository.class), mock(NotificationRepository.class), storedFileRepository);
+        ReflectionTestUtils.setField(scrubber, "gracePeriod", Duration.ofHours(6));
+        ReflectionTestUtils.setField(scrubber, "quarantinePrefix", QUARANTINE);
+        ReflectionTestUtils.setField(scrubber, "quarantineRetention", Duration.ofDays(30));
+    }
+
+    @Test
+    void quarantinesOldUnreferencedFilesWithTheirPreviews() throws IOException {
+        store("materials/kept.pdf", true);
+        store("materials/orphan.pdf", true);
+        store("materials/orphan.pdf" + FileStorageService.THUMBNAIL_SUFFIX, true);
+        store("materials/fresh.pdf", false);
+        when(materialRepository.findReferencedFileNames(anyCollection())).thenReturn(List.of("kept.pdf"));
+
+        StorageScrubberService.ScrubReport report = scrubber.scrub().orElseThrow();
+
+        assertThat(report.byType().get(FileStorageService.FileType.MATERIAL).orphans()).containsExactly("orphan.pdf");
+        assertThat(root.resolve("materials/kept.pdf")).exists();
+        assertThat(root.resolve("materials/fresh.pdf")).exists();
+        assertThat(root.resolve("materials/orphan.pdf")).doesNotExist();
+        assertThat(root.resolve(QUARANTINE + "materials/orphan.pdf")).exists();
+        assertThat(root.resolve(QUARANTINE + "materials/orphan.pdf" + FileStorageService.THUMBNAIL_SUFFIX)).exists();
+        verify(storedFileRepository).deleteByFileTypeAndFileNameIn(FileStorageService.FileType.MATERIAL, List.of("orphan.pdf"));
+    }
+
+    @Test
+    void looksUpReferencesInBatches() throws IOException {
+        for (int i = 0; i < 501; i++) {
+            store("materials/file-" + i + ".pdf", true);
+        }
+        List<Collection<String>> lookups = new ArrayList<>();
+        when(materialRepository.findReferencedFileNames(anyCollection())).thenAnswer(invocation -> {
+            Collection<String> names = invocation.getArgument(0);
+            lookups.add(List.copyOf(names));
+            return List.copyOf(names);
+        });
+
+        StorageScrubberService.ScrubReport report = scrubber.scrub().orElseThrow();
+
+        assertThat(lookups).extracting(Collection::size).containsExactly(500, 1);
+        assertThat(report.byType().get(FileStorageService.FileType.MATERIAL).filesScanned()).isEqualTo(501);
+        assertThat(report.orphanCount()).isZero();
+    }
+
+    @Test
+    void countsColdFilesAsStored() throws IOException {
+        // Only the compressed copy and the preview remain of a file moved to the cold tier
+        store(FileStorageService.COLD_PREFIX + "materials/archived.pdf.gz", true);
+        store("materials/archived.pdf" + FileStorageService.THUMBNAIL_SUFFIX, true);
+        when(storedFileRepository.findFileNamesByTier(FileStorageService.FileType.MATERIAL, StorageTier.COLD))
+                .thenReturn(List.of("archived.pdf"));
+        when(materialRepository.findFileReferencesAfter(eq(0L), any())).thenReturn(List.of(
+                new StoredFileReference(1L, "archived.pdf"),
+                new StoredFileReference(2L, "lost.pdf")));
+
+        StorageScrubberService.ScrubReport report = scrubber.scrub().orElseThrow();
+
+        assertThat(root.resolve("materials/archived.pdf" + FileStorageService.THUMBNAIL_SUFFIX)).exists();
+        assertThat(root.resolve(FileStorageService.COLD_PREFIX + "materials/archived.pdf.gz")).exists();
+        assertThat(report.byType().get(FileStorageService.FileType.MATERIAL).missingFiles())
+                .extracting(StoredFileReference::fileName).containsExactly("lost.pdf");
+    }
+
+    @Test
+    void onlyReportsInADryRun() throws IOException {
+        ReflectionTestUtils.setField(scrubber, "dryRun", true);
+        store("materials/orphan.pdf", true);
+
+        StorageScrubberService.ScrubReport report = scrubber.scrub().orElseThrow();
+
+        assertThat(report.orphanCount()).isEqualTo(1);
+        assertThat(root.resolve("materials/orphan.pdf")).exists();
+        verify(storedFileRepository, never()).deleteByFileTypeAndFileNameIn(any(), anyCollection());
+    }
+
+    @Test
+    void purgesQuarantinedFilesPastRetention() throws IOException {
+        Path expired = store(QUARANTINE + "materials/old.pdf", true);
+        Files.setLastModifiedTime(expired, FileTime.from(Instant.now().minus(Duration.ofDays(31))));
+        store(QUARANTINE + "materials/recent.pdf", false);
+
+        StorageScrubberService.ScrubReport report = scrubber.scrub().orElseThrow();
+
+        assertThat(report.bytesPurged()).isEqualTo(4);
+        assertThat(expired).doesNotExist();
+        assertThat(root.resolve(QUARANTINE + "materials/recent.pdf")).exists();
+    }
+
+    private Path store(String key, boolean old) throws IOException {
+        Path file = root.resolve(key);
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, "data");
+        if (old) {
+            Files.setLastModifiedTime(file, FileTime.from(Instant.now().minus(Duration.ofDays(1))));
+        }
+        return file;
+    }
+}
@@ -0,0 +1,146 @@
+package com.learnmate.service;
+
+import com.learnmate.model.StorageTier;
+import com.learnmate.model.StoredFile;
+import com.learnmate.model.ValidationStatus;
+import com.learnmate.repository.StoredFileRepository;
+import com.learnmate.service.storage.FilesystemBlobStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class StorageTieringServiceTest {
+
+    @TempDir
+    Path root;
+
+    private final StoredFileRepository storedFileRepository = mock(StoredFileRepository.class);
+    private final MaterialPopularityService materialPopularityService = mock(MaterialPopularityService.class);
+    private FileStorageService fileStorageService;
+    private StorageTieringService tiering;
+
+    @BeforeEach
+    void setUp() {
+        FilesystemBlobStore blobStore = new FilesystemBlobStore(root);
+        fileStorageService = new FileStorageService(blobStore, storedFileRepository, mock(ApplicationEventPublisher.class));
+        tiering = new StorageTieringService(blobStore, fileStorageService, storedFileRepository, materialPopularityService);
+        ReflectionTestUtils.setField(tiering, "coldAfter", Duration.ofDays(90));
+        ReflectionTestUtils.setField(tiering, "fileTypes", new String[]{"EXAM", "MATERIAL"});
+        ReflectionTestUtils.setField(tiering, "minSavings", 0.10);
+        ReflectionTestUtils.setField(tiering, "keepHotDownloads", 20L);
+    }
+
+    @Test
+    void compressesColdFilesAndDropsTheOriginalAfterTheRowPointsAtTheCopy() throws IOException {
+        byte[] content = "question ".repeat(2000).getBytes();
+        store("exams/old.txt", content, 120);
+        StoredFile storedFile = new StoredFile(FileStorageService.FileType.EXAM, "old.txt");
+        storedFile.setLastAccessedAt(LocalDateTime.now().minusDays(100));
+        givenStoredFiles(FileStorageService.FileType.EXAM, storedFile);
+
+        StorageTieringService.TieringResult result = tiering.tierColdFiles().orElseThrow();
+
+        assertThat(result.filesTiered()).isEqualTo(1);
+        assertThat(result.originalBytes()).isEqualTo(content.length);
+        assertThat(root.resolve("exams/old.txt")).doesNotExist();
+        assertThat(storedFile.getTier()).isEqualTo(StorageTier.COLD);
+        assertThat(storedFile.getCodec()).isEqualTo(FileStorageService.GZIP_CODEC);
+        assertThat(storedFile.getStoredSize()).isEqualTo(Files.size(root.resolve("cold/exams/old.txt.gz")));
+        verify(storedFileRepository).save(storedFile);
+
+        // Reads still return the original bytes, decompressed on the fly
+        try (InputStream in = fileStorageService.openFile("old.txt", FileStorageService.FileType.EXAM)) {
+            assertThat(in.readAllBytes()).isEqualTo(content);
+        }
+    }
+
+    @Test
+    void keepsRecentlyReadFilesHot() throws IOException {
+        store("exams/read.txt", "question ".repeat(2000).getBytes(), 120);
+        StoredFile storedFile = new StoredFile(FileStorageService.FileType.EXAM, "read.txt");
+        storedFile.setLastAccessedAt(LocalDateTime.now().minusDays(2));
+        givenStoredFiles(FileStorageService.FileType.EXAM, storedFile);
+
+        StorageTieringService.TieringResult result = tiering.tierColdFiles().orElseThrow();
+
+        assertThat(result.filesTiered()).isZero();
+        assertThat(root.resolve("exams/read.txt")).exists();
+        verify(storedFileRepository, never()).save(any());
+    }
+
+    @Test
+    void marksFilesThatBarelyShrinkAsIncompressible() throws IOException {
+        byte[] content = new byte[32 * 1024];
+        new Random(42).nextBytes(content);
+        store("exams/scan.pdf", content, 120);
+
+        StorageTieringService.TieringResult result = tiering.tierColdFiles().orElseThrow();
+
+        assertThat(result.incompressible()).isEqualTo(1);
+        assertThat(root.resolve("exams/scan.pdf")).exists();
+        assertThat(root.resolve("cold/exams/scan.pdf.gz")).doesNotExist();
+        ArgumentCaptor<StoredFile> saved = ArgumentCaptor.forClass(StoredFile.class);
+        verify(storedFileRepository).save(saved.capture());
+        assertThat(saved.getValue().isCompressible()).isFalse();
+        assertThat(saved.getValue().getTier()).isEqualTo(StorageTier.HOT);
+    }
+
+    @Test
+    void skipsPopularMaterialsPreviewsAndUnvalidatedFiles() throws IOException {
+        byte[] content = "notes ".repeat(2000).getBytes();
+        store("materials/popular.txt", content, 120);
+        store("materials/popular.txt" + FileStorageService.THUMBNAIL_SUFFIX, content, 120);
+        store("exams/pending.txt", content, 120);
+        when(materialPopularityService.getDownloadsOfFile("popular.txt")).thenReturn(25L);
+        StoredFile pending = new StoredFile(FileStorageService.FileType.EXAM, "pending.txt");
+        pending.setValidationStatus(ValidationStatus.PENDING);
+        givenStoredFiles(FileStorageService.FileType.EXAM, pending);
+
+        StorageTieringService.TieringResult result = tiering.tierColdFiles().orElseThrow();
+
+        assertThat(result.filesTiered()).isZero();
+        assertThat(root.resolve("materials/popular.txt")).exists();
+        assertThat(root.resolve("materials/popular.txt" + FileStorageService.THUMBNAIL_SUFFIX)).exists();
+        assertThat(root.resolve("exams/pending.txt")).exists();
+        verify(storedFileRepository, never()).save(any());
+    }
+
+    private void givenStoredFiles(FileStorageService.FileType fileType, StoredFile... storedFiles) {
+        when(storedFileRepository.findByFileTypeAndFileNameIn(eq(fileType), anyCollection())).thenReturn(List.of(storedFiles));
+        for (StoredFile storedFile : storedFiles) {
+            when(storedFileRepository.findByFileTypeAndFileName(fileType, storedFile.getFileName()))
+                    .thenReturn(Optional.of(storedFile));
+        }
+    }
+
+    private void store(String key, byte[] content, int ageInDays) throws IOException {
+        Path file = root.resolve(key);
+        Files.createDirectories(file.getParent());
+        Files.write(file, content);
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().minus(Duration.ofDays(ageInDays))));
+    }
+}
@@ -0,0 +1,78 @@
+package com.learnmate.service;
+
+import com.learnmate.model.StudentSummary;
+import com.learnmate.model.User;
+import com.learnmate.repository.StudentSummaryRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class StudentSummaryServiceTest {
+
+    private final StudentSummaryRepository repository = mock(StudentSummaryRepository.class);
+    private final StudentSummaryService service = new StudentSummaryService(repository);
+    private final User student = new User();
+
+    StudentSummaryServiceTest() {
+        student.setId(7L);
+    }
+
+    @Test
+    void aCurrentSummaryIsOneLookup() {
+        StudentSummary summary = summary(LocalDate.now());
+        when(repository.findById(7L)).thenReturn(Optional.of(summary));
+
+        assertThat(service.getSummary(student)).isSameAs(summary);
+        verify(repository, never()).refreshExams(any(), any());
+        verify(repository, never()).insertMissing(anyLong());
+    }
+
+    @Test
+    void createsTheSummaryOnTheFirstVisitAndRecountsStaleExams() {
+        StudentSummary created = summary(LocalDate.now());
+        when(repository.findById(7L)).thenReturn(Optional.empty(), Optional.of(created));
+
+        assertThat(service.getSummary(student)).isSameAs(created);
+        verify(repository).insertMissing(7L);
+        verify(repository).refreshAttendance(List.of(7L));
+        verify(repository).refreshExams(List.of(7L), LocalDate.now());
+        verify(repository).refreshNotifications(List.of(7L));
+
+        StudentSummary yesterdays = summary(LocalDate.now().minusDays(1));
+        when(repository.findById(7L)).thenReturn(Optional.of(yesterdays), Optional.of(created));
+        assertThat(service.getSummary(student)).isSameAs(created);
+        verify(repository, times(2)).refreshExams(List.of(7L), LocalDate.now());
+    }
+
+    @Test
+    void appliesAttendanceAsIncrements() {
+        service.attendanceRecorded(student, false);
+        verify(repository).recordAttendance(7L, 0);
+
+        service.attendanceChanged(student, false, true);
+        verify(repository).adjustPresent(7L, 1);
+
+        StudentSummaryRepository untouched = mock(StudentSummaryRepository.class);
+        new StudentSummaryService(untouched).attendanceChanged(student, true, true);
+        verifyNoInteractions(untouched);
+    }
+
+    private static StudentSummary summary(LocalDate examsAsOf) {
+        StudentSummary summary = new StudentSummary();
+        summary.setStudentId(7L);
+        summary.setExamsAsOf(examsAsOf);
+        return summary;
+    }
+}
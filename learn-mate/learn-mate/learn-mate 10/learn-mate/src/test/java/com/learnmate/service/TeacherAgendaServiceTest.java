@@ -0,0 +1,158 @@
+package com.learnmate.service;
+
+import com.learnmate.dto.AttendanceTaken;
+import com.learnmate.dto.TeacherAgenda;
+import com.learnmate.model.SchoolClass;
+import com.learnmate.model.Subject;
+import com.learnmate.model.Timetable;
+import com.learnmate.model.User;
+import com.learnmate.repository.AnswerSheetRepository;
+import com.learnmate.repository.AttendanceRepository;
+import com.learnmate.repository.TimetableRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.stubbing.Answer;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TeacherAgendaServiceTest {
+
+    // A Monday
+    private static final LocalDateTime NOW = LocalDateTime.of(2026, 10, 19, 10, 30);
+
+    private final TimetableRepository timetableRepository = mock(TimetableRepository.class);
+    private final AttendanceRepository attendanceRepository = mock(AttendanceRepository.class);
+    private final AnswerSheetRepository answerSheetRepository = mock(AnswerSheetRepository.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final TeacherAgendaService service = new TeacherAgendaService(timetableRepository, attendanceRepository,
+            answerSheetRepository, meterRegistry);
+    private final User teacher = new User();
+
+    @AfterEach
+    void shutdown() {
+        service.shutdown();
+    }
+
+    @Test
+    void marksWhichOfTodaysLessonsStillNeedAttendance() {
+        budget(Duration.ofSeconds(5));
+        SchoolClass grade6 = schoolClass(1L);
+        SchoolClass grade7 = schoolClass(2L);
+        when(timetableRepository.findByTeacherAndDayOrderByStartTimeAsc(teacher, DayOfWeek.MONDAY)).thenReturn(List.of(
+                lesson(10L, grade6, subject(1L), 8),
+                lesson(11L, grade7, subject(1L), 9),
+                lesson(12L, grade7, subject(2L), 10),
+                lesson(13L, grade6, subject(2L), 11)));
+        when(attendanceRepository.findTakenOn(LocalDate.of(2026, 10, 19))).thenReturn(List.of(
+                new AttendanceTaken(1L, 1L),
+                new AttendanceTaken(2L, 3L),
+                new AttendanceTaken(1L, null)));
+        when(answerSheetRepository.countUngradedByTeacher(teacher)).thenReturn(7L);
+
+        TeacherAgenda agenda = service.getAgenda(teacher, NOW);
+
+        assertThat(agenda.complete()).isTrue();
+        assertThat(agenda.slots()).extracting(TeacherAgenda.Slot::attendanceTaken).containsExactly(true, false, false, true);
+        // The 11:00 lesson has not started yet
+        assertThat(agenda.pendingAttendance()).isEqualTo(2);
+        assertThat(agenda.ungraded()).isEqualTo(7L);
+        assertThat(meterRegistry.get("dashboard.teacher.agenda").tag("outcome", "complete").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void leavesOutWhatMissesTheLatencyBudget() throws InterruptedException {
+        budget(Duration.ofMillis(100));
+        when(timetableRepository.findByTeacherAndDayOrderByStartTimeAsc(teacher, DayOfWeek.MONDAY))
+                .thenReturn(List.of(lesson(10L, schoolClass(1L), subject(1L), 8)));
+        CountDownLatch cancelled = new CountDownLatch(1);
+        when(attendanceRepository.findTakenOn(LocalDate.of(2026, 10, 19))).thenAnswer(invocation -> {
+            try {
+                Thread.sleep(2_000);
+            } catch (InterruptedException e) {
+                cancelled.countDown();
+                throw e;
+            }
+            return List.of();
+        });
+        when(answerSheetRepository.countUngradedByTeacher(teacher)).thenThrow(new IllegalStateException("database down"));
+
+        long started = System.nanoTime();
+        TeacherAgenda agenda = service.getAgenda(teacher, NOW);
+
+        assertThat(Duration.ofNanos(System.nanoTime() - started)).isLessThan(Duration.ofSeconds(1));
+        assertThat(agenda.complete()).isFalse();
+        assertThat(agenda.slots()).singleElement().extracting(TeacherAgenda.Slot::attendanceTaken).isNull();
+        assertThat(agenda.pendingAttendance()).isNull();
+        assertThat(agenda.ungraded()).isNull();
+        assertThat(meterRegistry.get("dashboard.teacher.agenda").tag("outcome", "partial").timer().count()).isEqualTo(1);
+        // The slow query is stopped rather than left running
+        assertThat(cancelled.await(1, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    void queriesBeyondTheConcurrencyCapAreShed() throws InterruptedException {
+        budget(Duration.ofMillis(200), 1);
+        AtomicInteger started = new AtomicInteger();
+        Answer<Object> slowQuery = invocation -> {
+            started.incrementAndGet();
+            Thread.sleep(2_000);
+            return null;
+        };
+        when(timetableRepository.findByTeacherAndDayOrderByStartTimeAsc(teacher, DayOfWeek.MONDAY)).thenAnswer(slowQuery);
+        when(attendanceRepository.findTakenOn(LocalDate.of(2026, 10, 19))).thenAnswer(slowQuery);
+        when(answerSheetRepository.countUngradedByTeacher(teacher)).thenAnswer(slowQuery);
+
+        TeacherAgenda agenda = service.getAgenda(teacher, NOW);
+        Thread.sleep(300);
+
+        assertThat(agenda.complete()).isFalse();
+        assertThat(started.get()).isEqualTo(1);
+    }
+
+    private void budget(Duration budget) {
+        budget(budget, 6);
+    }
+
+    private void budget(Duration budget, int maxConcurrentQueries) {
+        ReflectionTestUtils.setField(service, "budget", budget);
+        ReflectionTestUtils.setField(service, "maxConcurrentQueries", maxConcurrentQueries);
+        service.registerMeters();
+    }
+
+    private static Timetable lesson(Long id, SchoolClass schoolClass, Subject subject, int hour) {
+        Timetable lesson = new Timetable();
+        lesson.setId(id);
+        lesson.setSchoolClass(schoolClass);
+        lesson.setSubject(subject);
+        lesson.setDay(DayOfWeek.MONDAY);
+        lesson.setStartTime(LocalTime.of(hour, 0));
+        lesson.setEndTime(LocalTime.of(hour + 1, 0));
+        return lesson;
+    }
+
+    private static SchoolClass schoolClass(Long id) {
+        SchoolClass schoolClass = new SchoolClass();
+        schoolClass.setId(id);
+        return schoolClass;
+    }
+
+    private static Subject subject(Long id) {
+        Subject subject = new Subject();
+        subject.setId(id);
+        return subject;
+    }
+}
@@ -0,0 +1,161 @@
+package com.learnmate.service;
+
+import com.learnmate.dto.TimetableImportResult;
+import com.learnmate.model.Role;
+import com.learnmate.model.SchoolClass;
+import com.learnmate.model.Subject;
+import com.learnmate.model.Timetable;
+import com.learnmate.model.User;
+import com.learnmate.repository.SchoolClassRepository;
+import com.learnmate.repository.TimetableRepository;
+import com.learnmate.repository.UserRepository;
+import com.learnmate.service.calendar.CalendarFeedCache;
+import com.learnmate.service.timetable.TimetableBatchWriter;
+import com.learnmate.service.timetable.TimetableConflictIndex;
+import com.learnmate.service.timetable.TimetableGridCache;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.StringReader;
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TimetableCsvServiceTest {
+
+    private static final String HEADER = "Class,Subject,Teacher,Day,Start,End,Room,Title,Description\n";
+
+    private final TimetableRepository timetableRepository = mock(TimetableRepository.class);
+    private final TimetableBatchWriter batchWriter = mock(TimetableBatchWriter.class);
+    private final SchoolClassRepository schoolClassRepository = mock(SchoolClassRepository.class);
+    private final SubjectService subjectService = mock(SubjectService.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final TimetableCsvService csvService;
+
+    private final SchoolClass grade6 = schoolClass(1L, "Grade 6A");
+    private final SchoolClass grade7 = schoolClass(2L, "Grade 7A");
+    private final Subject maths = subject(1L, "Maths");
+    private final Subject physics = subject(2L, "Physics");
+    private final User okafor = teacher(5L, "okafor");
+    private final User lindqvist = teacher(6L, "lindqvist");
+
+    TimetableCsvServiceTest() {
+        TimetableService timetableService = new TimetableService(timetableRepository, mock(TimetableConflictIndex.class),
+                mock(TimetableGridCache.class), mock(CalendarFeedCache.class), batchWriter);
+        csvService = new TimetableCsvService(timetableService, schoolClassRepository, subjectService, userRepository,
+                mock(JdbcTemplate.class));
+        ReflectionTestUtils.setField(csvService, "maxRows", 100);
+        when(schoolClassRepository.findAll()).thenReturn(List.of(grade6, grade7));
+        when(subjectService.getAllSubjects()).thenReturn(List.of(maths, physics));
+        when(userRepository.findByRole(Role.TEACHER)).thenReturn(List.of(okafor, lindqvist));
+    }
+
+    @Test
+    void reportsEveryBadRowAndClashWithoutSaving() {
+        Timetable existing = lesson(grade7, physics, lindqvist, DayOfWeek.MONDAY, 9, "Room 102");
+        when(timetableRepository.findAll()).thenReturn(List.of(existing));
+
+        TimetableImportResult unreadable = csvService.importCsv(new StringReader(HEADER
+                + "Grade 6A,Maths,okafor,Monday,08:00,09:00,Room 101,,\n"
+                + "Grade 9Z,Maths,okafor,Monday,10:00,11:00,,,\n"
+                + "Grade 6A,Maths,nobody,Tue,08:00,09:00,,,\n"
+                + "Grade 6A,Maths,okafor,Someday,08:00,09:00,,,\n"
+                + "Grade 6A,Maths,okafor,Wed,09:00,08:00,,,\n"), false, false);
+        assertThat(unreadable.problems()).extracting(TimetableImportResult.Problem::line).containsExactly(3, 4, 5, 6);
+        assertThat(unreadable.problems().get(0).message()).isEqualTo("Unknown class 'Grade 9Z'");
+
+        TimetableImportResult clashing = csvService.importCsv(new StringReader(HEADER
+                + "Grade 6A,Maths,okafor,Monday,08:00,09:00,Room 101,,\n"
+                + "Grade 6A,Physics,lindqvist,Monday,08:30,09:30,Room 103,,\n"
+                + "Grade 6A,Physics,okafor,Monday,10:00,11:00,room 102,,\n"
+                + "Grade 6A,Physics,okafor,Tuesday,09:00,10:00,Room 102,,\n"
+                + "Grade 6A,Physics,okafor,Tuesday,11:00,12:00,Room 101,,\n"
+                + "Grade 6A,Maths,okafor,Monday,09:30,10:00,Room 102,,\n"), false, false);
+        assertThat(clashing.isValid()).isFalse();
+        assertThat(clashing.problems()).extracting(TimetableImportResult.Problem::line).containsExactly(3, 6, 7);
+        assertThat(clashing.problems().get(0).message()).startsWith("Schedule conflict: class Grade 6A");
+        assertThat(clashing.problems().get(1).message()).startsWith("Subject 'Physics' is already scheduled on TUESDAY");
+        assertThat(clashing.problems().get(2).message()).contains("Room 102 is already booked for 'Physics - Grade 7A'");
+        verify(batchWriter, never()).replace(any(), anyList());
+    }
+
+    @Test
+    void replacingAClassFreesItsSlotsAndDryRunsSaveNothing() {
+        Timetable existing = lesson(grade6, maths, okafor, DayOfWeek.MONDAY, 8, "Room 101");
+        existing.setId(40L);
+        when(timetableRepository.findAll()).thenReturn(List.of(existing));
+        String csv = HEADER
+                + "Grade 6A,Maths,okafor,MON,8:00,9:00,Room 101,,\n"
+                + "\n"
+                + "Grade 6A,Physics,lindqvist,Monday,09:00,10:00,Room 101,\"Lab, bring goggles\",Practical\n";
+
+        TimetableImportResult appended = csvService.importCsv(new StringReader(csv), false, true);
+        assertThat(appended.problems()).hasSize(1);
+
+        TimetableImportResult dryRun = csvService.importCsv(new StringReader(csv), true, true);
+        assertThat(dryRun.isValid()).isTrue();
+        assertThat(dryRun.removed()).isEqualTo(1);
+        verify(batchWriter, never()).replace(any(), anyList());
+
+        when(batchWriter.replace(eq(Set.of(1L)), anyList())).thenReturn(1);
+        TimetableImportResult imported = csvService.importCsv(new StringReader(csv), true, false);
+        assertThat(imported.created()).isEqualTo(2);
+        assertThat(imported.removed()).isEqualTo(1);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Timetable>> saved = ArgumentCaptor.forClass(List.class);
+        verify(batchWriter).replace(eq(Set.of(1L)), saved.capture());
+        assertThat(saved.getValue()).extracting(Timetable::getTitle).containsExactly("Maths - Grade 6A", "Lab, bring goggles");
+        assertThat(saved.getValue()).extracting(Timetable::getId).containsOnlyNulls();
+        assertThat(saved.getValue().get(1).getStartTime()).isEqualTo(LocalTime.of(9, 0));
+    }
+
+    private static Timetable lesson(SchoolClass schoolClass, Subject subject, User teacher, DayOfWeek day, int hour, String room) {
+        Timetable lesson = new Timetable();
+        lesson.setId(30L + hour);
+        lesson.setSchoolClass(schoolClass);
+        lesson.setSubject(subject);
+        lesson.setTeacher(teacher);
+        lesson.setTitle(subject.getName() + " - " + schoolClass.getName());
+        lesson.setDay(day);
+        lesson.setStartTime(LocalTime.of(hour, 0));
+        lesson.setEndTime(LocalTime.of(hour + 1, 0));
+        lesson.setRoom(room);
+        return lesson;
+    }
+
+    private static SchoolClass schoolClass(Long id, String name) {
+        SchoolClass schoolClass = new SchoolClass();
+        schoolClass.setId(id);
+        schoolClass.setName(name);
+        return schoolClass;
+    }
+
+    private static Subject subject(Long id, String name) {
+        Subject subject = new Subject();
+        subject.setId(id);
+        subject.setName(name);
+        return subject;
+    }
+
+    private static User teacher(Long id, String username) {
+        User teacher = new User();
+        teacher.setId(id);
+        teacher.setUsername(username);
+        teacher.setName(username);
+        teacher.setRole(Role.TEACHER);
+        return teacher;
+    }
+}
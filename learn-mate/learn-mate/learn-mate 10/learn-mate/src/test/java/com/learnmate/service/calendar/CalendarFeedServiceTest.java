@@ -0,0 +1,139 @@
+package com.learnmate.service.calendar;
+
+import com.learnmate.model.Exam;
+import com.learnmate.model.Role;
+import com.learnmate.model.SchoolClass;
+import com.learnmate.model.Subject;
+import com.learnmate.model.Timetable;
+import com.learnmate.model.User;
+import com.learnmate.repository.ExamRepository;
+import com.learnmate.repository.SchoolClassRepository;
+import com.learnmate.repository.TimetableRepository;
+import com.learnmate.repository.UserRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.Period;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CalendarFeedServiceTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final SchoolClassRepository schoolClassRepository = mock(SchoolClassRepository.class);
+    private final TimetableRepository timetableRepository = mock(TimetableRepository.class);
+    private final ExamRepository examRepository = mock(ExamRepository.class);
+
+    @Test
+    void studentFeedRepeatsLessonsWeeklyAndIsServedFromMemoryUntilInvalidated() {
+        CalendarFeedCache cache = new CalendarFeedCache(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(cache, "maxEntries", 100L);
+        ReflectionTestUtils.setField(cache, "expireAfterAccess", Duration.ofDays(1));
+        ReflectionTestUtils.invokeMethod(cache, "build");
+        CalendarFeedService service = service(cache);
+
+        SchoolClass schoolClass = new SchoolClass();
+        schoolClass.setId(7L);
+        schoolClass.setName("Grade 6A");
+        Subject maths = new Subject();
+        maths.setId(1L);
+        maths.setName("Maths");
+        User student = new User();
+        student.setId(3L);
+        student.setName("Amara");
+        student.setRole(Role.STUDENT);
+        student.setSchoolClass(schoolClass);
+        student.setSubjects(Set.of(maths));
+
+        Timetable lesson = new Timetable();
+        lesson.setId(11L);
+        lesson.setSubject(maths);
+        lesson.setSchoolClass(schoolClass);
+        lesson.setDay(DayOfWeek.WEDNESDAY);
+        lesson.setStartTime(LocalTime.of(9, 0));
+        lesson.setEndTime(LocalTime.of(10, 0));
+        lesson.setRoom("Room 101, east wing");
+        Exam exam = new Exam();
+        exam.setId(21L);
+        exam.setTitle("Algebra test");
+        exam.setDate(LocalDate.now().plusDays(3));
+
+        when(userRepository.findWithEnrollmentById(3L)).thenReturn(Optional.of(student));
+        when(timetableRepository.findBySchoolClassAndSubjectIn(any(), any())).thenReturn(List.of(lesson));
+        when(examRepository.findBySchoolClassAndSubjectInAndDateBetweenOrderByDateAsc(any(), any(), any(), any()))
+                .thenReturn(List.of(exam));
+
+        String path = service.feedPath(CalendarFeedCache.Kind.USER, 3L);
+        String token = path.substring(path.lastIndexOf('/') + 1, path.length() - ".ics".length());
+        assertThat(path).startsWith("/calendar/user/3/");
+
+        CalendarFeedCache.Feed feed = service.getFeed(CalendarFeedCache.Kind.USER, 3L, token).orElseThrow();
+        String ics = new String(feed.body(), StandardCharsets.UTF_8);
+        assertThat(ics).startsWith("BEGIN:VCALENDAR\r\n").endsWith("END:VCALENDAR\r\n")
+                .contains("UID:timetable-11@learnmate\r\n")
+                .contains("DTSTART:20260107T090000\r\n")
+                .contains("RRULE:FREQ=WEEKLY;BYDAY=WE\r\n")
+                .contains("LOCATION:Room 101\\, east wing\r\n")
+                .contains("DTSTART;VALUE=DATE:" + exam.getDate().toString().replace("-", "") + "\r\n")
+                .contains("SUMMARY:Exam: Algebra test\r\n");
+
+        assertThat(service.getFeed(CalendarFeedCache.Kind.USER, 3L, token)).containsSame(feed);
+        verify(userRepository, times(1)).findWithEnrollmentById(3L);
+
+        // A rebuild with nothing changed keeps the validators clients already hold
+        cache.invalidate();
+        CalendarFeedCache.Feed rebuilt = service.getFeed(CalendarFeedCache.Kind.USER, 3L, token).orElseThrow();
+        assertThat(rebuilt).isNotSameAs(feed);
+        assertThat(rebuilt.etag()).isEqualTo(feed.etag());
+        assertThat(rebuilt.lastModified()).isEqualTo(feed.lastModified());
+    }
+
+    @Test
+    void rejectsTokensForAnotherFeed() {
+        CalendarFeedCache cache = mock(CalendarFeedCache.class);
+        CalendarFeedService service = service(cache);
+        String path = service.feedPath(CalendarFeedCache.Kind.USER, 3L);
+        String token = path.substring(path.lastIndexOf('/') + 1, path.length() - ".ics".length());
+
+        assertThat(service.getFeed(CalendarFeedCache.Kind.USER, 4L, token)).isEmpty();
+        assertThat(service.getFeed(CalendarFeedCache.Kind.CLASS, 3L, token)).isEmpty();
+        assertThat(service.getFeed(CalendarFeedCache.Kind.USER, 3L, "x")).isEmpty();
+        verify(cache, times(0)).get(any(), any());
+    }
+
+    @Test
+    void foldsLongLinesWithoutSplittingCharacters() {
+        String value = "é".repeat(80) + "; done";
+        String ics = new String(new IcsWriter().text("SUMMARY", value).toBytes(), StandardCharsets.UTF_8);
+
+        assertThat(ics.split("\r\n")).hasSizeGreaterThan(2)
+                .allSatisfy(line -> assertThat(line.getBytes(StandardCharsets.UTF_8).length).isLessThanOrEqualTo(75));
+        assertThat(ics.replace("\r\n ", "")).isEqualTo("SUMMARY:" + "é".repeat(80) + "\\; done\r\n");
+    }
+
+    private CalendarFeedService service(CalendarFeedCache cache) {
+        CalendarFeedService service = new CalendarFeedService(cache, userRepository, schoolClassRepository,
+                timetableRepository, examRepository);
+        ReflectionTestUtils.setField(service, "secret", "test-secret");
+        ReflectionTestUtils.setField(service, "termStart", "2026-01-05");
+        ReflectionTestUtils.setField(service, "termEnd", "");
+        ReflectionTestUtils.setField(service, "examHorizon", Period.ofDays(180));
+        ReflectionTestUtils.setField(service, "host", "learnmate");
+        service.init();
+        return service;
+    }
+}
@@ -0,0 +1,96 @@
+package com.learnmate.service.grading;
+
+import com.learnmate.dto.GradeEntry;
+import com.learnmate.dto.GradingResult;
+import com.learnmate.model.Exam;
+import com.learnmate.repository.AnswerSheetRepository;
+import com.learnmate.repository.MarkRepository;
+import com.learnmate.service.ExamStatisticsService;
+import com.learnmate.service.dashboard.ParentDashboardCache;
+import com.learnmate.service.ranking.RankingService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BulkGradingServiceTest {
+
+    private final MarkRepository markRepository = mock(MarkRepository.class);
+    private final AnswerSheetRepository answerSheetRepository = mock(AnswerSheetRepository.class);
+    private final GradingBatchWriter writer = mock(GradingBatchWriter.class);
+    private final ExamStatisticsService examStatisticsService = mock(ExamStatisticsService.class);
+    private final RankingService rankingService = mock(RankingService.class);
+    private final ParentDashboardCache parentDashboardCache = mock(ParentDashboardCache.class);
+    private final BulkGradingService service = new BulkGradingService(markRepository, answerSheetRepository,
+            writer, examStatisticsService, rankingService, parentDashboardCache);
+    private final Exam exam = new Exam();
+
+    @BeforeEach
+    void setUp() {
+        exam.setId(7L);
+        when(markRepository.findGradingRowsByExam(7L)).thenReturn(List.of(
+                new GradingResult.MarkRow(100L, 1L, 60, "ok", true),
+                new GradingResult.MarkRow(101L, 2L, 40, null, false)));
+        when(answerSheetRepository.findGradingRowsByExam(7L)).thenReturn(List.of(
+                new GradingResult.SheetRow(200L, 1L, "GRADED", 60, "ok"),
+                new GradingResult.SheetRow(201L, 3L, "SUBMITTED", null, null)));
+    }
+
+    @Test
+    void writesOnlyTheRowsTheFormChanges() {
+        GradingResult result = service.grade(exam, List.of(
+                new GradeEntry(1L, 60, "ok"),
+                new GradeEntry(2L, 55, "better"),
+                new GradeEntry(3L, 81, "great")));
+
+        assertThat(result).isEqualTo(new GradingResult(3, 1, 1, 1));
+        verify(examStatisticsService).lock(exam);
+        verify(writer).write(7L,
+                List.of(new GradingResult.MarkRow(101L, 2L, 55, "better", true)),
+                List.of(new GradeEntry(3L, 81, "great")),
+                List.of(new GradingResult.SheetRow(201L, 3L, "GRADED", 81, "great")));
+        verify(examStatisticsService).scoresChanged(exam, new int[]{40}, new int[]{55, 81});
+        verify(parentDashboardCache).invalidateStudents(Set.of(2L, 3L));
+        verify(rankingService).examChanged(exam);
+    }
+
+    @Test
+    void publishesAnUnchangedScoreWithoutMovingTheStatistics() {
+        service.grade(exam, List.of(new GradeEntry(2L, 40, null)));
+
+        verify(writer).write(7L, List.of(new GradingResult.MarkRow(101L, 2L, 40, null, true)), List.of(), List.of());
+        verify(examStatisticsService).scoresChanged(exam, new int[0], new int[0]);
+    }
+
+    @Test
+    void leavesEverythingAloneWhenNothingChanged() {
+        service.grade(exam, List.of(new GradeEntry(1L, 60, "ok")));
+
+        verify(writer).write(7L, List.of(), List.of(), List.of());
+        verify(parentDashboardCache, never()).invalidateStudents(anyCollection());
+        verify(examStatisticsService, never()).scoresChanged(any(), any(), any());
+        verify(rankingService, never()).examChanged(any());
+    }
+
+    @Test
+    void rejectsTheWholeFormWhenAScoreIsOutOfRange() {
+        assertThatThrownBy(() -> service.grade(exam, List.of(
+                new GradeEntry(1L, 70, "ok"),
+                new GradeEntry(2L, 120, null))))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("between 0 and 100");
+
+        verify(writer, never()).write(any(), any(), any(), any());
+        verify(examStatisticsService, never()).scoresChanged(any(), any(), any());
+    }
+}
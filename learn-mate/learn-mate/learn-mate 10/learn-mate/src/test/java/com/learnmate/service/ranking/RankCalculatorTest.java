@@ -0,0 +1,37 @@
+package com.learnmate.service.ranking;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RankCalculatorTest {
+
+    @Test
+    void ranksBestFirstAndSharesRanksBetweenTies() {
+        RankCalculator.Result result = RankCalculator.rank(new int[]{70, 95, 80, 80, 40});
+
+        assertThat(result.ranks()).containsExactly(4, 1, 2, 2, 5);
+    }
+
+    @Test
+    void countsTiesAsHalfBelowInThePercentile() {
+        RankCalculator.Result result = RankCalculator.rank(new int[]{70, 95, 80, 80, 40});
+
+        assertThat(result.percentiles()).containsExactly(30.0, 90.0, 60.0, 60.0, 10.0);
+    }
+
+    @Test
+    void givesAWholeClassOnTheSameScoreTheSameRank() {
+        RankCalculator.Result result = RankCalculator.rank(new int[]{5000, 5000, 5000});
+
+        assertThat(result.ranks()).containsExactly(1, 1, 1);
+        assertThat(result.percentiles()).containsExactly(50.0, 50.0, 50.0);
+    }
+
+    @Test
+    void handlesAnEmptyClass() {
+        RankCalculator.Result result = RankCalculator.rank(new int[0]);
+
+        assertThat(result.ranks()).isEmpty();
+    }
+}
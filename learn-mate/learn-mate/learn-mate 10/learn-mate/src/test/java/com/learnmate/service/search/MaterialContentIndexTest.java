@@ -0,0 +1,134 @@
+package com.learnmate.service.search;
+
+import com.learnmate.dto.StoredFileReference;
+import com.learnmate.model.Material;
+import com.learnmate.model.SchoolClass;
+import com.learnmate.model.Subject;
+import com.learnmate.model.User;
+import com.learnmate.repository.MaterialRepository;
+import com.learnmate.service.FileStorageService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class MaterialContentIndexTest {
+    @TempDir
+    Path indexDir;
+
+    private final Map<Long, Material> materials = new HashMap<>();
+    private final Map<String, byte[]> files = new HashMap<>();
+    private MaterialContentIndex index;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        MaterialRepository materialRepository = mock(MaterialRepository.class);
+        when(materialRepository.findById(any())).thenAnswer(call -> Optional.ofNullable(materials.get(call.<Long>getArgument(0))));
+        when(materialRepository.findActiveFileReferences()).thenAnswer(call -> materials.values().stream()
+                .map(material -> new StoredFileReference(material.getId(), material.getFileName())).toList());
+
+        FileStorageService fileStorageService = mock(FileStorageService.class);
+        when(fileStorageService.isDownloadable(anyString(), eq(FileStorageService.FileType.MATERIAL))).thenReturn(true);
+        when(fileStorageService.openFile(anyString(), eq(FileStorageService.FileType.MATERIAL)))
+                .thenAnswer(call -> new ByteArrayInputStream(files.get(call.<String>getArgument(0))));
+
+        MaterialTextExtractor extractor = new MaterialTextExtractor();
+        ReflectionTestUtils.setField(extractor, "maxChars", 10_000);
+
+        index = new MaterialContentIndex(materialRepository, fileStorageService, extractor,
+                mock(MaterialSearchCache.class));
+        ReflectionTestUtils.setField(index, "indexDir", indexDir);
+        ReflectionTestUtils.setField(index, "maxResults", 10);
+        ReflectionTestUtils.invokeMethod(index, "open");
+    }
+
+    @AfterEach
+    void tearDown() {
+        ReflectionTestUtils.invokeMethod(index, "close");
+    }
+
+    @Test
+    void findsWordsInsideFilesRankedAndFiltered() throws IOException {
+        add(1L, "Biology week 3", "biology.txt", "Plants use photosynthesis to turn light into sugar.".getBytes(StandardCharsets.UTF_8), 10L);
+        add(2L, "Photosynthesis summary", "summary.docx", docx("Chlorophyll absorbs light <for> photosynthesis."), 20L);
+        add(3L, "Algebra", "algebra.txt", "Quadratic equations".getBytes(StandardCharsets.UTF_8), 10L);
+        index.reconcile();
+
+        await().atMost(10, TimeUnit.SECONDS).until(() -> index.search("photosynthesis", null, null, null).size() == 2);
+
+        // Title matches outrank body-only matches; stemming finds the plural
+        assertThat(index.search("photosynthesis", null, null, null)).containsExactly(2L, 1L);
+        assertThat(index.search("equation", null, null, null)).containsExactly(3L);
+        assertThat(index.search("photosynthesis", 10L, null, null)).containsExactly(1L);
+        assertThat(index.search("photosynthesis", null, null, List.of(2L))).containsExactly(2L);
+        assertThat(index.search("photosynthesis", Map.of(MaterialFacetIndex.Facet.TEACHER, Set.of("20"))))
+                .containsExactly(2L);
+
+        Map<Long, String> snippets = index.snippets("photosynthesis", List.of(1L, 2L));
+        assertThat(snippets.get(1L)).contains("<mark>photosynthesis</mark>");
+        assertThat(snippets.get(2L)).contains("&lt;for&gt;");
+    }
+
+    @Test
+    void deletedMaterialsDropOutOnReconcile() {
+        add(1L, "Chemistry", "chem.txt", "Covalent bonds".getBytes(StandardCharsets.UTF_8), 10L);
+        index.reconcile();
+        await().atMost(10, TimeUnit.SECONDS).until(() -> !index.search("covalent", null, null, null).isEmpty());
+
+        materials.remove(1L);
+        index.reconcile();
+        await().atMost(10, TimeUnit.SECONDS).until(() -> index.search("covalent", null, null, null).isEmpty());
+    }
+
+    private void add(Long id, String title, String fileName, byte[] content, Long subjectId) {
+        Subject subject = new Subject();
+        subject.setId(subjectId);
+        Material material = new Material();
+        material.setId(id);
+        material.setTitle(title);
+        material.setFileName(fileName);
+        material.setSubject(subject);
+        material.setSchoolClass(new SchoolClass());
+        User teacher = new User();
+        teacher.setId(subjectId);
+        material.setTeacher(teacher);
+        materials.put(id, material);
+        files.put(fileName, content);
+    }
+
+    private static byte[] docx(String paragraph) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+            zip.putNextEntry(new ZipEntry("word/document.xml"));
+            String xml = "<w:document xmlns:w=\"http://schemas.openxmlformats.org/wordprocessingml/2006/main\">"
+                    + "<w:body><w:p><w:r><w:t>" + paragraph.replace("<", "&lt;").replace(">", "&gt;")
+                    + "</w:t></w:r></w:p></w:body></w:document>";
+            zip.write(xml.getBytes(StandardCharsets.UTF_8));
+            zip.closeEntry();
+        }
+        return bytes.toByteArray();
+    }
+}
@@ -0,0 +1,36 @@
+package com.learnmate.service.search;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MaterialSearchCacheTest {
+
+    @Test
+    void classmatesShareEntriesUntilTheCatalogueChanges() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        MaterialSearchCache cache = new MaterialSearchCache(registry);
+        ReflectionTestUtils.setField(cache, "maxEntries", 100L);
+        ReflectionTestUtils.setField(cache, "expireAfterWrite", Duration.ofMinutes(10));
+        ReflectionTestUtils.invokeMethod(cache, "build");
+        AtomicInteger loads = new AtomicInteger();
+
+        cache.get(cache.key("Photosynthesis ", "keyword", 7L, List.of(1L, 2L), null, null, null, 0, 20), loads::incrementAndGet);
+        cache.get(cache.key("photosynthesis", null, 7L, List.of(2L, 1L), null, null, null, 0, 20), loads::incrementAndGet);
+        assertThat(loads).hasValue(1);
+
+        cache.get(cache.key("photosynthesis", "keyword", 8L, List.of(1L, 2L), null, null, null, 0, 20), loads::incrementAndGet);
+        assertThat(loads).hasValue(2);
+
+        cache.invalidate();
+        cache.get(cache.key("photosynthesis", "keyword", 7L, List.of(1L, 2L), null, null, null, 0, 20), loads::incrementAndGet);
+        assertThat(loads).hasValue(3);
+        assertThat(registry.get("material.search.cache.hit.ratio").gauge().value()).isEqualTo(0.25);
+    }
+}
@@ -0,0 +1,156 @@
+package com.learnmate.service.search;
+
+import com.learnmate.dto.MaterialSuggestion;
+import com.learnmate.model.Material;
+import com.learnmate.model.SchoolClass;
+import com.learnmate.model.Subject;
+import com.learnmate.model.User;
+import com.learnmate.repository.MaterialRepository;
+import com.learnmate.service.MaterialPopularityService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.mockito.Mockito.mock;
+
+class MaterialSearchIndexTest {
+    private MaterialSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new MaterialSearchIndex(mock(MaterialRepository.class), mock(MaterialPopularityService.class));
+        index.index(material(1L, "Organic Chemistry notes", "Alkanes and alkenes", "Chemistry", "Grade 12"));
+        index.index(material(2L, "Física cuántica", null, "Physics", "Grade 12"));
+        index.index(material(3L, "Past paper 2023", "Algebra revision", "Mathematics", "Grade 10"));
+    }
+
+    @Test
+    void matchesWordPrefixesAcrossAllFields() {
+        assertThat(index.search("chem")).containsExactly(1L);
+        assertThat(index.search("alk")).containsExactly(1L);
+        assertThat(index.search("grade 12")).containsExactlyInAnyOrder(1L, 2L);
+        assertThat(index.search("MATH past")).containsExactly(3L);
+        assertThat(index.search("fisica")).containsExactly(2L);
+        assertThat(index.search("chemistry 10")).isEmpty();
+    }
+
+    @Test
+    void updatesReplaceOldTermsAndInactiveMaterialsDropOut() {
+        Material renamed = material(3L, "Geometry worksheet", null, "Mathematics", "Grade 10");
+        index.index(renamed);
+        assertThat(index.search("algebra")).isEmpty();
+        assertThat(index.search("geometry")).containsExactly(3L);
+
+        renamed.setActive(false);
+        index.index(renamed);
+        assertThat(index.search("mathematics")).isEmpty();
+
+        index.remove(1L);
+        assertThat(index.size()).isEqualTo(1);
+    }
+
+    @Test
+    void facetCountsIgnoreTheirOwnFilterButRespectScope() {
+        index.remove(1L);
+        index.remove(2L);
+        index.remove(3L);
+        index.index(facetedMaterial(10L, "Algebra notes", 1L, 7L, "application/pdf", 2025, 1));
+        index.index(facetedMaterial(11L, "Algebra worksheet", 1L, 8L, "application/pdf", 2025, 2));
+        index.index(facetedMaterial(12L, "Geometry notes", 1L, 7L, "text/plain", 2025, 2));
+        index.index(facetedMaterial(13L, "Optics notes", 2L, 7L, "application/pdf", 2025, 2));
+
+        MaterialSearchIndex.FacetedPage page = index.facetedSearch("notes", Map.of(),
+                Map.of(MaterialFacetIndex.Facet.SUBJECT, Set.of("1")), 0, 10);
+        assertThat(page.total()).isEqualTo(2);
+        assertThat(page.ids()).containsExactly(12L, 10L);
+        // Subject counts are not narrowed by the subject filter itself
+        assertThat(page.facets().get(MaterialFacetIndex.Facet.SUBJECT))
+                .extracting(MaterialFacetIndex.FacetCount::value, MaterialFacetIndex.FacetCount::count)
+                .containsExactly(tuple("1", 2), tuple("2", 1));
+        assertThat(page.facets().get(MaterialFacetIndex.Facet.MONTH))
+                .extracting(MaterialFacetIndex.FacetCount::value)
+                .containsExactly("2025-01", "2025-02");
+
+        MaterialSearchIndex.FacetedPage scoped = index.facetedSearch(null,
+                Map.of(MaterialFacetIndex.Facet.CLASS, Set.of("8")), Map.of(), 0, 10);
+        assertThat(scoped.ids()).containsExactly(11L);
+        assertThat(scoped.facets().get(MaterialFacetIndex.Facet.CLASS)).hasSize(1);
+
+        MaterialSearchIndex.FacetedPage secondPage = index.facetedSearch(null, Map.of(), Map.of(), 1, 3);
+        assertThat(secondPage.total()).isEqualTo(4);
+        assertThat(secondPage.ids()).isEqualTo(List.of(10L));
+    }
+
+    @Test
+    void suggestionsComeFromTheAudiencesOwnTries() {
+        index.remove(1L);
+        index.remove(2L);
+        index.remove(3L);
+        // Other classes fill every cached top list of the school-wide trie
+        for (long id = 100; id < 200; id++) {
+            index.index(scopedMaterial(id, "Algebra worksheet " + id, 1L, 8L, 5L, id));
+        }
+        index.index(scopedMaterial(10L, "Algebra basics", 1L, 7L, 6L, 1));
+        index.index(scopedMaterial(11L, "Algebra practice", 2L, 7L, 6L, 2));
+
+        Map<MaterialFacetIndex.Facet, Set<String>> student = Map.of(
+                MaterialFacetIndex.Facet.CLASS, Set.of("7"),
+                MaterialFacetIndex.Facet.SUBJECT, Set.of("1", "2"));
+        assertThat(index.suggest("alg", 5, student)).extracting(MaterialSuggestion::id).containsExactly(11L, 10L);
+        assertThat(index.suggest("alg", 5, Map.of(MaterialFacetIndex.Facet.TEACHER, Set.of("6"))))
+                .extracting(MaterialSuggestion::id).containsExactly(11L, 10L);
+        assertThat(index.suggest("alg", 2, Map.of())).extracting(MaterialSuggestion::id).containsExactly(199L, 198L);
+        // Scopes without tries of their own are filtered from the school-wide one
+        assertThat(index.suggest("alg", 5, Map.of(MaterialFacetIndex.Facet.SUBJECT, Set.of("2"))))
+                .extracting(MaterialSuggestion::id).containsExactly(11L);
+
+        // Moving a material to another class moves its suggestions too
+        index.index(scopedMaterial(11L, "Algebra practice", 2L, 8L, 6L, 2));
+        assertThat(index.suggest("alg", 5, student)).extracting(MaterialSuggestion::id).containsExactly(10L);
+        index.remove(10L);
+        assertThat(index.suggest("alg", 5, student)).isEmpty();
+    }
+
+    private static Material scopedMaterial(Long id, String title, Long subjectId, Long classId, Long teacherId,
+                                           long minute) {
+        Material material = material(id, title, null, "Subject " + subjectId, "Class " + classId);
+        material.getSubject().setId(subjectId);
+        material.getSchoolClass().setId(classId);
+        User teacher = new User();
+        teacher.setId(teacherId);
+        material.setTeacher(teacher);
+        material.setUploadedAt(LocalDateTime.of(2025, 1, 1, 0, 0).plusMinutes(minute));
+        return material;
+    }
+
+    private static Material facetedMaterial(Long id, String title, Long subjectId, Long classId, String fileType,
+                                            int year, int month) {
+        Material material = material(id, title, null, "Subject " + subjectId, "Class " + classId);
+        material.getSubject().setId(subjectId);
+        material.getSchoolClass().setId(classId);
+        material.setFileType(fileType);
+        material.setUploadedAt(LocalDateTime.of(year, month, 10, 9, 0));
+        return material;
+    }
+
+    private static Material material(Long id, String title, String description, String subjectName, String className) {
+        Subject subject = new Subject();
+        subject.setName(subjectName);
+        SchoolClass schoolClass = new SchoolClass();
+        schoolClass.setName(className);
+
+        Material material = new Material();
+        material.setId(id);
+        material.setTitle(title);
+        material.setDescription(description);
+        material.setSubject(subject);
+        material.setSchoolClass(schoolClass);
+        return material;
+    }
+}
@@ -0,0 +1,60 @@
+package com.learnmate.service.search;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SuggestionTrieTest {
+
+    @Test
+    void ranksPrefixMatchesByWeightAndForgetsRemovedKeys() {
+        SuggestionTrie trie = new SuggestionTrie();
+        trie.add(1L, List.of("organic chemistry notes", "chemistry notes", "notes", "chemistry"), 10);
+        trie.add(2L, List.of("chemical bonding", "bonding", "chemistry"), 30);
+        trie.add(3L, List.of("chess club", "club", "physical education"), 20);
+
+        assertThat(trie.search("chem", 10, id -> true)).containsExactly(2L, 1L);
+        assertThat(trie.search("che", 10, id -> true)).containsExactly(2L, 3L, 1L);
+        assertThat(trie.search("chemistry n", 10, id -> true)).containsExactly(1L);
+        assertThat(trie.search("chx", 10, id -> true)).isEmpty();
+
+        trie.add(2L, List.of("bonding"), 30);
+        assertThat(trie.search("chem", 10, id -> true)).containsExactly(1L);
+        trie.remove(1L);
+        assertThat(trie.search("che", 10, id -> true)).containsExactly(3L);
+        assertThat(trie.search("b", 10, id -> true)).containsExactly(2L);
+        assertThat(trie.size()).isEqualTo(2);
+    }
+
+    @Test
+    void filtersBeyondTheCachedTopEntries() {
+        SuggestionTrie trie = new SuggestionTrie();
+        for (long id = 0; id < 200; id++) {
+            trie.add(id, List.of("algebra worksheet " + id), id);
+        }
+
+        assertThat(trie.search("alg", 3, id -> true)).containsExactly(199L, 198L, 197L);
+        // Only old entries pass, none of which are in the root-of-prefix top list
+        assertThat(trie.search("algebra", 2, id -> id < 5)).containsExactly(4L, 3L);
+        assertThat(trie.search("algebra worksheet 1", 40, id -> true)).hasSize(40).startsWith(199L);
+    }
+
+    @Test
+    void mergesTheTopListsOfSeveralTries() {
+        SuggestionTrie busy = new SuggestionTrie();
+        for (long id = 0; id < 100; id++) {
+            busy.add(id, List.of("algebra worksheet " + id), 1000 + id);
+        }
+        SuggestionTrie quiet = new SuggestionTrie();
+        quiet.add(500L, List.of("algebra revision", "revision"), 1050);
+        quiet.add(501L, List.of("geometry revision", "revision"), 2000);
+
+        assertThat(SuggestionTrie.search(List.of(busy, quiet), "alg", 3)).containsExactly(99L, 98L, 97L);
+        assertThat(SuggestionTrie.search(List.of(busy, quiet), "algebra", 52)).hasSize(52).contains(500L)
+                .containsSubsequence(51L, 500L, 50L);
+        assertThat(SuggestionTrie.search(List.of(quiet), "revision", 10)).containsExactly(501L, 500L);
+        assertThat(SuggestionTrie.search(List.of(), "alg", 3)).isEmpty();
+    }
+}
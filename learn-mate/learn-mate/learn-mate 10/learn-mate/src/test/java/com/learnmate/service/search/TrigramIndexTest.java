@@ -0,0 +1,40 @@
+package com.learnmate.service.search;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TrigramIndexTest {
+
+    @Test
+    void toleratesTyposAndRanksClosestFirst() {
+        TrigramIndex index = new TrigramIndex();
+        index.add(1L, "Mathematics revision guide");
+        index.add(2L, "Chemistry kinetics notes Chemistry");
+        index.add(3L, "Organic chemistry past paper Chemistry");
+        index.add(4L, "Mathematical methods Mathematics");
+        index.add(5L, "Biology cells worksheet");
+
+        assertThat(index.search("mathmatics", 10)).containsExactlyInAnyOrder(1L, 4L);
+        assertThat(index.search("chemestry kinetcs", 10)).startsWith(2L);
+        assertThat(index.search("revison", 10)).containsExactly(1L);
+        assertThat(index.search("zzzz", 10)).isEmpty();
+    }
+
+    @Test
+    void removedEntriesStopMatching() {
+        TrigramIndex index = new TrigramIndex();
+        for (long id = 0; id < 3000; id++) {
+            index.add(id, "Physics optics " + id);
+        }
+        for (long id = 0; id < 2000; id++) {
+            index.remove(id);
+        }
+        index.add(1L, "Geography climate");
+
+        assertThat(index.size()).isEqualTo(1001);
+        assertThat(index.search("physcs", 2000)).hasSize(1000).doesNotContain(5L);
+        assertThat(index.search("geografy", 5)).containsExactly(1L);
+        assertThat(TrigramIndex.levenshtein("chemestry", "chemistry")).isEqualTo(1);
+    }
+}
@@ -0,0 +1,310 @@
+package com.learnmate.service.storage;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.S3Configuration;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.Arrays;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Runs the S3 backend against a minimal in-process stand-in for MinIO, so the
+ * request/response handling is exercised without an external service.
+ */
+class S3BlobStoreTest {
+    private static final String BUCKET = "learn-mate";
+    private static final byte[] CONTENT = "%PDF-1.7 sample content".getBytes(StandardCharsets.UTF_8);
+
+    private FakeS3Server server;
+    private S3BlobStore blobStore;
+
+    @BeforeEach
+    void startStore() throws IOException {
+        server = new FakeS3Server();
+        URI endpoint = server.start();
+
+        StaticCredentialsProvider credentials = StaticCredentialsProvider.create(AwsBasicCredentials.create("minio", "minio123"));
+        S3Configuration pathStyle = S3Configuration.builder().pathStyleAccessEnabled(true).build();
+        blobStore = new S3BlobStore(
+                S3Client.builder().endpointOverride(endpoint).region(Region.US_EAST_1)
+                        .credentialsProvider(credentials).serviceConfiguration(pathStyle).build(),
+                S3Presigner.builder().endpointOverride(endpoint).region(Region.US_EAST_1)
+                        .credentialsProvider(credentials).serviceConfiguration(pathStyle).build(),
+                BUCKET);
+    }
+
+    @AfterEach
+    void stopStore() {
+        blobStore.close();
+        server.stop();
+    }
+
+    @Test
+    void shouldStoreReadAndDescribeBlobs() throws IOException {
+        blobStore.put("materials/a.pdf", new ByteArrayInputStream(CONTENT), CONTENT.length, "application/pdf");
+
+        try (InputStream in = blobStore.get("materials/a.pdf")) {
+            assertThat(in.readAllBytes()).isEqualTo(CONTENT);
+        }
+        try (InputStream in = blobStore.getRange("materials/a.pdf", 5, 3)) {
+            assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("1.7");
+        }
+
+        BlobMetadata metadata = blobStore.stat("materials/a.pdf").orElseThrow();
+        assertThat(metadata.size()).isEqualTo(CONTENT.length);
+        assertThat(metadata.contentType()).isEqualTo("application/pdf");
+        assertThat(metadata.fileName()).isEqualTo("a.pdf");
+        assertThat(blobStore.stat("materials/missing.pdf")).isEmpty();
+    }
+
+    @Test
+    void shouldListMoveAndDeleteBlobs() {
+        blobStore.put("exams/one.pdf", new ByteArrayInputStream(CONTENT), CONTENT.length, "application/pdf");
+        blobStore.put("exams/two.pdf", new ByteArrayInputStream(CONTENT), CONTENT.length, "application/pdf");
+        blobStore.put("materials/three.pdf", new ByteArrayInputStream(CONTENT), CONTENT.length, "application/pdf");
+
+        try (Stream<BlobMetadata> blobs = blobStore.list("exams/")) {
+            assertThat(blobs.map(BlobMetadata::key)).containsExactly("exams/one.pdf", "exams/two.pdf");
+        }
+
+        blobStore.move("exams/one.pdf", ".quarantine/exams/one.pdf");
+        assertThat(blobStore.stat("exams/one.pdf")).isEmpty();
+        assertThat(blobStore.stat(".quarantine/exams/one.pdf")).isPresent();
+
+        blobStore.delete("exams/two.pdf");
+        blobStore.delete("exams/never-existed.pdf");
+        assertThat(blobStore.stat("exams/two.pdf")).isEmpty();
+    }
+
+    @Test
+    void shouldServeBlobThroughPresignedUrl() throws Exception {
+        blobStore.put("answer-sheets/s.pdf", new ByteArrayInputStream(CONTENT), CONTENT.length, "application/pdf");
+
+        URI url = blobStore.presignedGetUrl("answer-sheets/s.pdf", Duration.ofMinutes(5), "answer.pdf", "application/pdf")
+                .orElseThrow();
+        assertThat(url.getPath()).isEqualTo("/" + BUCKET + "/answer-sheets/s.pdf");
+        assertThat(url.getQuery()).contains("X-Amz-Signature=", "X-Amz-Expires=300", "response-content-disposition=");
+
+        HttpResponse<byte[]> response = HttpClient.newHttpClient()
+                .send(HttpRequest.newBuilder(url).build(), HttpResponse.BodyHandlers.ofByteArray());
+        assertThat(response.statusCode()).isEqualTo(200);
+        assertThat(response.body()).isEqualTo(CONTENT);
+    }
+
+    @Test
+    void shouldServeRangeRequestsThroughBlobResource() throws IOException {
+        blobStore.put("materials/r.pdf", new ByteArrayInputStream(CONTENT), CONTENT.length, "application/pdf");
+        BlobResource resource = new BlobResource(blobStore, blobStore.stat("materials/r.pdf").orElseThrow());
+
+        try (InputStream in = resource.getInputStream()) {
+            assertThat(in.skip(9)).isEqualTo(9);
+            assertThat(new String(in.readAllBytes(), StandardCharsets.UTF_8)).isEqualTo("sample content");
+        }
+        assertThat(server.lastRange).isEqualTo("bytes=9-" + (CONTENT.length - 1));
+    }
+
+    /**
+     * Just enough of the S3 REST API (path-style addressing) for the calls S3BlobStore makes.
+     * Signatures are not verified.
+     */
+    private static final class FakeS3Server {
+        private static final DateTimeFormatter ISO = DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'").withZone(ZoneOffset.UTC);
+
+        private final Map<String, StoredObject> objects = new ConcurrentSkipListMap<>();
+        private volatile String lastRange;
+        private HttpServer httpServer;
+
+        URI start() throws IOException {
+            httpServer = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+            httpServer.createContext("/", this::handle);
+            httpServer.start();
+            return URI.create("http://127.0.0.1:" + httpServer.getAddress().getPort());
+        }
+
+        void stop() {
+            httpServer.stop(0);
+        }
+
+        private void handle(HttpExchange exchange) throws IOException {
+            try (exchange) {
+                String path = exchange.getRequestURI().getPath();
+                String key = path.substring(Math.min(path.length(), BUCKET.length() + 2));
+                switch (exchange.getRequestMethod()) {
+                    case "PUT" -> put(exchange, key);
+                    case "GET" -> {
+                        if (key.isEmpty()) {
+                            list(exchange);
+                        } else {
+                            get(exchange, key, true);
+                        }
+                    }
+                    case "HEAD" -> get(exchange, key, false);
+                    case "DELETE" -> {
+                        objects.remove(key);
+                        exchange.sendResponseHeaders(204, -1);
+                    }
+                    default -> exchange.sendResponseHeaders(405, -1);
+                }
+            }
+        }
+
+        private void put(HttpExchange exchange, String key) throws IOException {
+            String copySource = exchange.getRequestHeaders().getFirst("x-amz-copy-source");
+            if (copySource != null) {
+                String sourceKey = URLDecoder.decode(copySource, StandardCharsets.UTF_8).replaceFirst("^/?" + BUCKET + "/", "");
+                StoredObject source = objects.get(sourceKey);
+                StoredObject copy = new StoredObject(source.content(), source.contentType(), Instant.now());
+                objects.put(key, copy);
+                send(exchange, 200, "<CopyObjectResult><LastModified>" + ISO.format(copy.lastModified())
+                        + "</LastModified><ETag>\"" + copy.etag() + "\"</ETag></CopyObjectResult>");
+                return;
+            }
+
+            byte[] body = exchange.getRequestBody().readAllBytes();
+            String payloadMode = exchange.getRequestHeaders().getFirst("x-amz-content-sha256");
+            if (payloadMode != null && payloadMode.startsWith("STREAMING-")) {
+                body = decodeChunks(body);
+            }
+            StoredObject object = new StoredObject(body, exchange.getRequestHeaders().getFirst("Content-Type"), Instant.now());
+            objects.put(key, object);
+            exchange.getResponseHeaders().add("ETag", "\"" + object.etag() + "\"");
+            exchange.sendResponseHeaders(200, -1);
+        }
+
+        private void get(HttpExchange exchange, String key, boolean withBody) throws IOException {
+            StoredObject object = objects.get(key);
+            if (object == null) {
+                if (withBody) {
+                    send(exchange, 404, "<Error><Code>NoSuchKey</Code><Message>Not found</Message></Error>");
+                } else {
+                    exchange.sendResponseHeaders(404, -1);
+                }
+                return;
+            }
+
+            byte[] content = object.content();
+            int status = 200;
+            String range = exchange.getRequestHeaders().getFirst("Range");
+            if (range != null && withBody) {
+                lastRange = range;
+                String[] bounds = range.substring("bytes=".length()).split("-");
+                int from = Integer.parseInt(bounds[0]);
+                int to = Integer.parseInt(bounds[1]);
+                exchange.getResponseHeaders().add("Content-Range", "bytes " + from + "-" + to + "/" + content.length);
+                content = Arrays.copyOfRange(content, from, to + 1);
+                status = 206;
+            }
+
+            exchange.getResponseHeaders().add("Content-Type", object.contentType());
+            exchange.getResponseHeaders().add("ETag", "\"" + object.etag() + "\"");
+            exchange.getResponseHeaders().add("Last-Modified",
+                    DateTimeFormatter.RFC_1123_DATE_TIME.format(object.lastModified().atZone(ZoneOffset.UTC)));
+            if (withBody) {
+                exchange.sendResponseHeaders(status, content.length);
+                exchange.getResponseBody().write(content);
+            } else {
+                exchange.getResponseHeaders().add("Content-Length", String.valueOf(content.length));
+                exchange.sendResponseHeaders(status, -1);
+            }
+        }
+
+        private void list(HttpExchange exchange) throws IOException {
+            String query = exchange.getRequestURI().getQuery();
+            String prefix = "";
+            for (String parameter : query == null ? new String[0] : query.split("&")) {
+                if (parameter.startsWith("prefix=")) {
+                    prefix = URLDecoder.decode(parameter.substring("prefix=".length()), StandardCharsets.UTF_8);
+                }
+            }
+
+            StringBuilder xml = new StringBuilder("<ListBucketResult xmlns=\"http://s3.amazonaws.com/doc/2006-03-01/\">")
+                    .append("<Name>").append(BUCKET).append("</Name><Prefix>").append(prefix)
+                    .append("</Prefix><IsTruncated>false</IsTruncated>");
+            String keyPrefix = prefix;
+            List<Map.Entry<String, StoredObject>> matches = objects.entrySet().stream()
+                    .filter(entry -> entry.getKey().startsWith(keyPrefix))
+                    .toList();
+            for (Map.Entry<String, StoredObject> entry : matches) {
+                xml.append("<Contents><Key>").append(entry.getKey()).append("</Key><LastModified>")
+                        .append(ISO.format(entry.getValue().lastModified())).append("</LastModified><Size>")
+                        .append(entry.getValue().content().length).append("</Size></Contents>");
+            }
+            xml.append("<KeyCount>").append(matches.size()).append("</KeyCount></ListBucketResult>");
+            send(exchange, 200, xml.toString());
+        }
+
+        private void send(HttpExchange exchange, int status, String xml) throws IOException {
+            byte[] body = xml.getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().add("Content-Type", "application/xml");
+            exchange.sendResponseHeaders(status, body.length);
+            exchange.getResponseBody().write(body);
+        }
+
+        // aws-chunked framing: "<hex size>;chunk-signature=...\r\n<data>\r\n", ending with a zero-size chunk
+        private static byte[] decodeChunks(byte[] body) {
+            ByteArrayOutputStream decoded = new ByteArrayOutputStream();
+            int position = 0;
+            while (position < body.length) {
+                int lineEnd = indexOfCrlf(body, position);
+                String header = new String(body, position, lineEnd - position, StandardCharsets.US_ASCII);
+                int size = Integer.parseInt(header.split(";")[0], 16);
+                if (size == 0) {
+                    break;
+                }
+                decoded.write(body, lineEnd + 2, size);
+                position = lineEnd + 2 + size + 2;
+            }
+            return decoded.toByteArray();
+        }
+
+        private static int indexOfCrlf(byte[] body, int from) {
+            for (int i = from; i < body.length - 1; i++) {
+                if (body[i] == '\r' && body[i + 1] == '\n') {
+                    return i;
+                }
+            }
+            return body.length;
+        }
+    }
+
+    private record StoredObject(byte[] content, String contentType, Instant lastModified) {
+
+        String etag() {
+            try {
+                return HexFormat.of().formatHex(MessageDigest.getInstance("MD5").digest(content));
+            } catch (Exception ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.learnmate.service.timetable;
+
+import com.learnmate.dto.TimetableConflict;
+import com.learnmate.model.SchoolClass;
+import com.learnmate.model.Timetable;
+import com.learnmate.model.User;
+import com.learnmate.repository.TimetableRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.DayOfWeek;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TimetableConflictIndexTest {
+
+    @Test
+    void intervalTreeMatchesBruteForceThroughInsertsAndRemovals() {
+        Random random = new Random(42);
+        IntervalTree<Long> tree = new IntervalTree<>();
+        Map<Long, int[]> intervals = new HashMap<>();
+        for (long id = 0; id < 2_000; id++) {
+            int start = random.nextInt(1_000);
+            int end = start + 1 + random.nextInt(60);
+            tree.insert(start, end, id, id);
+            intervals.put(id, new int[]{start, end});
+            if (random.nextInt(3) == 0) {
+                long removed = random.nextInt((int) id + 1);
+                int[] interval = intervals.remove(removed);
+                assertThat(tree.remove(interval != null ? interval[0] : -1, removed)).isEqualTo(interval != null);
+            }
+        }
+        assertThat(tree.size()).isEqualTo(intervals.size());
+
+        for (int query = 0; query < 200; query++) {
+            int start = random.nextInt(1_100);
+            int end = start + 1 + random.nextInt(40);
+            List<Long> expected = new ArrayList<>();
+            intervals.forEach((id, interval) -> {
+                if (interval[0] < end && interval[1] > start) {
+                    expected.add(id);
+                }
+            });
+            assertThat(tree.overlapping(start, end)).containsExactlyInAnyOrderElementsOf(expected);
+        }
+    }
+
+    @Test
+    void findsClashesPerClassTeacherAndRoomAndFollowsUpdates() {
+        User smith = teacher(1L, "Ms Smith");
+        User jones = teacher(2L, "Mr Jones");
+        SchoolClass tenA = schoolClass(10L, "10A");
+        SchoolClass tenB = schoolClass(11L, "10B");
+        Timetable maths = slot(100L, "Maths", tenA, smith, "Room 1", 9, 10);
+        Timetable physics = slot(101L, "Physics", tenB, jones, "Room 2", 9, 10);
+
+        TimetableRepository repository = mock(TimetableRepository.class);
+        when(repository.findAll()).thenReturn(List.of(maths, physics));
+        TimetableConflictIndex index = new TimetableConflictIndex(repository);
+
+        // Back-to-back lessons do not clash
+        assertThat(index.conflictsWith(slot(null, "Art", tenA, jones, "Room 3", 10, 11))).isEmpty();
+
+        Timetable chemistry = slot(null, "Chemistry", tenB, smith, " room 1 ", 9, 11);
+        assertThat(index.conflictsWith(chemistry))
+                .extracting(TimetableConflict::dimension)
+                .containsExactlyInAnyOrder(TimetableConflictIndex.Dimension.CLASS,
+                        TimetableConflictIndex.Dimension.TEACHER, TimetableConflictIndex.Dimension.ROOM);
+        // A lesson never clashes with its own current slot
+        assertThat(index.conflictsWith(maths)).isEmpty();
+        assertThat(index.findAllConflicts()).isEmpty();
+
+        chemistry.setId(102L);
+        index.index(chemistry);
+        assertThat(index.findAllConflicts()).hasSize(3);
+
+        chemistry.setStartTime(LocalTime.of(13, 0));
+        chemistry.setEndTime(LocalTime.of(14, 0));
+        index.index(chemistry);
+        assertThat(index.findAllConflicts()).isEmpty();
+
+        index.remove(100L);
+        assertThat(index.conflictsWith(slot(null, "Biology", tenA, smith, "Room 1", 9, 10))).isEmpty();
+    }
+
+    private static Timetable slot(Long id, String title, SchoolClass schoolClass, User teacher, String room,
+                                  int startHour, int endHour) {
+        Timetable timetable = new Timetable();
+        timetable.setId(id);
+        timetable.setTitle(title);
+        timetable.setSchoolClass(schoolClass);
+        timetable.setTeacher(teacher);
+        timetable.setRoom(room);
+        timetable.setDay(DayOfWeek.MONDAY);
+        timetable.setStartTime(LocalTime.of(startHour, 0));
+        timetable.setEndTime(LocalTime.of(endHour, 0));
+        return timetable;
+    }
+
+    private static User teacher(Long id, String name) {
+        User user = new User();
+        user.setId(id);
+        user.setName(name);
+        return user;
+    }
+
+    private static SchoolClass schoolClass(Long id, String name) {
+        SchoolClass schoolClass = new SchoolClass();
+        schoolClass.setId(id);
+        schoolClass.setName(name);
+        return schoolClass;
+    }
+}
@@ -0,0 +1,97 @@
+package com.learnmate.service.timetable;
+
+import com.learnmate.dto.TimetableGrid;
+import com.learnmate.model.Subject;
+import com.learnmate.model.Timetable;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.DayOfWeek;
+import java.time.Duration;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimetableGridCacheTest {
+
+    @Test
+    void classmatesWithTheSameSubjectsShareAGridUntilATimetableChanges() {
+        TimetableGridCache cache = new TimetableGridCache(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(cache, "maxEntries", 100L);
+        ReflectionTestUtils.setField(cache, "expireAfterWrite", Duration.ofMinutes(10));
+        ReflectionTestUtils.invokeMethod(cache, "build");
+        AtomicInteger loads = new AtomicInteger();
+        List<Timetable> lessons = List.of(
+                lesson(2L, "Physics", DayOfWeek.MONDAY, 10),
+                lesson(1L, "Maths", DayOfWeek.MONDAY, 8),
+                lesson(3L, "Art", DayOfWeek.SATURDAY, 9));
+
+        TimetableGrid first = cache.get(cache.forClass(7L, List.of(1L, 2L)), () -> {
+            loads.incrementAndGet();
+            return lessons;
+        });
+        TimetableGrid second = cache.get(cache.forClass(7L, List.of(2L, 1L)), () -> {
+            loads.incrementAndGet();
+            return lessons;
+        });
+        assertThat(loads).hasValue(1);
+        assertThat(second).isSameAs(first);
+
+        assertThat(first.timeSlots()).containsExactly("08:00-09:00", "10:00-11:00");
+        assertThat(first.cells().get("MONDAY|10:00-11:00")).extracting(TimetableGrid.Entry::subjectName)
+                .containsExactly("Physics");
+        // Weekend lessons are counted but have no column
+        assertThat(first.entries()).hasSize(3);
+
+        cache.invalidate();
+        TimetableGrid rebuilt = cache.get(cache.forClass(7L, List.of(1L, 2L)), () -> {
+            loads.incrementAndGet();
+            return List.of(lessons.get(1), lessons.get(0), lessons.get(2));
+        });
+        assertThat(loads).hasValue(2);
+        // Same lessons in another order: browsers keep their copy
+        assertThat(rebuilt.etag()).isEqualTo(first.etag());
+
+        lessons.get(0).setRoom("Lab 2");
+        assertThat(TimetableGridCache.build(lessons).etag()).isNotEqualTo(first.etag());
+    }
+
+    @Test
+    void changesInsideATransactionInvalidateOnlyOnceCommitted() {
+        TimetableGridCache cache = new TimetableGridCache(new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(cache, "maxEntries", 100L);
+        ReflectionTestUtils.setField(cache, "expireAfterWrite", Duration.ofMinutes(10));
+        ReflectionTestUtils.invokeMethod(cache, "build");
+        TimetableGridCache.Key before = cache.forSchool();
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            cache.invalidate();
+            // A reader starting now still sees the committed lessons, so its grid may be kept
+            assertThat(cache.forSchool()).isEqualTo(before);
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        assertThat(cache.forSchool()).isNotEqualTo(before);
+    }
+
+    private static Timetable lesson(Long id, String subjectName, DayOfWeek day, int hour) {
+        Subject subject = new Subject();
+        subject.setName(subjectName);
+        Timetable timetable = new Timetable();
+        timetable.setId(id);
+        timetable.setTitle(subjectName);
+        timetable.setSubject(subject);
+        timetable.setDay(day);
+        timetable.setStartTime(LocalTime.of(hour, 0));
+        timetable.setEndTime(LocalTime.of(hour + 1, 0));
+        return timetable;
+    }
+}
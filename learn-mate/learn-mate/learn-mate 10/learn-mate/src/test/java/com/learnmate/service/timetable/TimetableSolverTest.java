@@ -0,0 +1,58 @@
+package com.learnmate.service.timetable;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimetableSolverTest {
+
+    @Test
+    void fillsAFullWeekWithoutClashes() {
+        // 12 classes, each taught 6 subjects 5 times across a 5 x 6 week: every period is taken
+        int classes = 12;
+        int subjects = 6;
+        int[] classSizes = new int[classes];
+        for (int c = 0; c < classes; c++) {
+            classSizes[c] = 20 + 2 * c;
+        }
+        int[] roomCapacities = {30, 30, 30, 30, 30, 30, 45, 45, 45, 45, 45, 45, 45};
+        int teachers = 16;
+        List<TimetableProblem.Course> courses = new ArrayList<>();
+        for (int c = 0; c < classes; c++) {
+            for (int s = 0; s < subjects; s++) {
+                // Each subject has a handful of qualified teachers, each teacher two subjects
+                List<Integer> qualified = new ArrayList<>();
+                for (int t = 0; t < teachers; t++) {
+                    if (t % subjects == s || (t + 1) % subjects == s) {
+                        qualified.add(t);
+                    }
+                }
+                courses.add(new TimetableProblem.Course(c, s, 5, qualified.stream().mapToInt(Integer::intValue).toArray()));
+            }
+        }
+        TimetableProblem problem = new TimetableProblem(5, 6, classSizes, roomCapacities, teachers, courses);
+
+        TimetableSolution solution = new TimetableSolver(2, Duration.ofSeconds(30), 1L).solve(problem, progress -> {
+        });
+
+        assertThat(solution.isFeasible()).isTrue();
+        assertThat(solution.lessons()).hasSize(problem.lessonCount());
+        Set<String> taken = new HashSet<>();
+        for (TimetableSolution.Lesson lesson : solution.lessons()) {
+            TimetableProblem.Course course = courses.get(lesson.course());
+            String slot = lesson.day() + "/" + lesson.period();
+            assertThat(taken.add("class " + course.schoolClass() + " " + slot)).isTrue();
+            assertThat(taken.add("teacher " + lesson.teacher() + " " + slot)).isTrue();
+            assertThat(taken.add("room " + lesson.room() + " " + slot)).isTrue();
+            assertThat(taken.add("course " + lesson.course() + " day " + lesson.day())).isTrue();
+            assertThat(course.teachers()).contains(lesson.teacher());
+            assertThat(roomCapacities[lesson.room()]).isGreaterThanOrEqualTo(classSizes[course.schoolClass()]);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.learnmate.service.validation;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Talks to a fake clamd that decodes the INSTREAM framing and answers the way the real
+ * daemon does.
+ */
+class ClamAvUploadScannerTest {
+    private static final String EICAR = "X5O!P%@AP[4\\PZX54(P^)7CC)7}$EICAR-STANDARD-ANTIVIRUS-TEST-FILE!$H+H*";
+
+    private ServerSocket server;
+    private Thread serverThread;
+    private final AtomicReference<byte[]> received = new AtomicReference<>();
+    private ClamAvUploadScanner scanner;
+
+    @BeforeEach
+    void startClamd() throws IOException {
+        server = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+        serverThread = new Thread(this::serve, "fake-clamd");
+        serverThread.setDaemon(true);
+        serverThread.start();
+        scanner = new ClamAvUploadScanner("127.0.0.1", server.getLocalPort(), Duration.ofSeconds(5));
+    }
+
+    @AfterEach
+    void stopClamd() throws IOException {
+        server.close();
+    }
+
+    @Test
+    void cleanFileIsOk() throws IOException {
+        byte[] content = new byte[200 * 1024];
+        Arrays.fill(content, (byte) 'a');
+
+        ScanResult result = scanner.scan(new ByteArrayInputStream(content));
+
+        assertThat(result.clean()).isTrue();
+        // Streamed over several chunks and reassembled intact
+        assertThat(received.get()).isEqualTo(content);
+    }
+
+    @Test
+    void infectedFileReportsSignature() throws IOException {
+        ScanResult result = scanner.scan(new ByteArrayInputStream(EICAR.getBytes(StandardCharsets.US_ASCII)));
+
+        assertThat(result.clean()).isFalse();
+        assertThat(result.signature()).isEqualTo("Eicar-Signature");
+    }
+
+    @Test
+    void daemonErrorIsNotAVerdict() {
+        assertThatThrownBy(() -> ClamAvUploadScanner.parseReply("INSTREAM size limit exceeded. ERROR"))
+                .isInstanceOf(IOException.class);
+    }
+
+    private void serve() {
+        while (!server.isClosed()) {
+            try (Socket socket = server.accept()) {
+                DataInputStream in = new DataInputStream(socket.getInputStream());
+                byte[] command = new byte["zINSTREAM\0".length()];
+                in.readFully(command);
+
+                ByteArrayOutputStream content = new ByteArrayOutputStream();
+                int length;
+                while ((length = in.readInt()) > 0) {
+                    content.write(in.readNBytes(length));
+                }
+                received.set(content.toByteArray());
+
+                String reply = content.toString(StandardCharsets.US_ASCII).contains("EICAR-STANDARD-ANTIVIRUS-TEST-FILE")
+                        ? "stream: Eicar-Signature FOUND" : "stream: OK";
+                OutputStream out = socket.getOutputStream();
+                out.write((reply + "\0").getBytes(StandardCharsets.US_ASCII));
+                out.flush();
+            } catch (IOException ex) {
+                // server closed
+            }
+        }
+    }
+}